@@ -0,0 +1 @@
+CREATE INDEX users_username_id_idx ON users (username, id)
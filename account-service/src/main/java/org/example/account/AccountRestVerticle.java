@@ -14,8 +14,12 @@ import org.example.account.service.AccountService;
 import org.example.account.user.filter.UserListPageAndSort;
 import org.example.microservicecommon.RestApiVerticle;
 import org.example.microservicecommon.exception.RestApiException;
+import org.example.microservicecommon.http.AbstractQueryFilter;
+import org.example.microservicecommon.http.AbstractQueryPageAndSort;
 import org.example.microservicecommon.http.ApiResponse;
-import org.example.microservicecommon.http.PagedResponse;
+import org.example.microservicecommon.http.JsonResponseWriter;
+import org.example.microservicecommon.http.QueryParams;
+import org.example.microservicecommon.util.DeadlineUtils;
 import org.example.microservicecommon.util.RequestUtils;
 
 import java.util.List;
@@ -49,6 +53,7 @@ public class AccountRestVerticle extends RestApiVerticle {
         router.route().handler(BodyHandler.create());
         router.get("/users").handler(this::listAllUsers);
         router.post("/users").handler(this::createUser);
+        router.get("/metrics").handler(this::metrics);
         this.addSubRouter(router);
 
         final String host = config().getString("account.http.address", "localhost");
@@ -73,11 +78,13 @@ public class AccountRestVerticle extends RestApiVerticle {
      * @param ctx request context
      */
     private void listAllUsers(final RoutingContext ctx) {
-        final JsonObject queryParams = RequestUtils.getQueryParams(ctx);
+        final QueryParams queryParams = RequestUtils.getQueryParams(ctx);
         final UserListFilter userListFilter = new UserListFilter(queryParams);
         final UserListPageAndSort pageAndSort = new UserListPageAndSort(queryParams);
 
-        accountService.listAllUsers(userListFilter, pageAndSort, res -> {
+        final long deadline = DeadlineUtils.fromRequest(ctx.request());
+
+        accountService.listAllUsers(userListFilter, pageAndSort, deadline, res -> {
             if (res.succeeded()) {
                 final UserPage users = res.result();
                 final List<UserDto> userList = users
@@ -86,18 +93,15 @@ public class AccountRestVerticle extends RestApiVerticle {
                         .map(UserDto::new)
                         .collect(Collectors.toList());
 
-                final ApiResponse response = new ApiResponse(
+                ctx.response().end(JsonResponseWriter.writePage(
                         200,
-                        new PagedResponse(
-                                "users",
-                                userList,
-                                users.getPage(),
-                                users.getSize(),
-                                users.getTotalElements()
-                        ).toJson()
-                );
-
-                ctx.response().end(response.toJson().encode());
+                        "users",
+                        userList,
+                        users.getPage(),
+                        users.getSize(),
+                        users.getTotalElements(),
+                        users.getNext()
+                ));
             } else {
                 final RestApiException restException = new RestApiException(res.cause());
 
@@ -110,7 +114,9 @@ public class AccountRestVerticle extends RestApiVerticle {
         final JsonObject reqBody = ctx.getBodyAsJson();
         final CreateUserReqDto createUserReqDto = new CreateUserReqDto(reqBody);
 
-        accountService.createUser(createUserReqDto, res -> {
+        final long deadline = DeadlineUtils.fromRequest(ctx.request());
+
+        accountService.createUser(createUserReqDto, deadline, res -> {
             if (res.succeeded()) {
                 final CreateUserResDto result = res.result();
 
@@ -127,4 +133,18 @@ public class AccountRestVerticle extends RestApiVerticle {
             }
         });
     }
+
+    /**
+     * Handler for service metrics: load shedding and the compiled query spec caches of this JVM.
+     * @param ctx request context
+     */
+    private void metrics(final RoutingContext ctx) {
+        final JsonObject metrics = new JsonObject()
+                .put("loadShedding", admissionController.metrics())
+                .put("queryCache", new JsonObject()
+                        .put("pageAndSort", AbstractQueryPageAndSort.specCacheMetrics())
+                        .put("filters", AbstractQueryFilter.predicateCacheMetrics()));
+
+        ctx.response().end(metrics.encode());
+    }
 }
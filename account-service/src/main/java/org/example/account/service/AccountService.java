@@ -31,18 +31,25 @@ public interface AccountService {
      * List all users
      * @param filter query filters
      * @param pageAndSort pagination and sort
+     * @param deadline request deadline in epoch milliseconds, 0 for none
      * @param resultHandler handler to be called once all users are fetched
      */
     void listAllUsers(
             UserListFilter filter,
             UserListPageAndSort pageAndSort,
+            long deadline,
             Handler<AsyncResult<UserPage>> resultHandler
     );
 
     /**
      * Create an user.
      * @param newUserDto request body containing user details
+     * @param deadline request deadline in epoch milliseconds, 0 for none
      * @param resultHandler handler to be called once all user is created
      */
-    void createUser(CreateUserReqDto newUserDto, Handler<AsyncResult<CreateUserResDto>> resultHandler);
+    void createUser(
+            CreateUserReqDto newUserDto,
+            long deadline,
+            Handler<AsyncResult<CreateUserResDto>> resultHandler
+    );
 }
@@ -11,45 +11,108 @@ import org.example.account.user.dataobject.page.UserPage;
 import org.example.account.user.filter.UserListFilter;
 import org.example.account.user.UserService;
 import org.example.account.user.filter.UserListPageAndSort;
+import org.example.microservicecommon.admission.WorkerTasks;
+import org.example.microservicecommon.exception.DeadlineExceededException;
+import org.example.microservicecommon.util.DeadlineUtils;
 import org.springframework.context.ApplicationContext;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 
+import java.util.List;
+
+/**
+ * JPA implementation of {@link AccountService}.
+ * The time left before the request deadline is applied as the statement timeout of the DB transaction,
+ * and a request whose deadline passed while it was queued for a worker thread fails without touching the DB.
+ */
 public class JpaAccountService implements AccountService {
 
     private Vertx vertx;
 
     private UserService userService;
 
+    /**
+     * Worker pool, with the count of queued tasks used for load shedding.
+     */
+    private WorkerTasks workerTasks;
+
     public JpaAccountService(final Vertx vertx, final ApplicationContext appContext) {
         this.vertx = vertx;
         this.userService = (UserService) appContext.getBean("userService");
+        this.workerTasks = WorkerTasks.get(vertx);
     }
 
     @Override
     public void listAllUsers(
             final UserListFilter filter,
             final UserListPageAndSort pageAndSort,
+            final long deadline,
             final Handler<AsyncResult<UserPage>> resultHandler) {
-        vertx.<UserPage>executeBlocking(promise -> {
+        workerTasks.<UserPage>executeBlocking(promise -> {
+            final long timeout = DeadlineUtils.remaining(deadline);
             pageAndSort.validateSort();
 
-            final Page<User> users = userService.fetchAll(
-                    filter.generateBooleanBuilder(),
-                    pageAndSort.getJpaPageable()
-            );
+            try {
+                if (pageAndSort.isCursorMode()) {
+                    promise.complete(fetchAfter(filter, pageAndSort, timeout));
+                } else {
+                    final Page<User> users = userService.fetchAll(
+                            filter.predicate(),
+                            pageAndSort.getJpaPageable(),
+                            timeout
+                    );
 
-            promise.complete(new UserPage(users));
+                    promise.complete(new UserPage(users));
+                }
+            } catch (final QueryTimeoutException | javax.persistence.QueryTimeoutException ex) {
+                // the cursor query runs on the entity manager, without Spring exception translation
+                throw new DeadlineExceededException("deadline exceeded");
+            }
         }, false, resultHandler);
     }
 
+    /**
+     * Fetch the page of users following the cursor, with the cursor of the next page if there is one.
+     */
+    private UserPage fetchAfter(
+            final UserListFilter filter,
+            final UserListPageAndSort pageAndSort,
+            final long timeout
+    ) {
+        pageAndSort.validateCursor();
+
+        final Slice<User> users = userService.fetchAfter(
+                filter.predicate(),
+                pageAndSort.keyset(),
+                pageAndSort.getCursor(),
+                pageAndSort.limit(),
+                timeout
+        );
+        final List<User> content = users.getContent();
+        final String next = users.hasNext()
+                ? userService.cursorAfter(content.get(content.size() - 1), pageAndSort.keyset()).getToken()
+                : null;
+
+        return new UserPage(content, pageAndSort.limit(), next);
+    }
+
     @Override
     public void createUser(
             final CreateUserReqDto newUserDto,
+            final long deadline,
             final Handler<AsyncResult<CreateUserResDto>> resultHandler
     ) {
-        vertx.<CreateUserResDto>executeBlocking(promise -> {
+        workerTasks.<CreateUserResDto>executeBlocking(promise -> {
+            final long timeout = DeadlineUtils.remaining(deadline);
             final User user = newUserDto.validateAndBuildEntity();
-            userService.createUser(user);
+
+            try {
+                userService.createUser(user, timeout);
+            } catch (final QueryTimeoutException ex) {
+                throw new DeadlineExceededException("deadline exceeded");
+            }
+
             final CreateUserResDto responsePayload = new CreateUserResDto(new UserDto(user));
 
             promise.complete(responsePayload);
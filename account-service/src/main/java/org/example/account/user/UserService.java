@@ -1,17 +1,40 @@
 package org.example.account.user;
 
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.ConstantImpl;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.OrderSpecifier;
 import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.ComparableExpressionBase;
+import com.querydsl.jpa.HQLTemplates;
+import com.querydsl.jpa.impl.JPAQuery;
 import org.example.account.entity.QUser;
 import org.example.account.entity.User;
 import org.example.account.repository.UserCrudRepository;
 import org.example.microservicecommon.exception.ConflictException;
+import org.example.microservicecommon.exception.InvalidValueException;
+import org.example.microservicecommon.http.AbstractQueryPageAndSort;
+import org.example.microservicecommon.http.Cursor;
+import org.example.microservicecommon.http.Sort;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
 
 /**
  * Core business logic for user operations.
@@ -19,12 +42,28 @@ import java.util.Optional;
 @Service("userService")
 public class UserService {
 
+    /**
+     * Fields usable as keyset pagination sort keys.
+     */
+    private static final Map<String, SortKey> sortKeys = new HashMap<>();
+
+    static {
+        sortKeys.put("id", new SortKey(QUser.user.id, User::getId));
+        sortKeys.put("username", new SortKey(QUser.user.username, User::getUsername));
+    }
+
     /**
      * Repository for user.
      */
     @Autowired
     private UserCrudRepository userRepository;
 
+    /**
+     * Entity manager, used for session settings.
+     */
+    @PersistenceContext
+    private EntityManager entityManager;
+
     /**
      * Fetch paginated list of users.
      * @param filter filters to be applied
@@ -33,9 +72,84 @@ public class UserService {
      */
     @Transactional
     public Page<User> fetchAll(final Predicate filter, final Pageable pageable) {
+        return fetchAll(filter, pageable, 0L);
+    }
+
+    /**
+     * Fetch paginated list of users, cancelling the queries if they take longer than the timeout.
+     * @param filter filters to be applied
+     * @param pageable pagination info
+     * @param timeoutMillis statement timeout in milliseconds, 0 for none
+     * @return paginated list of users
+     */
+    @Transactional
+    public Page<User> fetchAll(final Predicate filter, final Pageable pageable, final long timeoutMillis) {
+        applyStatementTimeout(timeoutMillis);
+
         return userRepository.findAll(filter, pageable);
     }
 
+    /**
+     * Fetch the page of users following a cursor with the seek method: rows are filtered on the sort key values of
+     * the last row of the previous page instead of being skipped with an offset, so the cost of a page does not
+     * depend on its depth, and no count query is run.
+     * @param filter filters to be applied
+     * @param keyset sort keys, ending with the tiebreaker
+     * @param cursor cursor of the previous page, {@link Cursor#FIRST} for the first page
+     * @param size page size
+     * @param timeoutMillis statement timeout in milliseconds, 0 for none
+     * @return page of users, telling whether there is a next one
+     * @throws {@link InvalidValueException} if the cursor values do not match the keyset
+     */
+    @Transactional
+    public Slice<User> fetchAfter(
+            final Predicate filter,
+            final List<Sort> keyset,
+            final Cursor cursor,
+            final int size,
+            final long timeoutMillis
+    ) {
+        final BooleanBuilder where = new BooleanBuilder().and(filter);
+        final List<OrderSpecifier<?>> orders = new ArrayList<>(keyset.size());
+
+        if (!cursor.isFirst()) {
+            where.and(seekPredicate(keyset, cursor.getValues()));
+        }
+
+        for (final Sort each : keyset) {
+            final SortKey sortKey = sortKey(each.getField());
+            orders.add(each.isAscending() ? sortKey.path.asc() : sortKey.path.desc());
+        }
+
+        applyStatementTimeout(timeoutMillis);
+
+        // one more row tells whether there is a next page; Hibernate templates spare the provider lookup
+        final List<User> users = new JPAQuery<User>(entityManager, HQLTemplates.DEFAULT)
+                .select(QUser.user)
+                .from(QUser.user)
+                .where(where)
+                .orderBy(orders.toArray(new OrderSpecifier<?>[0]))
+                .limit(size + 1L)
+                .fetch();
+
+        final boolean hasNext = users.size() > size;
+
+        return new SliceImpl<>(hasNext ? users.subList(0, size) : users, PageRequest.of(0, size), hasNext);
+    }
+
+    /**
+     * Returns the cursor following an user.
+     * @param user last user of a page
+     * @param keyset sort keys, ending with the tiebreaker
+     * @return cursor
+     */
+    public Cursor cursorAfter(final User user, final List<Sort> keyset) {
+        final List<Object> values = new ArrayList<>(keyset.size());
+        keyset.forEach(each -> values.add(sortKey(each.getField()).getter.apply(user)));
+
+        return Cursor.of(keyset, values);
+    }
+
     /**
      * Persists an user to the DB.
      * @param user user entity to be persisted
@@ -44,6 +158,20 @@ public class UserService {
      */
     @Transactional
     public User createUser(final User user) {
+        return createUser(user, 0L);
+    }
+
+    /**
+     * Persists an user to the DB, cancelling the queries if they take longer than the timeout.
+     * @param user user entity to be persisted
+     * @param timeoutMillis statement timeout in milliseconds, 0 for none
+     * @return user entity
+     * @throws {@link ConflictException} if username already exists
+     */
+    @Transactional
+    public User createUser(final User user, final long timeoutMillis) {
+        applyStatementTimeout(timeoutMillis);
+
         final Optional<User> duplicateUser = userRepository
                 .findOne(QUser.user.username.equalsIgnoreCase(user.getUsername()));
 
@@ -54,4 +182,87 @@ public class UserService {
         return userRepository.save(user);
     }
 
+    /**
+     * Set the Postgres statement timeout for the rest of the current transaction.
+     * @param timeoutMillis timeout in milliseconds, 0 to keep the default
+     */
+    private void applyStatementTimeout(final long timeoutMillis) {
+        if (timeoutMillis > 0) {
+            entityManager.createNativeQuery("SET LOCAL statement_timeout = " + timeoutMillis).executeUpdate();
+        }
+    }
+
+    /**
+     * Build the seek predicate for rows after the cursor values:
+     * <code>k1 &gt;= v1 AND (k1 &gt; v1 OR (k1 = v1 AND k2 &gt; v2) OR ...)</code>, with &lt; on descending keys.
+     * The leading bound on the first key lets the DB range scan an index on the keyset.
+     */
+    private static Predicate seekPredicate(final List<Sort> keyset, final List<Object> values) {
+        final BooleanBuilder after = new BooleanBuilder();
+        final BooleanBuilder equal = new BooleanBuilder();
+
+        for (int i = 0; i < keyset.size(); i++) {
+            final Sort each = keyset.get(i);
+            final SortKey sortKey = sortKey(each.getField());
+            final Expression<?> value = ConstantImpl.create(sortKey.constant(values.get(i)));
+
+            after.or(new BooleanBuilder().and(equal).and(
+                    ExpressionUtils.predicate(each.isAscending() ? Ops.GT : Ops.LT, sortKey.path, value)
+            ));
+            equal.and(ExpressionUtils.predicate(Ops.EQ, sortKey.path, value));
+        }
+
+        final Sort first = keyset.get(0);
+        final SortKey firstKey = sortKey(first.getField());
+
+        return ExpressionUtils.and(
+                ExpressionUtils.predicate(
+                        first.isAscending() ? Ops.GOE : Ops.LOE,
+                        firstKey.path,
+                        ConstantImpl.create(firstKey.constant(values.get(0)))
+                ),
+                after
+        );
+    }
+
+    private static SortKey sortKey(final String field) {
+        final SortKey sortKey = sortKeys.get(field);
+
+        if (sortKey == null) {
+            throw new InvalidValueException(AbstractQueryPageAndSort.cursorKey, "invalid cursor param");
+        }
+
+        return sortKey;
+    }
+
+    /**
+     * Keyset pagination sort key: entity path and value getter.
+     */
+    private static final class SortKey {
+
+        private final ComparableExpressionBase<?> path;
+
+        private final Function<User, Object> getter;
+
+        private SortKey(final ComparableExpressionBase<?> path, final Function<User, Object> getter) {
+            this.path = path;
+            this.getter = getter;
+        }
+
+        /**
+         * Returns a cursor value as the type of the path, JSON numbers being decoded as the smallest type.
+         * @throws {@link InvalidValueException} if the value does not match the type
+         */
+        private Object constant(final Object value) {
+            if (Long.class.equals(path.getType()) && value instanceof Number) {
+                return ((Number) value).longValue();
+            }
+
+            if (!path.getType().isInstance(value)) {
+                throw new InvalidValueException(AbstractQueryPageAndSort.cursorKey, "invalid cursor param");
+            }
+
+            return value;
+        }
+    }
 }
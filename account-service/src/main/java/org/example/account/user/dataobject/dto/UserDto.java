@@ -1,15 +1,19 @@
 package org.example.account.user.dataobject.dto;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import io.vertx.codegen.annotations.DataObject;
 import io.vertx.core.json.JsonObject;
 import org.example.account.entity.User;
 import org.example.microservicecommon.http.JsonData;
+import org.example.microservicecommon.http.JsonWritable;
+
+import java.io.IOException;
 
 /**
  * Container for user payload in REST API response.
  */
 @DataObject(generateConverter = true)
-public class UserDto implements JsonData {
+public class UserDto implements JsonData, JsonWritable {
 
     private Long id;
 
@@ -68,4 +72,32 @@ public class UserDto implements JsonData {
 
         return json;
     }
+
+    /**
+     * Writes the same fields as {@link #toJson()}, in the same order.
+     * @param generator generator to write to
+     * @throws IOException if writing fails
+     */
+    @Override
+    public void writeJson(final JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+
+        if (id != null) {
+            generator.writeNumberField("id", id);
+        }
+
+        if (isActive != null) {
+            generator.writeBooleanField("isActive", isActive);
+        }
+
+        if (name != null) {
+            generator.writeStringField("name", name);
+        }
+
+        if (username != null) {
+            generator.writeStringField("username", username);
+        }
+
+        generator.writeEndObject();
+    }
 }
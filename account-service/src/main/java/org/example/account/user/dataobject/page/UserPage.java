@@ -6,6 +6,8 @@ import org.example.account.entity.User;
 import org.example.microservicecommon.http.PageList;
 import org.springframework.data.domain.Page;
 
+import java.util.List;
+
 /**
  * Paginated list of users {@link User}.
  */
@@ -16,6 +18,10 @@ public class UserPage extends PageList<User> {
         super(page);
     }
 
+    public UserPage(final List<User> content, final Integer size, final String next) {
+        super(content, size, next);
+    }
+
     public UserPage(final JsonObject json) {
         super(json);
     }
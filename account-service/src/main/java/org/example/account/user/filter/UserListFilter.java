@@ -2,10 +2,12 @@ package org.example.account.user.filter;
 
 import com.querydsl.core.BooleanBuilder;
 import io.vertx.codegen.annotations.DataObject;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import org.apache.commons.lang3.StringUtils;
 import org.example.account.entity.QUser;
 import org.example.microservicecommon.http.AbstractQueryFilter;
+import org.example.microservicecommon.http.QueryParams;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -21,6 +23,15 @@ public class UserListFilter extends AbstractQueryFilter {
      */
     private List<String> username = new ArrayList<>();
 
+    /**
+     * Filters parsed from the request.
+     * @param queryParams parsed query params
+     */
+    public UserListFilter(final QueryParams queryParams) {
+        super(queryParams);
+        this.username = new ArrayList<>(queryParams.getFilter("username"));
+    }
+
     public UserListFilter(final JsonObject json) {
         super(json);
         UserListFilterConverter.fromJson(json, this);
@@ -45,6 +56,7 @@ public class UserListFilter extends AbstractQueryFilter {
      * Returns QueryDSL predicate for filters.
      * @return Boolean Builder
      */
+    @Override
     public BooleanBuilder generateBooleanBuilder() {
         final BooleanBuilder booleanBuilder = new BooleanBuilder();
 
@@ -59,6 +71,14 @@ public class UserListFilter extends AbstractQueryFilter {
         return booleanBuilder;
     }
 
+    /**
+     * Returns the username filter values as a JSON array, which cannot be ambiguous.
+     */
+    @Override
+    protected String predicateKey() {
+        return username == null ? "[]" : new JsonArray(username).encode();
+    }
+
     @Override
     public void validate() {
 
@@ -3,6 +3,7 @@ package org.example.account.user.filter;
 import io.vertx.codegen.annotations.DataObject;
 import io.vertx.core.json.JsonObject;
 import org.example.microservicecommon.http.AbstractQueryPageAndSort;
+import org.example.microservicecommon.http.QueryParams;
 
 import java.util.Arrays;
 import java.util.List;
@@ -12,6 +13,10 @@ public class UserListPageAndSort extends AbstractQueryPageAndSort {
 
     private static final List<String> fields = Arrays.asList("username");
 
+    public UserListPageAndSort(final QueryParams queryParams) {
+        super(queryParams);
+    }
+
     public UserListPageAndSort(final JsonObject queryParams) {
         super(queryParams);
     }
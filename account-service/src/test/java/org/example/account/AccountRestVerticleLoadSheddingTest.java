@@ -0,0 +1,194 @@
+package org.example.account;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.client.WebClient;
+import io.vertx.junit5.Checkpoint;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.example.account.service.AccountService;
+import org.example.account.user.dataobject.dto.CreateUserReqDto;
+import org.example.account.user.dataobject.dto.CreateUserResDto;
+import org.example.account.user.dataobject.page.UserPage;
+import org.example.account.user.filter.UserListFilter;
+import org.example.account.user.filter.UserListPageAndSort;
+import org.example.microservicecommon.RestApiVerticle;
+import org.example.microservicecommon.admission.AdmissionController;
+import org.example.microservicecommon.admission.WorkerTasks;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.data.domain.PageImpl;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(VertxExtension.class)
+public class AccountRestVerticleLoadSheddingTest {
+
+    private Integer port = 8082;
+
+    private CountDownLatch release;
+
+    @BeforeEach
+    public void setup(final Vertx vertx, final VertxTestContext testContext) {
+        final JsonObject config = new JsonObject()
+                .put("account.http.port", port)
+                .put("loadShedding", new JsonObject()
+                        .put("enabled", true)
+                        .put("maxEventLoopLag", 0)
+                        .put("maxPendingWorkerTasks", 1));
+
+        vertx.deployVerticle(
+                new AccountRestVerticle(new EmptyAccountService()),
+                new DeploymentOptions().setConfig(config),
+                testContext.completing()
+        );
+    }
+
+    @AfterEach
+    public void tearDown(final Vertx vertx, final VertxTestContext testContext) {
+        if (release != null) {
+            release.countDown();
+        }
+
+        vertx.close(testContext.completing());
+    }
+
+    @Test
+    void testAdmitsAllWithoutLoad(final Vertx vertx, final VertxTestContext testContext) {
+        final WebClient client = WebClient.create(vertx);
+
+        client
+                .get(port, "localhost", "/users")
+                .putHeader(AdmissionController.PRIORITY_HEADER, "low")
+                .send(testContext.succeeding(res -> testContext.verify(() -> {
+                    assertEquals(200, res.statusCode());
+
+                    testContext.completeNow();
+                })));
+    }
+
+    @Test
+    void testShedsByPriorityUnderLoad(final Vertx vertx, final VertxTestContext testContext) {
+        final WebClient client = WebClient.create(vertx);
+        final Checkpoint checkpoint = testContext.checkpoint(3);
+
+        // two ordered tasks queue behind a blocked one: load level 2
+        blockWorkers(vertx, 2);
+
+        client
+                .get(port, "localhost", "/users")
+                .putHeader(AdmissionController.PRIORITY_HEADER, "low")
+                .send(testContext.succeeding(res -> testContext.verify(() -> {
+                    assertEquals(503, res.statusCode());
+                    assertEquals("1", res.getHeader("Retry-After"));
+                    assertEquals(503, res.bodyAsJsonObject().getInteger("status"));
+
+                    checkpoint.flag();
+                })));
+
+        client
+                .get(port, "localhost", "/users")
+                .send(testContext.succeeding(res -> testContext.verify(() -> {
+                    assertEquals(503, res.statusCode());
+
+                    checkpoint.flag();
+                })));
+
+        client
+                .get(port, "localhost", "/users")
+                .putHeader(AdmissionController.PRIORITY_HEADER, "high")
+                .send(testContext.succeeding(res -> testContext.verify(() -> {
+                    assertEquals(200, res.statusCode());
+
+                    checkpoint.flag();
+                })));
+    }
+
+    @Test
+    void testAnswersHealthChecksUnderLoad(final Vertx vertx, final VertxTestContext testContext) {
+        final WebClient client = WebClient.create(vertx);
+
+        blockWorkers(vertx, 2);
+
+        client
+                .get(port, "localhost", RestApiVerticle.HEALTH_PATH)
+                .putHeader(AdmissionController.PRIORITY_HEADER, "low")
+                .send(testContext.succeeding(res -> testContext.verify(() -> {
+                    assertEquals(200, res.statusCode());
+
+                    testContext.completeNow();
+                })));
+    }
+
+    /**
+     * Submit a task blocking its worker until the end of the test, and ordered tasks waiting behind it.
+     */
+    private void blockWorkers(final Vertx vertx, final int pending) {
+        release = new CountDownLatch(1);
+        final WorkerTasks workerTasks = WorkerTasks.get(vertx);
+        final Context context = vertx.getOrCreateContext();
+        final CountDownLatch submitted = new CountDownLatch(1);
+
+        context.runOnContext(v -> {
+            workerTasks.executeBlocking(promise -> {
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+
+                promise.complete();
+            }, true, res -> { });
+
+            for (int i = 0; i < pending; i++) {
+                workerTasks.executeBlocking(promise -> promise.complete(), true, res -> { });
+            }
+
+            submitted.countDown();
+        });
+
+        try {
+            submitted.await(5, TimeUnit.SECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Account service returning empty results.
+     */
+    private static class EmptyAccountService implements AccountService {
+
+        @Override
+        public void listAllUsers(
+                final UserListFilter filter,
+                final UserListPageAndSort pageAndSort,
+                final long deadline,
+                final Handler<AsyncResult<UserPage>> resultHandler
+        ) {
+            resultHandler.handle(Future.succeededFuture(
+                    new UserPage(new PageImpl<>(new ArrayList<>()))
+            ));
+        }
+
+        @Override
+        public void createUser(
+                final CreateUserReqDto newUserDto,
+                final long deadline,
+                final Handler<AsyncResult<CreateUserResDto>> resultHandler
+        ) {
+            resultHandler.handle(Future.failedFuture(new UnsupportedOperationException()));
+        }
+    }
+}
@@ -3,6 +3,7 @@ package org.example.account;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.client.WebClient;
@@ -12,17 +13,24 @@ import org.example.account.entity.User;
 import org.example.account.service.AccountService;
 import org.example.account.user.dataobject.dto.CreateUserReqDto;
 import org.example.account.user.dataobject.dto.CreateUserResDto;
+import org.example.account.user.dataobject.dto.UserDto;
 import org.example.account.user.dataobject.page.UserPage;
 import org.example.account.user.filter.UserListFilter;
 import org.example.account.user.filter.UserListPageAndSort;
+import org.example.microservicecommon.RestApiVerticle;
 import org.example.microservicecommon.exception.ConflictException;
 import org.example.microservicecommon.exception.InvalidSortFieldException;
+import org.example.microservicecommon.exception.RestApiException;
+import org.example.microservicecommon.http.ApiResponse;
+import org.example.microservicecommon.http.PagedResponse;
+import org.example.microservicecommon.util.DeadlineUtils;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.data.domain.PageImpl;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -46,6 +54,40 @@ public class AccountRestVerticleTest {
         vertx.close(testContext.completing());
     }
 
+    @Test
+    void testHealth(final Vertx vertx, final VertxTestContext testContext) {
+        final WebClient client = WebClient.create(vertx);
+
+        client
+                .get(port, "localhost", RestApiVerticle.HEALTH_PATH)
+                .send(testContext.succeeding(res -> testContext.verify(() -> {
+                    assertEquals(200, res.statusCode());
+
+                    final JsonObject actual = new JsonObject(res.body());
+
+                    assertEquals(200, actual.getInteger("status"));
+                    assertEquals("UP", actual.getJsonObject("data").getString("health"));
+
+                    testContext.completeNow();
+                })));
+    }
+
+    @Test
+    void testMetrics(final Vertx vertx, final VertxTestContext testContext) {
+        final WebClient client = WebClient.create(vertx);
+
+        client.get(port, "localhost", "/metrics").send(testContext.succeeding(res -> testContext.verify(() -> {
+            assertEquals(200, res.statusCode());
+
+            final JsonObject queryCache = new JsonObject(res.body()).getJsonObject("queryCache");
+
+            assertNotNull(queryCache.getJsonObject("pageAndSort").getDouble("hitRate"));
+            assertNotNull(queryCache.getJsonObject("filters").getDouble("hitRate"));
+
+            testContext.completeNow();
+        })));
+    }
+
     @Test
     void testListUsersForSuccess(final Vertx vertx, final VertxTestContext testContext) {
         final WebClient client = WebClient.create(vertx);
@@ -71,6 +113,182 @@ public class AccountRestVerticleTest {
         })));
     }
 
+    @Test
+    void testListUsersResponseEncoding(final Vertx vertx, final VertxTestContext testContext) {
+        final WebClient client = WebClient.create(vertx);
+
+        final User user = new User();
+        user.setId(1L);
+        user.setUsername("test");
+        user.setName("T\u00e9st \"quoted\" \u2028");
+        user.setIsActive(true);
+        final User partial = new User();
+        partial.setId(2L);
+        final UserPage users = new UserPage(new PageImpl<>(Arrays.asList(user, partial)));
+        accountService.setUserListResult(users);
+
+        final String expected = new ApiResponse(200, new PagedResponse(
+                "users",
+                Arrays.asList(new UserDto(user), new UserDto(partial)),
+                users.getPage(),
+                users.getSize(),
+                users.getTotalElements()
+        ).toJson()).toJson().encode();
+
+        client.get(port, "localhost", "/users").send(testContext.succeeding(res -> testContext.verify(() -> {
+            assertEquals(200, res.statusCode());
+            assertEquals(Buffer.buffer(expected), res.body());
+
+            testContext.completeNow();
+        })));
+    }
+
+    @Test
+    void testListUsersForInvalidSizeParam(final Vertx vertx, final VertxTestContext testContext) {
+        final WebClient client = WebClient.create(vertx);
+        accountService.setUserListResult(new UserPage(new PageImpl<>(new ArrayList<>())));
+
+        client.get(port, "localhost", "/users?size=0").send(testContext.succeeding(res -> testContext.verify(() -> {
+            assertEquals(400, res.statusCode());
+
+            final JsonObject actual = new JsonObject(res.body());
+
+            assertEquals(400, actual.getInteger("status"));
+            assertEquals("size param should be greater than 0", actual.getJsonObject("error").getString("message"));
+
+            testContext.completeNow();
+        })));
+    }
+
+    @Test
+    void testListUsersForOverflowingPageParam(final Vertx vertx, final VertxTestContext testContext) {
+        final WebClient client = WebClient.create(vertx);
+        accountService.setUserListResult(new UserPage(new PageImpl<>(new ArrayList<>())));
+
+        client
+                .get(port, "localhost", "/users?page=99999999999")
+                .send(testContext.succeeding(res -> testContext.verify(() -> {
+                    assertEquals(400, res.statusCode());
+                    assertEquals(
+                            Buffer.buffer("{\"status\":400,\"error\":{\"message\":\"invalid page param\"}}"),
+                            res.body()
+                    );
+
+                    testContext.completeNow();
+                })));
+    }
+
+    @Test
+    void testListUsersForCursorPage(final Vertx vertx, final VertxTestContext testContext) {
+        final WebClient client = WebClient.create(vertx);
+
+        final User user = new User();
+        user.setId(1L);
+        user.setUsername("test");
+        accountService.setUserListResult(new UserPage(Arrays.asList(user), 10, "bmV4dA"));
+
+        final String expected = new ApiResponse(200, new PagedResponse(
+                "users",
+                Arrays.asList(new UserDto(user)),
+                null,
+                10,
+                null,
+                "bmV4dA"
+        ).toJson()).toJson().encode();
+
+        client.get(port, "localhost", "/users?cursor=").send(testContext.succeeding(res -> testContext.verify(() -> {
+            assertEquals(200, res.statusCode());
+            assertEquals(Buffer.buffer(expected), res.body());
+
+            testContext.completeNow();
+        })));
+    }
+
+    @Test
+    void testListUsersForInvalidCursor(final Vertx vertx, final VertxTestContext testContext) {
+        final WebClient client = WebClient.create(vertx);
+        accountService.setUserListResult(new UserPage(new PageImpl<>(new ArrayList<>())));
+
+        client
+                .get(port, "localhost", "/users?cursor=bm90LWpzb24")
+                .send(testContext.succeeding(res -> testContext.verify(() -> {
+                    assertEquals(400, res.statusCode());
+                    assertEquals(
+                            Buffer.buffer("{\"status\":400,\"error\":{\"message\":\"invalid cursor param\"}}"),
+                            res.body()
+                    );
+
+                    testContext.completeNow();
+                })));
+    }
+
+    @Test
+    void testListUsersForInvalidSortOrder(final Vertx vertx, final VertxTestContext testContext) {
+        final WebClient client = WebClient.create(vertx);
+        accountService.setUserListResult(new UserPage(new PageImpl<>(new ArrayList<>())));
+
+        client
+                .get(port, "localhost", "/users?sort=name,sideways&sort=name")
+                .send(testContext.succeeding(res -> testContext.verify(() -> {
+                    assertEquals(400, res.statusCode());
+                    assertEquals(
+                            Buffer.buffer("{\"status\":400,\"error\":{\"message\":\"invalid sort order\"}}"),
+                            res.body()
+                    );
+
+                    testContext.completeNow();
+                })));
+    }
+
+    @Test
+    void testListUsersForServiceExceptionEncoding(final Vertx vertx, final VertxTestContext testContext) {
+        final WebClient client = WebClient.create(vertx);
+        final InvalidSortFieldException exception = new InvalidSortFieldException(
+                "invalid sort fields: \"n\u00e4me\",\\id\n"
+        );
+        accountService.setException(exception);
+
+        final String expected = new ApiResponse(new RestApiException(exception)).toJson().encode();
+
+        client.get(port, "localhost", "/users").send(testContext.succeeding(res -> testContext.verify(() -> {
+            assertEquals(400, res.statusCode());
+            assertEquals(Buffer.buffer(expected), res.body());
+
+            testContext.completeNow();
+        })));
+    }
+
+    @Test
+    void testListUsersForDeadline(final Vertx vertx, final VertxTestContext testContext) {
+        final WebClient client = WebClient.create(vertx);
+        accountService.setUserListResult(new UserPage(new PageImpl<>(new ArrayList<>())));
+        final long before = System.currentTimeMillis();
+
+        client
+                .get(port, "localhost", "/users")
+                .putHeader(DeadlineUtils.TIMEOUT_HEADER, "5000")
+                .send(testContext.succeeding(res -> testContext.verify(() -> {
+                    assertEquals(200, res.statusCode());
+                    assertTrue(accountService.getLastDeadline() >= before + 5000);
+                    assertTrue(accountService.getLastDeadline() <= System.currentTimeMillis() + 5000);
+
+                    testContext.completeNow();
+                })));
+    }
+
+    @Test
+    void testListUsersWithoutDeadline(final Vertx vertx, final VertxTestContext testContext) {
+        final WebClient client = WebClient.create(vertx);
+        accountService.setUserListResult(new UserPage(new PageImpl<>(new ArrayList<>())));
+
+        client.get(port, "localhost", "/users").send(testContext.succeeding(res -> testContext.verify(() -> {
+            assertEquals(200, res.statusCode());
+            assertEquals(DeadlineUtils.NONE, accountService.getLastDeadline());
+
+            testContext.completeNow();
+        })));
+    }
+
     @Test
     void testListUsersForServerError(final Vertx vertx, final VertxTestContext testContext) {
         final WebClient client = WebClient.create(vertx);
@@ -162,6 +380,8 @@ public class AccountRestVerticleTest {
 
         private CreateUserResDto userCreateResult;
 
+        private long lastDeadline;
+
         public MockAccountService(final Vertx vertx) {
             this.vertx = vertx;
         }
@@ -184,6 +404,13 @@ public class AccountRestVerticleTest {
             this.userCreateResult = userCreateResult;
         }
 
+        /**
+         * Returns the deadline received by the last call.
+         */
+        public long getLastDeadline() {
+            return lastDeadline;
+        }
+
         /**
          * Throw exception if <code>exception</code> field is not null,
          * else return <code>userListResult</code>.
@@ -192,8 +419,11 @@ public class AccountRestVerticleTest {
         public void listAllUsers(
                 final UserListFilter filter,
                 final UserListPageAndSort pageAndSort,
+                final long deadline,
                 final Handler<AsyncResult<UserPage>> resultHandler
         ) {
+            this.lastDeadline = deadline;
+
             vertx.<UserPage>executeBlocking(promise -> {
                 if (this.exception != null) {
                     throw exception;
@@ -204,7 +434,13 @@ public class AccountRestVerticleTest {
         }
 
         @Override
-        public void createUser(CreateUserReqDto newUserDto, Handler<AsyncResult<CreateUserResDto>> resultHandler) {
+        public void createUser(
+                final CreateUserReqDto newUserDto,
+                final long deadline,
+                final Handler<AsyncResult<CreateUserResDto>> resultHandler
+        ) {
+            this.lastDeadline = deadline;
+
             vertx.<CreateUserResDto>executeBlocking(promise -> {
                 if (this.exception != null) {
                     throw exception;
@@ -0,0 +1,107 @@
+package org.example.account.benchmark;
+
+import com.sun.management.ThreadMXBean;
+import io.vertx.core.buffer.Buffer;
+import org.example.account.entity.User;
+import org.example.account.user.dataobject.dto.UserDto;
+import org.example.microservicecommon.http.ApiResponse;
+import org.example.microservicecommon.http.JsonResponseWriter;
+import org.example.microservicecommon.http.PagedResponse;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Compares the bytes allocated and the time taken to encode a user list response with the
+ * {@link ApiResponse} / {@link PagedResponse} trees and with the streaming {@link JsonResponseWriter}.
+ * <p>
+ * Run with:
+ * <code>mvn -pl account-service -am test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.example.account.benchmark.ResponseEncodingBenchmark</code>
+ */
+public class ResponseEncodingBenchmark {
+
+    /**
+     * Keeps the encoded responses from being optimized away.
+     */
+    private static volatile long sink;
+
+    public static void main(final String[] args) {
+        final int iterations = Integer.getInteger("benchmark.iterations", 200000);
+
+        System.out.printf("%-10s %-10s %15s %15s%n", "page size", "encoder", "bytes/response", "ns/response");
+
+        for (final int pageSize : new int[] {1, 20, 100}) {
+            final List<User> users = users(pageSize);
+
+            final Supplier<Buffer> tree = () -> {
+                final List<UserDto> userList = new ArrayList<>();
+                users.forEach(user -> userList.add(new UserDto(user)));
+
+                return Buffer.buffer(new ApiResponse(
+                        200,
+                        new PagedResponse("users", userList, 0, pageSize, 1000L).toJson()
+                ).toJson().encode());
+            };
+            final Supplier<Buffer> streaming = () -> {
+                final List<UserDto> userList = new ArrayList<>();
+                users.forEach(user -> userList.add(new UserDto(user)));
+
+                return JsonResponseWriter.writePage(200, "users", userList, 0, pageSize, 1000L);
+            };
+
+            if (!tree.get().equals(streaming.get())) {
+                throw new IllegalStateException("Encoders disagree for page size " + pageSize);
+            }
+
+            run(pageSize, "tree", tree, iterations);
+            run(pageSize, "streaming", streaming, iterations);
+        }
+    }
+
+    private static void run(
+            final int pageSize,
+            final String name,
+            final Supplier<Buffer> encoder,
+            final int iterations
+    ) {
+        final ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        final long threadId = Thread.currentThread().getId();
+        long length = 0;
+
+        // warm up
+        for (int i = 0; i < iterations; i++) {
+            length += encoder.get().length();
+        }
+
+        final long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        final long start = System.nanoTime();
+
+        for (int i = 0; i < iterations; i++) {
+            length += encoder.get().length();
+        }
+
+        final long elapsed = System.nanoTime() - start;
+        final long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        sink = length;
+
+        System.out.printf("%-10d %-10s %15d %15d%n", pageSize, name, allocated / iterations, elapsed / iterations);
+    }
+
+    private static List<User> users(final int count) {
+        final List<User> users = new ArrayList<>();
+
+        for (int i = 0; i < count; i++) {
+            final User user = new User();
+            user.setId((long) i);
+            user.setUsername("user" + i);
+            user.setName("User \"" + i + "\" Ünïcode");
+            user.setIsActive(i % 2 == 0);
+            users.add(user);
+        }
+
+        return users;
+    }
+}
@@ -12,18 +12,31 @@ import org.example.account.user.dataobject.dto.CreateUserReqDto;
 import org.example.account.user.filter.UserListFilter;
 import org.example.account.user.filter.UserListPageAndSort;
 import org.example.microservicecommon.exception.ConflictException;
+import org.example.microservicecommon.exception.DeadlineExceededException;
 import org.example.microservicecommon.exception.InvalidSortFieldException;
+import org.example.microservicecommon.exception.InvalidValueException;
 import org.example.microservicecommon.exception.MissingOrEmptyKeyException;
+import org.example.microservicecommon.http.Cursor;
+import org.example.microservicecommon.http.Sort;
+import org.example.microservicecommon.util.DeadlineUtils;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
 import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
 import org.springframework.context.ApplicationContext;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -36,8 +49,12 @@ class JpaAccountServiceTest {
 
     private JpaAccountService jpaAccountService;
 
+    @Captor
+    private ArgumentCaptor<List<Sort>> keyset;
+
     @BeforeEach
     public void setup(final Vertx vertx) {
+        MockitoAnnotations.initMocks(this);
         appContext = Mockito.mock(ApplicationContext.class);
         userService = Mockito.mock(UserService.class);
         Mockito.when(appContext.getBean("userService")).thenReturn(userService);
@@ -56,12 +73,16 @@ class JpaAccountServiceTest {
         user.setId(1L);
         user.setName("test");
         final Page<User> usersPage = new PageImpl<>(Arrays.asList(user));
-        Mockito.when(userService.fetchAll(Mockito.any(Predicate.class), Mockito.any(Pageable.class)))
-                .thenReturn(usersPage);
+        Mockito.when(userService.fetchAll(
+                Mockito.any(Predicate.class),
+                Mockito.any(Pageable.class),
+                Mockito.anyLong()
+        )).thenReturn(usersPage);
 
         jpaAccountService.listAllUsers(
                 new UserListFilter(reqParams),
                 new UserListPageAndSort(reqParams),
+                DeadlineUtils.NONE,
                 testContext.succeeding(res -> testContext.verify(() -> {
                     assertEquals(1, res.getContent().size());
                     assertEquals(user, res.getContent().get(0));
@@ -79,6 +100,7 @@ class JpaAccountServiceTest {
         jpaAccountService.listAllUsers(
                 new UserListFilter(reqParams),
                 new UserListPageAndSort(reqParams),
+                DeadlineUtils.NONE,
                 testContext.failing(res -> testContext.verify(() -> {
                     assertTrue(res instanceof InvalidSortFieldException);
 
@@ -87,6 +109,70 @@ class JpaAccountServiceTest {
         );
     }
 
+    @Test
+    void testListAllUsersForCursor(final VertxTestContext testContext) {
+        final JsonObject reqParams = new JsonObject().put("cursor", "").put("size", 1);
+        final User user = new User();
+        user.setId(1L);
+        user.setUsername("test");
+        final Cursor next = Cursor.of(Arrays.asList(new Sort("id", Sort.Direction.ASC)), Arrays.asList(1L));
+        Mockito.when(userService.fetchAfter(
+                Mockito.any(Predicate.class),
+                Mockito.anyList(),
+                Mockito.any(Cursor.class),
+                Mockito.anyInt(),
+                Mockito.anyLong()
+        )).thenReturn(new SliceImpl<>(Arrays.asList(user), PageRequest.of(0, 1), true));
+        Mockito.when(userService.cursorAfter(Mockito.eq(user), Mockito.anyList())).thenReturn(next);
+
+        jpaAccountService.listAllUsers(
+                new UserListFilter(reqParams),
+                new UserListPageAndSort(reqParams),
+                DeadlineUtils.NONE,
+                testContext.succeeding(res -> testContext.verify(() -> {
+                    assertEquals(Arrays.asList(user), res.getContent());
+                    assertEquals(next.getToken(), res.getNext());
+                    assertNull(res.getTotalElements());
+                    Mockito.verify(userService).fetchAfter(
+                            Mockito.any(Predicate.class),
+                            keyset.capture(),
+                            Mockito.eq(Cursor.FIRST),
+                            Mockito.eq(1),
+                            Mockito.anyLong()
+                    );
+                    assertEquals(1, keyset.getValue().size());
+                    assertEquals("id", keyset.getValue().get(0).getField());
+                    Mockito.verify(userService, Mockito.never()).fetchAll(
+                            Mockito.any(Predicate.class),
+                            Mockito.any(Pageable.class),
+                            Mockito.anyLong()
+                    );
+
+                    testContext.completeNow();
+                }))
+        );
+    }
+
+    @Test
+    void testListAllUsersForCursorOfAnotherSort(final VertxTestContext testContext) {
+        final Cursor cursor = Cursor.of(Arrays.asList(new Sort("id", Sort.Direction.ASC)), Arrays.asList(1L));
+        final JsonObject reqParams = new JsonObject()
+                .put("cursor", cursor.getToken())
+                .put("sort", new JsonArray(Arrays.asList("username,asc")));
+
+        jpaAccountService.listAllUsers(
+                new UserListFilter(reqParams),
+                new UserListPageAndSort(reqParams),
+                DeadlineUtils.NONE,
+                testContext.failing(ex -> testContext.verify(() -> {
+                    assertTrue(ex instanceof InvalidValueException);
+                    Mockito.verifyNoInteractions(userService);
+
+                    testContext.completeNow();
+                }))
+        );
+    }
+
     @Test
     void testCreateUserForSuccess(final VertxTestContext testContext) {
         final JsonObject reqBody = new JsonObject();
@@ -104,11 +190,12 @@ class JpaAccountServiceTest {
         user.setUsername(reqBodyDto.getUser().getUsername());
         user.setPassword("pswd");
 
-        Mockito.when(userService.createUser(Mockito.any(User.class)))
+        Mockito.when(userService.createUser(Mockito.any(User.class), Mockito.anyLong()))
                 .thenReturn(user);
 
         jpaAccountService.createUser(
                 reqBodyDto,
+                DeadlineUtils.NONE,
                 testContext.succeeding(res -> testContext.verify(() -> {
                     assertEquals(user.getName(), res.getUser().getName());
                     assertEquals(user.getUsername(), res.getUser().getUsername());
@@ -131,9 +218,11 @@ class JpaAccountServiceTest {
 
         jpaAccountService.createUser(
                 reqBodyDto,
+                DeadlineUtils.NONE,
                 testContext.failing(ex -> testContext.verify(() -> {
                     assertTrue(ex instanceof MissingOrEmptyKeyException);
-                    Mockito.verify(userService, Mockito.times(0)).createUser(Mockito.any(User.class));
+                    Mockito.verify(userService, Mockito.times(0))
+                            .createUser(Mockito.any(User.class), Mockito.anyLong());
 
                     testContext.completeNow();
                 }))
@@ -151,10 +240,12 @@ class JpaAccountServiceTest {
 
         final CreateUserReqDto reqBodyDto = new CreateUserReqDto(reqBody);
 
-        Mockito.when(userService.createUser(Mockito.any(User.class))).thenThrow(ConflictException.class);
+        Mockito.when(userService.createUser(Mockito.any(User.class), Mockito.anyLong()))
+                .thenThrow(ConflictException.class);
 
         jpaAccountService.createUser(
                 reqBodyDto,
+                DeadlineUtils.NONE,
                 testContext.failing(ex -> testContext.verify(() -> {
                     assertTrue(ex instanceof ConflictException);
 
@@ -162,4 +253,115 @@ class JpaAccountServiceTest {
                 }))
         );
     }
+
+    @Test
+    void testListAllUsersForRemainingTimeout(final VertxTestContext testContext) {
+        final JsonObject reqParams = new JsonObject();
+        Mockito.when(userService.fetchAll(
+                Mockito.any(Predicate.class),
+                Mockito.any(Pageable.class),
+                Mockito.anyLong()
+        )).thenReturn(new PageImpl<>(new ArrayList<>()));
+
+        jpaAccountService.listAllUsers(
+                new UserListFilter(reqParams),
+                new UserListPageAndSort(reqParams),
+                System.currentTimeMillis() + 5000,
+                testContext.succeeding(res -> testContext.verify(() -> {
+                    final ArgumentCaptor<Long> timeout = ArgumentCaptor.forClass(Long.class);
+                    Mockito.verify(userService).fetchAll(
+                            Mockito.any(Predicate.class),
+                            Mockito.any(Pageable.class),
+                            timeout.capture()
+                    );
+
+                    assertTrue(timeout.getValue() > 0);
+                    assertTrue(timeout.getValue() <= 5000);
+
+                    testContext.completeNow();
+                }))
+        );
+    }
+
+    @Test
+    void testListAllUsersForExpiredDeadline(final VertxTestContext testContext) {
+        final JsonObject reqParams = new JsonObject();
+
+        jpaAccountService.listAllUsers(
+                new UserListFilter(reqParams),
+                new UserListPageAndSort(reqParams),
+                System.currentTimeMillis() - 1,
+                testContext.failing(ex -> testContext.verify(() -> {
+                    assertTrue(ex instanceof DeadlineExceededException);
+                    Mockito.verifyNoInteractions(userService);
+
+                    testContext.completeNow();
+                }))
+        );
+    }
+
+    @Test
+    void testListAllUsersForQueryTimeout(final VertxTestContext testContext) {
+        final JsonObject reqParams = new JsonObject();
+        Mockito.when(userService.fetchAll(
+                Mockito.any(Predicate.class),
+                Mockito.any(Pageable.class),
+                Mockito.anyLong()
+        )).thenThrow(new QueryTimeoutException("canceling statement due to statement timeout"));
+
+        jpaAccountService.listAllUsers(
+                new UserListFilter(reqParams),
+                new UserListPageAndSort(reqParams),
+                System.currentTimeMillis() + 5000,
+                testContext.failing(ex -> testContext.verify(() -> {
+                    assertTrue(ex instanceof DeadlineExceededException);
+
+                    testContext.completeNow();
+                }))
+        );
+    }
+
+    @Test
+    void testListAllUsersForCursorQueryTimeout(final VertxTestContext testContext) {
+        final JsonObject reqParams = new JsonObject().put("cursor", "");
+        Mockito.when(userService.fetchAfter(
+                Mockito.any(Predicate.class),
+                Mockito.anyList(),
+                Mockito.any(Cursor.class),
+                Mockito.anyInt(),
+                Mockito.anyLong()
+        )).thenThrow(new javax.persistence.QueryTimeoutException("canceling statement due to statement timeout"));
+
+        jpaAccountService.listAllUsers(
+                new UserListFilter(reqParams),
+                new UserListPageAndSort(reqParams),
+                System.currentTimeMillis() + 5000,
+                testContext.failing(ex -> testContext.verify(() -> {
+                    assertTrue(ex instanceof DeadlineExceededException);
+
+                    testContext.completeNow();
+                }))
+        );
+    }
+
+    @Test
+    void testCreateUserForExpiredDeadline(final VertxTestContext testContext) {
+        final JsonObject reqBody = new JsonObject();
+        final JsonObject userData = new JsonObject();
+        userData.put("username", "test");
+        userData.put("name", "test");
+        userData.put("password", "test");
+        reqBody.put("user", userData);
+
+        jpaAccountService.createUser(
+                new CreateUserReqDto(reqBody),
+                System.currentTimeMillis() - 1,
+                testContext.failing(ex -> testContext.verify(() -> {
+                    assertTrue(ex instanceof DeadlineExceededException);
+                    Mockito.verifyNoInteractions(userService);
+
+                    testContext.completeNow();
+                }))
+        );
+    }
 }
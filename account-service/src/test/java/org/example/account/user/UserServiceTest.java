@@ -1,13 +1,18 @@
 package org.example.account.user;
 
+import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import org.example.account.entity.QUser;
 import org.example.account.entity.User;
 import org.example.account.repository.UserCrudRepository;
 import org.example.microservicecommon.exception.ConflictException;
+import org.example.microservicecommon.exception.InvalidValueException;
+import org.example.microservicecommon.http.Cursor;
+import org.example.microservicecommon.http.Sort;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
@@ -16,8 +21,13 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -27,6 +37,12 @@ class UserServiceTest {
     @Mock
     private UserCrudRepository userCrudRepository;
 
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private Query query;
+
     @InjectMocks
     private UserService userService;
 
@@ -44,6 +60,21 @@ class UserServiceTest {
         final Page<User> actual = userService.fetchAll(QUser.user.isActive.isTrue(), PageRequest.of(1, 1));
 
         assertEquals(expected, actual);
+        Mockito.verifyNoInteractions(entityManager);
+    }
+
+    @Test
+    void testFetchAllWithTimeout() {
+        final Page<User> expected = new PageImpl<>(new ArrayList<>());
+        Mockito.when(userCrudRepository.findAll(Mockito.any(Predicate.class), Mockito.any(Pageable.class)))
+                .thenReturn(expected);
+        Mockito.when(entityManager.createNativeQuery(Mockito.anyString())).thenReturn(query);
+
+        final Page<User> actual = userService.fetchAll(QUser.user.isActive.isTrue(), PageRequest.of(1, 1), 1500L);
+
+        assertEquals(expected, actual);
+        Mockito.verify(entityManager).createNativeQuery("SET LOCAL statement_timeout = 1500");
+        Mockito.verify(query).executeUpdate();
     }
 
     @Test
@@ -70,4 +101,63 @@ class UserServiceTest {
 
         assertEquals(user, actual);
     }
+
+    @Test
+    void testFetchAfter() {
+        final User first = new User();
+        first.setId(7L);
+        first.setUsername("b");
+        final User second = new User();
+        second.setId(8L);
+        second.setUsername("c");
+        final List<Sort> keyset = Arrays.asList(
+                new Sort("username", Sort.Direction.ASC),
+                new Sort("id", Sort.Direction.ASC)
+        );
+        final Cursor cursor = userService.cursorAfter(first, keyset);
+        final ArgumentCaptor<String> jpql = ArgumentCaptor.forClass(String.class);
+        Mockito.when(entityManager.createQuery(jpql.capture())).thenReturn(query);
+        Mockito.when(query.getResultList()).thenReturn(new ArrayList<>(Arrays.asList(second, new User())));
+
+        final Slice<User> actual = userService.fetchAfter(
+                new BooleanBuilder(),
+                keyset,
+                Cursor.decode(cursor.getToken()),
+                1,
+                0L
+        );
+
+        assertEquals(Arrays.asList(second), actual.getContent());
+        assertTrue(actual.hasNext());
+        assertTrue(jpql.getValue().contains("user.username >= ?1"));
+        assertTrue(jpql.getValue().contains("user.username = ?1 and user.id > ?2"));
+        assertTrue(jpql.getValue().contains("order by user.username asc, user.id asc"));
+        Mockito.verify(query).setMaxResults(2);
+        Mockito.verify(query).setParameter(1, "b");
+        Mockito.verify(query).setParameter(2, 7L);
+    }
+
+    @Test
+    void testFetchAfterForFirstPage() {
+        final List<Sort> keyset = Arrays.asList(new Sort("id", Sort.Direction.ASC));
+        final ArgumentCaptor<String> jpql = ArgumentCaptor.forClass(String.class);
+        Mockito.when(entityManager.createQuery(jpql.capture())).thenReturn(query);
+        Mockito.when(query.getResultList()).thenReturn(new ArrayList<>(Arrays.asList(new User())));
+
+        final Slice<User> actual = userService.fetchAfter(new BooleanBuilder(), keyset, Cursor.FIRST, 2, 0L);
+
+        assertEquals(1, actual.getContent().size());
+        assertFalse(actual.hasNext());
+        assertFalse(jpql.getValue().contains("where"));
+    }
+
+    @Test
+    void testFetchAfterForInvalidCursorValue() {
+        final List<Sort> keyset = Arrays.asList(new Sort("id", Sort.Direction.ASC));
+        final Cursor cursor = Cursor.of(keyset, Arrays.asList("not an id"));
+
+        assertThrows(InvalidValueException.class, () -> {
+            userService.fetchAfter(new BooleanBuilder(), keyset, cursor, 2, 0L);
+        });
+    }
 }
@@ -1,9 +1,11 @@
 package org.example.account.user.filter;
 
 import com.querydsl.core.BooleanBuilder;
+import io.vertx.core.MultiMap;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import org.example.account.entity.QUser;
+import org.example.microservicecommon.http.QueryParams;
 import org.junit.jupiter.api.Test;
 
 import java.util.Arrays;
@@ -42,4 +44,39 @@ class UserListFilterTest {
 
         assertEquals(expected, actual);
     }
+
+    @Test
+    void testFromQueryParams() {
+        final MultiMap params = MultiMap.caseInsensitiveMultiMap()
+                .add("username", "a")
+                .add("username", "b")
+                .add("sort", "username");
+        final UserListFilter userListFilter = new UserListFilter(QueryParams.parse(params));
+
+        final BooleanBuilder expected = new BooleanBuilder();
+        expected.or(qUser.username.equalsIgnoreCase("a"));
+        expected.or(qUser.username.equalsIgnoreCase("b"));
+
+        assertEquals(Arrays.asList("a", "b"), userListFilter.getUsername());
+        assertEquals(expected, userListFilter.generateBooleanBuilder());
+        assertEquals(expected, new UserListFilter(userListFilter.toJson()).generateBooleanBuilder());
+    }
+
+    @Test
+    void testPredicate() {
+        final JsonObject json = new JsonObject().put("username", new JsonArray(Arrays.asList("c")));
+        final UserListFilter first = new UserListFilter(json);
+        final UserListFilter second = new UserListFilter(json);
+
+        final BooleanBuilder expected = new BooleanBuilder(qUser.username.equalsIgnoreCase("c"));
+
+        assertEquals(expected, first.predicate());
+        assertEquals(expected, second.predicate());
+        assertNotSame(first.predicate(), second.predicate());
+
+        first.predicate().and(qUser.id.eq(1L));
+
+        assertEquals(expected, second.predicate());
+        assertEquals(new BooleanBuilder(), new UserListFilter(new JsonObject()).predicate());
+    }
 }
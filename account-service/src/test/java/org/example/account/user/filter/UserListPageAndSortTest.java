@@ -1,8 +1,11 @@
 package org.example.account.user.filter;
 
+import io.vertx.core.MultiMap;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import org.example.microservicecommon.exception.InvalidSortFieldException;
+import org.example.microservicecommon.http.AbstractQueryPageAndSort;
+import org.example.microservicecommon.http.QueryParams;
 import org.example.microservicecommon.http.Sort;
 import org.junit.jupiter.api.Test;
 import org.springframework.data.domain.PageRequest;
@@ -95,4 +98,73 @@ class UserListPageAndSortTest {
 
         assertEquals(expected, actual);
     }
+
+    @Test
+    void testFromQueryParams() {
+        final MultiMap params = MultiMap.caseInsensitiveMultiMap()
+                .add("sort", "username,asc")
+                .add("page", "2")
+                .add("size", "11")
+                .add("username", "a");
+
+        final UserListPageAndSort pageAndSort = new UserListPageAndSort(QueryParams.parse(params));
+
+        assertEquals(2, pageAndSort.pageNumber());
+        assertEquals(11, pageAndSort.limit());
+        assertEquals("username", pageAndSort.sortParams().get(0).getField());
+        assertEquals(Sort.Direction.ASC, pageAndSort.sortParams().get(0).getDirection());
+        assertEquals(
+                new JsonObject()
+                        .put("page", 2)
+                        .put("size", 11)
+                        .put("sort", new JsonArray(Arrays.asList("username,asc"))),
+                pageAndSort.toJson()
+        );
+    }
+
+    @Test
+    void testToJsonRoundTrip() {
+        final MultiMap params = MultiMap.caseInsensitiveMultiMap()
+                .add("sort", "username")
+                .add("page", "3");
+
+        final UserListPageAndSort pageAndSort = new UserListPageAndSort(QueryParams.parse(params));
+        final UserListPageAndSort decoded = new UserListPageAndSort(pageAndSort.toJson());
+
+        assertEquals(
+                new JsonObject().put("page", 3).put("sort", new JsonArray(Arrays.asList("username,desc"))),
+                pageAndSort.toJson()
+        );
+        assertEquals(pageAndSort.getJpaPageable(), decoded.getJpaPageable());
+    }
+
+    @Test
+    void testSpecIsSharedBetweenPages() {
+        final JsonObject json = new JsonObject();
+        json.put("sort", new JsonArray(Arrays.asList("username,ASC")));
+        json.put("size", new JsonArray(Arrays.asList("13")));
+
+        final UserListPageAndSort first = new UserListPageAndSort(json.copy().put("page", 0));
+        final UserListPageAndSort second = new UserListPageAndSort(json.copy().put("page", 4));
+        final long hits = AbstractQueryPageAndSort.specCacheMetrics().getLong("hits");
+
+        assertSame(first.spec(), second.spec());
+        assertEquals(hits + 1, AbstractQueryPageAndSort.specCacheMetrics().getLong("hits"));
+        assertEquals(4, second.getJpaPageable().getPageNumber());
+        assertEquals(13, second.getJpaPageable().getPageSize());
+        assertEquals(first.getJpaPageable().getSort(), second.getJpaPageable().getSort());
+    }
+
+    @Test
+    void testValidateSortForCachedInvalidField() {
+        final JsonObject json = new JsonObject();
+        json.put("sort", new JsonArray(Arrays.asList("username", "invalid,asc")));
+
+        new UserListPageAndSort(json).spec();
+
+        final InvalidSortFieldException ex = assertThrows(InvalidSortFieldException.class, () -> {
+            new UserListPageAndSort(json).validateSort();
+        });
+        assertEquals("invalid sort fields: invalid", ex.getMessage());
+    }
 }
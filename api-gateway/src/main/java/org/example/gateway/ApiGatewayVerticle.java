@@ -1,33 +1,145 @@
 package org.example.gateway;
 
+import io.vertx.circuitbreaker.OpenCircuitException;
+import io.vertx.circuitbreaker.TimeoutException;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.MultiMap;
 import io.vertx.core.Promise;
-import io.vertx.core.http.HttpClient;
+import io.vertx.core.buffer.Buffer;
 import io.vertx.core.http.HttpClientRequest;
+import io.vertx.core.http.HttpClientResponse;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServerOptions;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.json.DecodeException;
+import io.vertx.core.json.Json;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.core.logging.Logger;
 import io.vertx.core.logging.LoggerFactory;
+import io.vertx.core.streams.Pipe;
 import io.vertx.ext.web.Router;
 import io.vertx.ext.web.RoutingContext;
 import io.vertx.ext.web.handler.BodyHandler;
 import io.vertx.servicediscovery.Record;
-import io.vertx.servicediscovery.ServiceDiscovery;
-import io.vertx.servicediscovery.types.HttpEndpoint;
+import io.vertx.servicediscovery.ServiceDiscoveryOptions;
+import org.example.gateway.balancer.EndpointStats;
+import org.example.gateway.balancer.LoadBalancer;
+import org.example.gateway.cache.CachedResponse;
+import org.example.gateway.cache.ResponseCache;
+import org.example.gateway.circuitbreaker.CancelledCallException;
+import org.example.gateway.circuitbreaker.CircuitBreakerRegistry;
+import org.example.gateway.concurrency.ConcurrencyLimiterRegistry;
+import org.example.gateway.concurrency.GradientConcurrencyLimiter;
+import org.example.gateway.concurrency.LimitExceededException;
+import org.example.gateway.hedging.HedgingPolicy;
+import org.example.gateway.outlier.OutlierDetector;
+import org.example.gateway.priority.FairQueue;
+import org.example.gateway.priority.FairQueueRegistry;
+import org.example.gateway.priority.Flow;
+import org.example.gateway.priority.PriorityClassifier;
+import org.example.gateway.ratelimit.RateLimiter;
 import org.example.microservicecommon.RestApiVerticle;
+import org.example.microservicecommon.http.ApiResponse;
+import org.example.microservicecommon.util.DeadlineUtils;
 
+import java.util.Arrays;
 import java.util.List;
-import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 /**
  * API gateway verticle.
+ * Can be deployed with several instances, which share the HTTP server port and the {@link GatewayComponents}.
  */
 public class ApiGatewayVerticle extends RestApiVerticle {
 
-    private static final int DEFAULT_PORT = 8787;
+    static final int DEFAULT_PORT = 8787;
 
     private static final String apiRoutePrefix = "api";
 
     private static final Logger logger = LoggerFactory.getLogger(ApiGatewayVerticle.class);
 
+    /**
+     * Local routing table for API name to HTTP endpoints.
+     */
+    private RoutingTable routingTable;
+
+    /**
+     * HTTP clients for upstream endpoints.
+     */
+    private UpstreamClientRegistry upstreamClients;
+
+    /**
+     * State shared with the other instances of the verticle.
+     */
+    private GatewayComponents components;
+
+    /**
+     * Load balancer for APIs with multiple endpoints.
+     */
+    private LoadBalancer loadBalancer;
+
+    /**
+     * Circuit breakers per upstream API or endpoint.
+     */
+    private CircuitBreakerRegistry circuitBreakers;
+
+    /**
+     * Cache for responses of GET requests.
+     */
+    private ResponseCache responseCache;
+
+    /**
+     * Collapses concurrent identical GET requests.
+     */
+    private RequestCoalescer requestCoalescer;
+
+    /**
+     * Negotiated compression of responses.
+     */
+    private ResponseCompression responseCompression;
+
+    /**
+     * Limits requests per client and API.
+     */
+    private RateLimiter rateLimiter;
+
+    /**
+     * Priority classes and weighted-fair queues for the upstream concurrency slots.
+     */
+    private FairQueueRegistry fairQueues;
+
+    /**
+     * Keeps unhealthy endpoints out of the balancing sets.
+     */
+    private OutlierDetector outlierDetector;
+
+    /**
+     * Time budget of an upstream call in milliseconds, the circuit breaker timeout. -1 if calls are not timed out.
+     */
+    private long upstreamTimeout;
+
+    /**
+     * Adaptive concurrency limits of the upstream endpoints.
+     */
+    private ConcurrencyLimiterRegistry concurrencyLimiters;
+
+    /**
+     * When to send a second attempt of a GET request.
+     */
+    private HedgingPolicy hedgingPolicy;
+
+    /**
+     * <code>batch</code> config.
+     */
+    private JsonObject batchConfig;
+
     /**
      * Starts an HTTP server.
      * Dispatches each request to its respective service.
@@ -40,147 +152,1353 @@ public class ApiGatewayVerticle extends RestApiVerticle {
         final String host = config().getString("api.gateway.http.address", "localhost");
         final int port = config().getInteger("api.gateway.http.port", DEFAULT_PORT);
 
+        components = GatewayComponents.acquire(vertx, config());
+        responseCompression = components.getResponseCompression();
+        loadBalancer = components.getLoadBalancer();
+        circuitBreakers = components.getCircuitBreakers();
+        responseCache = components.getResponseCache();
+        requestCoalescer = components.getRequestCoalescer();
+        concurrencyLimiters = components.getConcurrencyLimiters();
+        hedgingPolicy = components.getHedgingPolicy();
+        rateLimiter = components.getRateLimiter();
+        fairQueues = components.getFairQueues();
+        outlierDetector = components.getOutlierDetector();
+        upstreamTimeout = config().getJsonObject("circuitBreakers", new JsonObject()).getLong("timeout", 10000L);
+        batchConfig = config().getJsonObject("batch", new JsonObject());
+
+        // clients may send any X-Request-Priority, shed load by the class the gateway gives their requests
+        admissionController.priorityFunction(request -> fairQueues.getClassifier().classify(request).getPriority());
+
         final Router router = Router.router(vertx);
-        router.route().handler(BodyHandler.create());
+        router.route().handler(responseCompression::handle);
         router.get("/v").handler(this::apiVersion);
+        router.get("/metrics").handler(this::metrics);
+
+        if (batchConfig.getBoolean("enabled", false)) {
+            router.post("/batch")
+                    .handler(BodyHandler.create().setBodyLimit(batchConfig.getLong("maxBodySize", 1048576L)))
+                    .handler(this::dispatchBatch);
+        }
+
         router.route("/*").handler(this::dispatchRequests);
         this.addSubRouter(router);
 
-        vertx
-                .createHttpServer()
-                .requestHandler(apiRouter)
-                .listen(port, host, res -> {
-                    if (res.succeeded()) {
-                        this.publishApiGateway(host, port);
-                        startPromise.complete();
-                        logger.info("API Gateway is running on port " + port);
-                    } else {
-                        startPromise.fail(res.cause());
+        upstreamClients = new UpstreamClientRegistry(vertx, config().getJsonObject("upstream", new JsonObject()));
+        routingTable = new RoutingTable(vertx, serviceDiscovery)
+                .endpointAddedHandler(record -> {
+                    upstreamClients.add(record);
+                    outlierDetector.add(record);
+                })
+                .endpointRemovedHandler(record -> {
+                    upstreamClients.remove(record);
+                    loadBalancer.remove(record);
+                    circuitBreakers.remove(record);
+                    concurrencyLimiters.remove(record);
+                    fairQueues.remove(record);
+                    outlierDetector.remove(record);
+                });
+
+        routingTable.init(ServiceDiscoveryOptions.DEFAULT_ANNOUNCE_ADDRESS)
+                .future()
+                .setHandler(init -> {
+                    if (init.failed()) {
+                        startPromise.fail(init.cause());
+
+                        return;
                     }
+
+                    vertx
+                            .createHttpServer(httpServerOptions())
+                            .requestHandler(apiRouter)
+                            .listen(port, host, res -> {
+                                if (res.succeeded()) {
+                                    startPromise.complete();
+                                    logger.info("API Gateway instance listening on port " + port);
+                                } else {
+                                    startPromise.fail(res.cause());
+                                }
+                            });
                 });
+    }
+
+    /**
+     * Stop listening to service discovery changes, close upstream clients, release the shared components
+     * and remove published records.
+     * @param promise a promise
+     */
+    @Override
+    public void stop(final Promise<Void> promise) {
+        if (components != null) {
+            components.release(vertx);
+        }
+
+        if (routingTable != null) {
+            routingTable.close();
+        }
+
+        if (upstreamClients != null) {
+            upstreamClients.close();
+        }
 
+        super.stop(promise);
     }
 
     /**
-     * Identify the service from the URI, fetch the corresponding record from service
-     * discovery, and dispatches the request to that service.
+     * Identify the service from the URI, look up its endpoints in the local routing table,
+     * skipping those ejected by the outlier detector,
+     * and dispatches the request to the endpoint selected by the load balancer.
      * @param context request context
      */
     private void dispatchRequests(final RoutingContext context) {
         final String requestPath = context.request().uri();
 
-        circuitBreaker.execute(promise -> {
-            this.getAllHttpEndpoints().future().setHandler(res -> {
-                if (res.succeeded()) {
-                    final List<Record> records = res.result();
+        if (requestPath.length() <= 1) {
+            this.routeNotFoundHandler(context);
 
-                    if (requestPath.length() <= 1) {
-                        this.routeNotFoundHandler(context);
-                        promise.complete();
+            return;
+        }
 
-                        return;
-                    }
+        final String[] splitRequestPath = requestPath.substring(1).split("/");
 
-                    final String[] splitRequestPath = requestPath.substring(1).split("/");
+        if (splitRequestPath.length <= 2) {
+            this.routeNotFoundHandler(context);
 
-                    if (splitRequestPath.length <= 2) {
-                        this.routeNotFoundHandler(context);
-                        promise.complete();
+            return;
+        }
 
-                        return;
-                    }
+        final String apiPrefix = splitRequestPath[0];
 
-                    final String apiPrefix = splitRequestPath[0];
+        if (!apiPrefix.equals(apiRoutePrefix)) {
+            this.routeNotFoundHandler(context);
 
-                    if (!apiPrefix.equals(apiRoutePrefix)) {
-                        this.routeNotFoundHandler(context);
-                        promise.complete();
+            return;
+        }
 
-                        return;
-                    }
+        final String apiName = splitRequestPath[1];
 
-                    final String apiName = splitRequestPath[1];
-                    final String relativePath = requestPath.substring(apiPrefix.length() + apiName.length() + 2);
+        if (rateLimiter.isEnabled()) {
+            final long waitMillis = rateLimiter.acquire(context.request(), apiName);
 
-                    Optional<Record> serviceRecord = records.stream()
-                            .filter(record -> record.getMetadata().getString("api.name") != null)
-                            .filter(record -> record.getMetadata().getString("api.name").equals(apiName))
-                            .findAny();
+            if (waitMillis > 0) {
+                // Retry-After is in whole seconds, rounded up
+                this.tooManyRequestsHandler((waitMillis + 999) / 1000, context);
 
-                    if (serviceRecord.isPresent()) {
-                        doDispatch(context, relativePath, serviceDiscovery.getReference(serviceRecord.get()).get(), promise);
-                    } else {
-                        this.routeNotFoundHandler(context);
-                        promise.complete();
-                    }
-                } else {
-                    promise.fail(res.cause());
-                }
-            }).setHandler(res -> {
-                if (res.failed()) {
-                     this.badGatewayHandler(res.cause(), context);
-                     promise.complete();
+                return;
+            }
+        }
+
+        final String relativePath = requestPath.substring(apiPrefix.length() + apiName.length() + 2);
+        final List<Record> records = outlierDetector.available(routingTable.lookup(apiName));
+
+        if (records.isEmpty()) {
+            this.routeNotFoundHandler(context);
+
+            return;
+        }
+
+        if (isCacheable(context.request())) {
+            if (responseCache.isEnabled()) {
+                dispatchCacheable(context, apiName, relativePath, records);
+
+                return;
+            }
+
+            if (requestCoalescer.isEnabled()) {
+                dispatchBuffered(context, apiName, relativePath, records, upstreamHeaders(context.request()),
+                        requestCoalescer.getMaxBufferBytes(), true);
+
+                return;
+            }
+        }
+
+        if (hedgingPolicy.isEnabled() && context.request().method() == HttpMethod.GET) {
+            dispatchBuffered(context, apiName, relativePath, records, forwardHeaders(context.request()),
+                    hedgingPolicy.getMaxBufferBytes(), false);
+
+            return;
+        }
+
+        // paused until the upstream request is ready to receive the body
+        final Pipe<Buffer> requestPipe = context.request().pipe();
+        final MultiMap headers = forwardHeaders(context.request());
+
+        this.<Object>executeUpstream(apiName, records, flow(headers), (upstream, promise) -> {
+            doDispatch(context, relativePath, headers, requestPipe, upstream, promise);
+        }).setHandler(res -> {
+            if (res.succeeded()) {
+                return;
+            }
+
+            requestPipe.close();
+
+            if (!context.response().headWritten()) {
+                this.upstreamFailureHandler(res.cause(), context);
+            } else if (!context.response().ended()) {
+                context.response().close();
+            }
+        });
+    }
+
+    /**
+     * Dispatch the sub-requests of a batch concurrently and reply with all their responses at once.
+     * <p>
+     * The body holds the sub-requests and an optional time budget, a positive number of milliseconds:
+     * <code>{"timeout": 2000, "requests": [{"id": "users", "method": "GET", "path": "/api/account/users",
+     * "headers": {}, "body": {}}]}</code>. Each sub-request goes through the same rate limits, balancing,
+     * breakers and limits as a single request, with the headers of the batch request and its own headers.
+     * The reply lists, in order, the <code>id</code>, <code>status</code> and <code>body</code> of each
+     * sub-request. Sub-requests still running when the budget is spent are answered with a 504.
+     * @param context request context
+     */
+    private void dispatchBatch(final RoutingContext context) {
+        final JsonObject batch;
+
+        try {
+            batch = context.getBodyAsJson();
+        } catch (final DecodeException | ClassCastException ex) {
+            this.badRequestHandler("invalid batch body", context);
+
+            return;
+        }
+
+        final JsonArray items = batch == null ? null : batch.getJsonArray("requests");
+        final int maxRequests = batchConfig.getInteger("maxRequests", 20);
+
+        if (items == null || items.isEmpty() || items.size() > maxRequests) {
+            this.badRequestHandler("batch should have 1 to " + maxRequests + " requests", context);
+
+            return;
+        }
+
+        final List<JsonObject> requests = items.stream()
+                .map(item -> item instanceof JsonObject ? (JsonObject) item : new JsonObject())
+                .collect(Collectors.toList());
+
+        final Object timeout = batch.getValue("timeout");
+
+        if (timeout != null && (!(timeout instanceof Number) || ((Number) timeout).longValue() <= 0)) {
+            this.badRequestHandler("batch timeout should be a positive number of milliseconds", context);
+
+            return;
+        }
+
+        final long budget = Math.min(
+                timeout == null ? Long.MAX_VALUE : ((Number) timeout).longValue(),
+                batchConfig.getLong("timeout", 5000L)
+        );
+        final long deadline = DeadlineUtils.earliest(deadline(context.request()), System.currentTimeMillis() + budget);
+        final JsonObject[] responses = new JsonObject[items.size()];
+        final Promise<Void> done = Promise.promise();
+        final long timerId = vertx.setTimer(Math.max(1L, budget), id -> done.tryComplete());
+        final AtomicInteger pending = new AtomicInteger(items.size());
+
+        for (int i = 0; i < requests.size(); i++) {
+            final int index = i;
+
+            dispatchBatchItem(context, requests.get(i), deadline).setHandler(res -> {
+                responses[index] = res.result();
+
+                if (pending.decrementAndGet() == 0) {
+                    done.tryComplete();
                 }
             });
+        }
+
+        done.future().setHandler(res -> {
+            vertx.cancelTimer(timerId);
+
+            final JsonArray results = new JsonArray();
+
+            for (int i = 0; i < responses.length; i++) {
+                final JsonObject response = responses[i];
+
+                results.add(response != null ? response : batchError(requests.get(i), 504, "gateway timeout"));
+            }
+
+            context.response().end(new ApiResponse(200, new JsonObject().put("responses", results)).toJson().encode());
         });
     }
 
     /**
-     * Calls the HTTP service, get the response and return it to the client.
-     * @param context request context
-     * @param path request path
-     * @param httpClient HTTP client from service discovery
-     * @param cbPromise circuit breaker promise
+     * Dispatch one sub-request of a batch.
+     * @param context request context of the batch
+     * @param item sub-request
+     * @param deadline deadline of the batch
+     * @return future of the sub-request result, never failed
      */
-    private void doDispatch(
+    private Future<JsonObject> dispatchBatchItem(
             final RoutingContext context,
-            final String path,
-            final HttpClient httpClient,
-            final Promise<Object> cbPromise
+            final JsonObject item,
+            final long deadline
     ) {
-        final HttpClientRequest toRequest = httpClient.request(context.request().method(), path, res -> {
-            res.bodyHandler(body -> {
-                if (res.statusCode() >= 500) {
-                    cbPromise.fail(res.toString());
-                } else {
-                    context
-                            .response()
-                            .setStatusCode(res.statusCode())
-                            .end(body);
-                    cbPromise.complete();
-                }
+        final String path = item.getString("path", "");
+        final String[] splitPath = path.length() > 1 ? path.substring(1).split("/") : new String[0];
 
-                ServiceDiscovery.releaseServiceObject(serviceDiscovery, httpClient);
-            });
+        if (splitPath.length <= 2 || !splitPath[0].equals(apiRoutePrefix)) {
+            return Future.succeededFuture(batchError(item, 404, "route not found"));
+        }
+
+        final HttpMethod method;
+
+        try {
+            method = HttpMethod.valueOf(item.getString("method", HttpMethod.GET.name()).toUpperCase());
+        } catch (final IllegalArgumentException ex) {
+            return Future.succeededFuture(batchError(item, 400, "invalid method"));
+        }
+
+        final String apiName = splitPath[1];
+
+        if (rateLimiter.isEnabled() && rateLimiter.acquire(context.request(), apiName) > 0) {
+            return Future.succeededFuture(batchError(item, 429, "too many requests"));
+        }
+
+        final List<Record> records = outlierDetector.available(routingTable.lookup(apiName));
+
+        if (records.isEmpty()) {
+            return Future.succeededFuture(batchError(item, 404, "route not found"));
+        }
+
+        final String relativePath = path.substring(apiRoutePrefix.length() + apiName.length() + 2);
+        final MultiMap headers = batchHeaders(context.request(), item, deadline);
+        final Buffer body = batchBody(item.getValue("body"), headers);
+        final Future<UpstreamResponse> response = method == HttpMethod.GET && body == null
+                ? fetchUpstream(apiName, records, relativePath, headers)
+                : this.<UpstreamResponse>executeUpstream(apiName, records, flow(headers), (upstream, promise) -> {
+                    fetch(upstream, method, relativePath, headers, body, -1, promise);
+                });
+
+        return response
+                .map(upstream -> batchResult(item, upstream.getStatus(), batchBody(upstream)))
+                .otherwise(ex -> {
+                    final int status = ex instanceof LimitExceededException ? 503 : 502;
+
+                    return batchError(item, status, status == 503 ? "service unavailable" : "bad gateway");
+                });
+    }
+
+    /**
+     * Returns the headers of a sub-request: the headers of the batch request, without its body headers,
+     * overridden by the headers of the sub-request.
+     * @param request batch request
+     * @param item sub-request
+     * @param deadline deadline of the batch
+     * @return request headers for the service
+     */
+    private MultiMap batchHeaders(final HttpServerRequest request, final JsonObject item, final long deadline) {
+        final MultiMap headers = forwardHeaders(request);
+
+        headers.remove(HttpHeaders.CONTENT_LENGTH);
+        headers.remove(HttpHeaders.CONTENT_TYPE);
+        // sub-request bodies are read as a whole, so they are requested uncompressed
+        headers.remove(HttpHeaders.ACCEPT_ENCODING);
+
+        item.getJsonObject("headers", new JsonObject()).forEach(header -> {
+            // sub-requests keep the priority the gateway gave to the batch
+            if (!PriorityClassifier.isTag(header.getKey())) {
+                headers.set(header.getKey(), String.valueOf(header.getValue()));
+            }
         });
+        DeadlineUtils.putTimeout(headers, DeadlineUtils.earliest(deadline, DeadlineUtils.fromHeaders(headers)));
 
-        if (context.getBody() == null) {
-            toRequest.end();
-        } else {
-            toRequest.end(context.getBody());
+        return headers;
+    }
+
+    /**
+     * Returns the body to send for a sub-request, JSON unless it is a string.
+     * @param value <code>body</code> of the sub-request
+     * @param headers request headers, given a JSON content type when none is set
+     * @return body, null if there is none
+     */
+    private static Buffer batchBody(final Object value, final MultiMap headers) {
+        if (value == null) {
+            return null;
+        }
+
+        if (value instanceof String) {
+            return Buffer.buffer((String) value);
+        }
+
+        if (!headers.contains(HttpHeaders.CONTENT_TYPE)) {
+            headers.set(HttpHeaders.CONTENT_TYPE, "application/json");
+        }
+
+        return Buffer.buffer(Json.encode(value));
+    }
+
+    /**
+     * Returns the body of a sub-request response: parsed JSON for JSON responses, else a string.
+     * @param upstream service response
+     * @return body, null if empty
+     */
+    private static Object batchBody(final UpstreamResponse upstream) {
+        final Buffer body = upstream.getBody();
+        final String contentType = upstream.getHeaders().get(HttpHeaders.CONTENT_TYPE);
+
+        if (body == null || body.length() == 0) {
+            return null;
+        }
+
+        if (contentType != null && contentType.contains("json")) {
+            try {
+                return Json.decodeValue(body);
+            } catch (final DecodeException ex) {
+                logger.debug("Invalid JSON in batch response: " + ex.getMessage());
+            }
+        }
+
+        return body.toString();
+    }
+
+    private static JsonObject batchResult(final JsonObject item, final int status, final Object body) {
+        return new JsonObject()
+                .put("id", item.getValue("id"))
+                .put("status", status)
+                .put("body", body);
+    }
+
+    private static JsonObject batchError(final JsonObject item, final int status, final String message) {
+        return batchResult(item, status, new ApiResponse(status, new ApiResponse.Error(message)).toJson());
+    }
+
+    /**
+     * Call an upstream service: select an endpoint with the load balancer and run the call through
+     * the circuit breaker of the API, tracking the endpoint load.
+     * Fails with {@link LimitExceededException} without calling the service when the endpoint is at
+     * its concurrency limit, or, with fair queuing, when the request could not get a slot in time.
+     * @param apiName API name
+     * @param records endpoints of the API
+     * @param flow flow of the request, for fair queuing
+     * @param call call to the service endpoint, completing the given promise
+     * @param <T> result type
+     * @return future of the call result
+     */
+    private <T> Future<T> executeUpstream(
+            final String apiName,
+            final List<Record> records,
+            final Flow flow,
+            final BiConsumer<Record, Promise<T>> call
+    ) {
+        return executeUpstream(apiName, loadBalancer.select(records), flow, call);
+    }
+
+    /**
+     * Call an endpoint of an upstream service through the circuit breaker of the API.
+     * @param apiName API name
+     * @param endpoint endpoint to call
+     * @param flow flow of the request, for fair queuing
+     * @param call call to the service endpoint, completing the given promise
+     * @param <T> result type
+     * @return future of the call result
+     */
+    private <T> Future<T> executeUpstream(
+            final String apiName,
+            final Record endpoint,
+            final Flow flow,
+            final BiConsumer<Record, Promise<T>> call
+    ) {
+        if (!concurrencyLimiters.isEnabled()) {
+            return callUpstream(apiName, endpoint, null, null, call);
+        }
+
+        final GradientConcurrencyLimiter limiter = concurrencyLimiters.get(endpoint);
+
+        if (fairQueues.isEnabled()) {
+            // waits for a slot in the weighted-fair queue of the endpoint, slots freed go to the next flow
+            final FairQueue queue = fairQueues.get(endpoint, limiter);
+
+            return fairQueues.acquire(queue, flow)
+                    .compose(slot -> callUpstream(apiName, endpoint, limiter, queue, call));
+        }
+
+        // rejected at the edge instead of queueing in the service
+        if (!limiter.tryAcquire()) {
+            return Future.failedFuture(LimitExceededException.INSTANCE);
         }
+
+        return callUpstream(apiName, endpoint, limiter, null, call);
     }
 
     /**
-     * Fetch all HTTP endpoints from service discovery.
-     * @return a promise of Records from service discovery
+     * Call an endpoint through the circuit breaker of the API, holding a slot of its concurrency limiter.
+     * The result is reported to the outlier detector, unless the call was rejected by an open circuit or
+     * cancelled.
+     * @param apiName API name
+     * @param endpoint endpoint to call
+     * @param limiter concurrency limiter the slot was taken from, null if limits are disabled
+     * @param queue fair queue to hand the slot over to once given back, null if fair queuing is disabled
+     * @param call call to the service endpoint, completing the given promise
+     * @param <T> result type
+     * @return future of the call result; the slot is given back once the body of a streamed response is read,
+     *         or right away when the breaker times the call out, which resets the service request
      */
-    private Promise<List<Record>> getAllHttpEndpoints() {
-        final Promise<List<Record>> promise = Promise.promise();
+    private <T> Future<T> callUpstream(
+            final String apiName,
+            final Record endpoint,
+            final GradientConcurrencyLimiter limiter,
+            final FairQueue queue,
+            final BiConsumer<Record, Promise<T>> call
+    ) {
+        final EndpointStats endpointStats = loadBalancer.stats(endpoint);
+        final long callStart = System.nanoTime();
+        final Future<T> result = circuitBreakers.get(apiName, endpoint).execute(promise -> {
+            final Promise<T> upstreamPromise = Promise.promise();
+            final long startTime = endpointStats.requestStarted();
+
+            upstreamPromise.future().setHandler(upstream -> {
+                endpointStats.requestEnded(startTime);
+                promise.handle(upstream);
+            });
+
+            // timed out by the breaker
+            promise.future().setHandler(operation -> {
+                if (operation.failed()) {
+                    upstreamPromise.tryFail(operation.cause());
+                }
+            });
+
+            call.accept(endpoint, upstreamPromise);
+        });
+
+        final Promise<T> completed = Promise.promise();
+
+        result.setHandler(res -> {
+            final long latency = System.nanoTime() - callStart;
+
+            final boolean ignored = res.failed()
+                    && (res.cause() instanceof OpenCircuitException || res.cause() instanceof CancelledCallException);
 
-        serviceDiscovery.getRecords(record -> record.getType().equals(HttpEndpoint.TYPE), res -> {
             if (res.succeeded()) {
-                promise.complete(res.result());
-            } else {
-                promise.fail(res.cause());
+                outlierDetector.onSuccess(endpoint, latency);
+            } else if (!ignored) {
+                outlierDetector.onFailure(endpoint);
             }
+
+            // a streamed body is still being read from the endpoint, which keeps its slot until then
+            final Future<Void> streamEnd = res.succeeded() && res.result() instanceof UpstreamResponse
+                    ? ((UpstreamResponse) res.result()).streamEnd()
+                    : Future.succeededFuture();
+
+            streamEnd.setHandler(end -> {
+                if (limiter != null) {
+                    if (res.succeeded()) {
+                        limiter.onSuccess(latency);
+                    } else if (ignored) {
+                        limiter.onIgnored();
+                    } else {
+                        limiter.onDropped();
+                    }
+                }
+
+                if (queue != null) {
+                    queue.release();
+                }
+            });
+
+            completed.handle(res);
         });
 
-        return promise;
+        return completed.future();
     }
 
-    private void apiVersion(RoutingContext context) {
-        context.response()
-                .end(new JsonObject().put("version", "v1").encodePrettily());
+    /**
+     * Serve a GET request from the response cache.
+     * Fresh entries are served directly. Stale entries within their <code>stale-while-revalidate</code>
+     * window are served while being revalidated in the background. Otherwise the service is called,
+     * conditionally when the entry has an ETag, and a stale entry within its <code>stale-if-error</code> window
+     * is served if the call fails. Responses too large to be stored are streamed to the client.
+     * @param context request context
+     * @param apiName API name
+     * @param relativePath request URI relative to the API
+     * @param records endpoints of the API
+     */
+    private void dispatchCacheable(
+            final RoutingContext context,
+            final String apiName,
+            final String relativePath,
+            final List<Record> records
+    ) {
+        final String key = ResponseCache.key(apiName, relativePath);
+        final long now = System.currentTimeMillis();
+        final MultiMap headers = upstreamHeaders(context.request());
+        final CachedResponse cached = responseCache.get(key, headers, now);
+
+        if (cached != null && cached.isFresh(now)) {
+            sendCached(context, cached);
+
+            return;
+        }
+
+        if (cached != null && cached.isStaleUsable(now)) {
+            sendCached(context, cached);
+
+            if (responseCache.startRevalidation(key)) {
+                fetchCacheable(key, apiName, relativePath, records, headers, cached).setHandler(res -> {
+                    responseCache.endRevalidation(key);
+
+                    if (res.succeeded()) {
+                        discard(res.result());
+                    }
+                });
+            }
+
+            return;
+        }
+
+        final boolean shared = requestCoalescer.isEnabled();
+
+        fetchCacheable(key, apiName, relativePath, records, headers, cached).setHandler(res -> {
+            sendFetched(context, key, apiName, relativePath, records, headers, cached, res, shared);
+        });
+    }
+
+    /**
+     * Send a response fetched for a GET request, or a stale entry if the fetch failed.
+     * A response shared with identical requests is fetched again for this request when it does not fit it:
+     * its body was streamed to another request, or it is a variant for other request headers.
+     * @param context request context
+     * @param key cache key
+     * @param apiName API name
+     * @param relativePath request URI relative to the API
+     * @param records endpoints of the API
+     * @param headers request headers sent to the service
+     * @param previous stored entry, or <code>null</code>
+     * @param res fetched response
+     * @param shared whether the response may have been fetched for another request
+     */
+    private void sendFetched(
+            final RoutingContext context,
+            final String key,
+            final String apiName,
+            final String relativePath,
+            final List<Record> records,
+            final MultiMap headers,
+            final CachedResponse previous,
+            final AsyncResult<CachedResponse> res,
+            final boolean shared
+    ) {
+        if (context.response().ended()) {
+            if (res.succeeded()) {
+                discard(res.result());
+            }
+
+            return;
+        }
+
+        if (res.failed()) {
+            if (previous != null && previous.isUsableOnError(System.currentTimeMillis())) {
+                responseCache.staleIfError();
+                sendCached(context, previous);
+            } else {
+                this.upstreamFailureHandler(res.cause(), context);
+            }
+
+            return;
+        }
+
+        final CachedResponse fetched = res.result();
+        final boolean fits = fetched.getResponse().isStreamed()
+                ? fetched.getResponse().claim()
+                : fetched.matches(headers);
+
+        if (!fits && shared) {
+            doFetchCacheable(key, apiName, relativePath, records, headers, previous).setHandler(retry -> {
+                sendFetched(context, key, apiName, relativePath, records, headers, previous, retry, false);
+            });
+
+            return;
+        }
+
+        sendCached(context, fetched);
+    }
+
+    /**
+     * Drop the body of a fetched response which is not sent, unless another request took it.
+     * @param fetched fetched response
+     */
+    private static void discard(final CachedResponse fetched) {
+        if (fetched.getResponse().claim()) {
+            fetched.getResponse().discard();
+        }
+    }
+
+    /**
+     * Fetch a GET response from the service and store it in the cache.
+     * Concurrent fetches of the same key are collapsed into one when coalescing is enabled.
+     * @param key cache key
+     * @param apiName API name
+     * @param relativePath request URI relative to the API
+     * @param records endpoints of the API
+     * @param headers request headers to forward
+     * @param previous stored entry, revalidated with its ETag if it has one
+     * @return future of the response to serve
+     */
+    private Future<CachedResponse> fetchCacheable(
+            final String key,
+            final String apiName,
+            final String relativePath,
+            final List<Record> records,
+            final MultiMap headers,
+            final CachedResponse previous
+    ) {
+        if (requestCoalescer.isEnabled()) {
+            return requestCoalescer.execute(key, () -> {
+                return doFetchCacheable(key, apiName, relativePath, records, headers, previous);
+            });
+        }
+
+        return doFetchCacheable(key, apiName, relativePath, records, headers, previous);
+    }
+
+    private Future<CachedResponse> doFetchCacheable(
+            final String key,
+            final String apiName,
+            final String relativePath,
+            final List<Record> records,
+            final MultiMap headers,
+            final CachedResponse previous
+    ) {
+        final MultiMap requestHeaders = MultiMap.caseInsensitiveMultiMap().setAll(headers);
+
+        if (previous != null && previous.getEtag() != null) {
+            requestHeaders.set(HttpHeaders.IF_NONE_MATCH, previous.getEtag());
+        }
+
+        // larger bodies are streamed, the cache would not keep them anyway
+        return fetchUpstream(apiName, records, relativePath, requestHeaders, responseCache.getMaxEntryBytes())
+                .map(upstream -> responseCache.store(key, headers, upstream, previous, System.currentTimeMillis()));
+    }
+
+    /**
+     * Serve a GET request without caching from a service response read in memory, or streamed when it is larger
+     * than <code>maxBodyBytes</code>.
+     * @param context request context
+     * @param apiName API name
+     * @param relativePath request URI relative to the API
+     * @param records endpoints of the API
+     * @param headers headers to send to the service
+     * @param maxBodyBytes size above which the response is streamed instead of read, -1 to always read it
+     * @param coalesce whether to share the service response with identical requests in flight
+     */
+    private void dispatchBuffered(
+            final RoutingContext context,
+            final String apiName,
+            final String relativePath,
+            final List<Record> records,
+            final MultiMap headers,
+            final long maxBodyBytes,
+            final boolean coalesce
+    ) {
+        final Supplier<Future<UpstreamResponse>> call = () -> {
+            return fetchUpstream(apiName, records, relativePath, headers, maxBodyBytes);
+        };
+        final Future<UpstreamResponse> response = coalesce
+                ? requestCoalescer.execute(RequestCoalescer.key(apiName, relativePath, headers), call)
+                : call.get();
+
+        response.setHandler(res -> sendBuffered(context, res, call));
+    }
+
+    /**
+     * Send a response fetched for a GET request without caching.
+     * A streamed response shared with identical requests, whose body another request took, is fetched again.
+     * @param context request context
+     * @param res fetched response
+     * @param call fetch of the response
+     */
+    private void sendBuffered(
+            final RoutingContext context,
+            final AsyncResult<UpstreamResponse> res,
+            final Supplier<Future<UpstreamResponse>> call
+    ) {
+        if (context.response().ended()) {
+            if (res.succeeded() && res.result().claim()) {
+                res.result().discard();
+            }
+
+            return;
+        }
+
+        if (res.failed()) {
+            this.upstreamFailureHandler(res.cause(), context);
+
+            return;
+        }
+
+        if (!res.result().claim() && res.result().isStreamed()) {
+            call.get().setHandler(retry -> sendBuffered(context, retry, call));
+
+            return;
+        }
+
+        res.result().writeTo(context.response());
+    }
+
+    /**
+     * Send a GET request to the service and read the whole response, hedged when enabled.
+     * @param apiName API name
+     * @param records endpoints of the API
+     * @param path request URI relative to the API
+     * @param headers request headers
+     * @return future of the response
+     */
+    private Future<UpstreamResponse> fetchUpstream(
+            final String apiName,
+            final List<Record> records,
+            final String path,
+            final MultiMap headers
+    ) {
+        return fetchUpstream(apiName, records, path, headers, -1);
+    }
+
+    /**
+     * Send a GET request to the service and read the response, hedged when enabled.
+     * @param apiName API name
+     * @param records endpoints of the API
+     * @param path request URI relative to the API
+     * @param headers request headers
+     * @param maxBodyBytes size above which the response is streamed instead of read, -1 to always read it
+     * @return future of the response
+     */
+    private Future<UpstreamResponse> fetchUpstream(
+            final String apiName,
+            final List<Record> records,
+            final String path,
+            final MultiMap headers,
+            final long maxBodyBytes
+    ) {
+        if (hedgingPolicy.isEnabled()) {
+            return new HedgedFetch(apiName, records, path, headers, maxBodyBytes).start();
+        }
+
+        return this.<UpstreamResponse>executeUpstream(apiName, records, flow(headers), (upstream, promise) -> {
+            fetch(upstream, path, headers, maxBodyBytes, promise);
+        });
+    }
+
+    /**
+     * Send a GET request to the service and read the response.
+     * A 5xx status from the service fails the promise.
+     * @param endpoint upstream endpoint
+     * @param path request URI
+     * @param headers request headers
+     * @param maxBodyBytes size above which the response is streamed instead of read, -1 to always read it
+     * @param promise promise of the response
+     */
+    private HttpClientRequest fetch(
+            final Record endpoint,
+            final String path,
+            final MultiMap headers,
+            final long maxBodyBytes,
+            final Promise<UpstreamResponse> promise
+    ) {
+        return fetch(endpoint, HttpMethod.GET, path, headers, null, maxBodyBytes, promise);
+    }
+
+    /**
+     * Send a request to the service and read the response.
+     * A 5xx status from the service fails the promise. Responses larger than <code>maxBodyBytes</code>,
+     * or of unknown length, are left paused and completed as {@link UpstreamResponse#streamed streamed}.
+     * @param endpoint upstream endpoint
+     * @param method request method
+     * @param path request URI
+     * @param headers request headers
+     * @param body request body, null if there is none
+     * @param maxBodyBytes size above which the response is streamed instead of read, -1 to always read it
+     * @param promise promise of the response
+     */
+    private HttpClientRequest fetch(
+            final Record endpoint,
+            final HttpMethod method,
+            final String path,
+            final MultiMap headers,
+            final Buffer body,
+            final long maxBodyBytes,
+            final Promise<UpstreamResponse> promise
+    ) {
+        final HttpClientRequest toRequest = upstreamClients.request(endpoint, method, path, res -> {
+            if (res.statusCode() >= 500) {
+                promise.tryFail(res.toString());
+
+                return;
+            }
+
+            if (maxBodyBytes >= 0 && !isBufferable(res, maxBodyBytes)) {
+                res.pause();
+
+                if (!promise.tryComplete(UpstreamResponse.streamed(res))) {
+                    res.request().reset();
+                }
+
+                return;
+            }
+
+            res.exceptionHandler(promise::tryFail);
+            res.bodyHandler(responseBody -> {
+                promise.tryComplete(new UpstreamResponse(res.statusCode(), res.headers(), responseBody));
+            });
+        });
+
+        toRequest.exceptionHandler(promise::tryFail);
+        resetOnTimeout(toRequest, promise);
+        toRequest.headers().setAll(headers);
+
+        if (body == null) {
+            toRequest.end();
+        } else {
+            toRequest.end(body);
+        }
+
+        return toRequest;
+    }
+
+    /**
+     * Returns whether a service response can be read in memory: it has no body, or a known length within the limit.
+     * @param response service response
+     * @param maxBodyBytes body size limit
+     */
+    private static boolean isBufferable(final HttpClientResponse response, final long maxBodyBytes) {
+        if (response.statusCode() == 204 || response.statusCode() == 304) {
+            return true;
+        }
+
+        final String contentLength = response.getHeader(HttpHeaders.CONTENT_LENGTH);
+
+        try {
+            return contentLength != null && Long.parseLong(contentLength) <= maxBodyBytes;
+        } catch (final NumberFormatException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Send a cached response, or <code>304 Not Modified</code> if the client already has it.
+     * @param context request context
+     * @param cached cached response
+     */
+    private void sendCached(final RoutingContext context, final CachedResponse cached) {
+        final HttpServerResponse response = context.response();
+        final String ifNoneMatch = context.request().getHeader(HttpHeaders.IF_NONE_MATCH);
+        final long age = Math.max(0, System.currentTimeMillis() - cached.getStoredAt()) / 1000;
+
+        response.putHeader(HttpHeaders.AGE, String.valueOf(age));
+
+        if (cached.getEtag() != null && cached.getEtag().equals(ifNoneMatch)) {
+            cached.getResponse().discard();
+            response
+                    .putHeader(HttpHeaders.ETAG, cached.getEtag())
+                    .setChunked(false)
+                    .setStatusCode(304)
+                    .end();
+
+            return;
+        }
+
+        if (cached.getCompressedBody() != null && responseCompression.acceptsGzip(context.request())) {
+            cached.getResponse().writeTo(
+                    response,
+                    responseCompression.precompressedEncoding(),
+                    cached.getCompressedBody()
+            );
+
+            return;
+        }
+
+        cached.getResponse().writeTo(response);
+    }
+
+    /**
+     * Returns whether a request may be served from the shared response cache,
+     * ie: a GET request without credentials, whose response is the same for every client.
+     * @param request client request
+     */
+    private static boolean isCacheable(final HttpServerRequest request) {
+        return request.method() == HttpMethod.GET
+                && !request.headers().contains(HttpHeaders.AUTHORIZATION)
+                && !request.headers().contains(HttpHeaders.COOKIE);
+    }
+
+    /**
+     * Returns the deadline of a request: the end of the upstream call budget, or the deadline set by the client
+     * in {@link DeadlineUtils#TIMEOUT_HEADER} when it is earlier. Services use it to stop working on requests
+     * the gateway has already given up on.
+     * @param request client request
+     * @return deadline in epoch milliseconds, {@link DeadlineUtils#NONE} if there is none
+     */
+    private long deadline(final HttpServerRequest request) {
+        final long budget = upstreamTimeout < 0 ? DeadlineUtils.NONE : System.currentTimeMillis() + upstreamTimeout;
+
+        return DeadlineUtils.earliest(DeadlineUtils.fromRequest(request), budget);
+    }
+
+    /**
+     * Returns the fair queuing flow of a request.
+     * @param headers request headers for the service
+     * @return flow, null if fair queuing is disabled
+     */
+    private Flow flow(final MultiMap headers) {
+        return fairQueues.isEnabled() ? fairQueues.getClassifier().flow(headers) : null;
+    }
+
+    /**
+     * Returns the headers of a client request to forward to the service, with the request deadline.
+     * @param request client request
+     * @return end-to-end headers
+     */
+    private MultiMap forwardHeaders(final HttpServerRequest request) {
+        final MultiMap headers = MultiMap.caseInsensitiveMultiMap();
+
+        ProxyHeaders.copy(request.headers(), headers);
+        DeadlineUtils.putTimeout(headers, deadline(request));
+
+        // replaces the priority sent by the client, which services trust as it comes from the gateway
+        fairQueues.getClassifier().tag(request, headers);
+
+        if (!responseCompression.canPassThrough(request)) {
+            // let the gateway compress instead of receiving a body it would compress twice
+            headers.remove(HttpHeaders.ACCEPT_ENCODING);
+        }
+
+        return headers;
+    }
+
+    /**
+     * Returns the client headers to forward for a cached request, with the request deadline.
+     * Conditional headers are left out since the gateway answers them from its own cache.
+     * @param request client request
+     * @return request headers for the service
+     */
+    private MultiMap upstreamHeaders(final HttpServerRequest request) {
+        final MultiMap headers = MultiMap.caseInsensitiveMultiMap();
+
+        ProxyHeaders.copy(request.headers(), headers);
+        DeadlineUtils.putTimeout(headers, deadline(request));
+
+        // replaces the priority sent by the client, which services trust as it comes from the gateway
+        fairQueues.getClassifier().tag(request, headers);
+
+        headers.remove(HttpHeaders.IF_NONE_MATCH);
+        headers.remove(HttpHeaders.IF_MODIFIED_SINCE);
+        // shared responses are fetched uncompressed and compressed per client by the gateway
+        headers.remove(HttpHeaders.ACCEPT_ENCODING);
+
+        return headers;
+    }
+
+    /**
+     * Calls the HTTP service and streams the response back to the client.
+     * The request body is piped to the service and the response body is piped back to the client,
+     * with back-pressure on both sides, so bodies are never fully buffered in the gateway.
+     * A 5xx status from the service fails the circuit breaker before any of its body is read.
+     * @param context request context
+     * @param path request path
+     * @param headers request headers for the service
+     * @param requestPipe paused pipe of the client request body
+     * @param endpoint upstream endpoint
+     * @param cbPromise circuit breaker promise
+     */
+    private void doDispatch(
+            final RoutingContext context,
+            final String path,
+            final MultiMap headers,
+            final Pipe<Buffer> requestPipe,
+            final Record endpoint,
+            final Promise<Object> cbPromise
+    ) {
+        final HttpServerRequest request = context.request();
+        final HttpClientRequest toRequest = upstreamClients.request(endpoint, request.method(), path, res -> {
+            if (res.statusCode() >= 500) {
+                cbPromise.tryFail(res.toString());
+
+                return;
+            }
+
+            final HttpServerResponse response = context.response();
+
+            if (response.headWritten()) {
+                // already answered, eg: circuit breaker timed out
+                return;
+            }
+
+            response.setStatusCode(res.statusCode());
+            ProxyHeaders.copy(res.headers(), response.headers());
+            response.setChunked(!res.headers().contains(HttpHeaders.CONTENT_LENGTH));
+
+            res.pipeTo(response, piped -> {
+                if (piped.succeeded()) {
+                    cbPromise.tryComplete();
+                } else {
+                    cbPromise.tryFail(piped.cause());
+                }
+            });
+        });
+
+        toRequest.exceptionHandler(cbPromise::tryFail);
+        resetOnTimeout(toRequest, cbPromise);
+
+        toRequest.headers().setAll(headers);
+        toRequest.setChunked(!request.headers().contains(HttpHeaders.CONTENT_LENGTH) && ProxyHeaders.isChunked(request));
+
+        requestPipe.to(toRequest);
+    }
+
+    /**
+     * Reset a service request once the circuit breaker timed out the call, so that it does not keep running
+     * on its connection after the client was answered.
+     * @param toRequest service request
+     * @param promise promise of the call
+     */
+    private static void resetOnTimeout(final HttpClientRequest toRequest, final Promise<?> promise) {
+        promise.future().setHandler(res -> {
+            if (res.failed() && res.cause() instanceof TimeoutException) {
+                toRequest.reset();
+            }
+        });
+    }
+
+    /**
+     * Reply to a request which could not be served by the service.
+     * Returns 503 when the request was shed by the concurrency limiter, else 502.
+     * @param ex cause
+     * @param context request context
+     */
+    private void upstreamFailureHandler(final Throwable ex, final RoutingContext context) {
+        if (ex instanceof LimitExceededException) {
+            this.serviceUnavailableHandler(context);
+        } else {
+            this.badGatewayHandler(ex, context);
+        }
+    }
+
+    /**
+     * HTTP server options with response compression.
+     * @return server options
+     */
+    @Override
+    protected HttpServerOptions httpServerOptions() {
+        return responseCompression.apply(super.httpServerOptions());
+    }
+
+    /**
+     * Returns gateway metrics.
+     * @param context request context
+     */
+    private void metrics(final RoutingContext context) {
+        final JsonObject metrics = new JsonObject()
+                .put("cache", responseCache.metrics())
+                .put("coalescing", requestCoalescer.metrics())
+                .put("rateLimit", rateLimiter.metrics())
+                .put("concurrencyLimit", concurrencyLimiters.metrics())
+                .put("hedging", hedgingPolicy.metrics())
+                .put("fairQueuing", fairQueues.metrics())
+                .put("outlierDetection", outlierDetector.metrics())
+                .put("loadShedding", admissionController.metrics());
+
+        context.response().end(metrics.encode());
+    }
+
+    private void apiVersion(RoutingContext context) {
+        context.response()
+                .end(new JsonObject().put("version", "v1").encodePrettily());
+    }
+
+    /**
+     * GET request sent to one endpoint, and to a second endpoint when the first one is slower than usual
+     * or fails. The first response wins and the other attempt is cancelled.
+     * Runs on the event loop of the verticle.
+     */
+    private class HedgedFetch {
+
+        private final String apiName;
+
+        private final List<Record> records;
+
+        private final String path;
+
+        private final MultiMap headers;
+
+        private final Flow flow;
+
+        private final long maxBodyBytes;
+
+        private final Promise<UpstreamResponse> result = Promise.promise();
+
+        private final Attempt[] attempts = new Attempt[2];
+
+        private long timerId = -1;
+
+        HedgedFetch(
+                final String apiName,
+                final List<Record> records,
+                final String path,
+                final MultiMap headers,
+                final long maxBodyBytes
+        ) {
+            this.apiName = apiName;
+            this.records = records;
+            this.path = path;
+            this.headers = headers;
+            this.flow = flow(headers);
+            this.maxBodyBytes = maxBodyBytes;
+        }
+
+        Future<UpstreamResponse> start() {
+            hedgingPolicy.getBudget().onRequest();
+            send(0, loadBalancer.select(records));
+
+            if (!result.future().isComplete() && !otherEndpoints().isEmpty()) {
+                timerId = vertx.setTimer(hedgingPolicy.delay(apiName), id -> {
+                    timerId = -1;
+                    hedge();
+                });
+            }
+
+            return result.future();
+        }
+
+        private void send(final int index, final Record endpoint) {
+            final Attempt attempt = new Attempt(endpoint);
+            attempts[index] = attempt;
+
+            executeUpstream(apiName, endpoint, flow, (Record upstream, Promise<UpstreamResponse> promise) -> {
+                if (attempt.cancelled) {
+                    // cancelled while waiting for a concurrency slot
+                    promise.fail(CancelledCallException.INSTANCE);
+
+                    return;
+                }
+
+                attempt.promise = promise;
+                attempt.request = fetch(upstream, path, headers, maxBodyBytes, promise);
+            }).setHandler(res -> onAttempt(attempt, res));
+        }
+
+        /**
+         * Send the second attempt if still useful and allowed by the retry budget.
+         * @return whether it was sent
+         */
+        private boolean hedge() {
+            if (result.future().isComplete() || attempts[1] != null) {
+                return false;
+            }
+
+            final List<Record> others = otherEndpoints();
+
+            if (others.isEmpty() || !hedgingPolicy.getBudget().tryRetry()) {
+                return false;
+            }
+
+            hedgingPolicy.onHedgeSent();
+            send(1, loadBalancer.select(others));
+
+            return true;
+        }
+
+        private void onAttempt(final Attempt attempt, final AsyncResult<UpstreamResponse> res) {
+            attempt.done = true;
+
+            if (result.future().isComplete()) {
+                // cancelled or too late
+                if (res.succeeded() && res.result() != null && res.result().claim()) {
+                    res.result().discard();
+                }
+
+                return;
+            }
+
+            if (res.succeeded()) {
+                hedgingPolicy.record(apiName, System.nanoTime() - attempt.startTime);
+
+                if (attempt == attempts[1]) {
+                    hedgingPolicy.onHedgeWon();
+                }
+
+                result.complete(res.result());
+                cancelTimer();
+                Arrays.stream(attempts)
+                        .filter(other -> other != null && other != attempt)
+                        .forEach(this::cancel);
+
+                return;
+            }
+
+            final Attempt other = attempt == attempts[0] ? attempts[1] : attempts[0];
+
+            if (other != null && !other.done) {
+                // the other attempt may still answer
+                return;
+            }
+
+            if (attempt == attempts[0]) {
+                cancelTimer();
+
+                // retry right away on another endpoint
+                if (hedge()) {
+                    return;
+                }
+            }
+
+            result.fail(res.cause());
+        }
+
+        /**
+         * Cancel an attempt which lost the race. It fails with {@link CancelledCallException}, which the circuit
+         * breaker, the concurrency limiter and the outlier detector ignore, and its duration so far is kept as a
+         * latency.
+         * @param attempt attempt to cancel
+         */
+        private void cancel(final Attempt attempt) {
+            if (attempt.done) {
+                return;
+            }
+
+            hedgingPolicy.record(apiName, System.nanoTime() - attempt.startTime);
+            attempt.cancelled = true;
+
+            // failed first, as resetting the request fails it with a connection error
+            if (attempt.promise != null) {
+                attempt.promise.tryFail(CancelledCallException.INSTANCE);
+            }
+
+            if (attempt.request != null) {
+                attempt.request.reset();
+            }
+        }
+
+        private void cancelTimer() {
+            if (timerId >= 0) {
+                vertx.cancelTimer(timerId);
+                timerId = -1;
+            }
+        }
+
+        private List<Record> otherEndpoints() {
+            final String used = RoutingTable.endpoint(attempts[0].endpoint);
+
+            return records.stream()
+                    .filter(record -> !used.equals(RoutingTable.endpoint(record)))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * One request of a {@link HedgedFetch}.
+     */
+    private static class Attempt {
+
+        private final Record endpoint;
+
+        private final long startTime = System.nanoTime();
+
+        private HttpClientRequest request;
+
+        private Promise<UpstreamResponse> promise;
+
+        private boolean done;
+
+        private boolean cancelled;
+
+        Attempt(final Record endpoint) {
+            this.endpoint = endpoint;
+        }
     }
 }
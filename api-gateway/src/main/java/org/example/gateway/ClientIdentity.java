@@ -0,0 +1,52 @@
+package org.example.gateway;
+
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Identifies the client of a request.
+ * <p>
+ * Clients are identified by their remote address. The <code>identityHeader</code> request header is only read on
+ * requests from one of the <code>trustedProxies</code> addresses, eg: an authenticating proxy in front of the gateway,
+ * since any other client could send a new value with every request.
+ */
+public class ClientIdentity {
+
+    private final String identityHeader;
+
+    /**
+     * Addresses of the proxies whose identity header is trusted.
+     */
+    private final Set<String> trustedProxies = new HashSet<>();
+
+    /**
+     * Create a client identity.
+     * Supported config keys: <code>identityHeader</code> and <code>trustedProxies</code>.
+     * @param config config block of the component identifying clients
+     */
+    public ClientIdentity(final JsonObject config) {
+        this.identityHeader = config.getString("identityHeader", "X-Client-Id");
+
+        config.getJsonArray("trustedProxies", new JsonArray()).forEach(proxy -> trustedProxies.add(proxy.toString()));
+    }
+
+    /**
+     * Returns the client id of a request: the identity header set by a trusted proxy, else the remote address.
+     * @param request client request
+     */
+    public String of(final HttpServerRequest request) {
+        final String address = request.remoteAddress().host();
+
+        if (!trustedProxies.contains(address)) {
+            return address;
+        }
+
+        final String clientId = request.getHeader(identityHeader);
+
+        return clientId != null && !clientId.trim().isEmpty() ? clientId.trim() : address;
+    }
+}
@@ -0,0 +1,162 @@
+package org.example.gateway;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.shareddata.LocalMap;
+import io.vertx.core.shareddata.Shareable;
+import org.example.gateway.balancer.LoadBalancer;
+import org.example.gateway.cache.ResponseCache;
+import org.example.gateway.circuitbreaker.CircuitBreakerRegistry;
+import org.example.gateway.concurrency.ConcurrencyLimiterRegistry;
+import org.example.gateway.hedging.HedgingPolicy;
+import org.example.gateway.outlier.OutlierDetector;
+import org.example.gateway.priority.FairQueueRegistry;
+import org.example.gateway.ratelimit.RateLimiter;
+
+/**
+ * Gateway state shared by all {@link ApiGatewayVerticle} instances of a Vert.x instance, so that deploying
+ * one instance per event loop does not split caches, breakers and limits between instances.
+ * <p>
+ * All components are thread-safe. Routing tables and upstream HTTP clients are not shared: each instance keeps
+ * its own, so that connections stay on the event loop of the instance using them.
+ */
+public class GatewayComponents implements Shareable {
+
+    private static final String MAP_NAME = "api-gateway";
+
+    private static final String KEY = "components";
+
+    private final ResponseCompression responseCompression;
+
+    private final LoadBalancer loadBalancer;
+
+    private final CircuitBreakerRegistry circuitBreakers;
+
+    private final ResponseCache responseCache;
+
+    private final RequestCoalescer requestCoalescer;
+
+    private final ConcurrencyLimiterRegistry concurrencyLimiters;
+
+    private final HedgingPolicy hedgingPolicy;
+
+    private final RateLimiter rateLimiter;
+
+    private final FairQueueRegistry fairQueues;
+
+    private final OutlierDetector outlierDetector;
+
+    /**
+     * Number of verticle instances using the components.
+     */
+    private int users;
+
+    private GatewayComponents(final Vertx vertx, final JsonObject config) {
+        responseCompression = new ResponseCompression(config.getJsonObject("compression", new JsonObject()));
+        loadBalancer = LoadBalancer.create(config.getJsonObject("loadBalancer", new JsonObject()));
+        circuitBreakers = new CircuitBreakerRegistry(vertx, config.getJsonObject("circuitBreakers", new JsonObject()));
+        responseCache = new ResponseCache(config.getJsonObject("cache", new JsonObject()))
+                .precompressor(responseCompression::precompress);
+        requestCoalescer = new RequestCoalescer(config.getJsonObject("coalescing", new JsonObject()));
+        concurrencyLimiters = new ConcurrencyLimiterRegistry(
+                config.getJsonObject("concurrencyLimit", new JsonObject())
+        );
+        hedgingPolicy = new HedgingPolicy(vertx, config.getJsonObject("hedging", new JsonObject()));
+        rateLimiter = new RateLimiter(vertx, config.getJsonObject("rateLimit", new JsonObject()));
+        fairQueues = new FairQueueRegistry(vertx, config.getJsonObject("fairQueuing", new JsonObject()));
+        outlierDetector = new OutlierDetector(vertx, config.getJsonObject("outlierDetection", new JsonObject()));
+    }
+
+    /**
+     * Returns the components of a Vert.x instance, creating and starting them for the first verticle instance.
+     * @param vertx vertx instance
+     * @param config gateway config
+     * @return shared components
+     */
+    public static GatewayComponents acquire(final Vertx vertx, final JsonObject config) {
+        synchronized (GatewayComponents.class) {
+            final LocalMap<String, GatewayComponents> map = vertx.sharedData().getLocalMap(MAP_NAME);
+            GatewayComponents components = map.get(KEY);
+
+            if (components == null) {
+                components = new GatewayComponents(vertx, config);
+                components.start();
+                map.put(KEY, components);
+            }
+
+            components.users++;
+
+            return components;
+        }
+    }
+
+    /**
+     * Release the components, stopping them when the last verticle instance is gone.
+     * @param vertx vertx instance
+     */
+    public void release(final Vertx vertx) {
+        synchronized (GatewayComponents.class) {
+            if (--users == 0) {
+                stop();
+                vertx.sharedData().getLocalMap(MAP_NAME).remove(KEY);
+            }
+        }
+    }
+
+    public ResponseCompression getResponseCompression() {
+        return responseCompression;
+    }
+
+    public LoadBalancer getLoadBalancer() {
+        return loadBalancer;
+    }
+
+    public CircuitBreakerRegistry getCircuitBreakers() {
+        return circuitBreakers;
+    }
+
+    public ResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    public RequestCoalescer getRequestCoalescer() {
+        return requestCoalescer;
+    }
+
+    public ConcurrencyLimiterRegistry getConcurrencyLimiters() {
+        return concurrencyLimiters;
+    }
+
+    public HedgingPolicy getHedgingPolicy() {
+        return hedgingPolicy;
+    }
+
+    public RateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    public FairQueueRegistry getFairQueues() {
+        return fairQueues;
+    }
+
+    public OutlierDetector getOutlierDetector() {
+        return outlierDetector;
+    }
+
+    private void start() {
+        if (hedgingPolicy.isEnabled()) {
+            hedgingPolicy.getBudget().start();
+        }
+
+        rateLimiter.start();
+        outlierDetector.start();
+        circuitBreakers.start();
+    }
+
+    private void stop() {
+        hedgingPolicy.getBudget().stop();
+        rateLimiter.stop();
+        outlierDetector.stop();
+        circuitBreakers.stop();
+    }
+}
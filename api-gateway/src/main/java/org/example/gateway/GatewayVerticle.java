@@ -0,0 +1,59 @@
+package org.example.gateway;
+
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Promise;
+import io.vertx.core.VertxOptions;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import org.example.microservicecommon.BaseMicroserviceVerticle;
+
+/**
+ * Gateway verticle. Deploys the {@link ApiGatewayVerticle} on every event loop and publishes the gateway record.
+ */
+public class GatewayVerticle extends BaseMicroserviceVerticle {
+
+    /**
+     * Logger.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(GatewayVerticle.class);
+
+    /**
+     * Deploy <code>api.gateway.instances</code> gateway verticles, one per event loop by default, which share
+     * the HTTP server port, then publish the gateway record once.
+     */
+    @Override
+    public void start(final Promise<Void> startPromise) {
+        super.start();
+
+        final String host = config().getString("api.gateway.http.address", "localhost");
+        final int port = config().getInteger("api.gateway.http.port", ApiGatewayVerticle.DEFAULT_PORT);
+        final int instances = config().getInteger("api.gateway.instances", VertxOptions.DEFAULT_EVENT_LOOP_POOL_SIZE);
+
+        deployGatewayVerticles(instances).future()
+                .compose(deployed -> publishApiGateway(host, port).future())
+                .setHandler(res -> {
+                    if (res.succeeded()) {
+                        logger.info("API Gateway is running on port " + port + " with " + instances + " instances");
+                        startPromise.complete();
+                    } else {
+                        startPromise.fail(res.cause());
+                    }
+                });
+    }
+
+    private Promise<Void> deployGatewayVerticles(final int instances) {
+        final Promise<Void> promise = Promise.promise();
+
+        vertx.deployVerticle(ApiGatewayVerticle.class.getName(),
+                new DeploymentOptions().setConfig(config()).setInstances(instances),
+                res -> {
+                    if (res.succeeded()) {
+                        promise.complete();
+                    } else {
+                        promise.fail(res.cause());
+                    }
+                });
+
+        return promise;
+    }
+}
@@ -0,0 +1,56 @@
+package org.example.gateway;
+
+import io.vertx.core.MultiMap;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpServerRequest;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Helpers for forwarding HTTP headers between clients and upstream services.
+ */
+public final class ProxyHeaders {
+
+    /**
+     * Headers which are meaningful only for a single connection and must not be proxied.
+     */
+    private static final Set<String> HOP_BY_HOP_HEADERS = new HashSet<>(Arrays.asList(
+            "connection",
+            "keep-alive",
+            "proxy-authenticate",
+            "proxy-authorization",
+            "te",
+            "trailer",
+            "transfer-encoding",
+            "upgrade",
+            "host"
+    ));
+
+    private ProxyHeaders() {
+    }
+
+    /**
+     * Copy end-to-end headers, leaving out hop-by-hop headers which apply to a single connection only.
+     * @param from source headers
+     * @param to destination headers
+     */
+    public static void copy(final MultiMap from, final MultiMap to) {
+        from.names().forEach(name -> {
+            if (!HOP_BY_HOP_HEADERS.contains(name.toLowerCase())) {
+                to.set(name, from.getAll(name));
+            }
+        });
+    }
+
+    /**
+     * Returns whether the request body is sent with chunked transfer encoding.
+     * @param request client request
+     */
+    public static boolean isChunked(final HttpServerRequest request) {
+        final String transferEncoding = request.headers().get(HttpHeaders.TRANSFER_ENCODING);
+
+        return transferEncoding != null && transferEncoding.toLowerCase().contains("chunked");
+    }
+}
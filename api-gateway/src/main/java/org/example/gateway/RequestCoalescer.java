@@ -0,0 +1,183 @@
+package org.example.gateway;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.MultiMap;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import org.example.gateway.cache.ResponseCache;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Collapses concurrent identical upstream calls into a single one (single flight).
+ * The first caller for a key runs the call; callers arriving while it is in flight wait for its result,
+ * which is handed to each of them on its own context.
+ */
+public class RequestCoalescer {
+
+    /**
+     * Request headers responses commonly vary on, lower-cased.
+     */
+    private static final List<String> VARY_HEADERS = Arrays.asList("accept", "accept-encoding");
+
+    private final boolean enabled;
+
+    private final long maxBufferBytes;
+
+    /**
+     * key to the callers waiting for the in-flight call.
+     */
+    private final Map<String, List<Waiter>> inFlight = new HashMap<>();
+
+    /**
+     * Calls actually sent upstream.
+     */
+    private final LongAdder calls = new LongAdder();
+
+    /**
+     * Callers served by another caller's call.
+     */
+    private final LongAdder collapsed = new LongAdder();
+
+    /**
+     * Create a coalescer.
+     * @param config coalescing config, with the <code>enabled</code> and <code>maxBufferBytes</code> keys
+     */
+    public RequestCoalescer(final JsonObject config) {
+        this.enabled = config.getBoolean("enabled", false);
+        this.maxBufferBytes = config.getLong("maxBufferBytes", 1024L * 1024);
+    }
+
+    /**
+     * Returns the key of a GET request: its cache key, and the values of the request headers responses commonly
+     * vary on, so that requests for other representations do not share a response.
+     * @param apiName API name
+     * @param uri request URI relative to the API
+     * @param headers request headers for the service
+     * @return coalescing key
+     */
+    public static String key(final String apiName, final String uri, final MultiMap headers) {
+        return ResponseCache.key(apiName, uri) + ResponseCache.variant(VARY_HEADERS, headers);
+    }
+
+    /**
+     * Returns whether coalescing is enabled.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the size above which shared responses are streamed to a single caller instead of read, in bytes.
+     */
+    public long getMaxBufferBytes() {
+        return maxBufferBytes;
+    }
+
+    /**
+     * Run a call, or join the identical call already in flight.
+     * @param key key identifying identical calls
+     * @param call the call
+     * @param <T> result type
+     * @return future of the call result
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Future<T> execute(final String key, final Supplier<Future<T>> call) {
+        final Waiter waiter = new Waiter(Vertx.currentContext());
+        final boolean leader;
+
+        synchronized (this) {
+            final List<Waiter> waiters = inFlight.get(key);
+            leader = waiters == null;
+
+            if (leader) {
+                final List<Waiter> newWaiters = new ArrayList<>();
+                newWaiters.add(waiter);
+                inFlight.put(key, newWaiters);
+            } else {
+                waiters.add(waiter);
+            }
+        }
+
+        if (!leader) {
+            collapsed.increment();
+
+            return (Future<T>) waiter.promise.future();
+        }
+
+        calls.increment();
+
+        final Future<T> result;
+
+        try {
+            result = call.get();
+        } catch (final RuntimeException ex) {
+            // a call failing before it starts must not leave its key in flight
+            complete(key, Future.failedFuture(ex));
+
+            return (Future<T>) waiter.promise.future();
+        }
+
+        result.setHandler(res -> complete(key, res));
+
+        return (Future<T>) waiter.promise.future();
+    }
+
+    /**
+     * Returns coalescing counters.
+     */
+    public JsonObject metrics() {
+        return new JsonObject()
+                .put("calls", calls.sum())
+                .put("collapsed", collapsed.sum());
+    }
+
+    private void complete(final String key, final AsyncResult<?> result) {
+        final List<Waiter> waiters;
+
+        synchronized (this) {
+            waiters = inFlight.remove(key);
+        }
+
+        final Context current = Vertx.currentContext();
+
+        waiters.forEach(waiter -> {
+            if (waiter.context == null || waiter.context == current) {
+                waiter.complete(result);
+            } else {
+                waiter.context.runOnContext(v -> waiter.complete(result));
+            }
+        });
+    }
+
+    /**
+     * Caller waiting for a call, with the context to complete it on.
+     */
+    private static class Waiter {
+
+        private final Context context;
+
+        private final Promise<Object> promise = Promise.promise();
+
+        Waiter(final Context context) {
+            this.context = context;
+        }
+
+        void complete(final AsyncResult<?> result) {
+            if (result.succeeded()) {
+                promise.complete(result.result());
+            } else {
+                promise.fail(result.cause());
+            }
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package org.example.gateway;
+
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.vertx.core.MultiMap;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpServerOptions;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.http.HttpVersion;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.RoutingContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * <code>Accept-Encoding</code> negotiated compression of gateway responses.
+ * <p>
+ * Compression itself is done by the HTTP server (gzip or deflate). Responses smaller than <code>minSize</code>
+ * or of a content type not listed in <code>mimeTypes</code> are sent as is, and responses already encoded
+ * by the service are passed through untouched. With <code>cacheCompressed</code>, cached responses are
+ * gzip compressed once when stored.
+ */
+public class ResponseCompression {
+
+    private static final String GZIP = "gzip";
+
+    private final boolean enabled;
+
+    private final int level;
+
+    private final int minSize;
+
+    private final boolean cacheCompressed;
+
+    /**
+     * Compressible content type prefixes, eg: <code>text/</code>.
+     */
+    private final List<String> mimeTypes;
+
+    /**
+     * Create the compression settings.
+     * Supported config keys: <code>enabled</code>, <code>level</code> (1-9), <code>minSize</code> (bytes),
+     * <code>mimeTypes</code> and <code>cacheCompressed</code>.
+     * @param config compression config
+     */
+    public ResponseCompression(final JsonObject config) {
+        this.enabled = config.getBoolean("enabled", false);
+        this.level = config.getInteger("level", 6);
+        this.minSize = config.getInteger("minSize", 1024);
+        this.cacheCompressed = config.getBoolean("cacheCompressed", true);
+        this.mimeTypes = config
+                .getJsonArray("mimeTypes", new JsonArray().add("application/json").add("text/"))
+                .stream()
+                .map(Object::toString)
+                .collect(Collectors.toList());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enable compression on the gateway HTTP server.
+     * @param options server options
+     * @return the same options
+     */
+    public HttpServerOptions apply(final HttpServerOptions options) {
+        return options
+                .setCompressionSupported(enabled)
+                .setCompressionLevel(level);
+    }
+
+    /**
+     * Route handler applying the size and content type rules once the response headers are known.
+     * @param context request context
+     */
+    public void handle(final RoutingContext context) {
+        if (enabled) {
+            // the HTTP/2 server presets the negotiated encoding, other encodings come from the service
+            final boolean serverEncoded = !canPassThrough(context.request());
+
+            context.addHeadersEndHandler(v -> {
+                final MultiMap headers = context.response().headers();
+
+                if (!serverEncoded && isEncoded(headers)) {
+                    return;
+                }
+
+                if (isCompressible(headers)) {
+                    headers.add(HttpHeaderNames.VARY, HttpHeaders.ACCEPT_ENCODING);
+                } else {
+                    headers.set(HttpHeaders.CONTENT_ENCODING, HttpHeaders.IDENTITY);
+                }
+            });
+        }
+
+        context.next();
+    }
+
+    /**
+     * Returns whether an encoded upstream body can be passed to the client as is.
+     * The HTTP/2 server compresses according to the <code>Content-Encoding</code> header,
+     * so already compressed bodies are only passed through to HTTP/1.x clients.
+     * @param request client request
+     */
+    public boolean canPassThrough(final HttpServerRequest request) {
+        return !enabled || request.version() != HttpVersion.HTTP_2;
+    }
+
+    /**
+     * Returns whether a client can be sent the gzip compressed body of a cached response.
+     * @param request client request
+     */
+    public boolean acceptsGzip(final HttpServerRequest request) {
+        final String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+
+        return enabled
+                && canPassThrough(request)
+                && acceptEncoding != null
+                && gzipQuality(acceptEncoding) > 0;
+    }
+
+    /**
+     * Returns the quality of gzip in an <code>Accept-Encoding</code> header: its own q-value,
+     * else the one of <code>*</code>, else 0.
+     * @param acceptEncoding header value, eg: <code>gzip;q=0.8, br</code>
+     */
+    private static double gzipQuality(final String acceptEncoding) {
+        double wildcard = 0;
+
+        for (final String coding : acceptEncoding.split(",")) {
+            final String[] params = coding.split(";");
+            final String name = params[0].trim().toLowerCase();
+
+            if (!GZIP.equals(name) && !"*".equals(name)) {
+                continue;
+            }
+
+            double quality = 1;
+
+            for (int i = 1; i < params.length; i++) {
+                final String[] param = params[i].trim().split("=", 2);
+
+                if (param.length == 2 && "q".equalsIgnoreCase(param[0].trim())) {
+                    try {
+                        quality = Double.parseDouble(param[1].trim());
+                    } catch (final NumberFormatException ex) {
+                        // an unreadable quality does not make the coding acceptable
+                        quality = 0;
+                    }
+                }
+            }
+
+            if (GZIP.equals(name)) {
+                return quality;
+            }
+
+            wildcard = quality;
+        }
+
+        return wildcard;
+    }
+
+    /**
+     * Gzip compress the body of a response about to be cached, if worth it.
+     * @param upstream upstream response
+     * @return compressed body, or <code>null</code> when the response should not be compressed
+     */
+    public Buffer precompress(final UpstreamResponse upstream) {
+        if (!enabled || !cacheCompressed || upstream.getBody() == null || isEncoded(upstream.getHeaders())
+                || !isCompressible(upstream.getHeaders(), upstream.getBody().length())) {
+            return null;
+        }
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream(upstream.getBody().length() / 4);
+
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out) {
+            {
+                def.setLevel(level);
+            }
+        }) {
+            gzip.write(upstream.getBody().getBytes());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return Buffer.buffer(out.toByteArray());
+    }
+
+    /**
+     * Returns the content encoding used for precompressed bodies.
+     */
+    public String precompressedEncoding() {
+        return GZIP;
+    }
+
+    private boolean isCompressible(final MultiMap headers) {
+        final String contentLength = headers.get(HttpHeaders.CONTENT_LENGTH);
+        long length = Long.MAX_VALUE;
+
+        // streamed responses of unknown length are compressed, as are responses with an unreadable length
+        if (contentLength != null) {
+            try {
+                length = Long.parseLong(contentLength.trim());
+            } catch (final NumberFormatException ex) {
+                length = Long.MAX_VALUE;
+            }
+        }
+
+        return isCompressible(headers, length);
+    }
+
+    private boolean isCompressible(final MultiMap headers, final long length) {
+        final String contentType = headers.get(HttpHeaders.CONTENT_TYPE);
+
+        return length >= minSize
+                && contentType != null
+                && mimeTypes.stream().anyMatch(contentType.toLowerCase()::startsWith);
+    }
+
+    private static boolean isEncoded(final MultiMap headers) {
+        return headers.contains(HttpHeaders.CONTENT_ENCODING);
+    }
+}
@@ -0,0 +1,230 @@
+package org.example.gateway;
+
+import io.vertx.core.Handler;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.eventbus.MessageConsumer;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import io.vertx.servicediscovery.Record;
+import io.vertx.servicediscovery.ServiceDiscovery;
+import io.vertx.servicediscovery.Status;
+import io.vertx.servicediscovery.types.HttpEndpoint;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Local routing table mapping <code>api.name</code> to the HTTP endpoints published in service discovery.
+ * It is loaded once on startup and then kept up to date from service discovery announcements,
+ * so dispatching a request is a local map lookup instead of a query to the discovery backend.
+ */
+public class RoutingTable {
+
+    /**
+     * Metadata key holding the API name of an HTTP endpoint.
+     */
+    public static final String API_NAME_KEY = "api.name";
+
+    private static final Logger logger = LoggerFactory.getLogger(RoutingTable.class);
+
+    private final Vertx vertx;
+
+    private final ServiceDiscovery serviceDiscovery;
+
+    /**
+     * api name to its endpoints. Lists are immutable and replaced as a whole on every change.
+     */
+    private final Map<String, List<Record>> routes = new ConcurrentHashMap<>();
+
+    /**
+     * Consumer for service discovery announcements.
+     */
+    private MessageConsumer<JsonObject> announceConsumer;
+
+    /**
+     * Called with a record when its endpoint becomes reachable through the table.
+     */
+    private Handler<Record> endpointAddedHandler = record -> { };
+
+    /**
+     * Called with a record when no remaining record points to its endpoint.
+     */
+    private Handler<Record> endpointRemovedHandler = record -> { };
+
+    public RoutingTable(final Vertx vertx, final ServiceDiscovery serviceDiscovery) {
+        this.vertx = vertx;
+        this.serviceDiscovery = serviceDiscovery;
+    }
+
+    /**
+     * Subscribe to service discovery announcements and load the current HTTP endpoints.
+     * The subscription is registered before loading so that no change is missed in between.
+     * @param announceAddress event bus address on which service discovery announces record changes
+     * @return a promise
+     */
+    public Promise<Void> init(final String announceAddress) {
+        final Promise<Void> promise = Promise.promise();
+
+        announceConsumer = vertx.eventBus().consumer(announceAddress, this::onAnnounce);
+
+        serviceDiscovery.getRecords(record -> HttpEndpoint.TYPE.equals(record.getType()), res -> {
+            if (res.succeeded()) {
+                res.result().forEach(this::put);
+                logger.info("Routing table loaded with " + routes.size() + " APIs");
+                promise.complete();
+            } else {
+                promise.fail(res.cause());
+            }
+        });
+
+        return promise;
+    }
+
+    /**
+     * Returns the endpoints registered for an API name.
+     * @param apiName API name
+     * @return endpoints, empty if the API is unknown
+     */
+    public List<Record> lookup(final String apiName) {
+        return routes.getOrDefault(apiName, Collections.emptyList());
+    }
+
+    /**
+     * Set the handler called when a new endpoint is added to the table.
+     * @param handler handler receiving the added record
+     * @return a reference to this
+     */
+    public RoutingTable endpointAddedHandler(final Handler<Record> handler) {
+        this.endpointAddedHandler = handler;
+
+        return this;
+    }
+
+    /**
+     * Set the handler called when the last record of an endpoint is removed from the table.
+     * @param handler handler receiving the removed record
+     * @return a reference to this
+     */
+    public RoutingTable endpointRemovedHandler(final Handler<Record> handler) {
+        this.endpointRemovedHandler = handler;
+
+        return this;
+    }
+
+    /**
+     * Returns the endpoint URL of an HTTP endpoint record, eg: <code>http://localhost:8081/</code>.
+     * @param record HTTP endpoint record
+     * @return endpoint URL
+     */
+    public static String endpoint(final Record record) {
+        return record.getLocation().getString("endpoint");
+    }
+
+    /**
+     * Stop listening to service discovery announcements.
+     */
+    public void close() {
+        if (announceConsumer != null) {
+            announceConsumer.unregister();
+        }
+
+        routes.clear();
+    }
+
+    /**
+     * Apply a record announced by service discovery.
+     * @param message announcement containing the record
+     */
+    private void onAnnounce(final Message<JsonObject> message) {
+        final Record record = new Record(message.body());
+
+        if (!HttpEndpoint.TYPE.equals(record.getType())) {
+            return;
+        }
+
+        if (record.getStatus() == Status.UP) {
+            put(record);
+        } else {
+            remove(record);
+        }
+    }
+
+    private void put(final Record record) {
+        final String apiName = apiName(record);
+
+        if (apiName == null) {
+            return;
+        }
+
+        final boolean newEndpoint = !hasEndpoint(endpoint(record));
+
+        routes.compute(apiName, (key, current) -> {
+            final List<Record> updated = new ArrayList<>();
+
+            if (current != null) {
+                current.stream()
+                        .filter(each -> !sameRegistration(each, record))
+                        .forEach(updated::add);
+            }
+
+            updated.add(record);
+
+            return Collections.unmodifiableList(updated);
+        });
+
+        if (newEndpoint) {
+            endpointAddedHandler.handle(record);
+        }
+    }
+
+    private void remove(final Record record) {
+        final String apiName = apiName(record);
+
+        if (apiName == null) {
+            return;
+        }
+
+        routes.computeIfPresent(apiName, (key, current) -> {
+            final List<Record> updated = new ArrayList<>();
+
+            current.stream()
+                    .filter(each -> !sameRegistration(each, record))
+                    .forEach(updated::add);
+
+            return updated.isEmpty() ? null : Collections.unmodifiableList(updated);
+        });
+
+        if (!hasEndpoint(endpoint(record))) {
+            endpointRemovedHandler.handle(record);
+        }
+    }
+
+    private boolean hasEndpoint(final String endpoint) {
+        return routes.values().stream()
+                .flatMap(List::stream)
+                .anyMatch(each -> endpoint.equals(endpoint(each)));
+    }
+
+    private static String apiName(final Record record) {
+        return record.getMetadata() == null ? null : record.getMetadata().getString(API_NAME_KEY);
+    }
+
+    /**
+     * Returns whether two records are the same registration. Service discovery drops the registration id from the
+     * records it announces on publish and unpublish, so those are matched by name and location instead.
+     */
+    private static boolean sameRegistration(final Record a, final Record b) {
+        if (a.getRegistration() != null && b.getRegistration() != null) {
+            return a.getRegistration().equals(b.getRegistration());
+        }
+
+        return Objects.equals(a.getName(), b.getName()) && Objects.equals(a.getLocation(), b.getLocation());
+    }
+}
@@ -0,0 +1,174 @@
+package org.example.gateway;
+
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.http.HttpClientRequest;
+import io.vertx.core.http.HttpClientResponse;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpVersion;
+import io.vertx.core.http.RequestOptions;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import io.vertx.core.net.SocketAddress;
+import io.vertx.servicediscovery.Record;
+import io.vertx.servicediscovery.types.HttpLocation;
+import org.example.microservicecommon.RestApiVerticle;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Long-lived HTTP clients for upstream services, one per endpoint.
+ * Clients keep their connection pools across requests and are only created or closed
+ * when the endpoints in service discovery change.
+ */
+public class UpstreamClientRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(UpstreamClientRegistry.class);
+
+    private final Vertx vertx;
+
+    /**
+     * Connection settings shared by all upstream clients.
+     */
+    private final JsonObject config;
+
+    /**
+     * endpoint URL to its client.
+     */
+    private final Map<String, UpstreamClient> clients = new ConcurrentHashMap<>();
+
+    /**
+     * Create a registry.
+     * Supported config keys: <code>maxPoolSize</code>, <code>keepAlive</code>, <code>keepAliveTimeout</code>,
+     * <code>pipelining</code>, <code>pipeliningLimit</code>, <code>connectTimeout</code>,
+     * <code>idleTimeout</code>, <code>maxWaitQueueSize</code>, <code>h2c</code>, <code>http2MaxPoolSize</code>
+     * and <code>http2MultiplexingLimit</code>.
+     * @param vertx vertx instance
+     * @param config connection settings
+     */
+    public UpstreamClientRegistry(final Vertx vertx, final JsonObject config) {
+        this.vertx = vertx;
+        this.config = config;
+    }
+
+    /**
+     * Create a request to the endpoint of a record on its client, creating the client if needed.
+     * @param record HTTP endpoint record
+     * @param method request method
+     * @param uri request URI
+     * @param handler response handler
+     * @return request, to be ended by the caller
+     */
+    public HttpClientRequest request(
+            final Record record,
+            final HttpMethod method,
+            final String uri,
+            final Handler<HttpClientResponse> handler
+    ) {
+        final UpstreamClient client = get(record);
+        final RequestOptions options = new RequestOptions()
+                .setHost(client.location.getHost())
+                .setPort(client.location.getPort())
+                .setSsl(client.location.isSsl())
+                .setURI(uri);
+
+        return client.httpClient.request(method, client.server, options, handler);
+    }
+
+    /**
+     * Create the client for the endpoint of a newly discovered record.
+     * @param record HTTP endpoint record
+     */
+    public void add(final Record record) {
+        get(record);
+    }
+
+    /**
+     * Close the client of an endpoint which is no longer in service discovery.
+     * @param record HTTP endpoint record
+     */
+    public void remove(final Record record) {
+        final UpstreamClient client = clients.remove(RoutingTable.endpoint(record));
+
+        if (client != null) {
+            client.httpClient.close();
+            logger.info("Closed upstream client for " + RoutingTable.endpoint(record));
+        }
+    }
+
+    /**
+     * Close all clients.
+     */
+    public void close() {
+        clients.values().forEach(client -> client.httpClient.close());
+        clients.clear();
+    }
+
+    private UpstreamClient get(final Record record) {
+        return clients.computeIfAbsent(RoutingTable.endpoint(record), endpoint -> create(record));
+    }
+
+    /**
+     * Use h2c with prior knowledge when enabled and the endpoint advertises it.
+     * @param record HTTP endpoint record
+     * @param location endpoint location
+     * @return whether to use h2c
+     */
+    private boolean isH2c(final Record record, final HttpLocation location) {
+        return config.getBoolean("h2c", true)
+                && !location.isSsl()
+                && record.getMetadata() != null
+                && record.getMetadata().getBoolean(RestApiVerticle.H2C_KEY, false);
+    }
+
+    private UpstreamClient create(final Record record) {
+        final HttpLocation location = new HttpLocation(record.getLocation());
+        final HttpClientOptions options = new HttpClientOptions()
+                .setDefaultHost(location.getHost())
+                .setDefaultPort(location.getPort())
+                .setSsl(location.isSsl())
+                .setMaxPoolSize(config.getInteger("maxPoolSize", 20))
+                .setKeepAlive(config.getBoolean("keepAlive", true))
+                .setKeepAliveTimeout(config.getInteger("keepAliveTimeout", 60))
+                .setPipelining(config.getBoolean("pipelining", false))
+                .setPipeliningLimit(config.getInteger("pipeliningLimit", 10))
+                .setConnectTimeout(config.getInteger("connectTimeout", 2000))
+                .setIdleTimeout(config.getInteger("idleTimeout", 0))
+                .setMaxWaitQueueSize(config.getInteger("maxWaitQueueSize", -1));
+
+        if (isH2c(record, location)) {
+            // streams are multiplexed over a few connections instead of one connection per request
+            options
+                    .setProtocolVersion(HttpVersion.HTTP_2)
+                    .setHttp2ClearTextUpgrade(false)
+                    .setHttp2MaxPoolSize(config.getInteger("http2MaxPoolSize", 2))
+                    .setHttp2MultiplexingLimit(config.getInteger("http2MultiplexingLimit", 100));
+        }
+
+        logger.info("Created upstream " + options.getProtocolVersion() + " client for " + location.getEndpoint());
+
+        return new UpstreamClient(vertx.createHttpClient(options), location);
+    }
+
+    /**
+     * Client of one endpoint, with the address requests are sent to.
+     */
+    private static class UpstreamClient {
+
+        private final HttpClient httpClient;
+
+        private final HttpLocation location;
+
+        private final SocketAddress server;
+
+        UpstreamClient(final HttpClient httpClient, final HttpLocation location) {
+            this.httpClient = httpClient;
+            this.location = location;
+            this.server = SocketAddress.inetSocketAddress(location.getPort(), location.getHost());
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package org.example.gateway;
+
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.vertx.core.Future;
+import io.vertx.core.MultiMap;
+import io.vertx.core.Promise;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpClientResponse;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpServerResponse;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Fully read response of an upstream service, for responses which are reused across clients.
+ * <p>
+ * Responses too large to be read in memory are streamed instead: the body is left paused in the service response
+ * and is either piped to a single client or discarded, once {@link #claim() claimed}.
+ */
+public class UpstreamResponse {
+
+    private final int status;
+
+    /**
+     * End-to-end headers of the response.
+     */
+    private final MultiMap headers;
+
+    private final Buffer body;
+
+    /**
+     * Paused service response of a streamed response, null if the body was read.
+     */
+    private final HttpClientResponse stream;
+
+    /**
+     * Completed once the streamed body is piped or discarded.
+     */
+    private final Promise<Void> streamEnd = Promise.promise();
+
+    private final AtomicBoolean claimed = new AtomicBoolean();
+
+    public UpstreamResponse(final int status, final MultiMap headers, final Buffer body) {
+        this(status, headers, body, null);
+    }
+
+    private UpstreamResponse(
+            final int status,
+            final MultiMap headers,
+            final Buffer body,
+            final HttpClientResponse stream
+    ) {
+        this.status = status;
+        this.headers = MultiMap.caseInsensitiveMultiMap();
+        this.body = body;
+        this.stream = stream;
+
+        ProxyHeaders.copy(headers, this.headers);
+
+        if (stream == null) {
+            streamEnd.complete();
+        }
+    }
+
+    /**
+     * Create a response whose body is still to be read.
+     * @param response service response, paused
+     * @return streamed response
+     */
+    public static UpstreamResponse streamed(final HttpClientResponse response) {
+        return new UpstreamResponse(response.statusCode(), response.headers(), null, response);
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public MultiMap getHeaders() {
+        return headers;
+    }
+
+    /**
+     * Returns the body, null if the response is streamed.
+     */
+    public Buffer getBody() {
+        return body;
+    }
+
+    /**
+     * Returns whether the body is still to be read from the service.
+     */
+    public boolean isStreamed() {
+        return stream != null;
+    }
+
+    /**
+     * Take the body of a streamed response, which can be read only once.
+     * @return <code>false</code> if it was already taken
+     */
+    public boolean claim() {
+        return claimed.compareAndSet(false, true);
+    }
+
+    /**
+     * Returns a future completed once the body of a streamed response is piped or discarded,
+     * already completed for a read response.
+     */
+    public Future<Void> streamEnd() {
+        return streamEnd.future();
+    }
+
+    /**
+     * Drop the body of a claimed streamed response, closing the service stream.
+     */
+    public void discard() {
+        if (stream != null && !streamEnd.future().isComplete()) {
+            stream.request().reset();
+            streamEnd.tryComplete();
+        }
+    }
+
+    /**
+     * Write the response to a client, piping the body of a claimed streamed response.
+     * @param response client response
+     */
+    public void writeTo(final HttpServerResponse response) {
+        response.setStatusCode(status);
+        ProxyHeaders.copy(headers, response.headers());
+
+        if (stream != null) {
+            response.setChunked(!headers.contains(HttpHeaders.CONTENT_LENGTH));
+            // the client may go away halfway, the stream is over either way
+            stream.pipeTo(response, piped -> streamEnd.tryComplete());
+
+            return;
+        }
+
+        response.setChunked(false);
+        response.end(body);
+    }
+
+    /**
+     * Write the response to a client with an encoded body, eg: gzip compressed.
+     * @param response client response
+     * @param contentEncoding encoding of the body
+     * @param encodedBody encoded body
+     */
+    public void writeTo(final HttpServerResponse response, final String contentEncoding, final Buffer encodedBody) {
+        response.setStatusCode(status);
+        ProxyHeaders.copy(headers, response.headers());
+        response.headers()
+                .remove(HttpHeaders.CONTENT_LENGTH)
+                .set(HttpHeaders.CONTENT_ENCODING, contentEncoding)
+                .add(HttpHeaderNames.VARY, HttpHeaders.ACCEPT_ENCODING);
+        response.setChunked(false);
+        response.end(encodedBody);
+    }
+}
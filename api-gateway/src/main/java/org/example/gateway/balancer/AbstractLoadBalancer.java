@@ -0,0 +1,45 @@
+package org.example.gateway.balancer;
+
+import io.vertx.servicediscovery.Record;
+import org.example.gateway.RoutingTable;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Abstract load balancer keeping statistics per endpoint URL.
+ */
+public abstract class AbstractLoadBalancer implements LoadBalancer {
+
+    /**
+     * endpoint URL to its statistics.
+     */
+    private final Map<String, EndpointStats> stats = new ConcurrentHashMap<>();
+
+    @Override
+    public Record select(final List<Record> endpoints) {
+        if (endpoints.size() == 1) {
+            return endpoints.get(0);
+        }
+
+        return choose(endpoints);
+    }
+
+    @Override
+    public EndpointStats stats(final Record endpoint) {
+        return stats.computeIfAbsent(RoutingTable.endpoint(endpoint), key -> new EndpointStats());
+    }
+
+    @Override
+    public void remove(final Record endpoint) {
+        stats.remove(RoutingTable.endpoint(endpoint));
+    }
+
+    /**
+     * Choose among two or more endpoints.
+     * @param endpoints endpoints of the API
+     * @return selected endpoint
+     */
+    protected abstract Record choose(List<Record> endpoints);
+}
@@ -0,0 +1,63 @@
+package org.example.gateway.balancer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load statistics of a single upstream endpoint.
+ */
+public class EndpointStats {
+
+    /**
+     * Weight of the newest sample in the latency moving average.
+     */
+    private static final double LATENCY_DECAY = 0.2;
+
+    /**
+     * Requests sent to the endpoint and not completed yet.
+     */
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /**
+     * Exponentially weighted moving average of request latency, in milliseconds.
+     */
+    private volatile double latency;
+
+    /**
+     * Mark a request as started.
+     * @return start time to be passed to {@link #requestEnded(long)}
+     */
+    public long requestStarted() {
+        inFlight.incrementAndGet();
+
+        return System.nanoTime();
+    }
+
+    /**
+     * Mark a request as completed and record its latency.
+     * @param startTime value returned by {@link #requestStarted()}
+     */
+    public void requestEnded(final long startTime) {
+        inFlight.decrementAndGet();
+
+        final double sample = (double) TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startTime) / 1000;
+
+        synchronized (this) {
+            latency = latency == 0 ? sample : latency + LATENCY_DECAY * (sample - latency);
+        }
+    }
+
+    /**
+     * Returns the number of requests in flight.
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Returns the average latency in milliseconds, 0 if no request completed yet.
+     */
+    public double getLatency() {
+        return latency;
+    }
+}
@@ -0,0 +1,30 @@
+package org.example.gateway.balancer;
+
+import io.vertx.servicediscovery.Record;
+
+import java.util.List;
+
+/**
+ * Sends requests to the endpoint with the fewest requests in flight.
+ */
+public class LeastOutstandingLoadBalancer extends AbstractLoadBalancer {
+
+    public static final String NAME = "least-outstanding";
+
+    @Override
+    protected Record choose(final List<Record> endpoints) {
+        Record selected = endpoints.get(0);
+        int selectedInFlight = stats(selected).getInFlight();
+
+        for (int i = 1; i < endpoints.size(); i++) {
+            final int inFlight = stats(endpoints.get(i)).getInFlight();
+
+            if (inFlight < selectedInFlight) {
+                selected = endpoints.get(i);
+                selectedInFlight = inFlight;
+            }
+        }
+
+        return selected;
+    }
+}
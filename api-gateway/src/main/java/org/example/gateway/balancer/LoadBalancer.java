@@ -0,0 +1,54 @@
+package org.example.gateway.balancer;
+
+import io.vertx.core.json.JsonObject;
+import io.vertx.servicediscovery.Record;
+
+import java.util.List;
+
+/**
+ * Strategy for spreading requests across the endpoints of an API.
+ */
+public interface LoadBalancer {
+
+    /**
+     * Select the endpoint to send a request to.
+     * @param endpoints endpoints of the API, never empty
+     * @return selected endpoint
+     */
+    Record select(List<Record> endpoints);
+
+    /**
+     * Returns the load statistics of an endpoint, to be updated on request start and end.
+     * @param endpoint endpoint record
+     * @return endpoint statistics
+     */
+    EndpointStats stats(Record endpoint);
+
+    /**
+     * Forget the statistics of an endpoint removed from service discovery.
+     * @param endpoint endpoint record
+     */
+    void remove(Record endpoint);
+
+    /**
+     * Create a load balancer from the <code>strategy</code> key of the config.
+     * Supported strategies are <code>round-robin</code> (default), <code>least-outstanding</code>
+     * and <code>power-of-two-choices</code>.
+     * @param config load balancer config
+     * @return load balancer
+     */
+    static LoadBalancer create(final JsonObject config) {
+        final String strategy = config.getString("strategy", RoundRobinLoadBalancer.NAME);
+
+        switch (strategy) {
+        case RoundRobinLoadBalancer.NAME:
+            return new RoundRobinLoadBalancer();
+        case LeastOutstandingLoadBalancer.NAME:
+            return new LeastOutstandingLoadBalancer();
+        case PowerOfTwoChoicesLoadBalancer.NAME:
+            return new PowerOfTwoChoicesLoadBalancer();
+        default:
+            throw new IllegalArgumentException("unknown load balancer strategy: " + strategy);
+        }
+    }
+}
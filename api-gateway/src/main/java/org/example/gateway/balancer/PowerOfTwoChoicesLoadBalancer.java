@@ -0,0 +1,33 @@
+package org.example.gateway.balancer;
+
+import io.vertx.servicediscovery.Record;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Picks two endpoints at random and sends the request to the one with the lower expected latency,
+ * estimated as the average latency multiplied by the requests it would be queued behind.
+ */
+public class PowerOfTwoChoicesLoadBalancer extends AbstractLoadBalancer {
+
+    public static final String NAME = "power-of-two-choices";
+
+    @Override
+    protected Record choose(final List<Record> endpoints) {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final int first = random.nextInt(endpoints.size());
+        final int second = (first + 1 + random.nextInt(endpoints.size() - 1)) % endpoints.size();
+
+        return cost(endpoints.get(first)) <= cost(endpoints.get(second))
+                ? endpoints.get(first)
+                : endpoints.get(second);
+    }
+
+    private double cost(final Record endpoint) {
+        final EndpointStats endpointStats = stats(endpoint);
+
+        // endpoints without samples yet get a minimal latency so they are tried
+        return Math.max(endpointStats.getLatency(), 1) * (endpointStats.getInFlight() + 1);
+    }
+}
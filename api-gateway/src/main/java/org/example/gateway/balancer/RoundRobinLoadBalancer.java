@@ -0,0 +1,23 @@
+package org.example.gateway.balancer;
+
+import io.vertx.servicediscovery.Record;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends requests to each endpoint in turn.
+ */
+public class RoundRobinLoadBalancer extends AbstractLoadBalancer {
+
+    public static final String NAME = "round-robin";
+
+    private final AtomicInteger counter = new AtomicInteger();
+
+    @Override
+    protected Record choose(final List<Record> endpoints) {
+        final int index = (counter.getAndIncrement() & Integer.MAX_VALUE) % endpoints.size();
+
+        return endpoints.get(index);
+    }
+}
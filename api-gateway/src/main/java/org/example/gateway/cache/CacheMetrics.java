@@ -0,0 +1,59 @@
+package org.example.gateway.cache;
+
+import io.vertx.core.json.JsonObject;
+import org.example.microservicecommon.http.JsonData;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of the {@link ResponseCache}, used to size it.
+ */
+public class CacheMetrics implements JsonData {
+
+    /**
+     * Requests served from a fresh entry.
+     */
+    final LongAdder hits = new LongAdder();
+
+    /**
+     * Requests served from a stale entry while it was revalidated, or because the service failed.
+     */
+    final LongAdder staleHits = new LongAdder();
+
+    /**
+     * Requests which had to go to the service.
+     */
+    final LongAdder misses = new LongAdder();
+
+    /**
+     * Responses streamed to the client without being stored, as they were too large or of unknown length.
+     */
+    final LongAdder streamed = new LongAdder();
+
+    /**
+     * Conditional requests sent to the service for a stored entry.
+     */
+    final LongAdder revalidations = new LongAdder();
+
+    /**
+     * Revalidations answered with <code>304 Not Modified</code>.
+     */
+    final LongAdder notModified = new LongAdder();
+
+    /**
+     * Entries evicted to stay within the size limits.
+     */
+    final LongAdder evictions = new LongAdder();
+
+    @Override
+    public JsonObject toJson() {
+        return new JsonObject()
+                .put("hits", hits.sum())
+                .put("staleHits", staleHits.sum())
+                .put("misses", misses.sum())
+                .put("streamed", streamed.sum())
+                .put("revalidations", revalidations.sum())
+                .put("notModified", notModified.sum())
+                .put("evictions", evictions.sum());
+    }
+}
@@ -0,0 +1,164 @@
+package org.example.gateway.cache;
+
+import io.vertx.core.MultiMap;
+import io.vertx.core.buffer.Buffer;
+import org.example.gateway.UpstreamResponse;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Upstream response held in the {@link ResponseCache} along with its freshness information.
+ */
+public class CachedResponse {
+
+    private final UpstreamResponse response;
+
+    /**
+     * Gzip compressed body, if the response is worth compressing.
+     */
+    private final Buffer compressedBody;
+
+    /**
+     * Entity tag of the response, if any.
+     */
+    private final String etag;
+
+    /**
+     * When the response was stored or last revalidated, in milliseconds.
+     */
+    private final long storedAt;
+
+    /**
+     * Until when the response can be served without revalidation.
+     */
+    private final long freshUntil;
+
+    /**
+     * Until when the response can still be served while it is revalidated in the background.
+     */
+    private final long staleUntil;
+
+    /**
+     * Until when the response can still be served because the service failed.
+     */
+    private final long errorUntil;
+
+    /**
+     * Whether the response can be stored in the cache at all.
+     */
+    private final boolean storable;
+
+    /**
+     * Lower-cased names of the request headers listed in the <code>Vary</code> response header.
+     */
+    private final List<String> varyHeaders;
+
+    /**
+     * Values of the {@link #varyHeaders} in the request the response was fetched for.
+     */
+    private final String variant;
+
+    /**
+     * Number of times the entry was read, for LFU eviction. Updated under the cache lock.
+     */
+    private int frequency;
+
+    public CachedResponse(
+            final UpstreamResponse response,
+            final Buffer compressedBody,
+            final String etag,
+            final long storedAt,
+            final long freshUntil,
+            final long staleUntil,
+            final long errorUntil,
+            final boolean storable,
+            final List<String> varyHeaders,
+            final String variant
+    ) {
+        this.response = response;
+        this.compressedBody = compressedBody;
+        this.etag = etag;
+        this.storedAt = storedAt;
+        this.freshUntil = freshUntil;
+        this.staleUntil = staleUntil;
+        this.errorUntil = errorUntil;
+        this.storable = storable;
+        this.varyHeaders = Collections.unmodifiableList(varyHeaders);
+        this.variant = variant;
+    }
+
+    public UpstreamResponse getResponse() {
+        return response;
+    }
+
+    public Buffer getCompressedBody() {
+        return compressedBody;
+    }
+
+    public String getEtag() {
+        return etag;
+    }
+
+    public long getStoredAt() {
+        return storedAt;
+    }
+
+    public boolean isStorable() {
+        return storable;
+    }
+
+    public List<String> getVaryHeaders() {
+        return varyHeaders;
+    }
+
+    /**
+     * Returns whether the response can be served without revalidation.
+     * @param now current time in milliseconds
+     */
+    public boolean isFresh(final long now) {
+        return now < freshUntil;
+    }
+
+    /**
+     * Returns whether the response is stale but may be served while being revalidated.
+     * @param now current time in milliseconds
+     */
+    public boolean isStaleUsable(final long now) {
+        return now >= freshUntil && now < staleUntil;
+    }
+
+    /**
+     * Returns whether the response may be served because the service failed,
+     * within its <code>stale-if-error</code> window.
+     * @param now current time in milliseconds
+     */
+    public boolean isUsableOnError(final long now) {
+        return now < errorUntil;
+    }
+
+    /**
+     * Returns whether the response can be served for a request, ie: the request has the same values
+     * for the headers the response varies on.
+     * @param requestHeaders request headers for the service
+     */
+    public boolean matches(final MultiMap requestHeaders) {
+        return variant.equals(ResponseCache.variant(varyHeaders, requestHeaders));
+    }
+
+    /**
+     * Returns the approximate memory held by the entry, ie: its body sizes.
+     */
+    public int size() {
+        return (response.getBody() == null ? 0 : response.getBody().length())
+                + (compressedBody == null ? 0 : compressedBody.length());
+    }
+
+    int getFrequency() {
+        return frequency;
+    }
+
+    void touch() {
+        frequency++;
+    }
+}
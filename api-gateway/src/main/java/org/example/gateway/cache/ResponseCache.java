@@ -0,0 +1,568 @@
+package org.example.gateway.cache;
+
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.vertx.core.MultiMap;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.json.JsonObject;
+import org.example.gateway.UpstreamResponse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Bounded in-memory cache for responses of idempotent GET requests.
+ * <p>
+ * Freshness follows the upstream <code>Cache-Control</code> header (<code>s-maxage</code>, <code>max-age</code>,
+ * <code>stale-while-revalidate</code>, <code>stale-if-error</code>, <code>no-cache</code>, <code>no-store</code>,
+ * <code>private</code>), falling back to <code>defaultTtl</code> when the service sends none. Entries with an
+ * <code>ETag</code> are revalidated with conditional requests once expired.
+ * <p>
+ * Responses with a <code>Vary</code> header are stored per value of the request headers it lists, and responses
+ * with <code>Vary: *</code> are not stored.
+ * <p>
+ * Memory is bounded by <code>maxEntries</code>, <code>maxBytes</code> and <code>maxEntryBytes</code>;
+ * responses larger than <code>maxEntryBytes</code> or of unknown length are streamed instead of stored.
+ * With <code>lru</code> eviction the least recently used entry is evicted; with <code>lfu</code> the least
+ * frequently used among the few least recently used entries is evicted.
+ * <p>
+ * Keys are spread over up to 16 segments, each with its own lock, access order and an even share of the limits, so
+ * requests for different keys do not wait for each other. Eviction is therefore least recently used per segment.
+ * Caches too small to be split, eg: fewer than 512 entries, use a single segment.
+ */
+public class ResponseCache {
+
+    /**
+     * Least recently used entries considered for LFU eviction.
+     */
+    private static final int LFU_SAMPLE_SIZE = 5;
+
+    private static final int MAX_SEGMENTS = 16;
+
+    /**
+     * Entries each segment can hold at least.
+     */
+    private static final int MIN_SEGMENT_ENTRIES = 256;
+
+    private final boolean enabled;
+
+    private final int maxEntryBytes;
+
+    private final long defaultTtl;
+
+    private final long staleWhileRevalidate;
+
+    private final long staleIfError;
+
+    private final boolean lfu;
+
+    /**
+     * Segments, selected by the hash of the key, so that all variants of a key are in the same segment.
+     */
+    private final Segment[] segments;
+
+    /**
+     * Keys being revalidated in the background.
+     */
+    private final Set<String> revalidating = ConcurrentHashMap.newKeySet();
+
+    private final CacheMetrics metrics = new CacheMetrics();
+
+    /**
+     * Returns the compressed body to keep along with a stored response, or <code>null</code>.
+     */
+    private Function<UpstreamResponse, Buffer> precompressor = upstream -> null;
+
+    /**
+     * Create a cache.
+     * Supported config keys: <code>enabled</code>, <code>maxEntries</code>, <code>maxBytes</code>,
+     * <code>maxEntryBytes</code>, <code>defaultTtl</code>, <code>staleWhileRevalidate</code> and
+     * <code>staleIfError</code> (milliseconds) and <code>eviction</code> (<code>lru</code> or <code>lfu</code>).
+     * @param config cache config
+     */
+    public ResponseCache(final JsonObject config) {
+        this.enabled = config.getBoolean("enabled", false);
+        final int maxEntries = config.getInteger("maxEntries", 10000);
+        final long maxBytes = config.getLong("maxBytes", 64L * 1024 * 1024);
+        this.maxEntryBytes = config.getInteger("maxEntryBytes", 1024 * 1024);
+        this.defaultTtl = config.getLong("defaultTtl", 0L);
+        this.staleWhileRevalidate = config.getLong("staleWhileRevalidate", 0L);
+        this.staleIfError = config.getLong("staleIfError", 0L);
+        this.lfu = "lfu".equalsIgnoreCase(config.getString("eviction", "lru"));
+
+        // split only while every segment can still hold enough entries and the largest one
+        int count = 1;
+
+        while (count < MAX_SEGMENTS
+                && maxEntries / (count * 2) >= MIN_SEGMENT_ENTRIES
+                && maxBytes / (count * 2) >= maxEntryBytes) {
+            count *= 2;
+        }
+
+        this.segments = new Segment[count];
+
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment(maxEntries / count, maxBytes / count);
+        }
+    }
+
+    /**
+     * Set the function compressing response bodies once when they are stored.
+     * @param precompressor function returning the compressed body, or <code>null</code> to keep none
+     * @return a reference to this
+     */
+    public ResponseCache precompressor(final Function<UpstreamResponse, Buffer> precompressor) {
+        this.precompressor = precompressor;
+
+        return this;
+    }
+
+    /**
+     * Returns the cache key of a request: API name, normalized path and query parameters sorted by name.
+     * Repeated parameters keep their order, which may matter to the service.
+     * @param apiName API name
+     * @param uri request URI relative to the API
+     * @return cache key
+     */
+    public static String key(final String apiName, final String uri) {
+        final int queryIndex = uri.indexOf('?');
+        final String path = queryIndex < 0 ? uri : uri.substring(0, queryIndex);
+        final StringBuilder key = new StringBuilder("GET /").append(apiName);
+
+        for (final String segment : path.split("/")) {
+            if (!segment.isEmpty()) {
+                key.append('/').append(segment);
+            }
+        }
+
+        if (queryIndex >= 0) {
+            final String[] params = uri.substring(queryIndex + 1).split("&");
+            // stable sort on the name only
+            Arrays.sort(params, Comparator.comparing(ResponseCache::paramName));
+            char separator = '?';
+
+            for (final String param : params) {
+                if (!param.isEmpty()) {
+                    key.append(separator).append(param);
+                    separator = '&';
+                }
+            }
+        }
+
+        return key.toString();
+    }
+
+    private static String paramName(final String param) {
+        final int valueIndex = param.indexOf('=');
+
+        return valueIndex < 0 ? param : param.substring(0, valueIndex);
+    }
+
+    /**
+     * Returns the values of the request headers a response varies on, to tell its variants apart.
+     * @param names lower-cased header names
+     * @param requestHeaders request headers for the service
+     * @return variant, empty if the response does not vary
+     */
+    public static String variant(final List<String> names, final MultiMap requestHeaders) {
+        if (names.isEmpty()) {
+            return "";
+        }
+
+        final StringBuilder variant = new StringBuilder();
+
+        for (final String name : names) {
+            variant.append('\n').append(name).append(':').append(String.join(",", requestHeaders.getAll(name)));
+        }
+
+        return variant.toString();
+    }
+
+    /**
+     * Returns whether caching is enabled.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the size above which responses are streamed instead of stored, in bytes.
+     */
+    public int getMaxEntryBytes() {
+        return maxEntryBytes;
+    }
+
+    /**
+     * Returns the entry for a request and counts the lookup as a hit, stale hit or miss.
+     * @param key cache key
+     * @param requestHeaders request headers for the service, to select the variant of the response
+     * @param now current time in milliseconds
+     * @return entry, or <code>null</code>
+     */
+    public CachedResponse get(final String key, final MultiMap requestHeaders, final long now) {
+        final Segment segment = segment(key);
+        final CachedResponse cached;
+
+        synchronized (segment) {
+            cached = segment.entries.get(key + variant(
+                    segment.varyHeaders.getOrDefault(key, Collections.emptyList()),
+                    requestHeaders
+            ));
+
+            if (cached != null) {
+                cached.touch();
+            }
+        }
+
+        if (cached == null) {
+            metrics.misses.increment();
+
+            return null;
+        }
+
+        if (cached.isFresh(now)) {
+            metrics.hits.increment();
+        } else if (cached.isStaleUsable(now)) {
+            metrics.staleHits.increment();
+        } else {
+            metrics.misses.increment();
+        }
+
+        return cached;
+    }
+
+    /**
+     * Store an upstream response, or refresh the previous entry when the service answered
+     * <code>304 Not Modified</code> to a revalidation.
+     * @param key cache key
+     * @param requestHeaders request headers sent to the service
+     * @param upstream upstream response
+     * @param previous entry which was revalidated, or <code>null</code>
+     * @param now current time in milliseconds
+     * @return the response to serve; not stored when the upstream response is not cacheable
+     */
+    public CachedResponse store(
+            final String key,
+            final MultiMap requestHeaders,
+            final UpstreamResponse upstream,
+            final CachedResponse previous,
+            final long now
+    ) {
+        final CachedResponse cached;
+
+        if (upstream.isStreamed()) {
+            metrics.streamed.increment();
+        }
+
+        if (previous != null) {
+            metrics.revalidations.increment();
+        }
+
+        if (upstream.getStatus() == 304 && previous != null) {
+            metrics.notModified.increment();
+
+            final MultiMap headers = MultiMap.caseInsensitiveMultiMap().setAll(previous.getResponse().getHeaders());
+            upstream.getHeaders().names().forEach(name -> headers.set(name, upstream.getHeaders().getAll(name)));
+            headers.remove(HttpHeaders.CONTENT_LENGTH);
+
+            cached = toCached(new UpstreamResponse(
+                    previous.getResponse().getStatus(),
+                    headers,
+                    previous.getResponse().getBody()
+            ), requestHeaders, now, previous.getCompressedBody());
+        } else {
+            cached = toCached(upstream, requestHeaders, now, null);
+        }
+
+        final Segment segment = segment(key);
+
+        synchronized (segment) {
+            if (cached.getVaryHeaders().isEmpty()) {
+                segment.varyHeaders.remove(key);
+            } else {
+                segment.varyHeaders.put(key, cached.getVaryHeaders());
+            }
+
+            final String entryKey = key + variant(cached.getVaryHeaders(), requestHeaders);
+            final CachedResponse replaced = cached.isStorable()
+                    ? segment.entries.put(entryKey, cached)
+                    : segment.entries.remove(entryKey);
+
+            if (replaced != null) {
+                segment.bytes -= replaced.size();
+            }
+
+            if (cached.isStorable()) {
+                segment.bytes += cached.size();
+                evict(segment);
+            }
+        }
+
+        return cached;
+    }
+
+    /**
+     * Mark a key as being revalidated in the background.
+     * @param key cache key
+     * @return <code>false</code> if a revalidation is already running for the key
+     */
+    public boolean startRevalidation(final String key) {
+        return revalidating.add(key);
+    }
+
+    /**
+     * Mark the background revalidation of a key as done.
+     * @param key cache key
+     */
+    public void endRevalidation(final String key) {
+        revalidating.remove(key);
+    }
+
+    /**
+     * Count a response served from a stale entry because the service failed.
+     */
+    public void staleIfError() {
+        metrics.staleHits.increment();
+    }
+
+    /**
+     * Returns the cache counters along with its current size.
+     */
+    public JsonObject metrics() {
+        int entries = 0;
+        long bytes = 0;
+
+        for (final Segment segment : segments) {
+            synchronized (segment) {
+                entries += segment.entries.size();
+                bytes += segment.bytes;
+            }
+        }
+
+        return metrics.toJson()
+                .put("entries", entries)
+                .put("bytes", bytes);
+    }
+
+    private Segment segment(final String key) {
+        final int hash = key.hashCode();
+
+        return segments[(hash ^ (hash >>> 16)) & (segments.length - 1)];
+    }
+
+    private CachedResponse toCached(
+            final UpstreamResponse upstream,
+            final MultiMap requestHeaders,
+            final long now,
+            final Buffer compressedBody
+    ) {
+        final MultiMap headers = upstream.getHeaders();
+        final String etag = headers.get(HttpHeaders.ETAG);
+        final CacheControl cacheControl = new CacheControl(headers.get(HttpHeaders.CACHE_CONTROL));
+        final List<String> vary = varyHeaders(headers);
+        final boolean storable = upstream.getStatus() == 200
+                && !cacheControl.noStore
+                && !vary.contains("*")
+                && !headers.contains(HttpHeaders.SET_COOKIE)
+                && upstream.getBody() != null
+                && upstream.getBody().length() <= maxEntryBytes;
+
+        final long ttl;
+
+        if (cacheControl.noCache) {
+            ttl = 0;
+        } else if (cacheControl.maxAge >= 0) {
+            ttl = cacheControl.maxAge * 1000;
+        } else {
+            ttl = defaultTtl;
+        }
+
+        final long staleWindow = cacheControl.staleWhileRevalidate >= 0
+                ? cacheControl.staleWhileRevalidate * 1000
+                : staleWhileRevalidate;
+
+        final long errorWindow = cacheControl.staleIfError >= 0
+                ? cacheControl.staleIfError * 1000
+                : staleIfError;
+
+        // an entry which is never fresh, cannot be revalidated and is not served on errors is useless
+        final boolean useful = ttl > 0 || staleWindow > 0 || errorWindow > 0 || etag != null;
+
+        // compressed once per stored body, reused when the entry is revalidated
+        final Buffer compressed = storable && useful && compressedBody == null
+                ? precompressor.apply(upstream)
+                : compressedBody;
+
+        return new CachedResponse(
+                upstream,
+                compressed,
+                etag,
+                now,
+                now + ttl,
+                now + ttl + staleWindow,
+                now + ttl + errorWindow,
+                storable && useful,
+                vary,
+                variant(vary, requestHeaders)
+        );
+    }
+
+    /**
+     * Returns the lower-cased, sorted header names listed in the <code>Vary</code> headers of a response.
+     * @param headers response headers
+     * @return header names, <code>*</code> if the response varies on more than request headers
+     */
+    private static List<String> varyHeaders(final MultiMap headers) {
+        final List<String> names = new ArrayList<>();
+
+        for (final String vary : headers.getAll(HttpHeaderNames.VARY)) {
+            for (final String name : vary.split(",")) {
+                final String trimmed = name.trim().toLowerCase();
+
+                if (!trimmed.isEmpty() && !names.contains(trimmed)) {
+                    names.add(trimmed);
+                }
+            }
+        }
+
+        Collections.sort(names);
+
+        return names;
+    }
+
+    /**
+     * Evict entries until a segment is within its limits. Called under the segment lock.
+     * @param segment segment which grew
+     */
+    private void evict(final Segment segment) {
+        final Map<String, CachedResponse> entries = segment.entries;
+
+        while (!entries.isEmpty() && (entries.size() > segment.maxEntries || segment.bytes > segment.maxBytes)) {
+            final Iterator<Map.Entry<String, CachedResponse>> iterator = entries.entrySet().iterator();
+            Map.Entry<String, CachedResponse> victim = iterator.next();
+
+            if (lfu) {
+                for (int i = 1; i < LFU_SAMPLE_SIZE && iterator.hasNext(); i++) {
+                    final Map.Entry<String, CachedResponse> candidate = iterator.next();
+
+                    if (candidate.getValue().getFrequency() < victim.getValue().getFrequency()) {
+                        victim = candidate;
+                    }
+                }
+            }
+
+            entries.remove(victim.getKey());
+            segment.bytes -= victim.getValue().size();
+
+            if (!victim.getValue().getVaryHeaders().isEmpty()) {
+                // variant keys start with the key, and paths hold no line feed
+                final int variantIndex = victim.getKey().indexOf('\n');
+                segment.varyHeaders.remove(variantIndex < 0 ? victim.getKey() : victim.getKey().substring(0, variantIndex));
+            }
+
+            metrics.evictions.increment();
+        }
+    }
+
+    /**
+     * Part of the cache guarded by its own lock.
+     */
+    private static class Segment {
+
+        private final int maxEntries;
+
+        private final long maxBytes;
+
+        /**
+         * Entries in access order, least recently used first.
+         */
+        private final LinkedHashMap<String, CachedResponse> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+        /**
+         * Key to the request headers its responses vary on, as sent by the service with the last stored response.
+         * Only keys of responses with a <code>Vary</code> header are listed.
+         */
+        private final Map<String, List<String>> varyHeaders = new HashMap<>();
+
+        private long bytes;
+
+        Segment(final int maxEntries, final long maxBytes) {
+            this.maxEntries = maxEntries;
+            this.maxBytes = maxBytes;
+        }
+    }
+
+    /**
+     * Parsed <code>Cache-Control</code> response header. Durations are in seconds, -1 when absent.
+     */
+    private static class CacheControl {
+
+        private boolean noStore;
+
+        private boolean noCache;
+
+        private long maxAge = -1;
+
+        private long staleWhileRevalidate = -1;
+
+        private long staleIfError = -1;
+
+        CacheControl(final String header) {
+            if (header == null) {
+                return;
+            }
+
+            long sharedMaxAge = -1;
+
+            for (final String directive : header.split(",")) {
+                final String[] parts = directive.trim().toLowerCase().split("=", 2);
+
+                switch (parts[0]) {
+                case "no-store":
+                case "private":
+                    noStore = true;
+                    break;
+                case "no-cache":
+                    noCache = true;
+                    break;
+                case "max-age":
+                    maxAge = seconds(parts);
+                    break;
+                case "s-maxage":
+                    sharedMaxAge = seconds(parts);
+                    break;
+                case "stale-while-revalidate":
+                    staleWhileRevalidate = seconds(parts);
+                    break;
+                case "stale-if-error":
+                    staleIfError = seconds(parts);
+                    break;
+                default:
+                    break;
+                }
+            }
+
+            if (sharedMaxAge >= 0) {
+                maxAge = sharedMaxAge;
+            }
+        }
+
+        private static long seconds(final String[] parts) {
+            try {
+                return parts.length == 2 ? Long.parseLong(parts[1].replace("\"", "").trim()) : -1;
+            } catch (final NumberFormatException ex) {
+                return -1;
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package org.example.gateway.circuitbreaker;
+
+/**
+ * Fails a call given up by its caller, eg: a hedged attempt which lost the race. The call says nothing about the
+ * health of the upstream, so neither the circuit breaker, the concurrency limiter nor the outlier detector
+ * count it.
+ */
+public class CancelledCallException extends RuntimeException {
+
+    public static final CancelledCallException INSTANCE = new CancelledCallException();
+
+    private CancelledCallException() {
+        super("call cancelled", null, false, false);
+    }
+}
@@ -0,0 +1,158 @@
+package org.example.gateway.circuitbreaker;
+
+import io.vertx.circuitbreaker.CircuitBreakerState;
+import io.vertx.core.Vertx;
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.eventbus.MessageConsumer;
+import io.vertx.core.json.JsonObject;
+import io.vertx.servicediscovery.Record;
+import org.example.gateway.RoutingTable;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Circuit breakers of the upstream services, so that a failing service does not trip the breaker of the others.
+ * Breakers are scoped per API name by default, or per endpoint when <code>scope</code> is <code>endpoint</code>.
+ * <p>
+ * With <code>shareState</code>, breakers publish their transitions to open and closed on the event bus, and adopt
+ * the transitions published by the other gateway nodes of the cluster, so that a failing service is detected once
+ * for the whole cluster. Messages are only sent on transitions and requests never wait for them.
+ */
+public class CircuitBreakerRegistry {
+
+    /**
+     * Scope value for one breaker per endpoint.
+     */
+    public static final String ENDPOINT_SCOPE = "endpoint";
+
+    /**
+     * Default event bus address of breaker transitions.
+     */
+    public static final String DEFAULT_STATE_ADDRESS = "api-gateway.circuit-breaker.state";
+
+    private final Vertx vertx;
+
+    /**
+     * Config shared by all breakers.
+     */
+    private final JsonObject config;
+
+    private final boolean endpointScoped;
+
+    private final boolean shareState;
+
+    private final String stateAddress;
+
+    /**
+     * Identifies the transitions published by this node.
+     */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    /**
+     * breaker name to breaker.
+     */
+    private final Map<String, SlidingWindowCircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    private MessageConsumer<JsonObject> stateConsumer;
+
+    /**
+     * Create a registry.
+     * Besides the breaker keys, supported config keys are <code>scope</code>, <code>shareState</code> and
+     * <code>stateAddress</code>.
+     * @param vertx vertx instance
+     * @param config <code>circuitBreakers</code> config block
+     */
+    public CircuitBreakerRegistry(final Vertx vertx, final JsonObject config) {
+        this.vertx = vertx;
+        this.config = config;
+        this.endpointScoped = ENDPOINT_SCOPE.equals(config.getString("scope"));
+        this.shareState = config.getBoolean("shareState", false);
+        this.stateAddress = config.getString("stateAddress", DEFAULT_STATE_ADDRESS);
+    }
+
+    /**
+     * Start adopting the transitions of the other nodes, if the state is shared.
+     */
+    public void start() {
+        if (shareState) {
+            stateConsumer = vertx.eventBus().consumer(stateAddress, this::onPeerTransition);
+        }
+    }
+
+    /**
+     * Stop adopting the transitions of the other nodes.
+     */
+    public void stop() {
+        if (stateConsumer != null) {
+            stateConsumer.unregister();
+            stateConsumer = null;
+        }
+    }
+
+    /**
+     * Returns the breaker guarding calls to an endpoint of an API.
+     * @param apiName API name
+     * @param endpoint endpoint record
+     * @return circuit breaker
+     */
+    public SlidingWindowCircuitBreaker get(final String apiName, final Record endpoint) {
+        final String name = endpointScoped ? RoutingTable.endpoint(endpoint) : apiName;
+
+        return breakers.computeIfAbsent(name, this::create);
+    }
+
+    /**
+     * Drop the breaker of an endpoint removed from service discovery, when breakers are scoped per endpoint.
+     * @param endpoint endpoint record
+     */
+    public void remove(final Record endpoint) {
+        if (endpointScoped) {
+            breakers.remove(RoutingTable.endpoint(endpoint));
+        }
+    }
+
+    private SlidingWindowCircuitBreaker create(final String name) {
+        final SlidingWindowCircuitBreaker breaker = new SlidingWindowCircuitBreaker(name, vertx, config);
+
+        if (shareState) {
+            breaker.stateChangeHandler(state -> publish(breaker, state));
+        }
+
+        return breaker;
+    }
+
+    /**
+     * Publish a transition of a local breaker to the other nodes.
+     * @param breaker breaker, locked by the caller
+     * @param state new state
+     */
+    private void publish(final SlidingWindowCircuitBreaker breaker, final CircuitBreakerState state) {
+        final JsonObject transition = new JsonObject()
+                .put("node", nodeId)
+                .put("name", breaker.name())
+                .put("state", state.name())
+                .put("openFor", breaker.openFor());
+
+        // sent once the breaker lock is released
+        vertx.runOnContext(v -> vertx.eventBus().publish(stateAddress, transition));
+    }
+
+    /**
+     * Adopt a transition published by another node.
+     * @param message transition
+     */
+    private void onPeerTransition(final Message<JsonObject> message) {
+        final JsonObject transition = message.body();
+
+        if (nodeId.equals(transition.getString("node"))) {
+            return;
+        }
+
+        breakers.computeIfAbsent(transition.getString("name"), this::create).adopt(
+                CircuitBreakerState.valueOf(transition.getString("state")),
+                transition.getLong("openFor", 0L)
+        );
+    }
+}
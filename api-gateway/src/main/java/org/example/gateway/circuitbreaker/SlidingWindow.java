@@ -0,0 +1,122 @@
+package org.example.gateway.circuitbreaker;
+
+/**
+ * Time-based sliding window of call outcomes.
+ * The window is split in buckets; buckets older than the window are reused for new samples,
+ * so recording a call and reading the rates never allocate.
+ * Not thread safe, callers must synchronize.
+ */
+public class SlidingWindow {
+
+    private final long bucketMillis;
+
+    /**
+     * Bucket epoch, ie: <code>time / bucketMillis</code> when the bucket was last reset.
+     */
+    private final long[] epochs;
+
+    private final int[] calls;
+
+    private final int[] failures;
+
+    private final int[] slowCalls;
+
+    /**
+     * @param windowMillis window length in milliseconds
+     * @param buckets number of buckets the window is split in
+     */
+    public SlidingWindow(final long windowMillis, final int buckets) {
+        this.bucketMillis = Math.max(1, windowMillis / buckets);
+        this.epochs = new long[buckets];
+        this.calls = new int[buckets];
+        this.failures = new int[buckets];
+        this.slowCalls = new int[buckets];
+    }
+
+    /**
+     * Record the outcome of a call.
+     * @param now current time in milliseconds
+     * @param failed whether the call failed
+     * @param slow whether the call was slower than the slow call threshold
+     */
+    public void record(final long now, final boolean failed, final boolean slow) {
+        final int index = bucket(now);
+
+        calls[index]++;
+
+        if (failed) {
+            failures[index]++;
+        }
+
+        if (slow) {
+            slowCalls[index]++;
+        }
+    }
+
+    /**
+     * Returns the number of calls in the window.
+     * @param now current time in milliseconds
+     */
+    public int calls(final long now) {
+        return sum(calls, now);
+    }
+
+    /**
+     * Returns the percentage of failed calls in the window.
+     * @param now current time in milliseconds
+     */
+    public double failureRate(final long now) {
+        final int total = calls(now);
+
+        return total == 0 ? 0 : 100.0 * sum(failures, now) / total;
+    }
+
+    /**
+     * Returns the percentage of slow calls in the window.
+     * @param now current time in milliseconds
+     */
+    public double slowCallRate(final long now) {
+        final int total = calls(now);
+
+        return total == 0 ? 0 : 100.0 * sum(slowCalls, now) / total;
+    }
+
+    /**
+     * Discard all samples.
+     */
+    public void reset() {
+        for (int i = 0; i < epochs.length; i++) {
+            epochs[i] = 0;
+            calls[i] = 0;
+            failures[i] = 0;
+            slowCalls[i] = 0;
+        }
+    }
+
+    private int bucket(final long now) {
+        final long epoch = now / bucketMillis;
+        final int index = (int) (epoch % epochs.length);
+
+        if (epochs[index] != epoch) {
+            epochs[index] = epoch;
+            calls[index] = 0;
+            failures[index] = 0;
+            slowCalls[index] = 0;
+        }
+
+        return index;
+    }
+
+    private int sum(final int[] counters, final long now) {
+        final long oldestEpoch = now / bucketMillis - epochs.length + 1;
+        int total = 0;
+
+        for (int i = 0; i < epochs.length; i++) {
+            if (epochs[i] >= oldestEpoch) {
+                total += counters[i];
+            }
+        }
+
+        return total;
+    }
+}
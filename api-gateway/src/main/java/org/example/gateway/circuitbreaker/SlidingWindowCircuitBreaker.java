@@ -0,0 +1,310 @@
+package org.example.gateway.circuitbreaker;
+
+import io.vertx.circuitbreaker.CircuitBreakerState;
+import io.vertx.circuitbreaker.OpenCircuitException;
+import io.vertx.circuitbreaker.TimeoutException;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+
+/**
+ * Circuit breaker evaluating the failure rate and the slow call rate over a time-based sliding window.
+ * <p>
+ * While <code>CLOSED</code>, the breaker opens once the window holds at least <code>minimumCalls</code>
+ * calls and either rate reaches its threshold. While <code>OPEN</code>, calls fail fast with
+ * {@link OpenCircuitException} until <code>resetTimeout</code> has elapsed. The breaker then turns
+ * <code>HALF_OPEN</code> and lets <code>halfOpenCalls</code> trial calls through: it closes if all of them
+ * succeed in time, and opens again otherwise.
+ * <p>
+ * Transitions to <code>OPEN</code> and <code>CLOSED</code> are reported to the state change handler, and
+ * transitions made by peers can be adopted with {@link #adopt(CircuitBreakerState, long)}.
+ */
+public class SlidingWindowCircuitBreaker {
+
+    private static final Logger logger = LoggerFactory.getLogger(SlidingWindowCircuitBreaker.class);
+
+    private final String name;
+
+    private final Vertx vertx;
+
+    /**
+     * Time after which a call is failed with {@link TimeoutException}, -1 to disable.
+     */
+    private final long timeout;
+
+    /**
+     * Calls slower than this are counted as slow.
+     */
+    private final long slowCallDuration;
+
+    private final double failureRateThreshold;
+
+    private final double slowCallRateThreshold;
+
+    private final int minimumCalls;
+
+    private final long resetTimeout;
+
+    private final int halfOpenCalls;
+
+    private final SlidingWindow window;
+
+    private CircuitBreakerState state = CircuitBreakerState.CLOSED;
+
+    /**
+     * When the breaker may turn half open, while open.
+     */
+    private long openUntil;
+
+    /**
+     * Trial calls started while half open.
+     */
+    private int halfOpenStarted;
+
+    /**
+     * Trial calls succeeded while half open.
+     */
+    private int halfOpenSucceeded;
+
+    /**
+     * Called with the new state when the breaker opens or closes on its own.
+     */
+    private Handler<CircuitBreakerState> stateChangeHandler = state -> { };
+
+    /**
+     * Create a circuit breaker.
+     * Supported config keys: <code>timeout</code>, <code>resetTimeout</code>, <code>failureRateThreshold</code>,
+     * <code>slowCallRateThreshold</code>, <code>slowCallDuration</code>, <code>slidingWindow</code>,
+     * <code>slidingWindowBuckets</code>, <code>minimumCalls</code> and <code>halfOpenCalls</code>.
+     * Durations are in milliseconds and rates in percent.
+     * @param name breaker name
+     * @param vertx vertx instance
+     * @param config breaker config
+     */
+    public SlidingWindowCircuitBreaker(final String name, final Vertx vertx, final JsonObject config) {
+        this.name = name;
+        this.vertx = vertx;
+        this.timeout = config.getLong("timeout", 10000L);
+        this.slowCallDuration = config.getLong("slowCallDuration", 2000L);
+        this.failureRateThreshold = config.getDouble("failureRateThreshold", 50.0);
+        this.slowCallRateThreshold = config.getDouble("slowCallRateThreshold", 80.0);
+        this.minimumCalls = config.getInteger("minimumCalls", 20);
+        this.resetTimeout = config.getLong("resetTimeout", 30000L);
+        this.halfOpenCalls = config.getInteger("halfOpenCalls", 3);
+        this.window = new SlidingWindow(
+                config.getLong("slidingWindow", 10000L),
+                config.getInteger("slidingWindowBuckets", 10)
+        );
+    }
+
+    /**
+     * Execute a command through the breaker.
+     * The returned future fails with {@link OpenCircuitException} without running the command when the
+     * breaker rejects the call, and with {@link TimeoutException} when the command does not complete in time.
+     * On timeout the promise given to the command is failed as well, so that it can cancel its request.
+     * Commands failed with {@link CancelledCallException} are not recorded.
+     * @param command command completing the given promise
+     * @param <T> result type
+     * @return future of the command result
+     */
+    public <T> Future<T> execute(final Handler<Promise<T>> command) {
+        final Promise<T> result = Promise.promise();
+
+        if (!tryAcquire()) {
+            result.fail(OpenCircuitException.INSTANCE);
+
+            return result.future();
+        }
+
+        final long startTime = System.currentTimeMillis();
+        final Promise<T> operation = Promise.promise();
+        final long timerId = timeout < 0 ? -1 : vertx.setTimer(timeout, id -> {
+            if (result.tryFail(TimeoutException.INSTANCE)) {
+                onComplete(startTime, true);
+            }
+
+            // lets the command abort the work it started
+            operation.tryFail(TimeoutException.INSTANCE);
+        });
+
+        operation.future().setHandler(res -> {
+            if (timerId >= 0) {
+                vertx.cancelTimer(timerId);
+            }
+
+            final boolean completed = res.succeeded() ? result.tryComplete(res.result()) : result.tryFail(res.cause());
+
+            if (completed && res.cause() instanceof CancelledCallException) {
+                onCancelled();
+            } else if (completed) {
+                onComplete(startTime, res.failed());
+            }
+        });
+
+        try {
+            command.handle(operation);
+        } catch (final Exception ex) {
+            operation.tryFail(ex);
+        }
+
+        return result.future();
+    }
+
+    /**
+     * Returns the breaker name.
+     */
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Set the handler called with the new state when the breaker opens or closes on its own.
+     * It is called while holding the breaker lock and must not block.
+     * @param handler state change handler
+     * @return a reference to this
+     */
+    public SlidingWindowCircuitBreaker stateChangeHandler(final Handler<CircuitBreakerState> handler) {
+        this.stateChangeHandler = handler;
+
+        return this;
+    }
+
+    /**
+     * Adopt a state reached by the breaker of a peer, without reporting it to the state change handler.
+     * An open state is kept for the given time before turning half open. A closed state is only adopted
+     * while open or half open, so that the local window is kept otherwise.
+     * @param newState state of the peer breaker
+     * @param openFor time left before the peer breaker turns half open, in milliseconds
+     * @return whether the state changed
+     */
+    public synchronized boolean adopt(final CircuitBreakerState newState, final long openFor) {
+        if (newState == CircuitBreakerState.OPEN) {
+            final long until = System.currentTimeMillis() + Math.min(Math.max(openFor, 0), resetTimeout);
+
+            if (state == CircuitBreakerState.OPEN && until <= openUntil) {
+                return false;
+            }
+
+            changeState(CircuitBreakerState.OPEN);
+            openUntil = until;
+            logger.warn("Circuit breaker <" + name + "> opened by a peer");
+
+            return true;
+        }
+
+        if (newState == CircuitBreakerState.CLOSED && state != CircuitBreakerState.CLOSED) {
+            changeState(CircuitBreakerState.CLOSED);
+            window.reset();
+            logger.info("Circuit breaker <" + name + "> closed by a peer");
+
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns the time left before the breaker turns half open in milliseconds, 0 if it is not open.
+     */
+    public synchronized long openFor() {
+        return state == CircuitBreakerState.OPEN ? Math.max(0, openUntil - System.currentTimeMillis()) : 0;
+    }
+
+    /**
+     * Returns the current state.
+     */
+    public synchronized CircuitBreakerState state() {
+        return state;
+    }
+
+    /**
+     * Decide whether a call may go through, moving from open to half open once the reset timeout elapsed.
+     */
+    private synchronized boolean tryAcquire() {
+        if (state == CircuitBreakerState.OPEN) {
+            if (System.currentTimeMillis() < openUntil) {
+                return false;
+            }
+
+            transition(CircuitBreakerState.HALF_OPEN);
+        }
+
+        if (state == CircuitBreakerState.HALF_OPEN) {
+            if (halfOpenStarted >= halfOpenCalls) {
+                return false;
+            }
+
+            halfOpenStarted++;
+        }
+
+        return true;
+    }
+
+    /**
+     * Record the outcome of a call and update the state.
+     * @param startTime call start time in milliseconds
+     * @param failed whether the call failed or timed out
+     */
+    private synchronized void onComplete(final long startTime, final boolean failed) {
+        final long now = System.currentTimeMillis();
+        final boolean slow = now - startTime >= slowCallDuration;
+
+        if (state == CircuitBreakerState.HALF_OPEN) {
+            if (failed || slow) {
+                transition(CircuitBreakerState.OPEN);
+            } else if (++halfOpenSucceeded >= halfOpenCalls) {
+                transition(CircuitBreakerState.CLOSED);
+            }
+
+            return;
+        }
+
+        if (state == CircuitBreakerState.OPEN) {
+            // call started before the breaker opened
+            return;
+        }
+
+        window.record(now, failed, slow);
+
+        if (window.calls(now) >= minimumCalls
+                && (window.failureRate(now) >= failureRateThreshold
+                || window.slowCallRate(now) >= slowCallRateThreshold)) {
+            transition(CircuitBreakerState.OPEN);
+        }
+    }
+
+    /**
+     * Give back the trial slot of a cancelled call.
+     */
+    private synchronized void onCancelled() {
+        if (state == CircuitBreakerState.HALF_OPEN && halfOpenStarted > 0) {
+            halfOpenStarted--;
+        }
+    }
+
+    private void transition(final CircuitBreakerState newState) {
+        changeState(newState);
+
+        if (newState == CircuitBreakerState.OPEN) {
+            openUntil = System.currentTimeMillis() + resetTimeout;
+            logger.warn("Circuit breaker <" + name + "> opened");
+            stateChangeHandler.handle(newState);
+        } else if (newState == CircuitBreakerState.CLOSED) {
+            window.reset();
+            logger.info("Circuit breaker <" + name + "> closed");
+            stateChangeHandler.handle(newState);
+        }
+    }
+
+    private void changeState(final CircuitBreakerState newState) {
+        logger.debug("Circuit breaker <" + name + "> " + state + " -> " + newState);
+
+        state = newState;
+        halfOpenStarted = 0;
+        halfOpenSucceeded = 0;
+    }
+}
@@ -0,0 +1,70 @@
+package org.example.gateway.concurrency;
+
+import io.vertx.core.json.JsonObject;
+import io.vertx.servicediscovery.Record;
+import org.example.gateway.RoutingTable;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Concurrency limiters of the upstream services, one per endpoint.
+ */
+public class ConcurrencyLimiterRegistry {
+
+    private final boolean enabled;
+
+    /**
+     * Config shared by all limiters.
+     */
+    private final JsonObject config;
+
+    /**
+     * endpoint URL to its limiter.
+     */
+    private final Map<String, GradientConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
+
+    /**
+     * Create a registry.
+     * @param config <code>concurrencyLimit</code> config block
+     */
+    public ConcurrencyLimiterRegistry(final JsonObject config) {
+        this.enabled = config.getBoolean("enabled", false);
+        this.config = config;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Returns the limiter of an endpoint.
+     * @param endpoint endpoint record
+     * @return concurrency limiter
+     */
+    public GradientConcurrencyLimiter get(final Record endpoint) {
+        return limiters.computeIfAbsent(
+                RoutingTable.endpoint(endpoint),
+                key -> new GradientConcurrencyLimiter(config)
+        );
+    }
+
+    /**
+     * Drop the limiter of an endpoint removed from service discovery.
+     * @param endpoint endpoint record
+     */
+    public void remove(final Record endpoint) {
+        limiters.remove(RoutingTable.endpoint(endpoint));
+    }
+
+    /**
+     * Returns the state of every limiter, by endpoint.
+     */
+    public JsonObject metrics() {
+        final JsonObject metrics = new JsonObject();
+
+        limiters.forEach((endpoint, limiter) -> metrics.put(endpoint, limiter.metrics()));
+
+        return metrics;
+    }
+}
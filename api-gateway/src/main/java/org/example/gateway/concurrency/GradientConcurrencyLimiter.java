@@ -0,0 +1,149 @@
+package org.example.gateway.concurrency;
+
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Adaptive limit of concurrent requests to one upstream, tuned from measured round trip times.
+ * <p>
+ * Every <code>windowSize</code> samples, the average RTT of the window is compared with a long-term RTT average.
+ * While the short-term RTT stays within <code>rttTolerance</code> of the long-term one, the limit grows by about
+ * its square root; once requests start queueing in the service the RTT rises and the limit shrinks by the
+ * gradient <code>longRtt / shortRtt</code>, down to half per window. Failed requests (timeouts, 5xx) multiply
+ * the limit by <code>backoffRatio</code>. The limit stays within <code>minLimit</code> and <code>maxLimit</code>.
+ */
+public class GradientConcurrencyLimiter {
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final int windowSize;
+
+    /**
+     * Weight of a window in the long-term RTT average.
+     */
+    private final double longRttFactor;
+
+    private final double rttTolerance;
+
+    private final double smoothing;
+
+    private final double backoffRatio;
+
+    private double limit;
+
+    private int inFlight;
+
+    /**
+     * Highest concurrency seen in the current window, to tell whether the limit is actually used.
+     */
+    private int windowMaxInFlight;
+
+    private long windowRttSum;
+
+    private int windowSamples;
+
+    /**
+     * Long-term RTT average in nanoseconds.
+     */
+    private double longRtt;
+
+    private long rejected;
+
+    /**
+     * Create a limiter.
+     * Supported config keys: <code>initialLimit</code>, <code>minLimit</code>, <code>maxLimit</code>,
+     * <code>windowSize</code>, <code>longWindowSize</code> (in windows), <code>rttTolerance</code>,
+     * <code>smoothing</code> and <code>backoffRatio</code>.
+     * @param config limiter config
+     */
+    public GradientConcurrencyLimiter(final JsonObject config) {
+        this.minLimit = config.getInteger("minLimit", 5);
+        this.maxLimit = config.getInteger("maxLimit", 200);
+        this.windowSize = config.getInteger("windowSize", 20);
+        this.longRttFactor = 2d / (config.getInteger("longWindowSize", 100) + 1);
+        this.rttTolerance = config.getDouble("rttTolerance", 1.5);
+        this.smoothing = config.getDouble("smoothing", 0.2);
+        this.backoffRatio = config.getDouble("backoffRatio", 0.9);
+        this.limit = config.getInteger("initialLimit", 20);
+    }
+
+    /**
+     * Take a slot for a request.
+     * @return <code>false</code> if the limit is reached
+     */
+    public synchronized boolean tryAcquire() {
+        if (inFlight >= (int) limit) {
+            rejected++;
+
+            return false;
+        }
+
+        inFlight++;
+        windowMaxInFlight = Math.max(windowMaxInFlight, inFlight);
+
+        return true;
+    }
+
+    /**
+     * Release the slot of a successful request.
+     * @param rtt round trip time in nanoseconds
+     */
+    public synchronized void onSuccess(final long rtt) {
+        inFlight--;
+        windowRttSum += rtt;
+        windowSamples++;
+
+        if (windowSamples >= windowSize) {
+            update(windowRttSum / (double) windowSamples);
+            windowRttSum = 0;
+            windowSamples = 0;
+            windowMaxInFlight = inFlight;
+        }
+    }
+
+    /**
+     * Release the slot of a failed request and back off.
+     */
+    public synchronized void onDropped() {
+        inFlight--;
+        limit = Math.max(minLimit, limit * backoffRatio);
+    }
+
+    /**
+     * Release the slot of a request which was not sent, eg: because the circuit was open.
+     */
+    public synchronized void onIgnored() {
+        inFlight--;
+    }
+
+    /**
+     * Returns the current limit, concurrency and rejections.
+     */
+    public synchronized JsonObject metrics() {
+        return new JsonObject()
+                .put("limit", (int) limit)
+                .put("inFlight", inFlight)
+                .put("rejected", rejected)
+                .put("longRttMillis", longRtt / 1_000_000);
+    }
+
+    private void update(final double shortRtt) {
+        longRtt = longRtt == 0 ? shortRtt : longRtt * (1 - longRttFactor) + shortRtt * longRttFactor;
+
+        // let the long-term average follow quickly when the service got faster
+        if (longRtt / shortRtt > 2) {
+            longRtt *= 0.95;
+        }
+
+        // do not grow a limit which is not used
+        if (windowMaxInFlight < limit / 2) {
+            return;
+        }
+
+        final double gradient = Math.max(0.5, Math.min(1.0, rttTolerance * longRtt / shortRtt));
+        final double newLimit = limit * gradient + Math.sqrt(limit);
+
+        limit = Math.max(minLimit, Math.min(maxLimit, limit * (1 - smoothing) + newLimit * smoothing));
+    }
+}
@@ -0,0 +1,13 @@
+package org.example.gateway.concurrency;
+
+/**
+ * Thrown when an upstream has reached its concurrency limit and the request is rejected without being sent.
+ */
+public class LimitExceededException extends RuntimeException {
+
+    public static final LimitExceededException INSTANCE = new LimitExceededException();
+
+    private LimitExceededException() {
+        super("concurrency limit reached", null, false, false);
+    }
+}
@@ -0,0 +1,120 @@
+package org.example.gateway.hedging;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * When to send a second attempt of an idempotent request to another endpoint.
+ * <p>
+ * A hedge is sent once the first attempt has been running for the <code>percentile</code> latency of the API
+ * (<code>initialDelay</code> until enough latencies are known, never less than <code>minDelay</code>), or
+ * right away when the first attempt fails. Extra attempts are taken from the cluster-wide {@link RetryBudget}
+ * configured in <code>budget</code>. Attempts race for a response read in memory, responses larger than
+ * <code>maxBufferBytes</code> are streamed to the client once an attempt gets them.
+ */
+public class HedgingPolicy {
+
+    private final boolean enabled;
+
+    private final double percentile;
+
+    private final long initialDelay;
+
+    private final long minDelay;
+
+    private final long maxBufferBytes;
+
+    private final RetryBudget budget;
+
+    /**
+     * API name to its recent latencies.
+     */
+    private final Map<String, LatencyPercentile> latencies = new ConcurrentHashMap<>();
+
+    private final LongAdder hedges = new LongAdder();
+
+    private final LongAdder hedgeWins = new LongAdder();
+
+    /**
+     * Create a policy.
+     * Supported config keys: <code>enabled</code>, <code>percentile</code>, <code>initialDelay</code> and
+     * <code>minDelay</code> (milliseconds), <code>maxBufferBytes</code> and <code>budget</code>.
+     * @param vertx vertx instance
+     * @param config hedging config
+     */
+    public HedgingPolicy(final Vertx vertx, final JsonObject config) {
+        this.enabled = config.getBoolean("enabled", false);
+        this.percentile = config.getDouble("percentile", 95d);
+        this.initialDelay = config.getLong("initialDelay", 100L);
+        this.minDelay = config.getLong("minDelay", 10L);
+        this.maxBufferBytes = config.getLong("maxBufferBytes", 1024L * 1024);
+        this.budget = new RetryBudget(vertx, config.getJsonObject("budget", new JsonObject()));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public RetryBudget getBudget() {
+        return budget;
+    }
+
+    /**
+     * Returns the size above which hedged responses are streamed instead of read, in bytes.
+     */
+    public long getMaxBufferBytes() {
+        return maxBufferBytes;
+    }
+
+    /**
+     * Returns how long to wait for the first attempt before hedging, in milliseconds.
+     * @param apiName API name
+     */
+    public long delay(final String apiName) {
+        final long latency = latencies(apiName).get();
+
+        return latency < 0 ? initialDelay : Math.max(minDelay, TimeUnit.NANOSECONDS.toMillis(latency));
+    }
+
+    /**
+     * Record how long an attempt took, or ran before it was cancelled.
+     * @param apiName API name
+     * @param latency latency in nanoseconds
+     */
+    public void record(final String apiName, final long latency) {
+        latencies(apiName).record(latency);
+    }
+
+    /**
+     * Count an extra attempt sent.
+     */
+    public void onHedgeSent() {
+        hedges.increment();
+    }
+
+    /**
+     * Count an extra attempt which answered first.
+     */
+    public void onHedgeWon() {
+        hedgeWins.increment();
+    }
+
+    /**
+     * Returns hedging counters.
+     */
+    public JsonObject metrics() {
+        return new JsonObject()
+                .put("hedges", hedges.sum())
+                .put("hedgeWins", hedgeWins.sum())
+                .put("budget", budget.metrics());
+    }
+
+    private LatencyPercentile latencies(final String apiName) {
+        return latencies.computeIfAbsent(apiName, key -> new LatencyPercentile(percentile));
+    }
+}
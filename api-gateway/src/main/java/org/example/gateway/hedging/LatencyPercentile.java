@@ -0,0 +1,62 @@
+package org.example.gateway.hedging;
+
+import java.util.Arrays;
+
+/**
+ * Percentile of the most recent latencies of an API, recomputed every few samples so that reading it is cheap.
+ */
+public class LatencyPercentile {
+
+    private static final int SIZE = 1024;
+
+    /**
+     * Samples between two computations of the percentile.
+     */
+    private static final int RECOMPUTE_EVERY = 128;
+
+    /**
+     * Samples needed before the percentile is trusted.
+     */
+    private static final int MIN_SAMPLES = 64;
+
+    private final double percentile;
+
+    private final long[] samples = new long[SIZE];
+
+    private long count;
+
+    private int next;
+
+    private long value = -1;
+
+    /**
+     * Create a tracker.
+     * @param percentile percentile to track, eg: 95
+     */
+    public LatencyPercentile(final double percentile) {
+        this.percentile = percentile;
+    }
+
+    /**
+     * Record a latency.
+     * @param latency latency in nanoseconds
+     */
+    public synchronized void record(final long latency) {
+        samples[next] = latency;
+        next = (next + 1) % SIZE;
+        count++;
+
+        if (count == MIN_SAMPLES || (count > MIN_SAMPLES && count % RECOMPUTE_EVERY == 0)) {
+            final long[] sorted = Arrays.copyOf(samples, (int) Math.min(count, SIZE));
+            Arrays.sort(sorted);
+            value = sorted[(int) Math.min(sorted.length - 1, Math.ceil(percentile / 100 * sorted.length) - 1)];
+        }
+    }
+
+    /**
+     * Returns the percentile in nanoseconds, or -1 until enough samples were recorded.
+     */
+    public synchronized long get() {
+        return value;
+    }
+}
@@ -0,0 +1,173 @@
+package org.example.gateway.hedging;
+
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cluster-wide budget of extra upstream attempts (hedges and retries), as a ratio of the requests.
+ * <p>
+ * Every <code>syncInterval</code> milliseconds, gateway nodes add their requests to a cluster counter in shared
+ * data and count their sync in another one. The budget of the cluster for the next interval, <code>ratio</code>
+ * times the requests of the whole cluster during the previous one, is split evenly among the nodes which synced
+ * in that interval, and each node may send <code>minRetriesPerSecond</code> on top of its share. Together the
+ * nodes therefore stay within the budget earned in the previous interval; a node whose upstream got slow cannot
+ * use the shares left unused by the others. A node is allowed <code>minRetriesPerSecond</code> only until its
+ * second sync, when it first knows the cluster traffic.
+ */
+public class RetryBudget {
+
+    private static final Logger logger = LoggerFactory.getLogger(RetryBudget.class);
+
+    private static final String REQUESTS_COUNTER = "gateway.retrybudget.requests";
+
+    private static final String SYNCS_COUNTER = "gateway.retrybudget.syncs";
+
+    private final Vertx vertx;
+
+    private final double ratio;
+
+    private final long syncInterval;
+
+    private final long minRetries;
+
+    private final LongAdder requests = new LongAdder();
+
+    /**
+     * Extra attempts sent by this node in the current interval.
+     */
+    private final AtomicLong retries = new AtomicLong();
+
+    private final LongAdder exhausted = new LongAdder();
+
+    /**
+     * Extra attempts allowed to this node in the current interval.
+     */
+    private volatile long allowance;
+
+    /**
+     * Nodes which synced during the previous interval.
+     */
+    private volatile long nodes = 1;
+
+    private Long requestsTotal;
+
+    private Long syncsTotal;
+
+    private long syncTimer = -1;
+
+    /**
+     * Create a budget.
+     * Supported config keys: <code>ratio</code>, <code>minRetriesPerSecond</code> and
+     * <code>syncInterval</code> (milliseconds).
+     * @param vertx vertx instance
+     * @param config budget config
+     */
+    public RetryBudget(final Vertx vertx, final JsonObject config) {
+        this.vertx = vertx;
+        this.ratio = config.getDouble("ratio", 0.1);
+        this.syncInterval = config.getLong("syncInterval", 1000L);
+        this.minRetries = config.getLong("minRetriesPerSecond", 10L) * syncInterval / 1000;
+        this.allowance = minRetries;
+    }
+
+    /**
+     * Start reconciling with the cluster.
+     */
+    public void start() {
+        syncTimer = vertx.setPeriodic(syncInterval, timer -> sync().setHandler(res -> {
+            if (res.failed()) {
+                logger.warn("Retry budget sync failed: " + res.cause().getMessage());
+            }
+        }));
+    }
+
+    /**
+     * Stop reconciling with the cluster.
+     */
+    public void stop() {
+        if (syncTimer >= 0) {
+            vertx.cancelTimer(syncTimer);
+        }
+    }
+
+    /**
+     * Count a request which may need extra attempts.
+     */
+    public void onRequest() {
+        requests.increment();
+    }
+
+    /**
+     * Take budget for an extra attempt.
+     * @return <code>false</code> if the budget is spent
+     */
+    public boolean tryRetry() {
+        if (retries.incrementAndGet() <= allowance) {
+            return true;
+        }
+
+        retries.decrementAndGet();
+        exhausted.increment();
+
+        return false;
+    }
+
+    /**
+     * Returns the budget state.
+     */
+    public JsonObject metrics() {
+        return new JsonObject()
+                .put("allowance", allowance)
+                .put("retries", retries.get())
+                .put("nodes", nodes)
+                .put("exhausted", exhausted.sum());
+    }
+
+    /**
+     * Add the requests of the interval to the cluster counters and compute the allowance of the next interval.
+     * @return a future completed once the allowance is updated
+     */
+    Future<Void> sync() {
+        final long localRequests = requests.sumThenReset();
+        retries.set(0);
+
+        return CompositeFuture.all(add(REQUESTS_COUNTER, localRequests), add(SYNCS_COUNTER, 1))
+                .map(res -> {
+                    final long newRequestsTotal = res.resultAt(0);
+                    final long newSyncsTotal = res.resultAt(1);
+
+                    if (requestsTotal != null) {
+                        // every node syncs once per interval
+                        nodes = Math.max(1, newSyncsTotal - syncsTotal);
+                        allowance = (long) (ratio * (newRequestsTotal - requestsTotal) / nodes) + minRetries;
+                    }
+
+                    requestsTotal = newRequestsTotal;
+                    syncsTotal = newSyncsTotal;
+
+                    return null;
+                });
+    }
+
+    private Future<Long> add(final String name, final long delta) {
+        final Promise<Long> promise = Promise.promise();
+
+        vertx.sharedData().getCounter(name, counter -> {
+            if (counter.succeeded()) {
+                counter.result().addAndGet(delta, promise);
+            } else {
+                promise.fail(counter.cause());
+            }
+        });
+
+        return promise.future();
+    }
+}
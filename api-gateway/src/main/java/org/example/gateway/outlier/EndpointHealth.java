@@ -0,0 +1,195 @@
+package org.example.gateway.outlier;
+
+import io.vertx.core.json.JsonObject;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Health state of a single upstream endpoint, fed by passive checks on real traffic and by active probes.
+ * Guarded by its own monitor.
+ */
+class EndpointHealth {
+
+    private final String endpoint;
+
+    private final String apiName;
+
+    /**
+     * URL of the health check route, null if the endpoint is not probed.
+     */
+    private final String healthUrl;
+
+    /**
+     * Failed calls since the last successful one.
+     */
+    private int consecutiveFailures;
+
+    /**
+     * Failed probes since the last successful one.
+     */
+    private int consecutiveProbeFailures;
+
+    /**
+     * Calls and total latency in nanoseconds since the last detection interval.
+     */
+    private long intervalCalls;
+
+    private long intervalLatency;
+
+    /**
+     * Whether a call failed since the last detection interval.
+     */
+    private boolean intervalFailed;
+
+    /**
+     * Average latency of the last detection interval with enough calls, in milliseconds.
+     */
+    private double latency;
+
+    /**
+     * Ejection multiplier: the next ejection lasts <code>2^ejections</code> base ejection times.
+     */
+    private int ejections;
+
+    /**
+     * End of the current ejection, in milliseconds, 0 if not ejected.
+     */
+    private volatile long ejectedUntil;
+
+    EndpointHealth(final String endpoint, final String apiName, final String healthUrl) {
+        this.endpoint = endpoint;
+        this.apiName = apiName;
+        this.healthUrl = healthUrl;
+    }
+
+    String getEndpoint() {
+        return endpoint;
+    }
+
+    String getApiName() {
+        return apiName;
+    }
+
+    String getHealthUrl() {
+        return healthUrl;
+    }
+
+    /**
+     * Returns whether the endpoint is ejected, without re-admitting it.
+     * @param now current time in milliseconds
+     */
+    boolean isEjected(final long now) {
+        final long until = ejectedUntil;
+
+        return until != 0 && now < until;
+    }
+
+    /**
+     * Returns whether the ejection of the endpoint is over and it has to be re-admitted.
+     * @param now current time in milliseconds
+     */
+    boolean isEjectionOver(final long now) {
+        final long until = ejectedUntil;
+
+        return until != 0 && now >= until;
+    }
+
+    synchronized void onSuccess(final long latencyNanos) {
+        consecutiveFailures = 0;
+        intervalCalls++;
+        intervalLatency += latencyNanos;
+    }
+
+    /**
+     * Count a failed call.
+     * @return failed calls in a row
+     */
+    synchronized int onFailure() {
+        intervalFailed = true;
+
+        return ++consecutiveFailures;
+    }
+
+    /**
+     * Count a probe result.
+     * @param healthy whether the probe succeeded
+     * @return failed probes in a row
+     */
+    synchronized int onProbe(final boolean healthy) {
+        consecutiveProbeFailures = healthy ? 0 : consecutiveProbeFailures + 1;
+
+        return consecutiveProbeFailures;
+    }
+
+    synchronized int getConsecutiveProbeFailures() {
+        return consecutiveProbeFailures;
+    }
+
+    /**
+     * Close the detection interval: keep the average latency when there were enough calls to trust it,
+     * and lower the ejection multiplier of an endpoint which stayed healthy.
+     * @param minCalls calls needed for the average latency to be kept
+     */
+    synchronized void closeInterval(final long minCalls) {
+        latency = intervalCalls >= minCalls && intervalCalls > 0
+                ? (double) TimeUnit.NANOSECONDS.toMicros(intervalLatency / intervalCalls) / 1000
+                : 0;
+
+        if (!intervalFailed && ejectedUntil == 0 && ejections > 0) {
+            ejections--;
+        }
+
+        intervalCalls = 0;
+        intervalLatency = 0;
+        intervalFailed = false;
+    }
+
+    /**
+     * Returns the average latency of the last detection interval in milliseconds, 0 if there were too few calls.
+     */
+    synchronized double getLatency() {
+        return latency;
+    }
+
+    /**
+     * Eject the endpoint for the base ejection time doubled on every ejection not yet forgiven.
+     * @param now current time in milliseconds
+     * @param baseEjectionTime base ejection time in milliseconds
+     * @param maxEjectionTime maximum ejection time in milliseconds
+     * @return ejection time in milliseconds
+     */
+    synchronized long eject(final long now, final long baseEjectionTime, final long maxEjectionTime) {
+        final long ejectionTime = Math.min(baseEjectionTime << Math.min(ejections, 30), maxEjectionTime);
+
+        ejections++;
+        consecutiveFailures = 0;
+        ejectedUntil = now + ejectionTime;
+
+        return ejectionTime;
+    }
+
+    /**
+     * Put the endpoint back into the balancing set.
+     * @return <code>false</code> if it was not ejected
+     */
+    synchronized boolean readmit() {
+        if (ejectedUntil == 0) {
+            return false;
+        }
+
+        ejectedUntil = 0;
+        latency = 0;
+
+        return true;
+    }
+
+    synchronized JsonObject metrics(final long now) {
+        return new JsonObject()
+                .put("api", apiName)
+                .put("ejected", isEjected(now))
+                .put("ejections", ejections)
+                .put("consecutiveFailures", consecutiveFailures)
+                .put("consecutiveProbeFailures", consecutiveProbeFailures)
+                .put("latency", latency);
+    }
+}
@@ -0,0 +1,141 @@
+package org.example.gateway.outlier;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.http.HttpClientRequest;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.RequestOptions;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.net.SocketAddress;
+
+import java.net.URI;
+
+/**
+ * Active health checks: probes the health route of every tracked endpoint at a fixed interval, so that a dead
+ * endpoint is ejected even without traffic and an ejected one is only re-admitted once it answers again.
+ * Probes use their own HTTP client, so they never wait behind proxied requests.
+ */
+class HealthProber {
+
+    private final Vertx vertx;
+
+    private final OutlierDetector detector;
+
+    private final boolean enabled;
+
+    private final long interval;
+
+    private final long timeout;
+
+    private final int unhealthyThreshold;
+
+    /**
+     * Health route of endpoints which do not publish theirs, null to probe only those which do.
+     */
+    private final String defaultPath;
+
+    private HttpClient client;
+
+    private long timerId = -1;
+
+    /**
+     * Create a prober.
+     * Supported config keys: <code>enabled</code>, <code>interval</code> and <code>timeout</code> (milliseconds),
+     * <code>unhealthyThreshold</code> (failed probes in a row ejecting an endpoint) and <code>path</code>.
+     * @param vertx vertx instance
+     * @param detector detector receiving the probe results
+     * @param config <code>healthCheck</code> config block
+     */
+    HealthProber(final Vertx vertx, final OutlierDetector detector, final JsonObject config) {
+        this.vertx = vertx;
+        this.detector = detector;
+        this.enabled = config.getBoolean("enabled", false);
+        this.interval = Math.max(1L, config.getLong("interval", 5000L));
+        this.timeout = Math.max(1L, config.getLong("timeout", 1000L));
+        this.unhealthyThreshold = Math.max(1, config.getInteger("unhealthyThreshold", 2));
+        this.defaultPath = config.getString("path");
+    }
+
+    boolean isEnabled() {
+        return enabled;
+    }
+
+    int getUnhealthyThreshold() {
+        return unhealthyThreshold;
+    }
+
+    String getDefaultPath() {
+        return defaultPath;
+    }
+
+    void start() {
+        if (!enabled) {
+            return;
+        }
+
+        client = vertx.createHttpClient(new HttpClientOptions()
+                .setConnectTimeout((int) timeout)
+                .setMaxPoolSize(1));
+        timerId = vertx.setPeriodic(interval, id -> detector.getEndpoints().forEach(this::probe));
+    }
+
+    void stop() {
+        if (timerId >= 0) {
+            vertx.cancelTimer(timerId);
+            timerId = -1;
+        }
+
+        if (client != null) {
+            client.close();
+            client = null;
+        }
+    }
+
+    private void probe(final EndpointHealth health) {
+        if (health.getHealthUrl() == null) {
+            return;
+        }
+
+        final RequestOptions options;
+
+        try {
+            options = requestOptions(URI.create(health.getHealthUrl()));
+        } catch (final IllegalArgumentException ex) {
+            detector.onProbe(health, false, unhealthyThreshold);
+
+            return;
+        }
+
+        final SocketAddress server = SocketAddress.inetSocketAddress(options.getPort(), options.getHost());
+        final HttpClientRequest request = client.request(HttpMethod.GET, server, options, res -> {
+            final boolean healthy = res.statusCode() >= 200 && res.statusCode() < 300;
+
+            // the body is discarded, the result counts once it is read so that the connection is reused
+            res.exceptionHandler(ex -> detector.onProbe(health, false, unhealthyThreshold));
+            res.endHandler(end -> detector.onProbe(health, healthy, unhealthyThreshold));
+        });
+
+        request.exceptionHandler(ex -> detector.onProbe(health, false, unhealthyThreshold));
+        request.setTimeout(timeout);
+        request.end();
+    }
+
+    /**
+     * Returns the options of a request to an absolute URL.
+     * @param url absolute http or https URL
+     */
+    private static RequestOptions requestOptions(final URI url) {
+        final boolean ssl = "https".equalsIgnoreCase(url.getScheme());
+
+        if (url.getHost() == null) {
+            throw new IllegalArgumentException("no host in " + url);
+        }
+
+        return new RequestOptions()
+                .setHost(url.getHost())
+                .setPort(url.getPort() < 0 ? (ssl ? 443 : 80) : url.getPort())
+                .setSsl(ssl)
+                .setURI(url.getRawQuery() == null ? url.getRawPath() : url.getRawPath() + "?" + url.getRawQuery());
+    }
+}
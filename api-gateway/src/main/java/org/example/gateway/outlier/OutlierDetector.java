@@ -0,0 +1,350 @@
+package org.example.gateway.outlier;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import io.vertx.servicediscovery.Record;
+import org.example.gateway.RoutingTable;
+import org.example.microservicecommon.RestApiVerticle;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Ejects unhealthy endpoints from the balancing set of their API for a while.
+ * <p>
+ * Endpoints are ejected after too many failed calls in a row (5xx, errors and timeouts), when their average
+ * latency over a detection interval is far above the one of the other endpoints of the API, or, with active
+ * health checks, after too many failed probes of their health route in a row. Ejections last the base ejection
+ * time, doubled on every new ejection and halved back on every healthy interval. An endpoint still failing its
+ * probes when its ejection is over is ejected again instead of being re-admitted.
+ * <p>
+ * At most <code>maxEjectionPercent</code> of the endpoints of an API are ejected at once, and an API never
+ * loses all its endpoints: circuit breakers keep guarding the last ones.
+ */
+public class OutlierDetector {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutlierDetector.class);
+
+    private final Vertx vertx;
+
+    private final boolean enabled;
+
+    private final int consecutiveFailures;
+
+    private final long interval;
+
+    private final double latencyFactor;
+
+    private final long minRequests;
+
+    private final long baseEjectionTime;
+
+    private final long maxEjectionTime;
+
+    private final int maxEjectionPercent;
+
+    private final HealthProber prober;
+
+    /**
+     * endpoint URL to its health.
+     */
+    private final Map<String, EndpointHealth> endpoints = new ConcurrentHashMap<>();
+
+    /**
+     * Endpoints ejected and not re-admitted yet, so that balancing sets are not filtered while it is 0.
+     */
+    private final AtomicInteger ejected = new AtomicInteger();
+
+    private final LongAdder totalEjections = new LongAdder();
+
+    private long intervalTimer = -1;
+
+    /**
+     * Create a detector.
+     * Supported config keys: <code>enabled</code>, <code>consecutiveFailures</code>, <code>interval</code>
+     * (milliseconds), <code>latencyFactor</code> (0 disables latency outliers), <code>minRequests</code>
+     * (per interval for the latency to be compared), <code>baseEjectionTime</code> and
+     * <code>maxEjectionTime</code> (milliseconds), <code>maxEjectionPercent</code>, and a
+     * <code>healthCheck</code> block with the {@link HealthProber} keys.
+     * @param vertx vertx instance
+     * @param config <code>outlierDetection</code> config block
+     */
+    public OutlierDetector(final Vertx vertx, final JsonObject config) {
+        this.vertx = vertx;
+        this.enabled = config.getBoolean("enabled", false);
+        this.consecutiveFailures = Math.max(1, config.getInteger("consecutiveFailures", 5));
+        this.interval = Math.max(1L, config.getLong("interval", 10000L));
+        this.latencyFactor = config.getDouble("latencyFactor", 3.0);
+        this.minRequests = config.getLong("minRequests", 20L);
+        this.baseEjectionTime = Math.max(1L, config.getLong("baseEjectionTime", 30000L));
+        this.maxEjectionTime = Math.max(baseEjectionTime, config.getLong("maxEjectionTime", 300000L));
+        this.maxEjectionPercent = config.getInteger("maxEjectionPercent", 50);
+        this.prober = new HealthProber(vertx, this, config.getJsonObject("healthCheck", new JsonObject()));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Start the detection interval and, if enabled, the health probes.
+     */
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+
+        intervalTimer = vertx.setPeriodic(interval, id -> detectLatencyOutliers());
+        prober.start();
+    }
+
+    /**
+     * Stop the detection interval and the health probes.
+     */
+    public void stop() {
+        if (intervalTimer >= 0) {
+            vertx.cancelTimer(intervalTimer);
+            intervalTimer = -1;
+        }
+
+        prober.stop();
+    }
+
+    /**
+     * Track an endpoint added to service discovery.
+     * Its health route is taken from the <code>health</code> metadata published by
+     * {@link RestApiVerticle}, or from the <code>healthCheck.path</code> config.
+     * @param record endpoint record
+     */
+    public void add(final Record record) {
+        if (!enabled) {
+            return;
+        }
+
+        final String endpoint = RoutingTable.endpoint(record);
+        final JsonObject metadata = record.getMetadata() == null ? new JsonObject() : record.getMetadata();
+        final String healthPath = metadata.getString(RestApiVerticle.HEALTH_KEY, prober.getDefaultPath());
+
+        endpoints.computeIfAbsent(endpoint, key -> new EndpointHealth(
+                key,
+                metadata.getString(RoutingTable.API_NAME_KEY),
+                healthPath == null ? null : healthUrl(endpoint, healthPath)
+        ));
+    }
+
+    /**
+     * Forget an endpoint removed from service discovery.
+     * @param record endpoint record
+     */
+    public void remove(final Record record) {
+        final EndpointHealth health = endpoints.remove(RoutingTable.endpoint(record));
+
+        if (health != null && health.readmit()) {
+            ejected.decrementAndGet();
+        }
+    }
+
+    /**
+     * Returns the endpoints of an API which are not ejected, re-admitting those whose ejection is over.
+     * @param records endpoints of the API
+     * @return endpoints to balance between, all of them if they are all ejected
+     */
+    public List<Record> available(final List<Record> records) {
+        if (ejected.get() == 0) {
+            return records;
+        }
+
+        final long now = System.currentTimeMillis();
+        final List<Record> available = new ArrayList<>(records.size());
+
+        for (final Record record : records) {
+            final EndpointHealth health = endpoints.get(RoutingTable.endpoint(record));
+
+            if (health == null || !isEjected(health, now)) {
+                available.add(record);
+            }
+        }
+
+        return available.isEmpty() ? records : available;
+    }
+
+    /**
+     * Record a successful call.
+     * @param endpoint endpoint record
+     * @param latencyNanos call latency in nanoseconds
+     */
+    public void onSuccess(final Record endpoint, final long latencyNanos) {
+        final EndpointHealth health = enabled ? endpoints.get(RoutingTable.endpoint(endpoint)) : null;
+
+        if (health != null) {
+            health.onSuccess(latencyNanos);
+        }
+    }
+
+    /**
+     * Record a failed call, ejecting the endpoint after too many failures in a row.
+     * @param endpoint endpoint record
+     */
+    public void onFailure(final Record endpoint) {
+        final EndpointHealth health = enabled ? endpoints.get(RoutingTable.endpoint(endpoint)) : null;
+
+        if (health != null && health.onFailure() >= consecutiveFailures) {
+            eject(health, consecutiveFailures + " consecutive failures");
+        }
+    }
+
+    /**
+     * Returns the detector state.
+     */
+    public JsonObject metrics() {
+        final long now = System.currentTimeMillis();
+        final JsonObject endpointMetrics = new JsonObject();
+
+        endpoints.forEach((endpoint, health) -> endpointMetrics.put(endpoint, health.metrics(now)));
+
+        return new JsonObject()
+                .put("enabled", enabled)
+                .put("ejected", endpoints.values().stream().filter(health -> health.isEjected(now)).count())
+                .put("ejections", totalEjections.sum())
+                .put("endpoints", endpointMetrics);
+    }
+
+    /**
+     * Returns the tracked endpoints.
+     */
+    Iterable<EndpointHealth> getEndpoints() {
+        return endpoints.values();
+    }
+
+    /**
+     * Record the result of a health probe, ejecting the endpoint after too many failed probes in a row.
+     * @param health endpoint health
+     * @param healthy whether the probe succeeded
+     * @param unhealthyThreshold failed probes in a row ejecting the endpoint
+     */
+    void onProbe(final EndpointHealth health, final boolean healthy, final int unhealthyThreshold) {
+        if (health.onProbe(healthy) >= unhealthyThreshold && !health.isEjected(System.currentTimeMillis())) {
+            eject(health, unhealthyThreshold + " failed health checks");
+        }
+    }
+
+    /**
+     * Returns whether an endpoint is ejected, ending its ejection if it is over.
+     */
+    private boolean isEjected(final EndpointHealth health, final long now) {
+        return health.isEjectionOver(now) ? !endEjection(health, now) : health.isEjected(now);
+    }
+
+    /**
+     * Re-admit an endpoint whose ejection is over, unless it is still failing its health checks,
+     * in which case it is ejected again for longer.
+     * @return whether the endpoint was re-admitted
+     */
+    private synchronized boolean endEjection(final EndpointHealth health, final long now) {
+        if (!health.isEjectionOver(now)) {
+            // ended by another event loop
+            return !health.isEjected(now);
+        }
+
+        if (prober.isEnabled() && health.getHealthUrl() != null
+                && health.getConsecutiveProbeFailures() >= prober.getUnhealthyThreshold()) {
+            final long ejectionTime = health.eject(now, baseEjectionTime, maxEjectionTime);
+            totalEjections.increment();
+            logger.warn("Endpoint " + health.getEndpoint() + " still unhealthy, ejected for " + ejectionTime + " ms");
+
+            return false;
+        }
+
+        if (health.readmit()) {
+            ejected.decrementAndGet();
+            logger.info("Endpoint " + health.getEndpoint() + " re-admitted");
+        }
+
+        return true;
+    }
+
+    /**
+     * Eject an endpoint unless too many endpoints of its API are ejected already.
+     * @param health endpoint health
+     * @param reason reason for the log
+     */
+    private synchronized void eject(final EndpointHealth health, final String reason) {
+        final long now = System.currentTimeMillis();
+
+        if (health.isEjected(now) || !endpoints.containsKey(health.getEndpoint())) {
+            return;
+        }
+
+        final List<EndpointHealth> group = endpoints.values().stream()
+                .filter(each -> each.getApiName() != null && each.getApiName().equals(health.getApiName()))
+                .collect(Collectors.toList());
+        final long ejectedInGroup = group.stream().filter(each -> each.isEjected(now)).count();
+
+        if (ejectedInGroup + 1 > group.size() * maxEjectionPercent / 100) {
+            logger.warn("Endpoint " + health.getEndpoint() + " not ejected (" + reason + "): "
+                    + ejectedInGroup + " of " + group.size() + " endpoints ejected already");
+
+            return;
+        }
+
+        // an endpoint whose ejection is over but which was not re-admitted yet is counted already
+        final boolean counted = health.isEjectionOver(now);
+        final long ejectionTime = health.eject(now, baseEjectionTime, maxEjectionTime);
+
+        if (!counted) {
+            ejected.incrementAndGet();
+        }
+
+        totalEjections.increment();
+        logger.warn("Endpoint " + health.getEndpoint() + " ejected for " + ejectionTime + " ms: " + reason);
+    }
+
+    /**
+     * Close the detection interval and eject the endpoints whose average latency is more than
+     * <code>latencyFactor</code> times the average latency of the other endpoints of their API.
+     */
+    private void detectLatencyOutliers() {
+        endpoints.values().forEach(health -> health.closeInterval(minRequests));
+
+        if (latencyFactor <= 0) {
+            return;
+        }
+
+        final Map<String, List<EndpointHealth>> groups = endpoints.values().stream()
+                .filter(health -> health.getApiName() != null && health.getLatency() > 0)
+                .collect(Collectors.groupingBy(EndpointHealth::getApiName));
+
+        groups.values().forEach(group -> {
+            if (group.size() < 2) {
+                return;
+            }
+
+            final double totalLatency = group.stream().mapToDouble(EndpointHealth::getLatency).sum();
+
+            group.forEach(health -> {
+                final double othersLatency = (totalLatency - health.getLatency()) / (group.size() - 1);
+
+                if (health.getLatency() > latencyFactor * othersLatency) {
+                    eject(health, String.format(
+                            "latency %.1f ms, others %.1f ms",
+                            health.getLatency(),
+                            othersLatency
+                    ));
+                }
+            });
+        });
+    }
+
+    private static String healthUrl(final String endpoint, final String path) {
+        final String root = endpoint.endsWith("/") ? endpoint.substring(0, endpoint.length() - 1) : endpoint;
+
+        return root + (path.startsWith("/") ? path : "/" + path);
+    }
+}
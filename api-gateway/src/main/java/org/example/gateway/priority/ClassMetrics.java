@@ -0,0 +1,63 @@
+package org.example.gateway.priority;
+
+import io.vertx.core.json.JsonObject;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Queue metrics of a priority class, over all endpoints.
+ */
+class ClassMetrics {
+
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private final LongAdder granted = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final LongAdder timedOut = new LongAdder();
+
+    private final LongAdder waitNanos = new LongAdder();
+
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    void onQueued() {
+        queued.incrementAndGet();
+    }
+
+    void onGranted(final long waited, final boolean wasQueued) {
+        if (wasQueued) {
+            queued.decrementAndGet();
+        }
+
+        granted.increment();
+        waitNanos.add(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+    }
+
+    void onRejected() {
+        rejected.increment();
+    }
+
+    void onTimedOut() {
+        queued.decrementAndGet();
+        timedOut.increment();
+    }
+
+    JsonObject toJson() {
+        final long grantedCount = granted.sum();
+
+        return new JsonObject()
+                .put("queued", queued.get())
+                .put("granted", grantedCount)
+                .put("rejected", rejected.sum())
+                .put("timedOut", timedOut.sum())
+                .put("avgWaitMillis", grantedCount == 0
+                        ? 0d
+                        : (double) TimeUnit.NANOSECONDS.toMicros(waitNanos.sum()) / grantedCount / 1000)
+                .put("maxWaitMillis", TimeUnit.NANOSECONDS.toMillis(maxWaitNanos.get()));
+    }
+}
@@ -0,0 +1,254 @@
+package org.example.gateway.priority;
+
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import org.example.gateway.concurrency.GradientConcurrencyLimiter;
+import org.example.gateway.concurrency.LimitExceededException;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Weighted-fair queue for the concurrency slots of one endpoint.
+ * <p>
+ * A request takes a slot of the {@link GradientConcurrencyLimiter} directly when nobody is waiting,
+ * otherwise it waits in the queue of its class. When slots free up, classes are served by stride scheduling,
+ * so that backlogged classes get slots in proportion to their weight, and within a class the clients are
+ * served round robin, so that one client's burst can not take the slots of the other clients of its class.
+ * Requests are rejected with {@link LimitExceededException} when their class queue is full or when they
+ * wait longer than <code>queueTimeout</code>.
+ * <p>
+ * Thread-safe: requests may come from several event loops, each one is granted its slot on its own context.
+ */
+public class FairQueue {
+
+    private final Vertx vertx;
+
+    private final GradientConcurrencyLimiter limiter;
+
+    private final int maxQueueSize;
+
+    private final long queueTimeout;
+
+    private final Map<PriorityClass, ClassQueue> queues = new HashMap<>();
+
+    /**
+     * Pass of the last served class. A class becoming backlogged starts from it, so it can not claim
+     * slots for the time it was idle.
+     */
+    private double pass;
+
+    private int size;
+
+    FairQueue(
+            final Vertx vertx,
+            final GradientConcurrencyLimiter limiter,
+            final int maxQueueSize,
+            final long queueTimeout
+    ) {
+        this.vertx = vertx;
+        this.limiter = limiter;
+        this.maxQueueSize = maxQueueSize;
+        this.queueTimeout = queueTimeout;
+    }
+
+    /**
+     * Take a concurrency slot, waiting in the queue of the flow if needed.
+     * {@link #release()} must be called once the slot is given back to the limiter.
+     * @param flow flow of the request
+     * @param metrics metrics of the class of the flow
+     * @return a future completed once the slot is taken
+     */
+    Future<Void> acquire(final Flow flow, final ClassMetrics metrics) {
+        final Waiter waiter;
+
+        synchronized (this) {
+            if (size == 0 && limiter.tryAcquire()) {
+                metrics.onGranted(0L, false);
+
+                return Future.succeededFuture();
+            }
+
+            final ClassQueue queue = queues.computeIfAbsent(flow.getPriorityClass(), ClassQueue::new);
+
+            if (queue.size >= maxQueueSize) {
+                metrics.onRejected();
+
+                return Future.failedFuture(LimitExceededException.INSTANCE);
+            }
+
+            if (queue.size == 0) {
+                queue.pass = Math.max(queue.pass, pass);
+            }
+
+            waiter = new Waiter(Vertx.currentContext(), metrics);
+            queue.add(flow.getClient(), waiter);
+            size++;
+            metrics.onQueued();
+        }
+
+        waiter.timerId = vertx.setTimer(queueTimeout, id -> timeout(flow, waiter));
+
+        return waiter.promise.future();
+    }
+
+    /**
+     * Give slots freed in the limiter to the next waiting requests.
+     */
+    public void release() {
+        while (true) {
+            final Waiter waiter;
+
+            synchronized (this) {
+                if (size == 0 || !limiter.tryAcquire()) {
+                    return;
+                }
+
+                waiter = next();
+            }
+
+            waiter.grant(vertx);
+        }
+    }
+
+    /**
+     * Returns the number of waiting requests.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Take the next waiter: lowest pass class, next client of that class.
+     */
+    private Waiter next() {
+        ClassQueue selected = null;
+
+        for (final ClassQueue queue : queues.values()) {
+            if (queue.size > 0 && (selected == null || queue.pass < selected.pass)) {
+                selected = queue;
+            }
+        }
+
+        pass = selected.pass;
+        selected.pass += 1d / selected.priorityClass.getWeight();
+        size--;
+
+        return selected.poll();
+    }
+
+    private void timeout(final Flow flow, final Waiter waiter) {
+        synchronized (this) {
+            final ClassQueue queue = queues.get(flow.getPriorityClass());
+
+            if (queue == null || !queue.remove(flow.getClient(), waiter)) {
+                return;
+            }
+
+            size--;
+        }
+
+        waiter.metrics.onTimedOut();
+        waiter.promise.fail(LimitExceededException.INSTANCE);
+    }
+
+    /**
+     * Waiting requests of a class, by client.
+     */
+    private static class ClassQueue {
+
+        private final PriorityClass priorityClass;
+
+        /**
+         * Clients in round robin order, the next one to serve first.
+         */
+        private final LinkedHashMap<String, Deque<Waiter>> clients = new LinkedHashMap<>();
+
+        private double pass;
+
+        private int size;
+
+        ClassQueue(final PriorityClass priorityClass) {
+            this.priorityClass = priorityClass;
+        }
+
+        void add(final String client, final Waiter waiter) {
+            clients.computeIfAbsent(client, key -> new ArrayDeque<>()).addLast(waiter);
+            size++;
+        }
+
+        Waiter poll() {
+            final Iterator<Map.Entry<String, Deque<Waiter>>> iterator = clients.entrySet().iterator();
+            final Map.Entry<String, Deque<Waiter>> first = iterator.next();
+            final Waiter waiter = first.getValue().pollFirst();
+
+            // move the client to the back of the round
+            iterator.remove();
+
+            if (!first.getValue().isEmpty()) {
+                clients.put(first.getKey(), first.getValue());
+            }
+
+            size--;
+
+            return waiter;
+        }
+
+        boolean remove(final String client, final Waiter waiter) {
+            final Deque<Waiter> waiters = clients.get(client);
+
+            if (waiters == null || !waiters.remove(waiter)) {
+                return false;
+            }
+
+            if (waiters.isEmpty()) {
+                clients.remove(client);
+            }
+
+            size--;
+
+            return true;
+        }
+    }
+
+    /**
+     * Request waiting for a slot, with the context to grant it on.
+     */
+    private static class Waiter {
+
+        private final Context context;
+
+        private final ClassMetrics metrics;
+
+        private final long queuedAt = System.nanoTime();
+
+        private final Promise<Void> promise = Promise.promise();
+
+        private long timerId = -1;
+
+        Waiter(final Context context, final ClassMetrics metrics) {
+            this.context = context;
+            this.metrics = metrics;
+        }
+
+        void grant(final Vertx vertx) {
+            if (timerId != -1) {
+                vertx.cancelTimer(timerId);
+            }
+
+            metrics.onGranted(System.nanoTime() - queuedAt, true);
+
+            if (context == null || context == Vertx.currentContext()) {
+                promise.complete();
+            } else {
+                context.runOnContext(v -> promise.complete());
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package org.example.gateway.priority;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.servicediscovery.Record;
+import org.example.gateway.RoutingTable;
+import org.example.gateway.concurrency.GradientConcurrencyLimiter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Priority classes and the weighted-fair queues of the upstream endpoints, one per endpoint.
+ * Queues hold requests waiting for a slot of the endpoint concurrency limiter, so they are only used when
+ * concurrency limits are enabled.
+ */
+public class FairQueueRegistry {
+
+    private final Vertx vertx;
+
+    private final boolean enabled;
+
+    private final int maxQueueSize;
+
+    private final long queueTimeout;
+
+    private final PriorityClassifier classifier;
+
+    /**
+     * endpoint URL to its queue.
+     */
+    private final Map<String, FairQueue> queues = new ConcurrentHashMap<>();
+
+    /**
+     * class name to its metrics.
+     */
+    private final Map<String, ClassMetrics> classMetrics = new LinkedHashMap<>();
+
+    /**
+     * Create a registry.
+     * Supported config keys: <code>enabled</code>, <code>maxQueueSize</code> (per class and endpoint),
+     * <code>queueTimeout</code> (milliseconds), and the
+     * {@link PriorityClassifier} keys.
+     * @param vertx vertx instance
+     * @param config <code>fairQueuing</code> config block
+     */
+    public FairQueueRegistry(final Vertx vertx, final JsonObject config) {
+        this.vertx = vertx;
+        this.enabled = config.getBoolean("enabled", false);
+        this.maxQueueSize = config.getInteger("maxQueueSize", 1000);
+        this.queueTimeout = Math.max(1L, config.getLong("queueTimeout", 1000L));
+        this.classifier = new PriorityClassifier(config);
+
+        classifier.getClasses().forEach(each -> classMetrics.put(each.getName(), new ClassMetrics()));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public PriorityClassifier getClassifier() {
+        return classifier;
+    }
+
+    /**
+     * Returns the queue of an endpoint.
+     * @param endpoint endpoint record
+     * @param limiter concurrency limiter of the endpoint
+     * @return fair queue
+     */
+    public FairQueue get(final Record endpoint, final GradientConcurrencyLimiter limiter) {
+        return queues.computeIfAbsent(
+                RoutingTable.endpoint(endpoint),
+                key -> new FairQueue(vertx, limiter, maxQueueSize, queueTimeout)
+        );
+    }
+
+    /**
+     * Take a concurrency slot of an endpoint for a flow, waiting in its fair queue if needed.
+     * @param queue queue of the endpoint
+     * @param flow flow of the request
+     * @return a future completed once the slot is taken
+     */
+    public Future<Void> acquire(final FairQueue queue, final Flow flow) {
+        return queue.acquire(flow, classMetrics.get(flow.getPriorityClass().getName()));
+    }
+
+    /**
+     * Drop the queue of an endpoint removed from service discovery. Waiting requests time out.
+     * @param endpoint endpoint record
+     */
+    public void remove(final Record endpoint) {
+        queues.remove(RoutingTable.endpoint(endpoint));
+    }
+
+    /**
+     * Returns queue metrics by class, and the queue depth by endpoint.
+     */
+    public JsonObject metrics() {
+        final JsonObject classes = new JsonObject();
+        final JsonObject endpoints = new JsonObject();
+
+        classMetrics.forEach((name, metrics) -> classes.put(name, metrics.toJson()));
+        queues.forEach((endpoint, queue) -> endpoints.put(endpoint, queue.size()));
+
+        return new JsonObject().put("classes", classes).put("endpoints", endpoints);
+    }
+}
@@ -0,0 +1,24 @@
+package org.example.gateway.priority;
+
+/**
+ * Requests of one client in one priority class, queued together.
+ */
+public class Flow {
+
+    private final PriorityClass priorityClass;
+
+    private final String client;
+
+    public Flow(final PriorityClass priorityClass, final String client) {
+        this.priorityClass = priorityClass;
+        this.client = client;
+    }
+
+    public PriorityClass getPriorityClass() {
+        return priorityClass;
+    }
+
+    public String getClient() {
+        return client;
+    }
+}
@@ -0,0 +1,46 @@
+package org.example.gateway.priority;
+
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Class of requests sharing a weight in the fair queues and a priority for the services.
+ */
+public class PriorityClass {
+
+    private final String name;
+
+    /**
+     * Share of the upstream concurrency slots relative to the other classes when queues are backlogged.
+     */
+    private final int weight;
+
+    /**
+     * Priority forwarded to the services for their load shedding: <code>high</code>, <code>normal</code>
+     * or <code>low</code>.
+     */
+    private final String priority;
+
+    /**
+     * Create a class.
+     * Supported config keys: <code>weight</code> and <code>priority</code>.
+     * @param name class name
+     * @param config class config
+     */
+    public PriorityClass(final String name, final JsonObject config) {
+        this.name = name;
+        this.weight = Math.max(1, config.getInteger("weight", 1));
+        this.priority = config.getString("priority", "normal");
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    public String getPriority() {
+        return priority;
+    }
+}
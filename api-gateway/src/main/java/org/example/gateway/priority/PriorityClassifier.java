@@ -0,0 +1,159 @@
+package org.example.gateway.priority;
+
+import io.vertx.core.MultiMap;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.json.JsonObject;
+import org.example.gateway.ClientIdentity;
+import org.example.microservicecommon.admission.AdmissionController;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Assigns requests to priority classes.
+ * <p>
+ * A request gets the class of its client in <code>clients</code>, else the class of the longest matching path
+ * prefix in <code>routes</code>, else the class named in its {@link #CLASS_HEADER} header when
+ * <code>trustClassHeader</code> is set, else <code>defaultClass</code>. Clients are identified by
+ * {@link ClientIdentity}, so <code>clients</code> lists remote addresses, or ids sent by <code>trustedProxies</code>.
+ */
+public class PriorityClassifier {
+
+    /**
+     * Header carrying the class of a request to the services.
+     */
+    public static final String CLASS_HEADER = "X-Request-Class";
+
+    /**
+     * Header carrying the client of a request to the services, as identified by the gateway.
+     */
+    public static final String CLIENT_HEADER = "X-Request-Client";
+
+    private final Map<String, PriorityClass> classes = new LinkedHashMap<>();
+
+    private final PriorityClass defaultClass;
+
+    /**
+     * Path prefix to class, longest prefixes first.
+     */
+    private final List<Map.Entry<String, PriorityClass>> routes = new ArrayList<>();
+
+    private final Map<String, PriorityClass> clients = new HashMap<>();
+
+    private final ClientIdentity clientIdentity;
+
+    private final boolean trustClassHeader;
+
+    /**
+     * Create a classifier.
+     * Supported config keys: <code>classes</code> (name to {@link PriorityClass} config), <code>defaultClass</code>,
+     * <code>routes</code> (path prefix to class name), <code>clients</code> (client id to class name),
+     * <code>identityHeader</code>, <code>trustedProxies</code> and <code>trustClassHeader</code>.
+     * @param config fair queuing config
+     */
+    public PriorityClassifier(final JsonObject config) {
+        final JsonObject classesConfig = config.getJsonObject("classes", new JsonObject()
+                .put("interactive", new JsonObject().put("weight", 8).put("priority", "high"))
+                .put("standard", new JsonObject().put("weight", 4).put("priority", "normal"))
+                .put("batch", new JsonObject().put("weight", 1).put("priority", "low")));
+
+        classesConfig.forEach(entry -> classes.put(
+                entry.getKey(),
+                new PriorityClass(entry.getKey(), (JsonObject) entry.getValue())
+        ));
+
+        final String defaultName = config.getString("defaultClass", "standard");
+        this.defaultClass = classes.computeIfAbsent(defaultName, name -> new PriorityClass(name, new JsonObject()));
+
+        config.getJsonObject("routes", new JsonObject())
+                .forEach(entry -> routes.add(new AbstractMap.SimpleImmutableEntry<>(
+                        entry.getKey(),
+                        classOf((String) entry.getValue())
+                )));
+        routes.sort(Comparator.comparingInt(
+                (Map.Entry<String, PriorityClass> route) -> route.getKey().length()
+        ).reversed());
+
+        config.getJsonObject("clients", new JsonObject())
+                .forEach(entry -> clients.put(entry.getKey(), classOf((String) entry.getValue())));
+
+        this.clientIdentity = new ClientIdentity(config);
+        this.trustClassHeader = config.getBoolean("trustClassHeader", false);
+    }
+
+    /**
+     * Returns the class of a client request.
+     * @param request client request
+     * @return priority class
+     */
+    public PriorityClass classify(final HttpServerRequest request) {
+        final PriorityClass clientClass = clients.get(clientIdentity.of(request));
+
+        if (clientClass != null) {
+            return clientClass;
+        }
+
+        final String path = request.path();
+
+        for (final Map.Entry<String, PriorityClass> route : routes) {
+            if (path.startsWith(route.getKey())) {
+                return route.getValue();
+            }
+        }
+
+        if (trustClassHeader) {
+            return classOf(request.getHeader(CLASS_HEADER));
+        }
+
+        return defaultClass;
+    }
+
+    /**
+     * Put the class of a client request, its priority and its client in the headers sent to the service,
+     * replacing the values sent by the client. Called for every request, whether fair queuing is enabled or not.
+     * @param request client request
+     * @param headers headers for the service
+     */
+    public void tag(final HttpServerRequest request, final MultiMap headers) {
+        final PriorityClass priorityClass = classify(request);
+
+        headers.set(CLASS_HEADER, priorityClass.getName());
+        headers.set(AdmissionController.PRIORITY_HEADER, priorityClass.getPriority());
+        headers.set(CLIENT_HEADER, clientIdentity.of(request));
+    }
+
+    /**
+     * Returns whether a header is set by {@link #tag(HttpServerRequest, MultiMap)}.
+     * @param name header name
+     */
+    public static boolean isTag(final String name) {
+        return CLASS_HEADER.equalsIgnoreCase(name)
+                || AdmissionController.PRIORITY_HEADER.equalsIgnoreCase(name)
+                || CLIENT_HEADER.equalsIgnoreCase(name);
+    }
+
+    /**
+     * Returns the flow of a request from the headers sent to the service.
+     * @param headers headers tagged by {@link #tag(HttpServerRequest, MultiMap)}
+     * @return flow
+     */
+    public Flow flow(final MultiMap headers) {
+        return new Flow(classOf(headers.get(CLASS_HEADER)), headers.get(CLIENT_HEADER));
+    }
+
+    /**
+     * Returns the configured classes, in configuration order.
+     */
+    public Iterable<PriorityClass> getClasses() {
+        return classes.values();
+    }
+
+    private PriorityClass classOf(final String name) {
+        return name == null ? defaultClass : classes.getOrDefault(name, defaultClass);
+    }
+}
@@ -0,0 +1,41 @@
+package org.example.gateway.ratelimit;
+
+import io.vertx.core.json.JsonObject;
+import org.example.microservicecommon.http.JsonData;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of the {@link RateLimiter}.
+ */
+public class RateLimitMetrics implements JsonData {
+
+    /**
+     * Requests let through.
+     */
+    final LongAdder allowed = new LongAdder();
+
+    /**
+     * Requests rejected with <code>429 Too Many Requests</code>.
+     */
+    final LongAdder limited = new LongAdder();
+
+    /**
+     * Requests of new clients counted in the overflow bucket, as all buckets were in use.
+     */
+    final LongAdder overflowed = new LongAdder();
+
+    /**
+     * Failed reconciliations with the cluster.
+     */
+    final LongAdder syncFailures = new LongAdder();
+
+    @Override
+    public JsonObject toJson() {
+        return new JsonObject()
+                .put("allowed", allowed.sum())
+                .put("limited", limited.sum())
+                .put("overflowed", overflowed.sum())
+                .put("syncFailures", syncFailures.sum());
+    }
+}
@@ -0,0 +1,267 @@
+package org.example.gateway.ratelimit;
+
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
+import io.vertx.core.shareddata.AsyncMap;
+import org.example.gateway.ClientIdentity;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cluster-wide rate limiter keyed by client and API name.
+ * <p>
+ * Requests are checked against local token buckets only. Every <code>syncInterval</code> milliseconds, each gateway
+ * node publishes what its buckets consumed since the previous sync as one report in a shared data map (backed by
+ * Hazelcast when clustered), then reads the reports of the other nodes and deducts them from its own buckets of the
+ * same clients. The limit is therefore enforced across the cluster within one sync interval, with two distributed
+ * calls per sync and none per request. Reports expire after a few sync intervals, so the map holds one entry per live
+ * node whatever the number of clients. A report replaced before another node read it is not deducted there.
+ * <p>
+ * Clients are identified by {@link ClientIdentity}. At most <code>maxBuckets</code> buckets are kept: once they are
+ * all in use, requests of new clients share one overflow bucket per API until idle buckets are dropped.
+ * <p>
+ * Limits are set with <code>rate</code> (requests per second) and <code>burst</code>, and can be overridden per API
+ * in <code>apis</code>, eg: <code>{"account": {"rate": 50, "burst": 100}}</code>.
+ */
+public class RateLimiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimiter.class);
+
+    private static final String REPORTS_MAP = "gateway.ratelimit.reports";
+
+    /**
+     * Reports of stopped nodes are dropped after this many sync intervals.
+     */
+    private static final int REPORT_TTL_INTERVALS = 3;
+
+    /**
+     * Client id of the overflow buckets, which is neither an address nor a header value.
+     */
+    private static final String OVERFLOW_CLIENT = "*";
+
+    private final Vertx vertx;
+
+    private final boolean enabled;
+
+    private final double rate;
+
+    private final long burst;
+
+    private final JsonObject apis;
+
+    private final ClientIdentity clientIdentity;
+
+    private final int maxBuckets;
+
+    private final long syncInterval;
+
+    /**
+     * Buckets not used for this long are dropped, in nanoseconds.
+     */
+    private final long idleTimeout;
+
+    /**
+     * client and API key to its bucket.
+     */
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * Key of the reports of this node.
+     */
+    private final String nodeId = UUID.randomUUID().toString();
+
+    /**
+     * node id to the sequence number of its last report deducted here, only used by the sync.
+     */
+    private final Map<String, Long> deductedReports = new HashMap<>();
+
+    private long reportSeq;
+
+    private final RateLimitMetrics metrics = new RateLimitMetrics();
+
+    private long syncTimer = -1;
+
+    /**
+     * Create a rate limiter.
+     * Supported config keys: <code>enabled</code>, <code>rate</code>, <code>burst</code>, <code>apis</code>,
+     * <code>identityHeader</code>, <code>trustedProxies</code>, <code>maxBuckets</code>, <code>syncInterval</code>
+     * and <code>idleTimeout</code> (milliseconds).
+     * @param vertx vertx instance
+     * @param config rate limit config
+     */
+    public RateLimiter(final Vertx vertx, final JsonObject config) {
+        this.vertx = vertx;
+        this.enabled = config.getBoolean("enabled", false);
+        this.rate = config.getDouble("rate", 100d);
+        this.burst = config.getLong("burst", 200L);
+        this.apis = config.getJsonObject("apis", new JsonObject());
+        this.clientIdentity = new ClientIdentity(config);
+        this.maxBuckets = Math.max(1, config.getInteger("maxBuckets", 100000));
+        this.syncInterval = config.getLong("syncInterval", 1000L);
+        this.idleTimeout = TimeUnit.MILLISECONDS.toNanos(config.getLong("idleTimeout", 60000L));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Start reconciling the local buckets with the cluster.
+     */
+    public void start() {
+        if (enabled) {
+            syncTimer = vertx.setPeriodic(syncInterval, timer -> sync().setHandler(res -> {
+                if (res.failed()) {
+                    metrics.syncFailures.increment();
+                    logger.warn("Rate limit sync failed: " + res.cause().getMessage());
+                }
+            }));
+        }
+    }
+
+    /**
+     * Stop reconciling with the cluster.
+     */
+    public void stop() {
+        if (syncTimer >= 0) {
+            vertx.cancelTimer(syncTimer);
+        }
+    }
+
+    /**
+     * Take a token for a request.
+     * @param request client request
+     * @param apiName API name
+     * @return 0 if the request is allowed, otherwise milliseconds until it could be
+     */
+    public long acquire(final HttpServerRequest request, final String apiName) {
+        final long now = System.nanoTime();
+        final String key = apiName + "/" + clientIdentity.of(request);
+        TokenBucket bucket = buckets.get(key);
+
+        if (bucket == null) {
+            // checked without a lock, concurrent new clients may go slightly over
+            final String bucketKey = buckets.size() < maxBuckets ? key : apiName + "/" + OVERFLOW_CLIENT;
+
+            if (!bucketKey.equals(key)) {
+                metrics.overflowed.increment();
+            }
+
+            bucket = buckets.computeIfAbsent(bucketKey, k -> {
+                final JsonObject limits = apis.getJsonObject(apiName, new JsonObject());
+
+                return new TokenBucket(limits.getDouble("rate", rate), limits.getLong("burst", burst), now);
+            });
+        }
+
+        final long wait = bucket.tryAcquire(now);
+
+        if (wait == 0) {
+            metrics.allowed.increment();
+
+            return 0;
+        }
+
+        metrics.limited.increment();
+
+        return Math.max(1, TimeUnit.NANOSECONDS.toMillis(wait));
+    }
+
+    /**
+     * Returns rate limiting counters.
+     */
+    public JsonObject metrics() {
+        return metrics.toJson().put("buckets", buckets.size());
+    }
+
+    /**
+     * Publish the local consumption of every bucket and deduct the consumption of other nodes.
+     * The cluster map is only accessed here, off the request path.
+     * @return a future completed once the reports of other nodes are deducted
+     */
+    Future<Void> sync() {
+        final long now = System.nanoTime();
+        final JsonObject consumed = new JsonObject();
+
+        buckets.forEach((key, bucket) -> {
+            if (now - bucket.getLastAccess() > idleTimeout) {
+                buckets.remove(key);
+
+                return;
+            }
+
+            final long count = bucket.drainConsumed();
+
+            if (count > 0) {
+                consumed.put(key, count);
+            }
+        });
+
+        final JsonObject report = new JsonObject().put("seq", ++reportSeq).put("consumed", consumed);
+
+        return reports()
+                .compose(map -> {
+                    final Promise<Void> promise = Promise.promise();
+                    map.put(nodeId, report, REPORT_TTL_INTERVALS * syncInterval, promise);
+
+                    return promise.future().map(map);
+                })
+                .recover(ex -> {
+                    // published again with the next sync
+                    consumed.forEach(entry -> {
+                        final TokenBucket bucket = buckets.get(entry.getKey());
+
+                        if (bucket != null) {
+                            bucket.addConsumed(((Number) entry.getValue()).longValue());
+                        }
+                    });
+
+                    return Future.failedFuture(ex);
+                })
+                .compose(map -> {
+                    final Promise<Map<String, JsonObject>> promise = Promise.promise();
+                    map.entries(promise);
+
+                    return promise.future();
+                })
+                .map(entries -> {
+                    deductedReports.keySet().retainAll(entries.keySet());
+                    entries.forEach(this::deduct);
+
+                    return null;
+                });
+    }
+
+    private Future<AsyncMap<String, JsonObject>> reports() {
+        final Promise<AsyncMap<String, JsonObject>> promise = Promise.promise();
+        vertx.sharedData().getAsyncMap(REPORTS_MAP, promise);
+
+        return promise.future();
+    }
+
+    private void deduct(final String node, final JsonObject report) {
+        final Long seq = report.getLong("seq");
+
+        if (node.equals(nodeId) || seq.equals(deductedReports.put(node, seq))) {
+            return;
+        }
+
+        report.getJsonObject("consumed").forEach(entry -> {
+            // clients which never reached this node have nothing to deduct from
+            final TokenBucket bucket = buckets.get(entry.getKey());
+
+            if (bucket != null) {
+                bucket.deduct(((Number) entry.getValue()).longValue());
+            }
+        });
+    }
+}
@@ -0,0 +1,102 @@
+package org.example.gateway.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket refilled continuously at a fixed rate up to its capacity.
+ * Tokens consumed on other gateway nodes are deducted with {@link #deduct(long)}, which may leave the
+ * bucket in debt for up to one burst.
+ */
+public class TokenBucket {
+
+    private final double capacity;
+
+    /**
+     * Tokens added per nanosecond.
+     */
+    private final double refillPerNano;
+
+    private double tokens;
+
+    private long lastRefill;
+
+    /**
+     * Tokens consumed locally since the last {@link #drainConsumed()}.
+     */
+    private long consumed;
+
+    /**
+     * When a token was last requested, in nanoseconds.
+     */
+    private volatile long lastAccess;
+
+    /**
+     * Create a full bucket.
+     * @param rate tokens per second
+     * @param burst capacity
+     * @param now current time in nanoseconds
+     */
+    public TokenBucket(final double rate, final long burst, final long now) {
+        this.capacity = burst;
+        this.refillPerNano = rate / TimeUnit.SECONDS.toNanos(1);
+        this.tokens = burst;
+        this.lastRefill = now;
+        this.lastAccess = now;
+    }
+
+    /**
+     * Take a token.
+     * @param now current time in nanoseconds
+     * @return 0 if a token was taken, otherwise nanoseconds until one is available
+     */
+    public synchronized long tryAcquire(final long now) {
+        refill(now);
+        lastAccess = now;
+
+        if (tokens >= 1) {
+            tokens--;
+            consumed++;
+
+            return 0;
+        }
+
+        return (long) Math.ceil((1 - tokens) / refillPerNano);
+    }
+
+    /**
+     * Remove tokens consumed elsewhere.
+     * @param count tokens to remove
+     */
+    public synchronized void deduct(final long count) {
+        tokens = Math.max(-capacity, tokens - count);
+    }
+
+    /**
+     * Returns the tokens consumed locally since the previous call and resets the count.
+     */
+    public synchronized long drainConsumed() {
+        final long drained = consumed;
+        consumed = 0;
+
+        return drained;
+    }
+
+    /**
+     * Put back consumed tokens which could not be published.
+     * @param count tokens
+     */
+    public synchronized void addConsumed(final long count) {
+        consumed += count;
+    }
+
+    public long getLastAccess() {
+        return lastAccess;
+    }
+
+    private void refill(final long now) {
+        if (now > lastRefill) {
+            tokens = Math.min(capacity, tokens + (now - lastRefill) * refillPerNano);
+            lastRefill = now;
+        }
+    }
+}
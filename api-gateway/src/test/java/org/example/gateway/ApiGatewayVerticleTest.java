@@ -0,0 +1,380 @@
+package org.example.gateway;
+
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServerOptions;
+import io.vertx.core.http.RequestOptions;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.net.SocketAddress;
+import io.vertx.ext.web.client.WebClient;
+import io.vertx.junit5.Checkpoint;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import io.vertx.servicediscovery.Record;
+import io.vertx.servicediscovery.ServiceDiscovery;
+import io.vertx.servicediscovery.types.HttpEndpoint;
+import org.example.microservicecommon.admission.AdmissionController;
+import org.example.microservicecommon.admission.WorkerTasks;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(VertxExtension.class)
+class ApiGatewayVerticleTest {
+
+    private static final int port = 18796;
+
+    private static final int upstreamPort = 18091;
+
+    private CountDownLatch release;
+
+    /**
+     * Requests received on /stream.
+     */
+    private final AtomicInteger streams = new AtomicInteger();
+
+    @BeforeEach
+    void setup(final Vertx vertx, final VertxTestContext testContext) {
+        final Checkpoint ready = testContext.checkpoint(2);
+
+        // echoes POST bodies, answers other requests after the delay given in the query: on /stream with a first
+        // chunk ended a second later, else with the path and priority it received
+        vertx.createHttpServer()
+                .requestHandler(req -> {
+                    if (req.method() == HttpMethod.POST) {
+                        req.response().setChunked(true);
+                        req.pipeTo(req.response());
+
+                        return;
+                    }
+
+                    final String body = new JsonObject()
+                            .put("path", req.path())
+                            .put("priority", req.getHeader("X-Request-Priority"))
+                            .encode();
+                    final String delay = req.getParam("delay");
+
+                    if (req.path().equals("/stream")) {
+                        streams.incrementAndGet();
+                        vertx.setTimer(delay == null ? 1 : Long.parseLong(delay), id -> {
+                            req.response().setChunked(true).write(Buffer.buffer(new byte[4096]));
+                            vertx.setTimer(1000, end -> req.response().end());
+                        });
+
+                        return;
+                    }
+
+                    vertx.setTimer(delay == null ? 1 : Long.parseLong(delay), id -> req.response()
+                            .putHeader("Content-Type", "application/json")
+                            .end(body));
+                })
+                .listen(upstreamPort, testContext.succeeding(server -> ready.flag()));
+
+        ServiceDiscovery.create(vertx).publish(
+                record(),
+                testContext.succeeding(record -> vertx.deployVerticle(
+                        new ApiGatewayVerticle(),
+                        new DeploymentOptions().setConfig(new JsonObject()
+                                .put("api.gateway.http.port", port)
+                                .put("batch", new JsonObject().put("enabled", true).put("timeout", 5000L))
+                                .put("hedging", new JsonObject().put("enabled", true).put("maxBufferBytes", 1024))
+                                .put("loadShedding", new JsonObject()
+                                        .put("enabled", true)
+                                        .put("maxEventLoopLag", 0)
+                                        .put("maxPendingWorkerTasks", 1))
+                                .put("fairQueuing", new JsonObject().put("routes", new JsonObject()
+                                        .put("/api/test/vip", "interactive")))),
+                        testContext.succeeding(id -> ready.flag())
+                ))
+        );
+    }
+
+    @AfterEach
+    void tearDown(final Vertx vertx, final VertxTestContext testContext) {
+        if (release != null) {
+            release.countDown();
+        }
+
+        vertx.close(testContext.completing());
+    }
+
+    private static Record record() {
+        return HttpEndpoint.createRecord("test", "localhost", upstreamPort, "/",
+                new JsonObject().put(RoutingTable.API_NAME_KEY, "test"));
+    }
+
+    /**
+     * Submit a task blocking its worker until the end of the test, and ordered tasks waiting behind it.
+     */
+    private void blockWorkers(final Vertx vertx, final int pending) {
+        release = new CountDownLatch(1);
+        final WorkerTasks workerTasks = WorkerTasks.get(vertx);
+        final CountDownLatch submitted = new CountDownLatch(1);
+
+        vertx.getOrCreateContext().runOnContext(v -> {
+            workerTasks.executeBlocking(promise -> {
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+
+                promise.complete();
+            }, true, res -> { });
+
+            for (int i = 0; i < pending; i++) {
+                workerTasks.executeBlocking(promise -> promise.complete(), true, res -> { });
+            }
+
+            submitted.countDown();
+        });
+
+        try {
+            submitted.await(5, TimeUnit.SECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static JsonObject item(final String id, final String path) {
+        return new JsonObject().put("id", id).put("method", "GET").put("path", path);
+    }
+
+    @Test
+    void testDispatch(final Vertx vertx, final VertxTestContext testContext) {
+        final WebClient client = WebClient.create(vertx);
+        final Checkpoint checkpoint = testContext.checkpoint(2);
+
+        client.get(port, "localhost", "/api/test/users/1")
+                .send(testContext.succeeding(res -> testContext.verify(() -> {
+                    assertEquals(200, res.statusCode());
+                    assertEquals("/users/1", res.bodyAsJsonObject().getString("path"));
+
+                    checkpoint.flag();
+                })));
+
+        client.get(port, "localhost", "/api/other/users")
+                .send(testContext.succeeding(res -> testContext.verify(() -> {
+                    assertEquals(404, res.statusCode());
+
+                    checkpoint.flag();
+                })));
+    }
+
+    @Test
+    void testShedsByClass(final Vertx vertx, final VertxTestContext testContext) {
+        final WebClient client = WebClient.create(vertx);
+        final Checkpoint checkpoint = testContext.checkpoint(2);
+
+        // two tasks queued behind a blocked one: load level 2, only high priority requests are admitted
+        blockWorkers(vertx, 2);
+
+        // the priority sent by a client is ignored, the gateway sheds by the class it gives the request
+        client.get(port, "localhost", "/api/test/users")
+                .putHeader(AdmissionController.PRIORITY_HEADER, "high")
+                .send(testContext.succeeding(res -> testContext.verify(() -> {
+                    assertEquals(503, res.statusCode());
+
+                    checkpoint.flag();
+                })));
+
+        client.get(port, "localhost", "/api/test/vip")
+                .send(testContext.succeeding(res -> testContext.verify(() -> {
+                    assertEquals(200, res.statusCode());
+                    assertEquals("high", res.bodyAsJsonObject().getString("priority"));
+
+                    checkpoint.flag();
+                })));
+    }
+
+    @Test
+    void testStreamsBodies(final Vertx vertx, final VertxTestContext testContext) {
+        final Buffer body = Buffer.buffer();
+
+        for (int i = 0; i < 200_000; i++) {
+            body.appendString("0123456789");
+        }
+
+        WebClient.create(vertx)
+                .post(port, "localhost", "/api/test/echo")
+                .sendBuffer(body, testContext.succeeding(res -> testContext.verify(() -> {
+                    assertEquals(200, res.statusCode());
+                    assertEquals(body, res.body());
+
+                    testContext.completeNow();
+                })));
+    }
+
+    @Test
+    void testStreamsLargeHedgedResponses(final Vertx vertx, final VertxTestContext testContext) {
+        final RequestOptions options = new RequestOptions()
+                .setHost("localhost")
+                .setPort(port)
+                .setURI("/api/test/stream");
+        final long start = System.currentTimeMillis();
+
+        // over maxBufferBytes, the response is sent on before the service ends it
+        vertx.createHttpClient().request(HttpMethod.GET, SocketAddress.inetSocketAddress(port, "localhost"), options,
+                res -> testContext.verify(() -> {
+                    assertEquals(200, res.statusCode());
+                    assertTrue(System.currentTimeMillis() - start < 500);
+
+                    res.bodyHandler(body -> testContext.verify(() -> {
+                        assertEquals(4096, body.length());
+
+                        testContext.completeNow();
+                    }));
+                })).end();
+    }
+
+    @Test
+    void testCoalescedStreams(final Vertx vertx, final VertxTestContext testContext) {
+        // components are shared per Vert.x instance, coalescing is enabled in a gateway of its own
+        final Vertx other = Vertx.vertx();
+        final JsonObject config = new JsonObject()
+                .put("api.gateway.http.port", port + 2)
+                .put("coalescing", new JsonObject().put("enabled", true).put("maxBufferBytes", 1024));
+        final WebClient client = WebClient.create(vertx);
+        final Promise<Buffer> first = Promise.promise();
+        final Promise<Buffer> second = Promise.promise();
+
+        ServiceDiscovery.create(other).publish(record(), testContext.succeeding(record -> other.deployVerticle(
+                new ApiGatewayVerticle(),
+                new DeploymentOptions().setConfig(config),
+                testContext.succeeding(id -> {
+                    for (final Promise<Buffer> body : Arrays.asList(first, second)) {
+                        client.get(port + 2, "localhost", "/api/test/stream?delay=200")
+                                .send(testContext.succeeding(res -> body.complete(res.body())));
+                    }
+                })
+        )));
+
+        CompositeFuture.all(first.future(), second.future()).setHandler(testContext.succeeding(res -> {
+            testContext.verify(() -> {
+                final GatewayComponents components = GatewayComponents.acquire(other, config);
+
+                // the streamed body went to one request, the other one was sent again to the service
+                assertEquals(4096, first.future().result().length());
+                assertEquals(4096, second.future().result().length());
+                assertEquals(1L, components.getRequestCoalescer().metrics().getLong("collapsed"));
+                assertEquals(2, streams.get());
+
+                components.release(other);
+            });
+
+            other.close(testContext.completing());
+        }));
+    }
+
+    @Test
+    void testBatchFanOut(final Vertx vertx, final VertxTestContext testContext) {
+        final JsonObject batch = new JsonObject().put("requests", new JsonArray()
+                .add(item("slow", "/api/test/slow?delay=200"))
+                .add(item("fast", "/api/test/fast"))
+                .add(item("missing", "/api/other/users"))
+                .add(item("invalid", "/users")));
+        final long start = System.currentTimeMillis();
+
+        WebClient.create(vertx)
+                .post(port, "localhost", "/batch")
+                .sendJsonObject(batch, testContext.succeeding(res -> testContext.verify(() -> {
+                    final JsonArray responses = res.bodyAsJsonObject().getJsonObject("data").getJsonArray("responses");
+
+                    assertEquals(200, res.statusCode());
+                    assertEquals(4, responses.size());
+
+                    // answered in request order, sub-requests sent concurrently
+                    assertEquals("slow", responses.getJsonObject(0).getString("id"));
+                    assertEquals(200, responses.getJsonObject(0).getInteger("status"));
+                    assertEquals("/slow", responses.getJsonObject(0).getJsonObject("body").getString("path"));
+                    assertEquals("/fast", responses.getJsonObject(1).getJsonObject("body").getString("path"));
+                    assertEquals(404, responses.getJsonObject(2).getInteger("status"));
+                    assertEquals(404, responses.getJsonObject(3).getInteger("status"));
+                    assertTrue(System.currentTimeMillis() - start < 2000);
+
+                    testContext.completeNow();
+                })));
+    }
+
+    @Test
+    void testBatchTimeout(final Vertx vertx, final VertxTestContext testContext) {
+        final JsonObject batch = new JsonObject()
+                .put("timeout", 100)
+                .put("requests", new JsonArray()
+                        .add(item("slow", "/api/test/slow?delay=1000"))
+                        .add(item("fast", "/api/test/fast")));
+
+        WebClient.create(vertx)
+                .post(port, "localhost", "/batch")
+                .sendJsonObject(batch, testContext.succeeding(res -> testContext.verify(() -> {
+                    final JsonArray responses = res.bodyAsJsonObject().getJsonObject("data").getJsonArray("responses");
+
+                    assertEquals(504, responses.getJsonObject(0).getInteger("status"));
+                    assertEquals(200, responses.getJsonObject(1).getInteger("status"));
+
+                    testContext.completeNow();
+                })));
+    }
+
+    @Test
+    void testInvalidBatch(final Vertx vertx, final VertxTestContext testContext) {
+        final WebClient client = WebClient.create(vertx);
+        final JsonArray requests = new JsonArray().add(item("fast", "/api/test/fast"));
+        final JsonObject[] batches = {
+                new JsonObject().put("timeout", "fast").put("requests", requests),
+                new JsonObject().put("timeout", 0).put("requests", requests),
+                new JsonObject().put("timeout", -1).put("requests", requests),
+                new JsonObject().put("requests", new JsonArray())
+        };
+        final Checkpoint checkpoint = testContext.checkpoint(batches.length);
+
+        for (final JsonObject batch : batches) {
+            client.post(port, "localhost", "/batch")
+                    .sendJsonObject(batch, testContext.succeeding(res -> testContext.verify(() -> {
+                        assertEquals(400, res.statusCode());
+
+                        checkpoint.flag();
+                    })));
+        }
+    }
+
+    @Test
+    void testTransportOptions(final Vertx vertx, final VertxTestContext testContext) {
+        final ApiGatewayVerticle gateway = new ApiGatewayVerticle();
+        final JsonObject config = new JsonObject()
+                .put("api.gateway.http.port", port + 1)
+                .put("transport", new JsonObject()
+                        .put("native", true)
+                        .put("tcpNoDelay", false)
+                        .put("acceptBacklog", 256));
+
+        // the test Vert.x instance runs on NIO, the native only options are skipped and the gateway still starts
+        vertx.deployVerticle(gateway, new DeploymentOptions().setConfig(config), testContext.succeeding(id -> {
+            WebClient.create(vertx)
+                    .get(port + 1, "localhost", "/api/test/users")
+                    .send(testContext.succeeding(res -> testContext.verify(() -> {
+                        final HttpServerOptions options = gateway.httpServerOptions();
+
+                        assertEquals(200, res.statusCode());
+                        assertFalse(options.isTcpNoDelay());
+                        assertEquals(256, options.getAcceptBacklog());
+                        assertFalse(options.isReusePort());
+
+                        testContext.completeNow();
+                    })));
+        }));
+    }
+}
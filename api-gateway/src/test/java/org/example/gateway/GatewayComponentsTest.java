@@ -0,0 +1,47 @@
+package org.example.gateway;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.VertxExtension;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(VertxExtension.class)
+class GatewayComponentsTest {
+
+    @Test
+    void testSharedUntilLastRelease(final Vertx vertx) {
+        final JsonObject config = new JsonObject().put("cache", new JsonObject().put("enabled", true));
+        final GatewayComponents first = GatewayComponents.acquire(vertx, config);
+        final GatewayComponents second = GatewayComponents.acquire(vertx, config);
+
+        assertSame(first, second);
+        assertSame(first.getResponseCache(), second.getResponseCache());
+        assertTrue(first.getResponseCache().isEnabled());
+
+        first.release(vertx);
+
+        assertSame(second, GatewayComponents.acquire(vertx, config));
+
+        second.release(vertx);
+        second.release(vertx);
+
+        assertNotSame(second, GatewayComponents.acquire(vertx, config));
+    }
+
+    @Test
+    void testNotSharedBetweenVertxInstances(final Vertx vertx) {
+        final Vertx other = Vertx.vertx();
+
+        try {
+            assertNotSame(
+                    GatewayComponents.acquire(vertx, new JsonObject()),
+                    GatewayComponents.acquire(other, new JsonObject())
+            );
+        } finally {
+            other.close();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package org.example.gateway;
+
+import io.vertx.core.Future;
+import io.vertx.core.MultiMap;
+import io.vertx.core.Promise;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestCoalescerTest {
+
+    private final RequestCoalescer coalescer = new RequestCoalescer(new JsonObject().put("enabled", true));
+
+    @Test
+    void testCollapsesConcurrentCalls() {
+        final Promise<String> upstream = Promise.promise();
+        final AtomicInteger calls = new AtomicInteger();
+
+        final Future<String> first = coalescer.execute("GET /account/users", () -> {
+            calls.incrementAndGet();
+
+            return upstream.future();
+        });
+        final Future<String> second = coalescer.execute("GET /account/users", () -> {
+            calls.incrementAndGet();
+
+            return Future.succeededFuture("not called");
+        });
+
+        assertFalse(first.isComplete());
+        assertFalse(second.isComplete());
+
+        upstream.complete("users");
+
+        assertEquals("users", first.result());
+        assertEquals("users", second.result());
+        assertEquals(1, calls.get());
+        assertEquals(1L, coalescer.metrics().getLong("calls"));
+        assertEquals(1L, coalescer.metrics().getLong("collapsed"));
+    }
+
+    @Test
+    void testFailureIsShared() {
+        final Promise<String> upstream = Promise.promise();
+        final Future<String> first = coalescer.execute("a", upstream::future);
+        final Future<String> second = coalescer.execute("a", upstream::future);
+
+        upstream.fail("unavailable");
+
+        assertEquals("unavailable", first.cause().getMessage());
+        assertEquals("unavailable", second.cause().getMessage());
+    }
+
+    @Test
+    void testDistinctKeysAndCompletedCalls() {
+        final Promise<String> a = Promise.promise();
+
+        final Future<String> first = coalescer.execute("a", a::future);
+        final Future<String> other = coalescer.execute("b", () -> Future.succeededFuture("b"));
+
+        assertEquals("b", other.result());
+        assertFalse(first.isComplete());
+
+        a.complete("a");
+
+        // the call is done, the next caller starts a new one
+        assertEquals("a2", coalescer.<String>execute("a", () -> Future.succeededFuture("a2")).result());
+        assertEquals(3L, coalescer.metrics().getLong("calls"));
+        assertEquals(0L, coalescer.metrics().getLong("collapsed"));
+    }
+
+    @Test
+    void testCallThrowing() {
+        final Future<String> failed = coalescer.execute("a", () -> {
+            throw new IllegalStateException("no endpoint");
+        });
+
+        assertEquals("no endpoint", failed.cause().getMessage());
+
+        // the key is no longer in flight
+        assertEquals("a", coalescer.<String>execute("a", () -> Future.succeededFuture("a")).result());
+    }
+
+    @Test
+    void testKeyVariants() {
+        final MultiMap json = MultiMap.caseInsensitiveMultiMap().add("Accept", "application/json");
+        final MultiMap csv = MultiMap.caseInsensitiveMultiMap().add("Accept", "text/csv");
+
+        assertEquals(RequestCoalescer.key("account", "/users?b=2&a=1", json),
+                RequestCoalescer.key("account", "/users?a=1&b=2", json));
+        assertNotEquals(RequestCoalescer.key("account", "/users", json),
+                RequestCoalescer.key("account", "/users", csv));
+        assertNotEquals(RequestCoalescer.key("account", "/users", json),
+                RequestCoalescer.key("account", "/users", MultiMap.caseInsensitiveMultiMap()
+                        .addAll(json)
+                        .add("Accept-Encoding", "gzip")));
+    }
+}
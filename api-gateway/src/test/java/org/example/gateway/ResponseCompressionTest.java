@@ -0,0 +1,157 @@
+package org.example.gateway;
+
+import io.vertx.core.Handler;
+import io.vertx.core.MultiMap;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpServerOptions;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.http.HttpVersion;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.RoutingContext;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ResponseCompressionTest {
+
+    private static final ResponseCompression compression = new ResponseCompression(new JsonObject()
+            .put("enabled", true)
+            .put("minSize", 100));
+
+    private static final String json = new String(new char[20]).replace("\0", "{\"name\":\"user\"},");
+
+    private static UpstreamResponse response(final String body, final String... headers) {
+        final MultiMap responseHeaders = MultiMap.caseInsensitiveMultiMap();
+
+        for (int i = 0; i < headers.length; i += 2) {
+            responseHeaders.add(headers[i], headers[i + 1]);
+        }
+
+        return new UpstreamResponse(200, responseHeaders, Buffer.buffer(body));
+    }
+
+    private static HttpServerRequest request(final HttpVersion version, final String acceptEncoding) {
+        final HttpServerRequest request = mock(HttpServerRequest.class);
+
+        when(request.version()).thenReturn(version);
+        when(request.getHeader(HttpHeaders.ACCEPT_ENCODING)).thenReturn(acceptEncoding);
+
+        return request;
+    }
+
+    private static String gunzip(final Buffer compressed) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed.getBytes()))) {
+            final byte[] chunk = new byte[256];
+            int read;
+
+            while ((read = in.read(chunk)) > 0) {
+                out.write(chunk, 0, read);
+            }
+        }
+
+        return out.toString("UTF-8");
+    }
+
+    @Test
+    void testPrecompress() throws IOException {
+        final Buffer compressed = compression.precompress(response(json, "Content-Type", "application/json"));
+
+        assertNotNull(compressed);
+        assertTrue(compressed.length() < json.length());
+        assertEquals(json, gunzip(compressed));
+        assertEquals("gzip", compression.precompressedEncoding());
+    }
+
+    @Test
+    void testNotPrecompressed() {
+        assertNull(compression.precompress(response("{}", "Content-Type", "application/json")));
+        assertNull(compression.precompress(response(json, "Content-Type", "image/png")));
+        assertNull(compression.precompress(response(json)));
+        assertNull(compression.precompress(response(json,
+                "Content-Type", "application/json", "Content-Encoding", "br")));
+        assertNull(new ResponseCompression(new JsonObject())
+                .precompress(response(json, "Content-Type", "application/json")));
+        assertNull(new ResponseCompression(new JsonObject().put("enabled", true).put("cacheCompressed", false))
+                .precompress(response(json, "Content-Type", "text/plain")));
+    }
+
+    @Test
+    void testNegotiation() {
+        assertTrue(compression.acceptsGzip(request(HttpVersion.HTTP_1_1, "gzip, deflate, br")));
+        assertTrue(compression.acceptsGzip(request(HttpVersion.HTTP_1_1, "GZIP")));
+        assertFalse(compression.acceptsGzip(request(HttpVersion.HTTP_1_1, "br")));
+        assertFalse(compression.acceptsGzip(request(HttpVersion.HTTP_1_1, null)));
+
+        // q-values, 0 meaning not acceptable
+        assertTrue(compression.acceptsGzip(request(HttpVersion.HTTP_1_1, "br;q=1.0, gzip;q=0.5")));
+        assertFalse(compression.acceptsGzip(request(HttpVersion.HTTP_1_1, "gzip;q=0")));
+        assertFalse(compression.acceptsGzip(request(HttpVersion.HTTP_1_1, "gzip; q=0.000, br")));
+        assertFalse(compression.acceptsGzip(request(HttpVersion.HTTP_1_1, "gzip;q=high")));
+        assertTrue(compression.acceptsGzip(request(HttpVersion.HTTP_1_1, "br, *;q=0.1")));
+        assertTrue(compression.acceptsGzip(request(HttpVersion.HTTP_1_1, "*;q=0, gzip")));
+        assertFalse(compression.acceptsGzip(request(HttpVersion.HTTP_1_1, "gzip;q=0, *")));
+
+        // the HTTP/2 server compresses on its own and can not be handed a compressed body
+        assertFalse(compression.acceptsGzip(request(HttpVersion.HTTP_2, "gzip")));
+        assertFalse(compression.canPassThrough(request(HttpVersion.HTTP_2, "gzip")));
+        assertTrue(new ResponseCompression(new JsonObject()).canPassThrough(request(HttpVersion.HTTP_2, "gzip")));
+    }
+
+    @Test
+    void testServerOptions() {
+        final HttpServerOptions options = new ResponseCompression(new JsonObject()
+                .put("enabled", true)
+                .put("level", 3))
+                .apply(new HttpServerOptions());
+
+        assertTrue(options.isCompressionSupported());
+        assertEquals(3, options.getCompressionLevel());
+        assertFalse(new ResponseCompression(new JsonObject()).apply(new HttpServerOptions())
+                .isCompressionSupported());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static MultiMap handle(final String... headers) {
+        final RoutingContext context = mock(RoutingContext.class);
+        final HttpServerRequest request = request(HttpVersion.HTTP_1_1, "gzip");
+        final HttpServerResponse response = mock(HttpServerResponse.class);
+        final MultiMap responseHeaders = response(json, headers).getHeaders();
+        final ArgumentCaptor<Handler<Void>> headersEnd = ArgumentCaptor.forClass(Handler.class);
+
+        when(context.request()).thenReturn(request);
+        when(context.response()).thenReturn(response);
+        when(response.headers()).thenReturn(responseHeaders);
+
+        compression.handle(context);
+        verify(context).addHeadersEndHandler(headersEnd.capture());
+        headersEnd.getValue().handle(null);
+
+        return responseHeaders;
+    }
+
+    @Test
+    void testContentLength() {
+        assertEquals("identity", handle("Content-Type", "application/json", "Content-Length", "10")
+                .get("Content-Encoding"));
+        assertNull(handle("Content-Type", "application/json", "Content-Length", "1000").get("Content-Encoding"));
+
+        // an unreadable length is treated as unknown
+        assertNull(handle("Content-Type", "application/json", "Content-Length", "1,000").get("Content-Encoding"));
+        assertEquals(HttpHeaders.ACCEPT_ENCODING.toString(),
+                handle("Content-Type", "application/json", "Content-Length", "x").get("Vary"));
+    }
+}
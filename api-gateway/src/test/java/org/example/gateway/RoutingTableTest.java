@@ -0,0 +1,129 @@
+package org.example.gateway;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.Checkpoint;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import io.vertx.servicediscovery.Record;
+import io.vertx.servicediscovery.ServiceDiscovery;
+import io.vertx.servicediscovery.ServiceDiscoveryOptions;
+import io.vertx.servicediscovery.types.HttpEndpoint;
+import io.vertx.servicediscovery.types.MessageSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(VertxExtension.class)
+class RoutingTableTest {
+
+    private static Record endpoint(final String apiName, final String host) {
+        return HttpEndpoint.createRecord(apiName + "-" + host, host, 8080, "/",
+                new JsonObject().put(RoutingTable.API_NAME_KEY, apiName));
+    }
+
+    @Test
+    void testInit(final Vertx vertx, final VertxTestContext testContext) {
+        final ServiceDiscovery discovery = ServiceDiscovery.create(vertx);
+        final RoutingTable table = new RoutingTable(vertx, discovery);
+        final Checkpoint published = testContext.checkpoint(4);
+
+        discovery.publish(endpoint("account", "a"), testContext.succeeding(record -> published.flag()));
+        discovery.publish(endpoint("account", "b"), testContext.succeeding(record -> published.flag()));
+        discovery.publish(MessageSource.createRecord("events", "events"), testContext.succeeding(record -> {
+            published.flag();
+        }));
+        discovery.publish(HttpEndpoint.createRecord("anonymous", "c", 8080, "/"), testContext.succeeding(record -> {
+            published.flag();
+
+            table.init(ServiceDiscoveryOptions.DEFAULT_ANNOUNCE_ADDRESS).future()
+                    .setHandler(testContext.succeeding(done -> testContext.verify(() -> {
+                        final List<Record> endpoints = table.lookup("account");
+
+                        assertEquals(2, endpoints.size());
+                        assertTrue(endpoints.stream().anyMatch(each -> "http://a:8080/".equals(
+                                RoutingTable.endpoint(each))));
+                        assertTrue(endpoints.stream().anyMatch(each -> "http://b:8080/".equals(
+                                RoutingTable.endpoint(each))));
+                        assertTrue(table.lookup("events").isEmpty());
+                        assertTrue(table.lookup("anonymous").isEmpty());
+                        assertThrows(UnsupportedOperationException.class, () -> endpoints.remove(0));
+
+                        testContext.completeNow();
+                    })));
+        }));
+    }
+
+    @Test
+    void testAnnouncements(final Vertx vertx, final VertxTestContext testContext) {
+        final ServiceDiscovery discovery = ServiceDiscovery.create(vertx);
+        final RoutingTable table = new RoutingTable(vertx, discovery);
+        final AtomicInteger added = new AtomicInteger();
+        final Record published = endpoint("account", "a");
+
+        table.endpointAddedHandler(record -> testContext.verify(() -> {
+            assertEquals(1, added.incrementAndGet());
+            assertEquals(1, table.lookup("account").size());
+
+            discovery.unpublish(published.getRegistration(), testContext.succeeding(done -> { }));
+        }));
+        table.endpointRemovedHandler(record -> testContext.verify(() -> {
+            assertEquals("http://a:8080/", RoutingTable.endpoint(record));
+            assertTrue(table.lookup("account").isEmpty());
+
+            table.close();
+            testContext.completeNow();
+        }));
+
+        table.init(ServiceDiscoveryOptions.DEFAULT_ANNOUNCE_ADDRESS).future()
+                .setHandler(testContext.succeeding(done -> {
+                    assertTrue(table.lookup("account").isEmpty());
+
+                    discovery.publish(published, testContext.succeeding(record -> { }));
+                }));
+    }
+
+    @Test
+    void testSharedEndpoint(final Vertx vertx, final VertxTestContext testContext) {
+        final ServiceDiscovery discovery = ServiceDiscovery.create(vertx);
+        final RoutingTable table = new RoutingTable(vertx, discovery);
+        final AtomicInteger added = new AtomicInteger();
+        final Record users = HttpEndpoint.createRecord("users", "a", 8080, "/",
+                new JsonObject().put(RoutingTable.API_NAME_KEY, "users"));
+        final Record orders = HttpEndpoint.createRecord("orders", "a", 8080, "/",
+                new JsonObject().put(RoutingTable.API_NAME_KEY, "orders"));
+
+        // both APIs are served by one endpoint, it is only removed with the last of them
+        table.endpointAddedHandler(record -> added.incrementAndGet());
+        table.endpointRemovedHandler(record -> testContext.verify(() -> {
+            assertEquals(1, added.get());
+            assertTrue(table.lookup("users").isEmpty());
+            assertTrue(table.lookup("orders").isEmpty());
+
+            testContext.completeNow();
+        }));
+
+        table.init(ServiceDiscoveryOptions.DEFAULT_ANNOUNCE_ADDRESS).future()
+                .setHandler(testContext.succeeding(done -> discovery.publish(users, testContext.succeeding(
+                        usersRecord -> discovery.publish(orders, testContext.succeeding(
+                                ordersRecord -> vertx.setTimer(100, id -> testContext.verify(() -> {
+                                    assertEquals(1, table.lookup("users").size());
+                                    assertEquals(1, table.lookup("orders").size());
+
+                                    discovery.unpublish(usersRecord.getRegistration(), testContext.succeeding(
+                                            unpublished -> vertx.setTimer(100, next -> testContext.verify(() -> {
+                                                assertEquals(1, table.lookup("orders").size());
+
+                                                discovery.unpublish(ordersRecord.getRegistration(),
+                                                        testContext.succeeding(last -> { }));
+                                            }))
+                                    ));
+                                }))
+                        ))
+                ))));
+    }
+}
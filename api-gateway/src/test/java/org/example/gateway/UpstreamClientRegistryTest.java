@@ -0,0 +1,109 @@
+package org.example.gateway;
+
+import io.vertx.core.CompositeFuture;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import io.vertx.servicediscovery.Record;
+import io.vertx.servicediscovery.types.HttpEndpoint;
+import org.example.microservicecommon.RestApiVerticle;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(VertxExtension.class)
+class UpstreamClientRegistryTest {
+
+    private static final int upstreamPort = 18092;
+
+    private final AtomicInteger connections = new AtomicInteger();
+
+    @BeforeEach
+    void setup(final Vertx vertx, final VertxTestContext testContext) {
+        // answers with the HTTP version of the request
+        vertx.createHttpServer()
+                .connectionHandler(connection -> connections.incrementAndGet())
+                .requestHandler(req -> req.response().end(req.version().name()))
+                .listen(upstreamPort, testContext.completing());
+    }
+
+    private static Record record(final boolean h2c) {
+        return HttpEndpoint.createRecord("test", "localhost", upstreamPort, "/",
+                new JsonObject().put(RestApiVerticle.H2C_KEY, h2c));
+    }
+
+    private static Future<String> get(final UpstreamClientRegistry registry, final Record record) {
+        final Promise<String> promise = Promise.promise();
+
+        registry.request(record, HttpMethod.GET, "/users", res -> res.bodyHandler(body -> {
+            promise.complete(body.toString());
+        })).exceptionHandler(promise::tryFail).end();
+
+        return promise.future();
+    }
+
+    @Test
+    void testReusesConnections(final Vertx vertx, final VertxTestContext testContext) {
+        final UpstreamClientRegistry registry = new UpstreamClientRegistry(vertx, new JsonObject());
+        final Record record = record(false);
+
+        get(registry, record)
+                .compose(v -> get(registry, record))
+                .compose(v -> get(registry, record))
+                .compose(v -> {
+                    assertEquals(1, connections.get());
+
+                    // a removed endpoint is connected to again by a new client
+                    registry.remove(record);
+
+                    return get(registry, record);
+                })
+                .setHandler(testContext.succeeding(version -> testContext.verify(() -> {
+                    assertEquals("HTTP_1_1", version);
+                    assertEquals(2, connections.get());
+
+                    registry.close();
+                    testContext.completeNow();
+                })));
+    }
+
+    @Test
+    void testH2c(final Vertx vertx, final VertxTestContext testContext) {
+        final UpstreamClientRegistry registry = new UpstreamClientRegistry(vertx, new JsonObject());
+        final Record record = record(true);
+
+        // once connected, concurrent requests are multiplexed on the connection
+        get(registry, record)
+                .compose(v -> CompositeFuture.all(get(registry, record), get(registry, record), get(registry, record)))
+                .setHandler(testContext.succeeding(versions -> testContext.verify(() -> {
+                    for (int i = 0; i < versions.size(); i++) {
+                        assertEquals("HTTP_2", versions.resultAt(i));
+                    }
+
+                    assertEquals(1, connections.get());
+
+                    registry.close();
+                    testContext.completeNow();
+                })));
+    }
+
+    @Test
+    void testH2cDisabled(final Vertx vertx, final VertxTestContext testContext) {
+        final UpstreamClientRegistry registry = new UpstreamClientRegistry(vertx, new JsonObject().put("h2c", false));
+
+        get(registry, record(true)).setHandler(testContext.succeeding(version -> testContext.verify(() -> {
+            assertEquals("HTTP_1_1", version);
+
+            registry.close();
+            testContext.completeNow();
+        })));
+    }
+}
@@ -0,0 +1,117 @@
+package org.example.gateway.balancer;
+
+import io.vertx.core.json.JsonObject;
+import io.vertx.servicediscovery.Record;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoadBalancerTest {
+
+    private static final Record a = record("http://a:8080");
+
+    private static final Record b = record("http://b:8080");
+
+    private static final Record c = record("http://c:8080");
+
+    private static final List<Record> records = Arrays.asList(a, b, c);
+
+    private static Record record(final String endpoint) {
+        return new Record().setName("account").setLocation(new JsonObject().put("endpoint", endpoint));
+    }
+
+    private static LoadBalancer create(final String strategy) {
+        return LoadBalancer.create(new JsonObject().put("strategy", strategy));
+    }
+
+    @Test
+    void testCreate() {
+        assertTrue(LoadBalancer.create(new JsonObject()) instanceof RoundRobinLoadBalancer);
+        assertTrue(create("least-outstanding") instanceof LeastOutstandingLoadBalancer);
+        assertTrue(create("power-of-two-choices") instanceof PowerOfTwoChoicesLoadBalancer);
+        assertThrows(IllegalArgumentException.class, () -> create("random"));
+    }
+
+    @Test
+    void testSingleEndpoint() {
+        for (final String strategy : Arrays.asList("round-robin", "least-outstanding", "power-of-two-choices")) {
+            assertSame(a, create(strategy).select(Collections.singletonList(a)));
+        }
+    }
+
+    @Test
+    void testRoundRobin() {
+        final LoadBalancer balancer = create("round-robin");
+
+        assertEquals(Arrays.asList(a, b, c, a), Arrays.asList(
+                balancer.select(records),
+                balancer.select(records),
+                balancer.select(records),
+                balancer.select(records)
+        ));
+    }
+
+    @Test
+    void testLeastOutstanding() {
+        final LoadBalancer balancer = create("least-outstanding");
+
+        balancer.stats(a).requestStarted();
+        balancer.stats(a).requestStarted();
+        final long started = balancer.stats(b).requestStarted();
+
+        assertSame(c, balancer.select(records));
+
+        balancer.stats(c).requestStarted();
+        balancer.stats(c).requestStarted();
+        balancer.stats(b).requestEnded(started);
+
+        assertSame(b, balancer.select(records));
+    }
+
+    @Test
+    void testPowerOfTwoChoices() {
+        final LoadBalancer balancer = create("power-of-two-choices");
+
+        // b and c are busy, a is chosen whenever it is one of the two picks
+        for (int i = 0; i < 5; i++) {
+            balancer.stats(b).requestStarted();
+            balancer.stats(c).requestStarted();
+        }
+
+        int selectedA = 0;
+
+        for (int i = 0; i < 300; i++) {
+            if (balancer.select(records) == a) {
+                selectedA++;
+            }
+        }
+
+        // a is one of the two picks 2 times out of 3
+        assertTrue(selectedA > 150, "a selected " + selectedA + " times");
+        assertTrue(selectedA < 250, "a selected " + selectedA + " times");
+    }
+
+    @Test
+    void testStats() {
+        final LoadBalancer balancer = create("round-robin");
+        final EndpointStats stats = balancer.stats(a);
+        final long started = stats.requestStarted();
+
+        assertEquals(1, stats.getInFlight());
+        assertEquals(0, stats.getLatency());
+
+        stats.requestEnded(started - 10_000_000L);
+
+        assertEquals(0, stats.getInFlight());
+        assertTrue(stats.getLatency() >= 10);
+        assertSame(stats, balancer.stats(record("http://a:8080")));
+
+        balancer.remove(a);
+
+        assertNotSame(stats, balancer.stats(a));
+    }
+}
@@ -0,0 +1,182 @@
+package org.example.gateway.benchmark;
+
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.RequestOptions;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.net.SocketAddress;
+import io.vertx.servicediscovery.ServiceDiscovery;
+import io.vertx.servicediscovery.types.HttpEndpoint;
+import org.example.gateway.ApiGatewayVerticle;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures gateway throughput for an increasing number of {@link ApiGatewayVerticle} instances.
+ * <p>
+ * A stub upstream is published in a local service discovery, then for each instance count (1, 2, 4, ... up to
+ * the event loop pool size) the gateway is deployed and driven by keep-alive HTTP clients for a fixed duration.
+ * Requests per second are printed for each run.
+ * <p>
+ * Run with:
+ * <code>mvn -pl api-gateway -am test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.example.gateway.benchmark.ThroughputBenchmark</code>
+ * <p>
+ * System properties: <code>benchmark.duration</code> (seconds per run, default 10),
+ * <code>benchmark.connections</code> (default 64) and <code>benchmark.pipelining</code>
+ * (in-flight requests per connection, default 8).
+ */
+public class ThroughputBenchmark {
+
+    static final int GATEWAY_PORT = 18786;
+
+    static final int UPSTREAM_PORT = 18081;
+
+    private static final String URI = "/api/bench/users";
+
+    private static final SocketAddress GATEWAY_ADDRESS = SocketAddress.inetSocketAddress(GATEWAY_PORT, "localhost");
+
+    private static final RequestOptions REQUEST_OPTIONS = new RequestOptions()
+            .setHost("localhost")
+            .setPort(GATEWAY_PORT)
+            .setURI(URI);
+
+    public static void main(final String[] args) throws Exception {
+        final int duration = Integer.getInteger("benchmark.duration", 10);
+        final int connections = Integer.getInteger("benchmark.connections", 64);
+        final int pipelining = Integer.getInteger("benchmark.pipelining", 8);
+        final int eventLoops = VertxOptions.DEFAULT_EVENT_LOOP_POOL_SIZE;
+
+        // load generator and upstream run on their own Vert.x instance so they do not compete for gateway loops
+        final Vertx driver = Vertx.vertx();
+        final Vertx gateway = Vertx.vertx(new VertxOptions().setEventLoopPoolSize(eventLoops));
+
+        startUpstream(driver);
+        publishUpstream(gateway);
+
+        System.out.printf("%-10s %15s%n", "instances", "requests/sec");
+
+        for (int instances = 1; instances <= eventLoops; instances *= 2) {
+            final String deploymentId = deployGateway(gateway, instances, gatewayConfig());
+
+            // warm up
+            drive(driver, connections, pipelining, 2);
+
+            final long requests = drive(driver, connections, pipelining, duration);
+            System.out.printf("%-10d %15d%n", instances, requests / duration);
+
+            final CompletableFuture<Void> undeployed = new CompletableFuture<>();
+            gateway.undeploy(deploymentId, res -> undeployed.complete(null));
+            undeployed.get(30, TimeUnit.SECONDS);
+        }
+
+        driver.close();
+        gateway.close();
+    }
+
+    static void startUpstream(final Vertx vertx) throws Exception {
+        final String body = new JsonObject().put("id", 1).put("name", "benchmark").encode();
+        final CompletableFuture<Void> started = new CompletableFuture<>();
+
+        vertx.createHttpServer()
+                .requestHandler(req -> req.response().putHeader("content-type", "application/json").end(body))
+                .listen(UPSTREAM_PORT, res -> complete(started, res.succeeded(), res.cause()));
+
+        started.get(30, TimeUnit.SECONDS);
+    }
+
+    static void publishUpstream(final Vertx vertx) throws Exception {
+        final CompletableFuture<Void> published = new CompletableFuture<>();
+
+        ServiceDiscovery.create(vertx).publish(
+                HttpEndpoint.createRecord("bench", "localhost", UPSTREAM_PORT, "/",
+                        new JsonObject().put("api.name", "bench")),
+                res -> complete(published, res.succeeded(), res.cause())
+        );
+
+        published.get(30, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Gateway config with caching and rate limiting disabled, so that every request reaches the upstream.
+     * @return gateway config
+     */
+    static JsonObject gatewayConfig() {
+        return new JsonObject()
+                .put("api.gateway.http.port", GATEWAY_PORT)
+                .put("cache", new JsonObject().put("enabled", false))
+                .put("rateLimit", new JsonObject().put("enabled", false));
+    }
+
+    static String deployGateway(final Vertx vertx, final int instances, final JsonObject config) throws Exception {
+        final CompletableFuture<String> deployed = new CompletableFuture<>();
+
+        vertx.deployVerticle(ApiGatewayVerticle.class.getName(),
+                new DeploymentOptions().setConfig(config).setInstances(instances),
+                res -> {
+                    if (res.succeeded()) {
+                        deployed.complete(res.result());
+                    } else {
+                        deployed.completeExceptionally(res.cause());
+                    }
+                });
+
+        return deployed.get(30, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Send requests on <code>connections</code> connections, keeping <code>pipelining</code> requests in flight
+     * on each, for <code>seconds</code> seconds.
+     * @return number of successful responses
+     */
+    static long drive(final Vertx vertx, final int connections, final int pipelining, final int seconds)
+            throws Exception {
+        final HttpClient client = vertx.createHttpClient(new HttpClientOptions()
+                .setDefaultPort(GATEWAY_PORT)
+                .setKeepAlive(true)
+                .setPipelining(true)
+                .setPipeliningLimit(pipelining)
+                .setMaxPoolSize(connections));
+        final AtomicLong completed = new AtomicLong();
+        final long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+
+        for (int i = 0; i < connections * pipelining; i++) {
+            send(client, completed, end);
+        }
+
+        Thread.sleep(TimeUnit.SECONDS.toMillis(seconds));
+        final long result = completed.get();
+        client.close();
+
+        return result;
+    }
+
+    private static void send(final HttpClient client, final AtomicLong completed, final long end) {
+        if (System.nanoTime() >= end) {
+            return;
+        }
+
+        client.request(HttpMethod.GET, GATEWAY_ADDRESS, REQUEST_OPTIONS, res -> res.bodyHandler(body -> {
+            if (res.statusCode() == 200) {
+                completed.incrementAndGet();
+            }
+
+            send(client, completed, end);
+        })).exceptionHandler(ex -> send(client, completed, end)).end();
+    }
+
+    private static void complete(final CompletableFuture<Void> future, final boolean succeeded,
+                                 final Throwable cause) {
+        if (succeeded) {
+            future.complete(null);
+        } else {
+            future.completeExceptionally(cause);
+        }
+    }
+}
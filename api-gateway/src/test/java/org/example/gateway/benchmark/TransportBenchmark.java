@@ -0,0 +1,66 @@
+package org.example.gateway.benchmark;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.VertxOptions;
+import io.vertx.core.json.JsonObject;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares gateway throughput on the NIO transport with the native epoll transport and its socket options
+ * (<code>SO_REUSEPORT</code>, <code>TCP_FASTOPEN</code>, <code>TCP_QUICKACK</code>).
+ * <p>
+ * Uses the same stub upstream and load as {@link ThroughputBenchmark}, with the gateway deployed on every event loop.
+ * When the native library can not be loaded, the native run reports that it fell back to NIO.
+ * <p>
+ * Run with:
+ * <code>mvn -pl api-gateway -am test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.example.gateway.benchmark.TransportBenchmark</code>
+ */
+public class TransportBenchmark {
+
+    public static void main(final String[] args) throws Exception {
+        final int duration = Integer.getInteger("benchmark.duration", 10);
+        final int connections = Integer.getInteger("benchmark.connections", 64);
+        final int pipelining = Integer.getInteger("benchmark.pipelining", 8);
+
+        final Vertx driver = Vertx.vertx();
+        ThroughputBenchmark.startUpstream(driver);
+
+        System.out.printf("%-10s %15s%n", "transport", "requests/sec");
+
+        boolean fellBack = false;
+
+        for (final boolean preferNative : new boolean[] {false, true}) {
+            final Vertx gateway = Vertx.vertx(new VertxOptions().setPreferNativeTransport(preferNative));
+            final JsonObject config = ThroughputBenchmark.gatewayConfig()
+                    .put("transport", new JsonObject()
+                            .put("native", preferNative)
+                            .put("tcpFastOpen", true)
+                            .put("acceptBacklog", 1024));
+
+            ThroughputBenchmark.publishUpstream(gateway);
+            ThroughputBenchmark.deployGateway(gateway, VertxOptions.DEFAULT_EVENT_LOOP_POOL_SIZE, config);
+
+            // warm up
+            ThroughputBenchmark.drive(driver, connections, pipelining, 2);
+
+            final long requests = ThroughputBenchmark.drive(driver, connections, pipelining, duration);
+            final boolean unavailable = preferNative && !gateway.isNativeTransportEnabled();
+            final String transport = gateway.isNativeTransportEnabled() ? "epoll" : unavailable ? "nio*" : "nio";
+            fellBack = fellBack || unavailable;
+            System.out.printf("%-10s %15d%n", transport, requests / duration);
+
+            final CompletableFuture<Void> closed = new CompletableFuture<>();
+            gateway.close(res -> closed.complete(null));
+            closed.get(30, TimeUnit.SECONDS);
+        }
+
+        if (fellBack) {
+            System.out.println("* native transport requested but unavailable, fell back to NIO");
+        }
+
+        driver.close();
+    }
+}
@@ -0,0 +1,257 @@
+package org.example.gateway.cache;
+
+import io.vertx.core.MultiMap;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.JsonObject;
+import org.example.gateway.UpstreamResponse;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseCacheTest {
+
+    private static final MultiMap noHeaders = MultiMap.caseInsensitiveMultiMap();
+
+    private static UpstreamResponse response(final int status, final String body, final String... headers) {
+        final MultiMap responseHeaders = MultiMap.caseInsensitiveMultiMap();
+
+        for (int i = 0; i < headers.length; i += 2) {
+            responseHeaders.add(headers[i], headers[i + 1]);
+        }
+
+        return new UpstreamResponse(status, responseHeaders, body == null ? null : Buffer.buffer(body));
+    }
+
+    private static ResponseCache cache(final JsonObject config) {
+        return new ResponseCache(config.put("enabled", true));
+    }
+
+    @Test
+    void testKey() {
+        assertEquals("GET /account/users", ResponseCache.key("account", "/users"));
+        assertEquals("GET /account/users", ResponseCache.key("account", "//users/"));
+        assertEquals("GET /account/users?page=1&size=5", ResponseCache.key("account", "/users?size=5&page=1"));
+        assertEquals(ResponseCache.key("account", "/users?a=1&b=2"), ResponseCache.key("account", "/users?b=2&a=1&"));
+        assertEquals("GET /account/users?page=1&sort=username&sort=-id",
+                ResponseCache.key("account", "/users?sort=username&page=1&sort=-id"));
+        assertNotEquals(ResponseCache.key("account", "/users?sort=username&sort=-id"),
+                ResponseCache.key("account", "/users?sort=-id&sort=username"));
+    }
+
+    @Test
+    void testFreshness() {
+        final ResponseCache cache = cache(new JsonObject());
+        final String key = ResponseCache.key("account", "/users");
+
+        final UpstreamResponse upstream = response(200, "{}", "Cache-Control", "max-age=10, stale-while-revalidate=5");
+
+        cache.store(key, noHeaders, upstream, null, 0);
+
+        assertTrue(cache.get(key, noHeaders, 9999).isFresh(9999));
+        assertTrue(cache.get(key, noHeaders, 10000).isStaleUsable(10000));
+        assertFalse(cache.get(key, noHeaders, 15000).isStaleUsable(15000));
+        assertEquals(1L, cache.metrics().getLong("hits"));
+        assertEquals(1L, cache.metrics().getLong("staleHits"));
+        assertEquals(1L, cache.metrics().getLong("misses"));
+    }
+
+    @Test
+    void testDefaultTtlAndSharedMaxAge() {
+        final ResponseCache cache = cache(new JsonObject().put("defaultTtl", 2000L));
+
+        cache.store("a", noHeaders, response(200, "a"), null, 0);
+        cache.store("b", noHeaders, response(200, "b", "Cache-Control", "max-age=1, s-maxage=60"), null, 0);
+
+        assertTrue(cache.get("a", noHeaders, 1999).isFresh(1999));
+        assertFalse(cache.get("a", noHeaders, 2000).isFresh(2000));
+        assertTrue(cache.get("b", noHeaders, 59999).isFresh(59999));
+    }
+
+    @Test
+    void testNotStorable() {
+        final ResponseCache cache = cache(new JsonObject().put("defaultTtl", 1000L).put("maxEntryBytes", 4));
+
+        assertFalse(cache.store("a", noHeaders, response(200, "{}", "Cache-Control", "no-store"), null, 0)
+                .isStorable());
+        assertFalse(cache.store("b", noHeaders, response(200, "{}", "Cache-Control", "private"), null, 0)
+                .isStorable());
+        assertFalse(cache.store("c", noHeaders, response(200, "{}", "Set-Cookie", "id=1"), null, 0).isStorable());
+        assertFalse(cache.store("d", noHeaders, response(404, "{}"), null, 0).isStorable());
+        assertFalse(cache.store("e", noHeaders, response(200, "{...}"), null, 0).isStorable());
+        assertFalse(cache.store("f", noHeaders, response(200, "{}", "Vary", "*"), null, 0).isStorable());
+        assertEquals(0, cache.metrics().getInteger("entries"));
+    }
+
+    @Test
+    void testUselessEntryNotStored() {
+        final ResponseCache cache = cache(new JsonObject());
+
+        assertFalse(cache.store("a", noHeaders, response(200, "{}"), null, 0).isStorable());
+        assertTrue(cache.store("b", noHeaders, response(200, "{}", "ETag", "\"1\""), null, 0).isStorable());
+    }
+
+    @Test
+    void testRevalidationNotModified() {
+        final ResponseCache cache = cache(new JsonObject());
+        final CachedResponse stored = cache.store(
+                "a",
+                noHeaders,
+                response(200, "{\"id\":1}", "ETag", "\"v1\"", "Content-Type", "application/json"),
+                null,
+                0
+        );
+
+        assertEquals("\"v1\"", stored.getEtag());
+        assertFalse(stored.isFresh(0));
+
+        final CachedResponse revalidated = cache.store(
+                "a",
+                noHeaders,
+                response(304, null, "ETag", "\"v1\"", "Cache-Control", "max-age=10"),
+                stored,
+                1000
+        );
+
+        assertEquals(200, revalidated.getResponse().getStatus());
+        assertEquals("{\"id\":1}", revalidated.getResponse().getBody().toString());
+        assertEquals("application/json", revalidated.getResponse().getHeaders().get("Content-Type"));
+        assertEquals(1000, revalidated.getStoredAt());
+        assertTrue(revalidated.isFresh(10999));
+        assertSame(revalidated, cache.get("a", noHeaders, 2000));
+        assertEquals(1L, cache.metrics().getLong("revalidations"));
+        assertEquals(1L, cache.metrics().getLong("notModified"));
+    }
+
+    @Test
+    void testRevalidationModified() {
+        final ResponseCache cache = cache(new JsonObject());
+        final CachedResponse stored = cache.store("a", noHeaders, response(200, "1", "ETag", "\"v1\""), null, 0);
+        final CachedResponse replaced = cache.store("a", noHeaders, response(200, "22", "ETag", "\"v2\""), stored, 1);
+
+        assertEquals("\"v2\"", replaced.getEtag());
+        assertSame(replaced, cache.get("a", noHeaders, 1));
+        assertEquals(2L, cache.metrics().getLong("bytes"));
+    }
+
+    @Test
+    void testLruEviction() {
+        final ResponseCache cache = cache(new JsonObject().put("defaultTtl", 1000L).put("maxEntries", 2));
+
+        cache.store("a", noHeaders, response(200, "a"), null, 0);
+        cache.store("b", noHeaders, response(200, "b"), null, 0);
+        cache.get("a", noHeaders, 0);
+        cache.store("c", noHeaders, response(200, "c"), null, 0);
+
+        assertNotNull(cache.get("a", noHeaders, 0));
+        assertNull(cache.get("b", noHeaders, 0));
+        assertNotNull(cache.get("c", noHeaders, 0));
+        assertEquals(1L, cache.metrics().getLong("evictions"));
+    }
+
+    @Test
+    void testLfuEviction() {
+        final ResponseCache cache = cache(new JsonObject()
+                .put("defaultTtl", 1000L)
+                .put("maxEntries", 6)
+                .put("eviction", "lfu"));
+        final String[] keys = {"a", "b", "c", "d", "e", "f"};
+
+        for (final String key : keys) {
+            cache.store(key, noHeaders, response(200, key), null, 0);
+        }
+
+        cache.get("a", noHeaders, 0);
+        cache.get("a", noHeaders, 0);
+
+        // a is the least recently used entry again, but the most frequently used one
+        for (final String key : keys) {
+            cache.get(key, noHeaders, 0);
+        }
+
+        cache.store("g", noHeaders, response(200, "g"), null, 0);
+
+        assertNull(cache.get("b", noHeaders, 0));
+        assertNotNull(cache.get("a", noHeaders, 0));
+        assertNotNull(cache.get("g", noHeaders, 0));
+    }
+
+    @Test
+    void testSegments() {
+        final ResponseCache cache = cache(new JsonObject().put("defaultTtl", 1000L).put("maxEntries", 4096));
+
+        for (int i = 0; i < 5000; i++) {
+            cache.store("k" + i, noHeaders, response(200, "v"), null, 0);
+        }
+
+        // each segment evicts on its own, within its share of the limits
+        final int entries = cache.metrics().getInteger("entries");
+
+        assertTrue(entries <= 4096 && entries > 3500);
+        assertEquals(5000L - entries, cache.metrics().getLong("evictions"));
+        assertNotNull(cache.get("k4999", noHeaders, 0));
+    }
+
+    @Test
+    void testEvictionByBytes() {
+        final ResponseCache cache = cache(new JsonObject().put("defaultTtl", 1000L).put("maxBytes", 5L));
+
+        cache.store("a", noHeaders, response(200, "aaa"), null, 0);
+        cache.store("b", noHeaders, response(200, "bbb"), null, 0);
+
+        assertNull(cache.get("a", noHeaders, 0));
+        assertEquals(3L, cache.metrics().getLong("bytes"));
+    }
+
+    @Test
+    void testVary() {
+        final ResponseCache cache = cache(new JsonObject().put("defaultTtl", 1000L));
+        final MultiMap english = MultiMap.caseInsensitiveMultiMap().add("Accept-Language", "en");
+        final MultiMap french = MultiMap.caseInsensitiveMultiMap().add("Accept-Language", "fr");
+
+        final CachedResponse stored = cache.store(
+                "a",
+                english,
+                response(200, "hello", "Vary", "Accept-Language"),
+                null,
+                0
+        );
+
+        assertTrue(stored.matches(english));
+        assertFalse(stored.matches(french));
+        assertSame(stored, cache.get("a", english, 0));
+        assertNull(cache.get("a", french, 0));
+
+        cache.store("a", french, response(200, "bonjour", "Vary", "accept-language"), null, 0);
+
+        assertEquals("hello", cache.get("a", english, 0).getResponse().getBody().toString());
+        assertEquals("bonjour", cache.get("a", french, 0).getResponse().getBody().toString());
+    }
+
+    @Test
+    void testStaleIfError() {
+        final ResponseCache cache = cache(new JsonObject().put("staleIfError", 5000L));
+        final CachedResponse configured = cache.store(
+                "a",
+                noHeaders,
+                response(200, "a", "Cache-Control", "max-age=1"),
+                null,
+                0
+        );
+        final CachedResponse directive = cache.store(
+                "b",
+                noHeaders,
+                response(200, "b", "Cache-Control", "max-age=1, stale-if-error=60"),
+                null,
+                0
+        );
+
+        assertTrue(configured.isUsableOnError(5999));
+        assertFalse(configured.isUsableOnError(6000));
+        assertTrue(directive.isUsableOnError(60999));
+        assertFalse(directive.isUsableOnError(61000));
+        final CachedResponse disabled = cache(new JsonObject())
+                .store("c", noHeaders, response(200, "c", "Cache-Control", "max-age=1"), null, 0);
+
+        assertFalse(disabled.isUsableOnError(1000));
+    }
+}
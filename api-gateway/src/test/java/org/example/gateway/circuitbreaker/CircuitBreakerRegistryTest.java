@@ -0,0 +1,85 @@
+package org.example.gateway.circuitbreaker;
+
+import io.vertx.circuitbreaker.CircuitBreakerState;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import io.vertx.servicediscovery.Record;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(VertxExtension.class)
+class CircuitBreakerRegistryTest {
+
+    private static final Record a = record("http://a:8080");
+
+    private static final Record b = record("http://b:8080");
+
+    private static Record record(final String endpoint) {
+        return new Record().setName("account").setLocation(new JsonObject().put("endpoint", endpoint));
+    }
+
+    private static JsonObject config() {
+        return new JsonObject()
+                .put("minimumCalls", 2)
+                .put("failureRateThreshold", 50.0)
+                .put("resetTimeout", 10000L);
+    }
+
+    private static void open(final SlidingWindowCircuitBreaker breaker) {
+        breaker.execute(promise -> promise.fail("ko"));
+        breaker.execute(promise -> promise.fail("ko"));
+
+        assertEquals(CircuitBreakerState.OPEN, breaker.state());
+    }
+
+    @Test
+    void testScope(final Vertx vertx) {
+        final CircuitBreakerRegistry apiScoped = new CircuitBreakerRegistry(vertx, config());
+        final CircuitBreakerRegistry endpointScoped = new CircuitBreakerRegistry(vertx, config()
+                .put("scope", CircuitBreakerRegistry.ENDPOINT_SCOPE));
+
+        assertSame(apiScoped.get("account", a), apiScoped.get("account", b));
+        assertNotSame(apiScoped.get("account", a), apiScoped.get("report", a));
+        assertNotSame(endpointScoped.get("account", a), endpointScoped.get("account", b));
+        assertEquals("http://a:8080", endpointScoped.get("account", a).name());
+
+        final SlidingWindowCircuitBreaker breaker = endpointScoped.get("account", a);
+        endpointScoped.remove(a);
+
+        assertNotSame(breaker, endpointScoped.get("account", a));
+    }
+
+    @Test
+    void testSharedTransitions(final Vertx vertx, final VertxTestContext testContext) {
+        final CircuitBreakerRegistry first = new CircuitBreakerRegistry(vertx, config().put("shareState", true));
+        final CircuitBreakerRegistry second = new CircuitBreakerRegistry(vertx, config().put("shareState", true));
+        final CircuitBreakerRegistry notShared = new CircuitBreakerRegistry(vertx, config());
+
+        first.start();
+        second.start();
+        notShared.start();
+        open(first.get("account", a));
+
+        vertx.setTimer(100, id -> testContext.verify(() -> {
+            final SlidingWindowCircuitBreaker peer = second.get("account", b);
+
+            assertEquals(CircuitBreakerState.OPEN, peer.state());
+            assertTrue(peer.openFor() > 9000);
+            assertEquals(CircuitBreakerState.CLOSED, second.get("report", a).state());
+            assertEquals(CircuitBreakerState.CLOSED, notShared.get("account", a).state());
+
+            second.stop();
+            open(first.get("report", a));
+
+            vertx.setTimer(100, next -> testContext.verify(() -> {
+                assertEquals(CircuitBreakerState.CLOSED, second.get("report", a).state());
+
+                testContext.completeNow();
+            }));
+        }));
+    }
+}
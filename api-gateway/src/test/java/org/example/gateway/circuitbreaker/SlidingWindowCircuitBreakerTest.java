@@ -0,0 +1,192 @@
+package org.example.gateway.circuitbreaker;
+
+import io.vertx.circuitbreaker.CircuitBreakerState;
+import io.vertx.circuitbreaker.OpenCircuitException;
+import io.vertx.circuitbreaker.TimeoutException;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.Checkpoint;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(VertxExtension.class)
+class SlidingWindowCircuitBreakerTest {
+
+    private static SlidingWindowCircuitBreaker breaker(final Vertx vertx) {
+        return new SlidingWindowCircuitBreaker("account", vertx, new JsonObject()
+                .put("minimumCalls", 4)
+                .put("failureRateThreshold", 50.0)
+                .put("resetTimeout", 100L)
+                .put("halfOpenCalls", 2));
+    }
+
+    private static Future<String> succeed(final SlidingWindowCircuitBreaker breaker) {
+        return breaker.execute(promise -> promise.complete("ok"));
+    }
+
+    private static Future<String> fail(final SlidingWindowCircuitBreaker breaker) {
+        return breaker.execute(promise -> promise.fail("ko"));
+    }
+
+    private static void open(final SlidingWindowCircuitBreaker breaker) {
+        succeed(breaker);
+        succeed(breaker);
+        fail(breaker);
+        fail(breaker);
+    }
+
+    @Test
+    void testStaysClosedBelowMinimumCalls(final Vertx vertx) {
+        final SlidingWindowCircuitBreaker breaker = breaker(vertx);
+
+        fail(breaker);
+        fail(breaker);
+        fail(breaker);
+
+        assertEquals(CircuitBreakerState.CLOSED, breaker.state());
+    }
+
+    @Test
+    void testOpensOnFailureRate(final Vertx vertx) {
+        final SlidingWindowCircuitBreaker breaker = breaker(vertx);
+        final List<CircuitBreakerState> changes = new ArrayList<>();
+        final AtomicBoolean called = new AtomicBoolean();
+
+        breaker.stateChangeHandler(changes::add);
+        open(breaker);
+
+        final Future<String> rejected = breaker.execute(promise -> {
+            called.set(true);
+            promise.complete("ok");
+        });
+
+        assertEquals(CircuitBreakerState.OPEN, breaker.state());
+        assertTrue(breaker.openFor() > 0);
+        assertSame(OpenCircuitException.INSTANCE, rejected.cause());
+        assertFalse(called.get());
+        assertEquals(1, changes.size());
+    }
+
+    @Test
+    void testOpensOnSlowCallRate(final Vertx vertx) {
+        final SlidingWindowCircuitBreaker breaker = new SlidingWindowCircuitBreaker("account", vertx, new JsonObject()
+                .put("minimumCalls", 2)
+                .put("slowCallDuration", 0L)
+                .put("slowCallRateThreshold", 100.0));
+
+        succeed(breaker);
+        succeed(breaker);
+
+        assertEquals(CircuitBreakerState.OPEN, breaker.state());
+    }
+
+    @Test
+    void testHalfOpenCloses(final Vertx vertx, final VertxTestContext testContext) {
+        final SlidingWindowCircuitBreaker breaker = breaker(vertx);
+
+        open(breaker);
+
+        vertx.setTimer(150, id -> testContext.verify(() -> {
+            final Promise<String> trial = Promise.promise();
+
+            // trial calls are limited while half open
+            breaker.<String>execute(promise -> trial.future().setHandler(promise));
+            assertEquals(CircuitBreakerState.HALF_OPEN, breaker.state());
+            succeed(breaker);
+            assertSame(OpenCircuitException.INSTANCE, succeed(breaker).cause());
+
+            trial.complete("ok");
+            assertEquals(CircuitBreakerState.CLOSED, breaker.state());
+
+            testContext.completeNow();
+        }));
+    }
+
+    @Test
+    void testHalfOpenReopens(final Vertx vertx, final VertxTestContext testContext) {
+        final SlidingWindowCircuitBreaker breaker = breaker(vertx);
+
+        open(breaker);
+
+        vertx.setTimer(150, id -> testContext.verify(() -> {
+            fail(breaker);
+            assertEquals(CircuitBreakerState.OPEN, breaker.state());
+
+            testContext.completeNow();
+        }));
+    }
+
+    @Test
+    void testCancelledCallsNotRecorded(final Vertx vertx, final VertxTestContext testContext) {
+        final SlidingWindowCircuitBreaker breaker = breaker(vertx);
+
+        for (int i = 0; i < 4; i++) {
+            breaker.execute(promise -> promise.fail(CancelledCallException.INSTANCE));
+        }
+
+        assertEquals(CircuitBreakerState.CLOSED, breaker.state());
+
+        open(breaker);
+
+        vertx.setTimer(150, id -> testContext.verify(() -> {
+            // trial slots of cancelled calls are given back
+            breaker.execute(promise -> promise.fail(CancelledCallException.INSTANCE));
+            breaker.execute(promise -> promise.fail(CancelledCallException.INSTANCE));
+            succeed(breaker);
+            succeed(breaker);
+
+            assertEquals(CircuitBreakerState.CLOSED, breaker.state());
+
+            testContext.completeNow();
+        }));
+    }
+
+    @Test
+    void testTimeout(final Vertx vertx, final VertxTestContext testContext) {
+        final SlidingWindowCircuitBreaker breaker = new SlidingWindowCircuitBreaker(
+                "account",
+                vertx,
+                new JsonObject().put("timeout", 50L)
+        );
+        final Checkpoint checkpoint = testContext.checkpoint(2);
+
+        breaker.<String>execute(promise -> {
+            // the command is told so that it can cancel its request
+            promise.future().setHandler(testContext.failing(ex -> testContext.verify(() -> {
+                assertSame(TimeoutException.INSTANCE, ex);
+
+                checkpoint.flag();
+            })));
+        }).setHandler(testContext.failing(ex -> testContext.verify(() -> {
+            assertSame(TimeoutException.INSTANCE, ex);
+
+            checkpoint.flag();
+        })));
+    }
+
+    @Test
+    void testAdopt(final Vertx vertx) {
+        final SlidingWindowCircuitBreaker breaker = breaker(vertx);
+        final List<CircuitBreakerState> changes = new ArrayList<>();
+
+        breaker.stateChangeHandler(changes::add);
+
+        assertFalse(breaker.adopt(CircuitBreakerState.CLOSED, 0));
+        assertTrue(breaker.adopt(CircuitBreakerState.OPEN, 60000));
+        assertTrue(breaker.openFor() <= 100);
+        assertFalse(breaker.adopt(CircuitBreakerState.OPEN, 0));
+        assertTrue(breaker.adopt(CircuitBreakerState.CLOSED, 0));
+        assertEquals(CircuitBreakerState.CLOSED, breaker.state());
+        assertTrue(changes.isEmpty());
+    }
+}
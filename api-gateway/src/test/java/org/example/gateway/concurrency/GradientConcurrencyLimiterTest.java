@@ -0,0 +1,107 @@
+package org.example.gateway.concurrency;
+
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GradientConcurrencyLimiterTest {
+
+    private static final long millis = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static GradientConcurrencyLimiter limiter() {
+        return new GradientConcurrencyLimiter(new JsonObject()
+                .put("initialLimit", 10)
+                .put("windowSize", 10)
+                .put("smoothing", 1.0));
+    }
+
+    /**
+     * Run a window of concurrent requests.
+     */
+    private static void window(final GradientConcurrencyLimiter limiter, final int concurrency, final long rtt) {
+        for (int i = 0; i < concurrency; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+
+        for (int i = 0; i < concurrency; i++) {
+            limiter.onSuccess(rtt);
+        }
+    }
+
+    private static int limit(final GradientConcurrencyLimiter limiter) {
+        return limiter.metrics().getInteger("limit");
+    }
+
+    @Test
+    void testRejectsAtLimit() {
+        final GradientConcurrencyLimiter limiter = new GradientConcurrencyLimiter(new JsonObject()
+                .put("initialLimit", 2));
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+
+        limiter.onIgnored();
+
+        assertTrue(limiter.tryAcquire());
+        assertEquals(2, limiter.metrics().getInteger("inFlight"));
+        assertEquals(1L, limiter.metrics().getLong("rejected"));
+    }
+
+    @Test
+    void testGrowsWhileRttIsSteady() {
+        final GradientConcurrencyLimiter limiter = limiter();
+
+        window(limiter, 10, millis);
+
+        // 10 + sqrt(10)
+        assertEquals(13, limit(limiter));
+
+        window(limiter, 13, millis);
+
+        assertEquals(16, limit(limiter));
+    }
+
+    @Test
+    void testShrinksWhenRttRises() {
+        final GradientConcurrencyLimiter limiter = limiter();
+
+        window(limiter, 10, millis);
+        window(limiter, 10, 10 * millis);
+
+        // gradient down to 0.5: 13.16 * 0.5 + sqrt(13.16)
+        assertEquals(10, limit(limiter));
+    }
+
+    @Test
+    void testUnusedLimitDoesNotGrow() {
+        final GradientConcurrencyLimiter limiter = limiter();
+
+        for (int i = 0; i < 10; i++) {
+            window(limiter, 1, millis);
+        }
+
+        assertEquals(10, limit(limiter));
+    }
+
+    @Test
+    void testBackoff() {
+        final GradientConcurrencyLimiter limiter = new GradientConcurrencyLimiter(new JsonObject()
+                .put("initialLimit", 6)
+                .put("minLimit", 5));
+
+        limiter.tryAcquire();
+        limiter.onDropped();
+
+        assertEquals(5, limit(limiter));
+
+        limiter.tryAcquire();
+        limiter.onDropped();
+
+        assertEquals(5, limit(limiter));
+        assertEquals(0, limiter.metrics().getInteger("inFlight"));
+    }
+}
@@ -0,0 +1,114 @@
+package org.example.gateway.hedging;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(VertxExtension.class)
+class HedgingPolicyTest {
+
+    private static final long millis = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static RetryBudget budget(final Vertx vertx) {
+        return new RetryBudget(vertx, new JsonObject()
+                .put("ratio", 0.5)
+                .put("minRetriesPerSecond", 0L));
+    }
+
+    private static void requests(final RetryBudget budget, final int count) {
+        for (int i = 0; i < count; i++) {
+            budget.onRequest();
+        }
+    }
+
+    @Test
+    void testLatencyPercentile() {
+        final LatencyPercentile latencies = new LatencyPercentile(95);
+
+        for (int i = 1; i < 64; i++) {
+            latencies.record(i);
+        }
+
+        assertEquals(-1, latencies.get());
+
+        latencies.record(64);
+
+        assertEquals(61, latencies.get());
+
+        // recomputed every 128 samples only
+        for (int i = 0; i < 63; i++) {
+            latencies.record(1000);
+        }
+
+        assertEquals(61, latencies.get());
+
+        latencies.record(1000);
+
+        assertEquals(1000, latencies.get());
+    }
+
+    @Test
+    void testDelay(final Vertx vertx) {
+        final HedgingPolicy policy = new HedgingPolicy(vertx, new JsonObject()
+                .put("initialDelay", 100L)
+                .put("minDelay", 10L));
+
+        assertEquals(100, policy.delay("account"));
+
+        for (int i = 0; i < 64; i++) {
+            policy.record("account", 50 * millis);
+            policy.record("report", millis);
+        }
+
+        assertEquals(50, policy.delay("account"));
+        assertEquals(10, policy.delay("report"));
+        assertEquals(100, policy.delay("other"));
+    }
+
+    @Test
+    void testBudgetBeforeFirstSync(final Vertx vertx) {
+        final RetryBudget budget = new RetryBudget(vertx, new JsonObject().put("minRetriesPerSecond", 2L));
+
+        assertTrue(budget.tryRetry());
+        assertTrue(budget.tryRetry());
+        assertFalse(budget.tryRetry());
+        assertEquals(1L, budget.metrics().getLong("exhausted"));
+    }
+
+    @Test
+    void testBudgetSplitAmongNodes(final Vertx vertx, final VertxTestContext testContext) {
+        final RetryBudget first = budget(vertx);
+        final RetryBudget second = budget(vertx);
+
+        // the first sync of each node only reads the cluster counters
+        first.sync()
+                .compose(v -> second.sync())
+                .compose(v -> {
+                    requests(first, 40);
+
+                    return first.sync();
+                })
+                .compose(v -> second.sync())
+                .setHandler(testContext.succeeding(v -> testContext.verify(() -> {
+                    for (final RetryBudget budget : new RetryBudget[] {first, second}) {
+                        assertEquals(2L, budget.metrics().getLong("nodes"));
+                        assertEquals(10L, budget.metrics().getLong("allowance"));
+                    }
+
+                    for (int i = 0; i < 10; i++) {
+                        assertTrue(second.tryRetry());
+                    }
+
+                    assertFalse(second.tryRetry());
+
+                    testContext.completeNow();
+                })));
+    }
+}
@@ -0,0 +1,156 @@
+package org.example.gateway.outlier;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import io.vertx.servicediscovery.Record;
+import org.example.gateway.RoutingTable;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(VertxExtension.class)
+class OutlierDetectorTest {
+
+    private static final Record a = record("http://a:8080");
+
+    private static final Record b = record("http://b:8080");
+
+    private static final Record c = record("http://c:8080");
+
+    private static final List<Record> records = Arrays.asList(a, b, c);
+
+    private static Record record(final String endpoint) {
+        return new Record()
+                .setName("account")
+                .setLocation(new JsonObject().put("endpoint", endpoint))
+                .setMetadata(new JsonObject().put(RoutingTable.API_NAME_KEY, "account"));
+    }
+
+    private static OutlierDetector detector(final Vertx vertx, final JsonObject config) {
+        final OutlierDetector detector = new OutlierDetector(vertx, config
+                .put("enabled", true)
+                .put("consecutiveFailures", 2)
+                .put("baseEjectionTime", 100L)
+                .put("maxEjectionPercent", 50));
+
+        records.forEach(detector::add);
+
+        return detector;
+    }
+
+    private static EndpointHealth health(final OutlierDetector detector, final Record record) {
+        for (final EndpointHealth health : detector.getEndpoints()) {
+            if (health.getEndpoint().equals(RoutingTable.endpoint(record))) {
+                return health;
+            }
+        }
+
+        throw new IllegalArgumentException(RoutingTable.endpoint(record));
+    }
+
+    @Test
+    void testEjectsAfterConsecutiveFailures(final Vertx vertx) {
+        final OutlierDetector detector = detector(vertx, new JsonObject());
+
+        detector.onFailure(a);
+        detector.onSuccess(a, 1000);
+        detector.onFailure(a);
+
+        assertEquals(records, detector.available(records));
+
+        detector.onFailure(a);
+
+        assertEquals(Arrays.asList(b, c), detector.available(records));
+        assertEquals(1L, detector.metrics().getLong("ejections"));
+    }
+
+    @Test
+    void testMaxEjectionPercent(final Vertx vertx) {
+        final OutlierDetector detector = detector(vertx, new JsonObject());
+
+        detector.onFailure(a);
+        detector.onFailure(a);
+        detector.onFailure(b);
+        detector.onFailure(b);
+
+        // one of three endpoints at most
+        assertEquals(Arrays.asList(b, c), detector.available(records));
+    }
+
+    @Test
+    void testKeepsLastEndpoint(final Vertx vertx) {
+        final OutlierDetector detector = detector(vertx, new JsonObject().put("maxEjectionPercent", 100));
+        final List<Record> single = Collections.singletonList(a);
+
+        detector.onFailure(a);
+        detector.onFailure(a);
+
+        assertEquals(single, detector.available(single));
+        assertEquals(Arrays.asList(b, c), detector.available(records));
+    }
+
+    @Test
+    void testReadmissionBackoff(final Vertx vertx, final VertxTestContext testContext) {
+        final OutlierDetector detector = detector(vertx, new JsonObject());
+
+        detector.onFailure(a);
+        detector.onFailure(a);
+
+        vertx.setTimer(150, first -> testContext.verify(() -> {
+            assertEquals(records, detector.available(records));
+
+            // ejected again, for twice as long
+            detector.onFailure(a);
+            detector.onFailure(a);
+
+            vertx.setTimer(150, second -> testContext.verify(() -> {
+                assertEquals(Arrays.asList(b, c), detector.available(records));
+
+                vertx.setTimer(100, third -> testContext.verify(() -> {
+                    assertEquals(records, detector.available(records));
+                    assertEquals(2, detector.metrics().getJsonObject("endpoints")
+                            .getJsonObject("http://a:8080").getInteger("ejections"));
+
+                    testContext.completeNow();
+                }));
+            }));
+        }));
+    }
+
+    @Test
+    void testStillUnhealthyEjectedAgain(final Vertx vertx, final VertxTestContext testContext) {
+        final OutlierDetector detector = detector(vertx, new JsonObject().put("healthCheck", new JsonObject()
+                .put("enabled", true)
+                .put("unhealthyThreshold", 2)
+                .put("path", "/health")));
+        final EndpointHealth health = health(detector, a);
+
+        assertEquals("http://a:8080/health", health.getHealthUrl());
+
+        detector.onProbe(health, false, 2);
+        detector.onProbe(health, false, 2);
+
+        assertEquals(Arrays.asList(b, c), detector.available(records));
+
+        vertx.setTimer(150, id -> testContext.verify(() -> {
+            assertEquals(Arrays.asList(b, c), detector.available(records));
+            assertEquals(2L, detector.metrics().getLong("ejections"));
+
+            // healthy again, re-admitted once the new ejection is over
+            detector.onProbe(health, true, 2);
+
+            vertx.setTimer(250, end -> testContext.verify(() -> {
+                assertEquals(records, detector.available(records));
+
+                testContext.completeNow();
+            }));
+        }));
+    }
+}
@@ -0,0 +1,153 @@
+package org.example.gateway.priority;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.json.JsonObject;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.example.gateway.concurrency.GradientConcurrencyLimiter;
+import org.example.gateway.concurrency.LimitExceededException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@ExtendWith(VertxExtension.class)
+class FairQueueTest {
+
+    private static final PriorityClass interactive = new PriorityClass("interactive", new JsonObject()
+            .put("weight", 3));
+
+    private static final PriorityClass batch = new PriorityClass("batch", new JsonObject().put("weight", 1));
+
+    private final ClassMetrics metrics = new ClassMetrics();
+
+    /**
+     * Limiter with a single slot, already taken.
+     */
+    private static GradientConcurrencyLimiter busyLimiter() {
+        final GradientConcurrencyLimiter limiter = new GradientConcurrencyLimiter(new JsonObject()
+                .put("initialLimit", 1));
+
+        assertTrue(limiter.tryAcquire());
+
+        return limiter;
+    }
+
+    private void enqueue(final FairQueue queue, final Flow flow, final String name, final List<String> granted) {
+        queue.acquire(flow, metrics).setHandler(res -> granted.add(name));
+    }
+
+    /**
+     * Free the slot and give it to the next waiting request, as many times as requests are waiting.
+     */
+    private static void drain(final FairQueue queue, final GradientConcurrencyLimiter limiter) {
+        while (queue.size() > 0) {
+            limiter.onIgnored();
+            queue.release();
+        }
+    }
+
+    @Test
+    void testGrantsDirectlyWhenIdle(final Vertx vertx) {
+        final GradientConcurrencyLimiter limiter = new GradientConcurrencyLimiter(new JsonObject()
+                .put("initialLimit", 1));
+        final FairQueue queue = new FairQueue(vertx, limiter, 10, 1000L);
+
+        assertTrue(queue.acquire(new Flow(batch, "a"), metrics).succeeded());
+        assertFalse(queue.acquire(new Flow(batch, "a"), metrics).isComplete());
+        assertEquals(1, queue.size());
+        assertEquals(1, metrics.toJson().getInteger("queued"));
+    }
+
+    @Test
+    void testStrideOrder(final Vertx vertx) {
+        final GradientConcurrencyLimiter limiter = busyLimiter();
+        final FairQueue queue = new FairQueue(vertx, limiter, 10, 1000L);
+        final List<String> granted = new ArrayList<>();
+
+        for (int i = 0; i < 6; i++) {
+            enqueue(queue, new Flow(batch, "a"), "batch", granted);
+            enqueue(queue, new Flow(interactive, "a"), "interactive", granted);
+        }
+
+        drain(queue, limiter);
+
+        // 3 interactive slots for every batch slot while both are backlogged
+        assertEquals(3, granted.subList(0, 4).stream().filter("interactive"::equals).count());
+        assertEquals(6, granted.subList(0, 8).stream().filter("interactive"::equals).count());
+        assertEquals(Arrays.asList("batch", "batch", "batch", "batch"), granted.subList(8, 12));
+    }
+
+    @Test
+    void testIdleClassDoesNotClaimSlots(final Vertx vertx) {
+        final GradientConcurrencyLimiter limiter = busyLimiter();
+        final FairQueue queue = new FairQueue(vertx, limiter, 20, 1000L);
+        final List<String> granted = new ArrayList<>();
+
+        for (int i = 0; i < 12; i++) {
+            enqueue(queue, new Flow(interactive, "a"), "interactive", granted);
+        }
+
+        drain(queue, limiter);
+        granted.clear();
+
+        for (int i = 0; i < 3; i++) {
+            enqueue(queue, new Flow(batch, "a"), "batch", granted);
+            enqueue(queue, new Flow(interactive, "a"), "interactive", granted);
+        }
+
+        drain(queue, limiter);
+
+        // batch was idle while interactive was served, it starts from the current pass instead of taking
+        // every slot until it catches up
+        assertEquals(Arrays.asList("batch", "interactive", "interactive"), granted.subList(0, 3));
+    }
+
+    @Test
+    void testClientsRoundRobin(final Vertx vertx) {
+        final GradientConcurrencyLimiter limiter = busyLimiter();
+        final FairQueue queue = new FairQueue(vertx, limiter, 10, 1000L);
+        final List<String> granted = new ArrayList<>();
+
+        enqueue(queue, new Flow(batch, "burst"), "burst", granted);
+        enqueue(queue, new Flow(batch, "burst"), "burst", granted);
+        enqueue(queue, new Flow(batch, "burst"), "burst", granted);
+        enqueue(queue, new Flow(batch, "other"), "other", granted);
+        enqueue(queue, new Flow(batch, "other"), "other", granted);
+
+        drain(queue, limiter);
+
+        assertEquals(Arrays.asList("burst", "other", "burst", "other", "burst"), granted);
+    }
+
+    @Test
+    void testRejectsWhenClassQueueIsFull(final Vertx vertx) {
+        final FairQueue queue = new FairQueue(vertx, busyLimiter(), 1, 1000L);
+
+        assertFalse(queue.acquire(new Flow(batch, "a"), metrics).isComplete());
+
+        final Future<Void> rejected = queue.acquire(new Flow(batch, "b"), metrics);
+
+        assertTrue(rejected.failed());
+        assertSame(LimitExceededException.INSTANCE, rejected.cause());
+        assertFalse(queue.acquire(new Flow(interactive, "a"), metrics).isComplete());
+    }
+
+    @Test
+    void testQueueTimeout(final Vertx vertx, final VertxTestContext testContext) {
+        final FairQueue queue = new FairQueue(vertx, busyLimiter(), 10, 50L);
+
+        queue.acquire(new Flow(batch, "a"), metrics).setHandler(testContext.failing(cause -> testContext.verify(() -> {
+            assertSame(LimitExceededException.INSTANCE, cause);
+            assertEquals(0, queue.size());
+            assertEquals(1L, metrics.toJson().getLong("timedOut"));
+
+            testContext.completeNow();
+        })));
+    }
+}
@@ -0,0 +1,86 @@
+package org.example.gateway.priority;
+
+import io.vertx.core.MultiMap;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.net.SocketAddress;
+import org.example.microservicecommon.admission.AdmissionController;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PriorityClassifierTest {
+
+    private static final PriorityClassifier classifier = new PriorityClassifier(new JsonObject()
+            .put("routes", new JsonObject().put("/api/report", "batch"))
+            .put("clients", new JsonObject().put("checkout", "interactive").put("10.0.0.1", "batch"))
+            .put("trustedProxies", new JsonArray().add("10.0.0.100")));
+
+    private static HttpServerRequest request(final String path, final String clientId) {
+        return request("10.0.0.100", path, clientId);
+    }
+
+    private static HttpServerRequest request(final String address, final String path, final String clientId) {
+        final HttpServerRequest request = mock(HttpServerRequest.class);
+
+        when(request.remoteAddress()).thenReturn(SocketAddress.inetSocketAddress(40000, address));
+        when(request.path()).thenReturn(path);
+        when(request.getHeader("X-Client-Id")).thenReturn(clientId);
+        when(request.getHeader(PriorityClassifier.CLASS_HEADER)).thenReturn("interactive");
+
+        return request;
+    }
+
+    private static MultiMap tag(final HttpServerRequest request) {
+        final MultiMap headers = MultiMap.caseInsensitiveMultiMap()
+                .add(AdmissionController.PRIORITY_HEADER, "high")
+                .add(PriorityClassifier.CLASS_HEADER, "interactive");
+
+        classifier.tag(request, headers);
+
+        return headers;
+    }
+
+    @Test
+    void testClassify() {
+        assertEquals("interactive", classifier.classify(request("/api/report", "checkout")).getName());
+        assertEquals("batch", classifier.classify(request("/api/report/daily", null)).getName());
+        assertEquals("standard", classifier.classify(request("/api/account", "other")).getName());
+    }
+
+    @Test
+    void testClientIdentity() {
+        // the identity header is only read from trusted proxies, other clients are known by their address
+        assertEquals("standard", classifier.classify(request("10.0.0.2", "/api/account", "checkout")).getName());
+        assertEquals("batch", classifier.classify(request("10.0.0.1", "/api/account", "checkout")).getName());
+
+        final MultiMap headers = tag(request("10.0.0.2", "/api/account", "checkout"));
+        final Flow flow = classifier.flow(headers);
+
+        assertEquals("10.0.0.2", headers.get(PriorityClassifier.CLIENT_HEADER));
+        assertEquals("10.0.0.2", flow.getClient());
+        assertEquals("standard", flow.getPriorityClass().getName());
+        assertEquals("checkout", classifier.flow(tag(request("/api/account", "checkout"))).getClient());
+    }
+
+    @Test
+    void testTagReplacesClientPriority() {
+        final MultiMap headers = tag(request("/api/report", null));
+
+        assertEquals("low", headers.get(AdmissionController.PRIORITY_HEADER));
+        assertEquals("batch", headers.get(PriorityClassifier.CLASS_HEADER));
+        assertEquals(1, headers.getAll(AdmissionController.PRIORITY_HEADER).size());
+        assertEquals("normal", tag(request("/api/account", null)).get(AdmissionController.PRIORITY_HEADER));
+    }
+
+    @Test
+    void testIsTag() {
+        assertTrue(PriorityClassifier.isTag("x-request-priority"));
+        assertTrue(PriorityClassifier.isTag(PriorityClassifier.CLASS_HEADER));
+        assertTrue(PriorityClassifier.isTag(PriorityClassifier.CLIENT_HEADER));
+        assertFalse(PriorityClassifier.isTag("X-Client-Id"));
+    }
+}
@@ -0,0 +1,125 @@
+package org.example.gateway.ratelimit;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.net.SocketAddress;
+import io.vertx.junit5.VertxExtension;
+import io.vertx.junit5.VertxTestContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(VertxExtension.class)
+class RateLimiterTest {
+
+    private static HttpServerRequest request(final String address, final String clientId) {
+        final HttpServerRequest request = mock(HttpServerRequest.class);
+
+        when(request.remoteAddress()).thenReturn(SocketAddress.inetSocketAddress(40000, address));
+        when(request.getHeader("X-Client-Id")).thenReturn(clientId);
+
+        return request;
+    }
+
+    private static RateLimiter rateLimiter(final JsonObject config) {
+        return new RateLimiter(mock(Vertx.class), config.put("enabled", true).put("rate", 1).put("burst", 1));
+    }
+
+    @Test
+    void testLimitPerClientAndApi() {
+        final RateLimiter rateLimiter = rateLimiter(new JsonObject());
+
+        assertEquals(0, rateLimiter.acquire(request("10.0.0.1", null), "account"));
+        assertTrue(rateLimiter.acquire(request("10.0.0.1", null), "account") > 0);
+        assertEquals(0, rateLimiter.acquire(request("10.0.0.1", null), "order"));
+        assertEquals(0, rateLimiter.acquire(request("10.0.0.2", null), "account"));
+        assertEquals(3L, rateLimiter.metrics().getLong("allowed"));
+        assertEquals(1L, rateLimiter.metrics().getLong("limited"));
+    }
+
+    @Test
+    void testApiLimits() {
+        final RateLimiter rateLimiter = rateLimiter(new JsonObject()
+                .put("apis", new JsonObject().put("account", new JsonObject().put("burst", 2))));
+
+        assertEquals(0, rateLimiter.acquire(request("10.0.0.1", null), "account"));
+        assertEquals(0, rateLimiter.acquire(request("10.0.0.1", null), "account"));
+        assertTrue(rateLimiter.acquire(request("10.0.0.1", null), "account") > 0);
+    }
+
+    @Test
+    void testIdentityHeaderIgnoredFromClients() {
+        final RateLimiter rateLimiter = rateLimiter(new JsonObject());
+
+        assertEquals(0, rateLimiter.acquire(request("10.0.0.1", "a"), "account"));
+        assertTrue(rateLimiter.acquire(request("10.0.0.1", "b"), "account") > 0);
+        assertEquals(1, rateLimiter.metrics().getInteger("buckets"));
+    }
+
+    @Test
+    void testIdentityHeaderFromTrustedProxy() {
+        final RateLimiter rateLimiter = rateLimiter(new JsonObject()
+                .put("trustedProxies", new JsonArray().add("10.0.0.100")));
+
+        assertEquals(0, rateLimiter.acquire(request("10.0.0.100", "a"), "account"));
+        assertEquals(0, rateLimiter.acquire(request("10.0.0.100", "b"), "account"));
+        assertTrue(rateLimiter.acquire(request("10.0.0.100", "a"), "account") > 0);
+
+        // requests of the proxy itself
+        assertEquals(0, rateLimiter.acquire(request("10.0.0.100", null), "account"));
+        assertEquals(3, rateLimiter.metrics().getInteger("buckets"));
+    }
+
+    @Test
+    void testMaxBuckets() {
+        final RateLimiter rateLimiter = rateLimiter(new JsonObject().put("maxBuckets", 2));
+
+        assertEquals(0, rateLimiter.acquire(request("10.0.0.1", null), "account"));
+        assertEquals(0, rateLimiter.acquire(request("10.0.0.2", null), "account"));
+
+        // new clients share the overflow bucket
+        assertEquals(0, rateLimiter.acquire(request("10.0.0.3", null), "account"));
+        assertTrue(rateLimiter.acquire(request("10.0.0.4", null), "account") > 0);
+
+        assertEquals(3, rateLimiter.metrics().getInteger("buckets"));
+        assertEquals(2L, rateLimiter.metrics().getLong("overflowed"));
+    }
+
+    @Test
+    void testSync(final Vertx vertx, final VertxTestContext testContext) {
+        final JsonObject config = new JsonObject().put("enabled", true).put("rate", 0.001).put("burst", 4);
+        final RateLimiter first = new RateLimiter(vertx, config);
+        final RateLimiter second = new RateLimiter(vertx, config);
+
+        assertEquals(0, first.acquire(request("10.0.0.1", null), "account"));
+        assertEquals(0, first.acquire(request("10.0.0.1", null), "account"));
+        assertEquals(0, first.acquire(request("10.0.0.2", null), "account"));
+        assertEquals(0, second.acquire(request("10.0.0.1", null), "account"));
+
+        first.sync()
+                .compose(v -> second.sync())
+                .compose(v -> first.sync())
+                .compose(v -> second.sync())
+                .setHandler(testContext.succeeding(v -> testContext.verify(() -> {
+                    // each node deducted the report of the other once: 4 - 1 - 2 tokens left on both
+                    assertEquals(0, first.acquire(request("10.0.0.1", null), "account"));
+                    assertTrue(first.acquire(request("10.0.0.1", null), "account") > 0);
+                    assertEquals(0, second.acquire(request("10.0.0.1", null), "account"));
+                    assertTrue(second.acquire(request("10.0.0.1", null), "account") > 0);
+                    assertEquals(1, second.metrics().getInteger("buckets"));
+
+                    // one report per node, whatever the number of clients
+                    vertx.sharedData().<String, JsonObject>getAsyncMap("gateway.ratelimit.reports", map -> map
+                            .result().size(testContext.succeeding(size -> testContext.verify(() -> {
+                                assertEquals(2, size);
+
+                                testContext.completeNow();
+                            }))));
+                })));
+    }
+}
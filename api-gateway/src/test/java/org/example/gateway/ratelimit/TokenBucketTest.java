@@ -0,0 +1,78 @@
+package org.example.gateway.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTest {
+
+    private static final long second = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void testBurst() {
+        final TokenBucket bucket = new TokenBucket(10, 3, 0);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, bucket.tryAcquire(0));
+        }
+
+        // one token every 100ms
+        assertEquals(second / 10, bucket.tryAcquire(0));
+        assertEquals(3, bucket.drainConsumed());
+        assertEquals(0, bucket.drainConsumed());
+    }
+
+    @Test
+    void testRefill() {
+        final TokenBucket bucket = new TokenBucket(10, 2, 0);
+
+        bucket.tryAcquire(0);
+        bucket.tryAcquire(0);
+
+        assertTrue(bucket.tryAcquire(second / 20) > 0);
+        assertEquals(0, bucket.tryAcquire(second / 10));
+        assertTrue(bucket.tryAcquire(second / 10) > 0);
+    }
+
+    @Test
+    void testRefillUpToCapacity() {
+        final TokenBucket bucket = new TokenBucket(10, 2, 0);
+
+        bucket.tryAcquire(0);
+
+        // an hour later the bucket holds no more than its capacity
+        final long later = TimeUnit.HOURS.toNanos(1);
+
+        assertEquals(0, bucket.tryAcquire(later));
+        assertEquals(0, bucket.tryAcquire(later));
+        assertTrue(bucket.tryAcquire(later) > 0);
+        assertEquals(later, bucket.getLastAccess());
+    }
+
+    @Test
+    void testDeduct() {
+        final TokenBucket bucket = new TokenBucket(10, 5, 0);
+
+        bucket.deduct(4);
+        assertEquals(0, bucket.tryAcquire(0));
+        assertTrue(bucket.tryAcquire(0) > 0);
+
+        // in debt for at most one burst: 5 tokens, refilled in 500ms, then one more token in 100ms
+        bucket.deduct(100);
+        assertTrue(bucket.tryAcquire(second / 2) > 0);
+        assertEquals(0, bucket.tryAcquire(second / 2 + second / 10));
+    }
+
+    @Test
+    void testAddConsumed() {
+        final TokenBucket bucket = new TokenBucket(10, 5, 0);
+
+        bucket.tryAcquire(0);
+        bucket.addConsumed(bucket.drainConsumed());
+        bucket.addConsumed(2);
+
+        assertEquals(3, bucket.drainConsumed());
+    }
+}
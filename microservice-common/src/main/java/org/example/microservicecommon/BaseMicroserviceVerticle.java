@@ -36,9 +36,9 @@ public abstract class BaseMicroserviceVerticle extends AbstractVerticle {
     protected ServiceDiscovery serviceDiscovery;
 
     /**
-     * Circuit breaker.
+     * Circuit breaker, created on first use.
      */
-    protected CircuitBreaker circuitBreaker;
+    private CircuitBreaker circuitBreaker;
 
     /**
      * Contains service records published by service discovery.
@@ -46,12 +46,23 @@ public abstract class BaseMicroserviceVerticle extends AbstractVerticle {
     protected Set<Record> registeredRecords = new ConcurrentHashSet<>();
 
     /**
-     * Initialize service discovery and circuit breaker instances.
+     * Initialize service discovery instance.
      */
     @Override
     public void start() {
         serviceDiscovery = ServiceDiscovery
                 .create(vertx, new ServiceDiscoveryOptions().setBackendConfiguration(config()));
+    }
+
+    /**
+     * Returns the circuit breaker configured by the <code>circuitBreaker</code> config block.
+     * It is only created by the first call, so verticles which do not use it do not start its timers.
+     * @return circuit breaker
+     */
+    protected CircuitBreaker circuitBreaker() {
+        if (circuitBreaker != null) {
+            return circuitBreaker;
+        }
 
         final JsonObject cbConfig = config().getJsonObject("circuitBreaker") != null
                 ? config().getJsonObject("circuitBreaker")
@@ -64,6 +75,8 @@ public abstract class BaseMicroserviceVerticle extends AbstractVerticle {
                 .setFallbackOnFailure(true)
                 .setResetTimeout(cbConfig.getLong("resetTimeout", 30000L));
         circuitBreaker = CircuitBreaker.create(cbConfig.getString("name", "circuit-breaker"), vertx, cbOptions);
+
+        return circuitBreaker;
     }
 
     /**
@@ -94,11 +107,19 @@ public abstract class BaseMicroserviceVerticle extends AbstractVerticle {
 
     protected Promise<Void> publishHttpEndpoint(final String name, final String host, final int port) {
         final Record record = HttpEndpoint.createRecord(name, host, port, "/",
-                new JsonObject().put("api.name", config().getString("api.name", "")));
+                httpEndpointMetadata().put("api.name", config().getString("api.name", "")));
 
         return publish(record);
     }
 
+    /**
+     * Extra metadata for the HTTP endpoint record, eg: supported protocols.
+     * @return endpoint metadata
+     */
+    protected JsonObject httpEndpointMetadata() {
+        return new JsonObject();
+    }
+
     /**
      * Create a record in service discovery.
      * @param record service record
@@ -132,6 +153,10 @@ public abstract class BaseMicroserviceVerticle extends AbstractVerticle {
     public void stop(final Promise<Void> promise) {
         final List<Promise> promises = new ArrayList<>();
 
+        if (circuitBreaker != null) {
+            circuitBreaker.close();
+        }
+
         registeredRecords.forEach(record -> {
             final Promise<Void> cleanupPromise = Promise.promise();
             promises.add(cleanupPromise);
@@ -1,54 +1,102 @@
 package org.example.microservicecommon;
 
-import io.netty.handler.codec.http.HttpResponseStatus;
 import io.vertx.core.Promise;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.Http2Settings;
 import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpServerOptions;
+import io.vertx.core.json.JsonObject;
+import io.vertx.core.logging.Logger;
+import io.vertx.core.logging.LoggerFactory;
 import io.vertx.ext.web.Router;
 import io.vertx.ext.web.RoutingContext;
+import org.example.microservicecommon.admission.AdmissionController;
 import org.example.microservicecommon.exception.ResourceNotFoundException;
 import org.example.microservicecommon.exception.RestApiException;
-import org.example.microservicecommon.http.AbstractQueryPageAndSort;
 import org.example.microservicecommon.http.ApiResponse;
-import org.example.microservicecommon.http.Sort;
-
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
-
-import static org.apache.commons.lang3.StringUtils.isBlank;
-import static org.apache.commons.lang3.StringUtils.isNotBlank;
-import static org.apache.commons.lang3.StringUtils.isNumeric;
-import static org.apache.commons.lang3.StringUtils.upperCase;
+import org.example.microservicecommon.http.ErrorResponse;
+import org.example.microservicecommon.http.ErrorTemplate;
+import org.example.microservicecommon.http.QueryParams;
 
 /**
  * Abstract verticle containing helper methods for RESTful APIs.
  */
 public abstract class RestApiVerticle extends BaseMicroserviceVerticle {
 
+    /**
+     * Metadata key telling whether an HTTP endpoint accepts h2c (HTTP/2 over cleartext with prior knowledge).
+     */
+    public static final String H2C_KEY = "h2c";
+
+    /**
+     * Metadata key holding the health check path of an HTTP endpoint, relative to its root.
+     */
+    public static final String HEALTH_KEY = "health";
+
+    /**
+     * Path of the health check route.
+     */
+    public static final String HEALTH_PATH = "/health";
+
+    /**
+     * Encoded once, health checks are answered without building a response.
+     */
+    private static final Buffer HEALTHY = Buffer.buffer(
+            new ApiResponse(200, new JsonObject().put("health", "UP")).toJson().encode()
+    );
+
+    private static final String HEALTHY_LENGTH = String.valueOf(HEALTHY.length());
+
+    private static final ErrorResponse ROUTE_NOT_FOUND = ErrorResponse.of(404, "route not found");
+
+    /**
+     * Sent by the catch-all route, with the message of a {@link ResourceNotFoundException}.
+     */
+    private static final ErrorResponse UNKNOWN_ROUTE = ErrorResponse.of(404, "Route not found");
+
+    private static final ErrorResponse BAD_GATEWAY = ErrorResponse.of(502, "bad gateway");
+
+    private static final ErrorResponse SERVICE_UNAVAILABLE = ErrorResponse.of(503, "service unavailable");
+
+    private static final ErrorResponse TOO_MANY_REQUESTS = ErrorResponse.of(429, "too many requests");
+
+    private static final ErrorResponse INTERNAL_SERVER_ERROR = ErrorResponse.of(500, "internal server error");
+
+    private static final Logger logger = LoggerFactory.getLogger(RestApiVerticle.class);
+
     protected Router apiRouter;
 
+    /**
+     * Rejects requests while the service is overloaded, configured by the <code>loadShedding</code> config.
+     */
+    protected AdmissionController admissionController;
+
     @Override
     public void start() {
         super.start();
         apiRouter = Router.router(vertx);
 
-        // validate page and sort params
-        apiRouter
-                .route("/*")
-                .handler(ctx -> {
-                    validatePageParams(ctx);
-                    validateSortParams(ctx);
+        admissionController = new AdmissionController(
+                vertx,
+                config().getJsonObject("loadShedding", new JsonObject())
+        );
+        admissionController.start(vertx);
 
-                    ctx.next();
-                });
+        // answer health checks even when shedding load, the gateway ejects endpoints failing them
+        apiRouter.get(HEALTH_PATH).handler(this::healthHandler);
+
+        // shed load before doing any work for the request
+        apiRouter.route("/*").handler(admissionController::handle);
+
+        // parse and validate page, sort and filter params once, handlers read them from the context
+        apiRouter.route("/*").handler(this::queryParamsHandler);
 
         // catch-all mechanism for exceptions
         apiRouter.route("/*").failureHandler(ctx -> {
             ctx
                     .response()
                     .setStatusCode(ctx.statusCode())
-                    .end(new ApiResponse(ctx.failure()).toJson().encodePrettily());
+                    .end(failureBody(ctx.failure()));
         });
 
         // put header values
@@ -65,18 +113,26 @@ public abstract class RestApiVerticle extends BaseMicroserviceVerticle {
                 });
 
         // 404 handling
-        apiRouter.route().last().handler(ctx -> {
-            ctx
-                    .response()
-                    .setStatusCode(404)
-                    .end(new ApiResponse(
-                            new RestApiException(new ResourceNotFoundException("Route not found"))
-                    ).toJson().encodePrettily());
-        });
+        apiRouter.route().last().handler(ctx -> UNKNOWN_ROUTE.send(ctx.response()));
+    }
+
+    /**
+     * Stop sampling the load and remove published records.
+     * @param promise a promise
+     */
+    @Override
+    public void stop(final Promise<Void> promise) {
+        if (admissionController != null) {
+            admissionController.stop(vertx);
+        }
+
+        super.stop(promise);
     }
 
     /**
      * Create an HTTP server.
+     * It accepts HTTP/1.1 and h2c: the cleartext Vert.x server always takes HTTP/2 with prior knowledge,
+     * and <code>http2.enabled</code> only decides whether h2c is advertised to the gateway.
      * @param router router
      * @param host host
      * @param port port
@@ -86,7 +142,7 @@ public abstract class RestApiVerticle extends BaseMicroserviceVerticle {
         final Promise<Void> promise = Promise.promise();
 
         vertx
-                .createHttpServer()
+                .createHttpServer(httpServerOptions())
                 .requestHandler(router)
                 .listen(port, host, res -> {
                     if (res.succeeded()) {
@@ -99,15 +155,100 @@ public abstract class RestApiVerticle extends BaseMicroserviceVerticle {
         return promise;
     }
 
+    /**
+     * HTTP server options built from the <code>http2</code> and <code>transport</code> configs.
+     * Supported <code>http2</code> keys: <code>maxConcurrentStreams</code> and <code>initialWindowSize</code>;
+     * <code>enabled</code> is read by {@link #httpEndpointMetadata()} only.
+     * @return server options
+     */
+    protected HttpServerOptions httpServerOptions() {
+        final JsonObject http2Config = http2Config();
+
+        final HttpServerOptions options = new HttpServerOptions()
+                .setInitialSettings(new Http2Settings()
+                        .setMaxConcurrentStreams(http2Config.getLong("maxConcurrentStreams", 100L))
+                        .setInitialWindowSize(http2Config.getInteger(
+                                "initialWindowSize",
+                                Http2Settings.DEFAULT_INITIAL_WINDOW_SIZE
+                        )));
+
+        return applyTransportOptions(options);
+    }
+
+    /**
+     * Apply the <code>transport</code> config to server options.
+     * <code>tcpNoDelay</code> and <code>acceptBacklog</code> apply to any transport. <code>reusePort</code>,
+     * <code>tcpFastOpen</code> and <code>tcpQuickAck</code> need the native epoll transport, which is used when
+     * Vert.x is started with <code>-Dvertx.options.preferNativeTransport=true</code> and the native library loads;
+     * otherwise they are skipped and the server stays on NIO.
+     * @param options server options
+     * @return the server options
+     */
+    protected HttpServerOptions applyTransportOptions(final HttpServerOptions options) {
+        final JsonObject transportConfig = config().getJsonObject("transport", new JsonObject());
+
+        options
+                .setTcpNoDelay(transportConfig.getBoolean("tcpNoDelay", HttpServerOptions.DEFAULT_TCP_NO_DELAY))
+                .setAcceptBacklog(transportConfig.getInteger(
+                        "acceptBacklog",
+                        HttpServerOptions.DEFAULT_ACCEPT_BACKLOG
+                ));
+
+        if (!transportConfig.getBoolean("native", false)) {
+            return options;
+        }
+
+        if (!vertx.isNativeTransportEnabled()) {
+            logger.warn("Native transport unavailable, falling back to NIO");
+
+            return options;
+        }
+
+        return options
+                .setReusePort(transportConfig.getBoolean("reusePort", true))
+                .setTcpFastOpen(transportConfig.getBoolean("tcpFastOpen", false))
+                .setTcpQuickAck(transportConfig.getBoolean("tcpQuickAck", false));
+    }
+
+    /**
+     * Advertise whether the endpoint accepts h2c and where its health check is.
+     * With <code>http2.enabled</code> set to false, clients keep to HTTP/1.1 although the server would take h2c.
+     * @return endpoint metadata
+     */
+    @Override
+    protected JsonObject httpEndpointMetadata() {
+        return new JsonObject()
+                .put(H2C_KEY, http2Config().getBoolean("enabled", true))
+                .put(HEALTH_KEY, HEALTH_PATH);
+    }
+
+    /**
+     * Handler for health checks. Returns 200 while the verticle serves requests.
+     * @param context request context
+     */
+    protected void healthHandler(final RoutingContext context) {
+        context
+                .response()
+                .putHeader(HttpHeaders.CONTENT_TYPE, "application/json; charset=utf-8")
+                .putHeader(HttpHeaders.CONTENT_LENGTH, HEALTHY_LENGTH)
+                .end(HEALTHY);
+    }
+
     /**
      * Handler for invalid route. Returns 404.
      * @param context request context
      */
     protected void routeNotFoundHandler(final RoutingContext context) {
-        final ApiResponse.Error error = new ApiResponse.Error("route not found");
-        final ApiResponse apiResponse = new ApiResponse(404, error);
+        ROUTE_NOT_FOUND.send(context.response());
+    }
 
-        sendResponse(context, apiResponse);
+    /**
+     * Handler for an invalid request. Returns 400.
+     * @param message error message
+     * @param context request context
+     */
+    protected void badRequestHandler(final String message, final RoutingContext context) {
+        ErrorTemplate.of(400, ErrorTemplate.PLACEHOLDER).send(context.response(), message);
     }
 
     /**
@@ -115,10 +256,25 @@ public abstract class RestApiVerticle extends BaseMicroserviceVerticle {
      * @param context request context
      */
     protected void badGatewayHandler(final Throwable ex, final RoutingContext context) {
-        final ApiResponse.Error error = new ApiResponse.Error("bad gateway");
-        final ApiResponse apiResponse = new ApiResponse(502, error);
+        BAD_GATEWAY.send(context.response());
+    }
 
-        sendResponse(context, apiResponse);
+    /**
+     * Handler for an overloaded service. Returns 503.
+     * @param context request context
+     */
+    protected void serviceUnavailableHandler(final RoutingContext context) {
+        SERVICE_UNAVAILABLE.send(context.response());
+    }
+
+    /**
+     * Handler for rate limited requests. Returns 429.
+     * @param retryAfter seconds after which the client may retry
+     * @param context request context
+     */
+    protected void tooManyRequestsHandler(final long retryAfter, final RoutingContext context) {
+        context.response().putHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+        TOO_MANY_REQUESTS.send(context.response());
     }
 
     /**
@@ -129,77 +285,43 @@ public abstract class RestApiVerticle extends BaseMicroserviceVerticle {
         apiRouter.mountSubRouter("/", router);
     }
 
-    /**
-     * Write the JSON response to send.
-     * @param context request context
-     * @param apiResponse API response
-     */
-    private void sendResponse(final RoutingContext context, final ApiResponse apiResponse) {
-        context
-                .response()
-                .setStatusCode(apiResponse.getStatus())
-                .end(apiResponse.toJson().encode());
+    private JsonObject http2Config() {
+        return config().getJsonObject("http2", new JsonObject());
     }
 
     /**
-     * Validate sort parameters and return 400 response if invalid
-     * @param context request context
+     * Returns the body of the response to a failed request.
+     * Messages of {@link RestApiException} are sent through a template, other failures get a constant body.
+     * @param failure failure, null if the request was failed with a status code only
+     * @return encoded body
      */
-    private void validateSortParams(final RoutingContext context) {
-        final List<String> sortFields = context.queryParam(AbstractQueryPageAndSort.sortKey);
-        final Set<String> parsedSortFields = new HashSet<>();
-
-        for (final String sortField : sortFields) {
-            if (isBlank(sortField)) {
-                continue;
-            }
-
-            final String[] fieldSplit = sortField.split(",");
-            final List<String> sortDirections = Arrays.asList(
-                    Sort.Direction.ASC.name(),
-                    Sort.Direction.DESC.name()
-            );
-
-            if (fieldSplit.length > 2) {
-                final ApiResponse.Error errorBody = new ApiResponse.Error("invalid sort param");
-                sendResponse(context, new ApiResponse(HttpResponseStatus.BAD_REQUEST.code(), errorBody));
-            }
-
-            // validate sort order
-            if (fieldSplit.length == 2
-                    && !sortDirections.contains(upperCase(fieldSplit[1]))) {
-                final ApiResponse.Error errorBody = new ApiResponse.Error("invalid sort order");
-                sendResponse(context, new ApiResponse(HttpResponseStatus.BAD_REQUEST.code(), errorBody));
-            }
-
-            // handle duplicate sort field
-            if (!parsedSortFields.add(fieldSplit[0])) {
-                final ApiResponse.Error errorBody = new ApiResponse.Error("duplicate sort field");
-                sendResponse(context, new ApiResponse(HttpResponseStatus.BAD_REQUEST.code(), errorBody));
-            }
+    private static Buffer failureBody(final Throwable failure) {
+        if (!(failure instanceof RestApiException)) {
+            return INTERNAL_SERVER_ERROR.getBody();
         }
+
+        final RestApiException ex = (RestApiException) failure;
+
+        return ex.getMessage() == null
+                ? ErrorResponse.of(ex.getHttpStatus(), null).getBody()
+                : ErrorTemplate.of(ex.getHttpStatus(), ErrorTemplate.PLACEHOLDER).body(ex.getMessage());
     }
 
     /**
-     * Validate pagination parameters and return 400 response if invalid
+     * Parse query parameters into the context, or send a 400 response if they are invalid.
      * @param context request context
      */
-    private void validatePageParams(final RoutingContext context) {
-        final String pageField = context.queryParams().get(AbstractQueryPageAndSort.pageKey);
-        final String sizeField = context.queryParams().get(AbstractQueryPageAndSort.sizeKey);
+    private void queryParamsHandler(final RoutingContext context) {
+        final QueryParams queryParams = QueryParams.parse(context.queryParams());
 
-        if (isNotBlank(pageField) && !isNumeric(pageField)) {
-            final ApiResponse.Error errorBody = new ApiResponse.Error("invalid page param");
-            sendResponse(context, new ApiResponse(HttpResponseStatus.BAD_REQUEST.code(), errorBody));
-        }
+        if (queryParams.getError() != null) {
+            queryParams.getError().send(context.response());
 
-        if (isNotBlank(sizeField) && !isNumeric(sizeField)) {
-            final ApiResponse.Error errorBody = new ApiResponse.Error("invalid size param");
-            sendResponse(context, new ApiResponse(HttpResponseStatus.BAD_REQUEST.code(), errorBody));
-        } else if (isNumeric(sizeField) && Integer.valueOf(sizeField) <= 0) {
-            final ApiResponse.Error errorBody = new ApiResponse.Error("size param should be greater than 0");
-            sendResponse(context, new ApiResponse(HttpResponseStatus.BAD_REQUEST.code(), errorBody));
+            return;
         }
+
+        context.put(QueryParams.CONTEXT_KEY, queryParams);
+        context.next();
     }
 
 }
@@ -0,0 +1,206 @@
+package org.example.microservicecommon.admission;
+
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpHeaders;
+import io.vertx.core.http.HttpServerRequest;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.RoutingContext;
+import org.example.microservicecommon.http.ErrorResponse;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Admission control for a verticle: rejects requests early with a 503 while the service is overloaded,
+ * so that admitted requests keep a bounded latency.
+ * <p>
+ * Load is sampled from the delay of a periodic timer on the verticle event loop and from the number of
+ * tasks waiting for a worker thread ({@link WorkerTasks}). The load level is the highest ratio of a sample
+ * to its threshold. From level 1, <code>low</code> priority requests are rejected, and from level 2
+ * <code>normal</code> ones too. <code>high</code> priority requests are always admitted.
+ * By default the priority of a request is read from the {@link #PRIORITY_HEADER} header. Services trust the
+ * header as the API gateway replaces the value sent by clients; they must therefore only be reachable through
+ * the gateway, or any client can raise its own priority. Verticles receiving requests straight from clients,
+ * such as the gateway itself, set a {@link #priorityFunction(Function)} instead.
+ * <p>
+ * Supported config keys: <code>enabled</code>, <code>sampleInterval</code>, <code>maxEventLoopLag</code>
+ * (milliseconds), <code>maxPendingWorkerTasks</code> and <code>defaultPriority</code>.
+ */
+public class AdmissionController {
+
+    /**
+     * Header holding the priority of a request: <code>high</code>, <code>normal</code> or <code>low</code>.
+     */
+    public static final String PRIORITY_HEADER = "X-Request-Priority";
+
+    /**
+     * Encoded once, rejections are sent without building a response.
+     */
+    private static final Buffer SERVICE_UNAVAILABLE = ErrorResponse.of(503, "service unavailable").getBody();
+
+    private static final String SERVICE_UNAVAILABLE_LENGTH = String.valueOf(SERVICE_UNAVAILABLE.length());
+
+    private final boolean enabled;
+
+    private final long sampleInterval;
+
+    private final long maxEventLoopLag;
+
+    private final int maxPendingWorkerTasks;
+
+    private final Priority defaultPriority;
+
+    private final WorkerTasks workerTasks;
+
+    private Function<HttpServerRequest, String> priorityFunction = request -> request.getHeader(PRIORITY_HEADER);
+
+    /**
+     * Event loop delay measured by the last sample, in milliseconds.
+     */
+    private volatile long eventLoopLag;
+
+    private long timerId = -1;
+
+    private final LongAdder admitted = new LongAdder();
+
+    private final LongAdder shed = new LongAdder();
+
+    public AdmissionController(final Vertx vertx, final JsonObject config) {
+        this.enabled = config.getBoolean("enabled", false);
+        this.sampleInterval = config.getLong("sampleInterval", 50L);
+        this.maxEventLoopLag = config.getLong("maxEventLoopLag", 100L);
+        this.maxPendingWorkerTasks = config.getInteger("maxPendingWorkerTasks", 500);
+        this.defaultPriority = Priority.parse(config.getString("defaultPriority"), Priority.NORMAL);
+        this.workerTasks = WorkerTasks.get(vertx);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Set the function returning the priority of a request, in place of reading the {@link #PRIORITY_HEADER}
+     * header.
+     * @param priorityFunction function returning <code>high</code>, <code>normal</code> or <code>low</code>,
+     *                         any other value or <code>null</code> meaning <code>defaultPriority</code>
+     * @return a reference to this
+     */
+    public AdmissionController priorityFunction(final Function<HttpServerRequest, String> priorityFunction) {
+        this.priorityFunction = priorityFunction;
+
+        return this;
+    }
+
+    /**
+     * Start sampling the event loop of the current context.
+     * @param vertx vertx instance
+     */
+    public void start(final Vertx vertx) {
+        if (!enabled) {
+            return;
+        }
+
+        final long[] expected = {System.nanoTime() + sampleInterval * 1_000_000L};
+
+        timerId = vertx.setPeriodic(sampleInterval, id -> {
+            final long now = System.nanoTime();
+
+            eventLoopLag = Math.max(0L, (now - expected[0]) / 1_000_000L);
+            expected[0] = now + sampleInterval * 1_000_000L;
+        });
+    }
+
+    /**
+     * Stop sampling.
+     * @param vertx vertx instance
+     */
+    public void stop(final Vertx vertx) {
+        if (timerId != -1) {
+            vertx.cancelTimer(timerId);
+            timerId = -1;
+        }
+    }
+
+    /**
+     * Route handler admitting or rejecting a request.
+     * @param context request context
+     */
+    public void handle(final RoutingContext context) {
+        if (!enabled || admit(priority(context))) {
+            admitted.increment();
+            context.next();
+
+            return;
+        }
+
+        shed.increment();
+
+        context
+                .response()
+                .setStatusCode(503)
+                .putHeader(HttpHeaders.CONTENT_TYPE, "application/json; charset=utf-8")
+                .putHeader(HttpHeaders.CONTENT_LENGTH, SERVICE_UNAVAILABLE_LENGTH)
+                .putHeader(HttpHeaders.RETRY_AFTER, "1")
+                .end(SERVICE_UNAVAILABLE);
+    }
+
+    /**
+     * Returns the current load level: the highest ratio of a load sample to its threshold.
+     * A threshold of 0 or less disables its sample.
+     */
+    public double loadLevel() {
+        final double lagLevel = maxEventLoopLag > 0 ? (double) eventLoopLag / maxEventLoopLag : 0;
+        final double workerLevel = maxPendingWorkerTasks > 0
+                ? (double) workerTasks.getPending() / maxPendingWorkerTasks
+                : 0;
+
+        return Math.max(lagLevel, workerLevel);
+    }
+
+    public JsonObject metrics() {
+        return new JsonObject()
+                .put("admitted", admitted.sum())
+                .put("shed", shed.sum())
+                .put("eventLoopLag", eventLoopLag)
+                .put("pendingWorkerTasks", workerTasks.getPending());
+    }
+
+    private boolean admit(final Priority priority) {
+        if (priority == Priority.HIGH) {
+            return true;
+        }
+
+        final double level = loadLevel();
+
+        return priority == Priority.LOW ? level < 1 : level < 2;
+    }
+
+    private Priority priority(final RoutingContext context) {
+        return Priority.parse(priorityFunction.apply(context.request()), defaultPriority);
+    }
+
+    /**
+     * Request priority.
+     */
+    enum Priority {
+        HIGH, NORMAL, LOW;
+
+        static Priority parse(final String value, final Priority defaultValue) {
+            if (value == null) {
+                return defaultValue;
+            }
+
+            switch (value.toLowerCase()) {
+                case "high":
+                    return HIGH;
+                case "normal":
+                    return NORMAL;
+                case "low":
+                    return LOW;
+                default:
+                    return defaultValue;
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package org.example.microservicecommon.admission;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.core.Promise;
+import io.vertx.core.Vertx;
+import io.vertx.core.shareddata.Shareable;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs blocking code on the worker pool while counting the tasks waiting for a worker thread,
+ * which Vert.x does not expose. There is one instance per Vert.x instance, shared by all verticles.
+ */
+public class WorkerTasks implements Shareable {
+
+    private static final String MAP_NAME = "microservice-common";
+
+    private static final String KEY = "worker-tasks";
+
+    private final Vertx vertx;
+
+    /**
+     * Tasks submitted and not yet started.
+     */
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private WorkerTasks(final Vertx vertx) {
+        this.vertx = vertx;
+    }
+
+    /**
+     * Returns the worker tasks of a Vert.x instance.
+     * @param vertx vertx instance
+     * @return worker tasks
+     */
+    public static WorkerTasks get(final Vertx vertx) {
+        return vertx.sharedData().<String, WorkerTasks>getLocalMap(MAP_NAME)
+                .computeIfAbsent(KEY, key -> new WorkerTasks(vertx));
+    }
+
+    /**
+     * Same as {@link Vertx#executeBlocking(Handler, boolean, Handler)}, counting the task as pending
+     * until a worker thread picks it up.
+     * @param blockingCodeHandler blocking code
+     * @param ordered whether tasks of the same context run in order
+     * @param resultHandler handler called with the result
+     * @param <T> result type
+     */
+    public <T> void executeBlocking(
+            final Handler<Promise<T>> blockingCodeHandler,
+            final boolean ordered,
+            final Handler<AsyncResult<T>> resultHandler
+    ) {
+        pending.incrementAndGet();
+
+        vertx.executeBlocking(promise -> {
+            pending.decrementAndGet();
+            blockingCodeHandler.handle(promise);
+        }, ordered, resultHandler);
+    }
+
+    /**
+     * Same as {@link #executeBlocking(Handler, boolean, Handler)} with ordered tasks.
+     */
+    public <T> void executeBlocking(
+            final Handler<Promise<T>> blockingCodeHandler,
+            final Handler<AsyncResult<T>> resultHandler
+    ) {
+        executeBlocking(blockingCodeHandler, true, resultHandler);
+    }
+
+    /**
+     * Returns the number of tasks waiting for a worker thread.
+     */
+    public int getPending() {
+        return pending.get();
+    }
+}
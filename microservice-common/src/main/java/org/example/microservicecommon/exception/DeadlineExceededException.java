@@ -0,0 +1,12 @@
+package org.example.microservicecommon.exception;
+
+/**
+ * Exception thrown when the deadline of a request has passed before its work could be completed.
+ */
+public class DeadlineExceededException extends ServiceException {
+
+    public DeadlineExceededException(final String message) {
+        super(message);
+        this.httpStatus = 504;
+    }
+}
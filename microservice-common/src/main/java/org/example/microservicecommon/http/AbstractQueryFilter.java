@@ -1,13 +1,56 @@
 package org.example.microservicecommon.http;
 
+import com.querydsl.core.BooleanBuilder;
+import com.querydsl.core.types.Predicate;
 import io.vertx.core.json.JsonObject;
 
 public abstract class AbstractQueryFilter implements QueryFilter {
 
-    protected final JsonObject queryParams;
+    /**
+     * Template predicates, keyed by class and {@link #predicateKey()}.
+     */
+    private static final QuerySpecCache<BooleanBuilder> predicateCache = new QuerySpecCache<>(1024);
 
-    public AbstractQueryFilter(final JsonObject params) {
+    protected final QueryParams queryParams;
+
+    public AbstractQueryFilter(final QueryParams params) {
         this.queryParams = params;
     }
 
+    public AbstractQueryFilter(final JsonObject params) {
+        this(QueryParams.fromJson(params));
+    }
+
+    /**
+     * Returns QueryDSL predicate for filters, generated once per filter combination.
+     * A {@link BooleanBuilder} is mutable, so a new one wraps the immutable predicate of the cached template.
+     * @return Boolean Builder
+     */
+    public BooleanBuilder predicate() {
+        final Predicate template = predicateCache
+                .get(getClass().getName() + "?" + predicateKey(), this::generateBooleanBuilder)
+                .getValue();
+
+        return template == null ? new BooleanBuilder() : new BooleanBuilder(template);
+    }
+
+    /**
+     * Returns the size and hit rate of the predicate cache.
+     */
+    public static JsonObject predicateCacheMetrics() {
+        return predicateCache.metrics();
+    }
+
+    /**
+     * Returns QueryDSL predicate for filters.
+     * @return Boolean Builder
+     */
+    public abstract BooleanBuilder generateBooleanBuilder();
+
+    /**
+     * Returns a key identifying the filter values: filters with the same key must generate the same predicate.
+     * @return normalized filter values
+     */
+    protected abstract String predicateKey();
+
 }
@@ -1,17 +1,11 @@
 package org.example.microservicecommon.http;
 
-import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
-import org.apache.commons.lang3.StringUtils;
 import org.example.microservicecommon.exception.InvalidSortFieldException;
-import org.springframework.data.domain.PageRequest;
+import org.example.microservicecommon.exception.InvalidValueException;
 import org.springframework.data.domain.Pageable;
 
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
 
 /**
  * Abstract class for wrapping pagination and sort parameters passed in the request.
@@ -34,9 +28,14 @@ public abstract class AbstractQueryPageAndSort implements QueryPagination, Query
     public static final String sizeKey = "size";
 
     /**
-     * list for sort values.
+     * keyset pagination cursor parameter key.
      */
-    protected final List<String> sort = new ArrayList<>();
+    public static final String cursorKey = "cursor";
+
+    /**
+     * Compiled specs, keyed by class, page size and sort.
+     */
+    private static final QuerySpecCache<QuerySpec> specCache = new QuerySpecCache<>(1024);
 
     /**
      * page number value.
@@ -49,100 +48,123 @@ public abstract class AbstractQueryPageAndSort implements QueryPagination, Query
     protected final Integer size;
 
     /**
-     * all query params.
+     * pagination and sort query params.
      */
-    protected final JsonObject queryParams;
+    protected final QueryParams queryParams;
 
     /**
      * list of {@link Sort} objects parsed from <code>sort</code> field.
      * Stores both sort field and direction.
      */
-    protected final List<Sort> sortParams = new ArrayList<>();
+    protected final List<Sort> sortParams;
 
     /**
-     * Parses pagination and sort parameters.
-     * Default values are considered in case no value is provided.
-     * @param queryParams all query params
+     * keyset pagination cursor, null for offset pagination.
      */
-    public AbstractQueryPageAndSort(final JsonObject queryParams) {
-        this.queryParams = queryParams;
-        final JsonArray sortFields = queryParams.getJsonArray(sortKey);
-        final JsonArray pageValues = queryParams.getJsonArray(pageKey);
-        final JsonArray sizeValues = queryParams.getJsonArray(sizeKey);
-
-        if (sortFields != null) {
-            sortFields.forEach(each -> this.sort.add(each.toString()));
-        }
+    protected final Cursor cursor;
 
-        if (this.sort != null) {
-            this.sort.forEach(each -> this.sortParams.add(new Sort(each)));
-        }
+    /**
+     * compiled spec, looked up on first use.
+     */
+    private QuerySpec spec;
 
-        if (pageValues != null && !pageValues.getList().isEmpty()) {
-            final String pageVal = pageValues.getList().get(0) == null
-                    ? null
-                    : pageValues.getList().get(0).toString();
-
-            if (StringUtils.isBlank(pageVal)) {
-                this.page = 0;
-            } else {
-                this.page = StringUtils.isNumeric(pageVal) ? Integer.valueOf(pageVal) : 0;
-            }
-        } else {
-            this.page = 0;
-        }
+    /**
+     * Wraps the pagination and sort parameters parsed from the request.
+     * @param queryParams parsed query params
+     */
+    public AbstractQueryPageAndSort(final QueryParams queryParams) {
+        this.queryParams = queryParams.withoutFilters();
+        this.page = queryParams.getPage();
+        this.size = queryParams.getSize();
+        this.sortParams = queryParams.getSort();
+        this.cursor = queryParams.getCursor();
+    }
 
-        if (sizeValues != null && !sizeValues.getList().isEmpty()) {
-            final String sizeVal = sizeValues.getList().get(0) == null
-                    ? null
-                    : sizeValues.getList().get(0).toString();
-
-            if (StringUtils.isBlank(sizeVal)) {
-                this.size = 10;
-            } else {
-                this.size = StringUtils.isNumeric(sizeVal) ? Integer.valueOf(sizeVal) : 10;
-            }
-        } else {
-            this.size = 10;
-        }
+    /**
+     * Parses pagination and sort parameters from JSON, see {@link QueryParams#fromJson(JsonObject)}.
+     * Default values are considered in case no value is provided.
+     * @param queryParams query params JSON
+     */
+    public AbstractQueryPageAndSort(final JsonObject queryParams) {
+        this(QueryParams.fromJson(queryParams));
     }
 
+    /**
+     * Returns the compact JSON form of the pagination and sort parameters, sent over the event bus.
+     * @return {@link JsonObject}
+     */
     public JsonObject toJson() {
-        final JsonObject json = new JsonObject();
+        return queryParams.toJson();
+    }
 
-        if (this.sort != null) {
-            json.put(sortKey, new JsonArray(this.sort));
-        }
+    public abstract List<String> fields();
 
-        if (this.page != null) {
-            json.put(pageKey, new JsonArray(Arrays.asList(this.page)));
-        }
+    /**
+     * Returns the unique field breaking ties between rows with the same sort values in cursor pagination.
+     */
+    public String tiebreaker() {
+        return "id";
+    }
 
-        if (this.size != null) {
-            json.put(sizeKey, new JsonArray(Arrays.asList(this.size)));
+    /**
+     * Returns the compiled spec of the sort and page size, from the cache when another request used them already.
+     * @return compiled spec
+     */
+    public QuerySpec spec() {
+        if (spec == null) {
+            final StringBuilder key = new StringBuilder(getClass().getName())
+                    .append('?').append(sizeKey).append('=').append(size);
+
+            sortParams.forEach(each -> key.append('&').append(sortKey).append('=').append(each.toParam()));
+            spec = specCache.get(key.toString(), () -> new QuerySpec(sortParams, size, fields(), tiebreaker()));
         }
 
-        return json;
+        return spec;
     }
 
-    public abstract List<String> fields();
+    /**
+     * Returns the size and hit rate of the compiled spec cache.
+     */
+    public static JsonObject specCacheMetrics() {
+        return specCache.metrics();
+    }
 
     /**
      * Validate sort parameter fields and throw <code>InvalidSortFieldException</code> if invalid.
      * @throws InvalidSortFieldException
      */
     public void validateSort() {
-        final Set<String> sortFields = sortParams.stream().map(Sort::getField).collect(Collectors.toSet());
-        final List<String> invalidFields = new ArrayList<>();
+        spec().validate();
+    }
 
-        for (final String field : sortFields) {
-            if (!fields().contains(field)) {
-                invalidFields.add(field);
-            }
-        }
+    /**
+     * Returns whether the list is paginated with a cursor rather than a page number. The page number is then ignored.
+     */
+    public boolean isCursorMode() {
+        return cursor != null;
+    }
+
+    /**
+     * Returns the keyset pagination cursor, null for offset pagination.
+     */
+    public Cursor getCursor() {
+        return cursor;
+    }
 
-        if (!invalidFields.isEmpty()) {
-            throw new InvalidSortFieldException("invalid sort fields: ".concat(String.join(",", invalidFields)));
+    /**
+     * Returns the sort keys of cursor pagination, ending with the tiebreaker.
+     */
+    public List<Sort> keyset() {
+        return spec().getKeyset();
+    }
+
+    /**
+     * Validate the cursor and throw <code>InvalidValueException</code> if it was built for another sort.
+     * @throws InvalidValueException
+     */
+    public void validateCursor() {
+        if (cursor != null && !cursor.isFirst() && !cursor.matches(keyset())) {
+            throw new InvalidValueException(cursorKey, "invalid cursor param");
         }
     }
 
@@ -183,22 +205,6 @@ public abstract class AbstractQueryPageAndSort implements QueryPagination, Query
      * @return {@link Pageable} object
      */
     public Pageable getJpaPageable() {
-        final List<org.springframework.data.domain.Sort.Order> jpaSorts = new ArrayList<>();
-
-        for (final Sort eachSort : sortParams) {
-            final org.springframework.data.domain.Sort.Direction dir;
-
-            if (eachSort.isAscending()) {
-                dir = org.springframework.data.domain.Sort.Direction.ASC;
-            } else {
-                dir = org.springframework.data.domain.Sort.Direction.DESC;
-            }
-
-            jpaSorts.add(new org.springframework.data.domain.Sort.Order(dir, eachSort.getField()));
-        }
-
-        final org.springframework.data.domain.Sort jpaSort = org.springframework.data.domain.Sort.by(jpaSorts);
-
-        return PageRequest.of(pageNumber(), limit(), jpaSort);
+        return spec().pageable(page);
     }
 }
@@ -0,0 +1,136 @@
+package org.example.microservicecommon.http;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Opaque position in a keyset paginated list: the sort key values of the last row of a page, the last one being
+ * the unique tiebreaker. The token is the URL-safe base64 of <code>{"k":["field,direction",...],"v":[...]}</code>:
+ * the keyset it was built for is kept, so that it is not applied to a list with another sort.
+ */
+public final class Cursor {
+
+    /**
+     * Cursor of the first page, with an empty token.
+     */
+    public static final Cursor FIRST = new Cursor("", Collections.emptyList(), Collections.emptyList());
+
+    private static final String KEYS_KEY = "k";
+
+    private static final String VALUES_KEY = "v";
+
+    private final String token;
+
+    private final List<String> keys;
+
+    private final List<Object> values;
+
+    private Cursor(final String token, final List<String> keys, final List<Object> values) {
+        this.token = token;
+        this.keys = keys;
+        this.values = values;
+    }
+
+    /**
+     * Create the cursor following a row.
+     * @param keyset sort keys, ending with the tiebreaker
+     * @param values sort key values of the row, in keyset order
+     * @return cursor
+     */
+    public static Cursor of(final List<Sort> keyset, final List<Object> values) {
+        final List<String> keys = new ArrayList<>(keyset.size());
+        keyset.forEach(each -> keys.add(each.toParam()));
+
+        final String json = new JsonObject()
+                .put(KEYS_KEY, new JsonArray(keys))
+                .put(VALUES_KEY, new JsonArray(new ArrayList<>(values)))
+                .encode();
+
+        return new Cursor(
+                Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8)),
+                Collections.unmodifiableList(keys),
+                Collections.unmodifiableList(new ArrayList<>(values))
+        );
+    }
+
+    /**
+     * Decode a cursor token.
+     * @param token cursor token, blank for the first page
+     * @return cursor, null if the token is invalid
+     */
+    public static Cursor decode(final String token) {
+        if (token == null || token.trim().isEmpty()) {
+            return FIRST;
+        }
+
+        try {
+            final JsonObject json = new JsonObject(new String(
+                    Base64.getUrlDecoder().decode(token),
+                    StandardCharsets.UTF_8
+            ));
+            final JsonArray keys = json.getJsonArray(KEYS_KEY);
+            final JsonArray values = json.getJsonArray(VALUES_KEY);
+
+            if (keys == null || values == null || keys.isEmpty() || keys.size() != values.size()) {
+                return null;
+            }
+
+            final List<String> keyList = new ArrayList<>(keys.size());
+            keys.forEach(each -> keyList.add(String.valueOf(each)));
+
+            final List<Object> valueList = new ArrayList<>(values.size());
+            values.forEach(valueList::add);
+
+            return new Cursor(
+                    token,
+                    Collections.unmodifiableList(keyList),
+                    Collections.unmodifiableList(valueList)
+            );
+        } catch (final RuntimeException ex) {
+            // not base64, not a JSON object or unexpected member types
+            return null;
+        }
+    }
+
+    /**
+     * Returns whether this is the cursor of the first page.
+     */
+    public boolean isFirst() {
+        return values.isEmpty();
+    }
+
+    /**
+     * Returns whether the cursor was built for a keyset.
+     * @param keyset sort keys, ending with the tiebreaker
+     */
+    public boolean matches(final List<Sort> keyset) {
+        if (keyset.size() != keys.size()) {
+            return false;
+        }
+
+        for (int i = 0; i < keys.size(); i++) {
+            if (!keys.get(i).equals(keyset.get(i).toParam())) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    /**
+     * Returns the sort key values of the last row, in keyset order.
+     */
+    public List<Object> getValues() {
+        return values;
+    }
+}
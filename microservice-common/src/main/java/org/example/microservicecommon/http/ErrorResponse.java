@@ -0,0 +1,57 @@
+package org.example.microservicecommon.http;
+
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerResponse;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Error response with a constant message, encoded once and sent by reference.
+ * The body is the one of <code>new ApiResponse(status, new ApiResponse.Error(message)).toJson().encode()</code>.
+ * Responses are registered by status and message, so that every caller shares the same instance.
+ */
+public final class ErrorResponse {
+
+    private static final Map<String, ErrorResponse> registry = new ConcurrentHashMap<>();
+
+    private final int status;
+
+    /**
+     * Encoded body. Buffers created from bytes are not released when written, so it can be sent many times.
+     */
+    private final Buffer body;
+
+    private ErrorResponse(final int status, final String message) {
+        this.status = status;
+        this.body = Buffer.buffer(new ApiResponse(status, new ApiResponse.Error(message)).toJson().encode());
+    }
+
+    /**
+     * Returns the error response for a status and a message, encoding it on first use.
+     * @param status HTTP status
+     * @param message error message
+     * @return shared error response
+     */
+    public static ErrorResponse of(final int status, final String message) {
+        return registry.computeIfAbsent(status + " " + message, key -> new ErrorResponse(status, message));
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public Buffer getBody() {
+        return body;
+    }
+
+    /**
+     * Send the error response.
+     * @param response HTTP response
+     */
+    public void send(final HttpServerResponse response) {
+        response
+                .setStatusCode(status)
+                .end(body);
+    }
+}
@@ -0,0 +1,94 @@
+package org.example.microservicecommon.http;
+
+import com.fasterxml.jackson.core.util.BufferRecyclers;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpServerResponse;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Error response whose message has one parameter, eg: <code>invalid sort fields: {}</code>.
+ * The parts around the parameter are encoded once, so sending an error only escapes the parameter.
+ * The body is the one of <code>new ApiResponse(status, new ApiResponse.Error(message)).toJson().encode()</code>.
+ */
+public final class ErrorTemplate {
+
+    /**
+     * Placeholder of the parameter in a message pattern.
+     */
+    public static final String PLACEHOLDER = "{}";
+
+    private static final Map<String, ErrorTemplate> registry = new ConcurrentHashMap<>();
+
+    private final int status;
+
+    /**
+     * Encoded body before and after the parameter.
+     */
+    private final byte[] prefix;
+
+    private final byte[] suffix;
+
+    private ErrorTemplate(final int status, final String pattern) {
+        final int placeholder = pattern.indexOf(PLACEHOLDER);
+
+        if (placeholder < 0) {
+            throw new IllegalArgumentException("No " + PLACEHOLDER + " in error message pattern: " + pattern);
+        }
+
+        // encoded with a marker instead of the placeholder, so that the parts are escaped as in the full message
+        final String marker = "\u0000";
+        final String encoded = new ApiResponse(
+                status,
+                new ApiResponse.Error(pattern.substring(0, placeholder) + marker
+                        + pattern.substring(placeholder + PLACEHOLDER.length()))
+        ).toJson().encode();
+        final String encodedMarker = "\\u0000";
+        final int split = encoded.indexOf(encodedMarker);
+
+        this.status = status;
+        this.prefix = Buffer.buffer(encoded.substring(0, split)).getBytes();
+        this.suffix = Buffer.buffer(encoded.substring(split + encodedMarker.length())).getBytes();
+    }
+
+    /**
+     * Returns the template for a status and a message pattern, encoding it on first use.
+     * @param status HTTP status
+     * @param pattern error message with one {@link #PLACEHOLDER}
+     * @return shared template
+     */
+    public static ErrorTemplate of(final int status, final String pattern) {
+        return registry.computeIfAbsent(status + " " + pattern, key -> new ErrorTemplate(status, pattern));
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * Returns the body for a parameter.
+     * @param parameter parameter value
+     * @return encoded body
+     */
+    public Buffer body(final String parameter) {
+        // the encoder is per thread, it keeps its buffers between calls
+        final byte[] value = BufferRecyclers.getJsonStringEncoder().quoteAsUTF8(String.valueOf(parameter));
+
+        return Buffer.buffer(prefix.length + value.length + suffix.length)
+                .appendBytes(prefix)
+                .appendBytes(value)
+                .appendBytes(suffix);
+    }
+
+    /**
+     * Send the error response for a parameter.
+     * @param response HTTP response
+     * @param parameter parameter value
+     */
+    public void send(final HttpServerResponse response, final String parameter) {
+        response
+                .setStatusCode(status)
+                .end(body(parameter));
+    }
+}
@@ -0,0 +1,140 @@
+package org.example.microservicecommon.http;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufOutputStream;
+import io.netty.buffer.Unpooled;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.json.EncodeException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Writes API responses straight into a {@link Buffer} with a Jackson generator, without building the
+ * {@link ApiResponse}, {@link PagedResponse} and {@link io.vertx.core.json.JsonObject} trees first.
+ * <p>
+ * The output is byte for byte the one of <code>new ApiResponse(status, new PagedResponse(...).toJson())
+ * .toJson().encode()</code>: same generator settings, same fields in the same order. Jackson recycles its
+ * internal buffers per thread, and the output buffer is sized from the previous responses so that it is
+ * not grown while writing.
+ */
+public final class JsonResponseWriter {
+
+    /**
+     * Configured like <code>io.vertx.core.json.Json.mapper</code>, whose generator defaults it keeps.
+     */
+    private static final JsonFactory factory = new ObjectMapper()
+            .configure(JsonParser.Feature.ALLOW_COMMENTS, true)
+            .getFactory();
+
+    /**
+     * Initial capacity of the output buffer, following the size of the last responses.
+     */
+    private static volatile int sizeHint = 256;
+
+    private static final int MAX_SIZE_HINT = 64 * 1024;
+
+    private JsonResponseWriter() {
+    }
+
+    /**
+     * Writes a paginated response, equivalent to an {@link ApiResponse} holding a {@link PagedResponse}.
+     * @param status HTTP status
+     * @param key key of the list payload
+     * @param items items
+     * @param page page number, left out if null
+     * @param size page size, left out if null
+     * @param totalElements total items, left out if null
+     * @return encoded response
+     */
+    public static Buffer writePage(
+            final int status,
+            final String key,
+            final List<? extends JsonWritable> items,
+            final Integer page,
+            final Integer size,
+            final Long totalElements
+    ) {
+        return writePage(status, key, items, page, size, totalElements, null);
+    }
+
+    /**
+     * Writes a paginated response, equivalent to an {@link ApiResponse} holding a {@link PagedResponse}.
+     * @param status HTTP status
+     * @param key key of the list payload
+     * @param items items
+     * @param page page number, left out if null
+     * @param size page size, left out if null
+     * @param totalElements total items, left out if null
+     * @param next cursor token of the next page, left out if null
+     * @return encoded response
+     */
+    public static Buffer writePage(
+            final int status,
+            final String key,
+            final List<? extends JsonWritable> items,
+            final Integer page,
+            final Integer size,
+            final Long totalElements,
+            final String next
+    ) {
+        final ByteBuf byteBuf = Unpooled.buffer(sizeHint);
+        final OutputStream out = new ByteBufOutputStream(byteBuf);
+
+        try (JsonGenerator generator = factory.createGenerator(out)) {
+            generator.writeStartObject();
+            generator.writeNumberField("status", status);
+            generator.writeObjectFieldStart("data");
+            generator.writeArrayFieldStart(key);
+
+            for (final JsonWritable item : items) {
+                item.writeJson(generator);
+            }
+
+            generator.writeEndArray();
+            writePagination(generator, page, size, totalElements, next);
+            generator.writeEndObject();
+            generator.writeEndObject();
+        } catch (final IOException ex) {
+            throw new EncodeException("Failed to encode as JSON: " + ex.getMessage());
+        }
+
+        // a little headroom so that a slightly larger response does not grow the buffer
+        sizeHint = Math.min(byteBuf.readableBytes() + (byteBuf.readableBytes() >> 3), MAX_SIZE_HINT);
+
+        return Buffer.buffer(byteBuf);
+    }
+
+    private static void writePagination(
+            final JsonGenerator generator,
+            final Integer page,
+            final Integer size,
+            final Long totalElements,
+            final String next
+    ) throws IOException {
+        generator.writeObjectFieldStart("_pagination");
+
+        if (page != null) {
+            generator.writeNumberField("page", page);
+        }
+
+        if (size != null) {
+            generator.writeNumberField("size", size);
+        }
+
+        if (totalElements != null) {
+            generator.writeNumberField("totalElements", totalElements);
+        }
+
+        if (next != null) {
+            generator.writeStringField("next", next);
+        }
+
+        generator.writeEndObject();
+    }
+}
@@ -0,0 +1,19 @@
+package org.example.microservicecommon.http;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+
+/**
+ * Interface for objects which can write themselves as JSON without building a {@link io.vertx.core.json.JsonObject}.
+ */
+public interface JsonWritable {
+
+    /**
+     * Writes the object as a JSON object, with the same fields in the same order as its JSON representation.
+     * @param generator generator to write to
+     * @throws IOException if writing fails
+     */
+    void writeJson(JsonGenerator generator) throws IOException;
+
+}
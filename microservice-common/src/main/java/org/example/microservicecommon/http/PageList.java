@@ -34,6 +34,11 @@ public abstract class PageList<T extends AbstractDataObject> {
      */
     protected Long totalElements;
 
+    /**
+     * Cursor token of the next page in cursor pagination, null on the last page.
+     */
+    protected String next;
+
     protected PageList() {
     }
 
@@ -44,6 +49,18 @@ public abstract class PageList<T extends AbstractDataObject> {
         this.totalElements = page.getTotalElements();
     }
 
+    /**
+     * Page of a cursor paginated list, without page number and total.
+     * @param content items
+     * @param size page size
+     * @param next cursor token of the next page, null on the last page
+     */
+    public PageList(final List<T> content, final Integer size, final String next) {
+        this.content = content;
+        this.size = size;
+        this.next = next;
+    }
+
     public PageList(final JsonObject json) {
         for (java.util.Map.Entry<String, Object> member : json) {
             switch (member.getKey()) {
@@ -75,6 +92,11 @@ public abstract class PageList<T extends AbstractDataObject> {
                     this.totalElements = ((Number)member.getValue()).longValue();
                 }
                 break;
+            case "next":
+                if (member.getValue() instanceof String) {
+                    this.next = (String) member.getValue();
+                }
+                break;
             }
         }
     }
@@ -100,6 +122,10 @@ public abstract class PageList<T extends AbstractDataObject> {
             json.put("totalElements", this.totalElements);
         }
 
+        if (this.next != null) {
+            json.put("next", this.next);
+        }
+
         return json;
     }
 
@@ -130,4 +156,11 @@ public abstract class PageList<T extends AbstractDataObject> {
     public Long getTotalElements() {
         return totalElements;
     }
+
+    /**
+     * Returns the cursor token of the next page, null on the last page or in offset pagination.
+     */
+    public String getNext() {
+        return next;
+    }
 }
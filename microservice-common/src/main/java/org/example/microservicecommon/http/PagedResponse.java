@@ -36,6 +36,23 @@ public class PagedResponse implements JsonData {
      */
     private Long totalElements;
 
+    /**
+     * cursor token of the next page.
+     */
+    private String next;
+
+    public PagedResponse(
+            final String key,
+            final List<? extends JsonData> list,
+            final Integer page,
+            final Integer size,
+            final Long totalElements,
+            final String next
+    ) {
+        this(key, list, page, size, totalElements);
+        this.next = next;
+    }
+
     public PagedResponse(
             final String key,
             final List<? extends JsonData> list,
@@ -71,6 +88,10 @@ public class PagedResponse implements JsonData {
             paginationJson.put("totalElements", this.totalElements);
         }
 
+        if (this.next != null) {
+            paginationJson.put("next", this.next);
+        }
+
         json.put("_pagination", paginationJson);
 
         return json;
@@ -0,0 +1,364 @@
+package org.example.microservicecommon.http;
+
+import io.vertx.core.MultiMap;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.apache.commons.lang3.StringUtils.isBlank;
+import static org.apache.commons.lang3.StringUtils.isNumeric;
+import static org.example.microservicecommon.http.AbstractQueryPageAndSort.cursorKey;
+import static org.example.microservicecommon.http.AbstractQueryPageAndSort.pageKey;
+import static org.example.microservicecommon.http.AbstractQueryPageAndSort.sizeKey;
+import static org.example.microservicecommon.http.AbstractQueryPageAndSort.sortKey;
+
+/**
+ * Typed query parameters of a request: page number, page size, sort, keyset pagination cursor and filters.
+ * <p>
+ * Parsed and validated once per request, stored on the routing context under {@link #CONTEXT_KEY}, and read by
+ * the {@link AbstractQueryPageAndSort} and {@link AbstractQueryFilter} hierarchies. Instances are immutable.
+ */
+public final class QueryParams implements JsonData {
+
+    /**
+     * Routing context key of the parsed query parameters.
+     */
+    public static final String CONTEXT_KEY = "queryParams";
+
+    public static final int DEFAULT_PAGE = 0;
+
+    public static final int DEFAULT_SIZE = 10;
+
+    /**
+     * Query parameters of a request without a query string.
+     */
+    public static final QueryParams EMPTY = new QueryParams(
+            DEFAULT_PAGE,
+            DEFAULT_SIZE,
+            Collections.emptyList(),
+            null,
+            Collections.emptyMap(),
+            null
+    );
+
+    private static final ErrorResponse INVALID_SORT_PARAM = ErrorResponse.of(400, "invalid sort param");
+
+    private static final ErrorResponse INVALID_SORT_ORDER = ErrorResponse.of(400, "invalid sort order");
+
+    private static final ErrorResponse DUPLICATE_SORT_FIELD = ErrorResponse.of(400, "duplicate sort field");
+
+    private static final ErrorResponse INVALID_PAGE_PARAM = ErrorResponse.of(400, "invalid page param");
+
+    private static final ErrorResponse INVALID_SIZE_PARAM = ErrorResponse.of(400, "invalid size param");
+
+    private static final ErrorResponse INVALID_CURSOR_PARAM = ErrorResponse.of(400, "invalid cursor param");
+
+    private static final ErrorResponse NON_POSITIVE_SIZE_PARAM = ErrorResponse.of(
+            400,
+            "size param should be greater than 0"
+    );
+
+    private final int page;
+
+    private final int size;
+
+    private final List<Sort> sort;
+
+    /**
+     * keyset pagination cursor, null for offset pagination.
+     */
+    private final Cursor cursor;
+
+    /**
+     * parameters other than page, size and sort, in request order.
+     */
+    private final Map<String, List<String>> filters;
+
+    /**
+     * error response for invalid parameters, null if they are valid.
+     */
+    private final ErrorResponse error;
+
+    private QueryParams(
+            final int page,
+            final int size,
+            final List<Sort> sort,
+            final Cursor cursor,
+            final Map<String, List<String>> filters,
+            final ErrorResponse error
+    ) {
+        this.page = page;
+        this.size = size;
+        this.sort = sort;
+        this.cursor = cursor;
+        this.filters = filters;
+        this.error = error;
+    }
+
+    private static QueryParams invalid(final ErrorResponse error) {
+        return new QueryParams(
+                DEFAULT_PAGE,
+                DEFAULT_SIZE,
+                Collections.emptyList(),
+                null,
+                Collections.emptyMap(),
+                error
+        );
+    }
+
+    /**
+     * Parse and validate the query parameters of a request.
+     * Blank page and size values fall back to the defaults, blank sort values are skipped and sort values without
+     * a direction are descending. A <code>cursor</code> param switches to keyset pagination, from the first page
+     * when it is blank.
+     * @param params request query parameters
+     * @return parsed parameters, with an error response if they are invalid
+     */
+    public static QueryParams parse(final MultiMap params) {
+        if (params.isEmpty()) {
+            return EMPTY;
+        }
+
+        final String pageValue = params.get(pageKey);
+        final String sizeValue = params.get(sizeKey);
+        final int page = isBlank(pageValue) ? DEFAULT_PAGE : parseNumber(pageValue);
+        final int size = isBlank(sizeValue) ? DEFAULT_SIZE : parseNumber(sizeValue);
+
+        if (page < 0) {
+            return invalid(INVALID_PAGE_PARAM);
+        }
+
+        if (size < 0) {
+            return invalid(INVALID_SIZE_PARAM);
+        } else if (size == 0) {
+            return invalid(NON_POSITIVE_SIZE_PARAM);
+        }
+
+        final List<String> sortValues = params.getAll(sortKey);
+        final List<Sort> sort = sortValues.isEmpty() ? Collections.emptyList() : new ArrayList<>(sortValues.size());
+
+        for (final String sortValue : sortValues) {
+            if (isBlank(sortValue)) {
+                continue;
+            }
+
+            final String[] fieldSplit = sortValue.split(",");
+
+            if (fieldSplit.length > 2) {
+                return invalid(INVALID_SORT_PARAM);
+            }
+
+            final Sort.Direction direction;
+
+            if (fieldSplit.length == 1) {
+                direction = Sort.Direction.DESC;
+            } else if (Sort.Direction.ASC.name().equalsIgnoreCase(fieldSplit[1])) {
+                direction = Sort.Direction.ASC;
+            } else if (Sort.Direction.DESC.name().equalsIgnoreCase(fieldSplit[1])) {
+                direction = Sort.Direction.DESC;
+            } else {
+                return invalid(INVALID_SORT_ORDER);
+            }
+
+            // sorts are few, a scan is cheaper than a set
+            for (final Sort each : sort) {
+                if (each.getField().equals(fieldSplit[0])) {
+                    return invalid(DUPLICATE_SORT_FIELD);
+                }
+            }
+
+            sort.add(new Sort(fieldSplit[0], direction));
+        }
+
+        final Cursor cursor = params.contains(cursorKey) ? Cursor.decode(params.get(cursorKey)) : null;
+
+        if (params.contains(cursorKey) && cursor == null) {
+            return invalid(INVALID_CURSOR_PARAM);
+        }
+
+        final Map<String, List<String>> filters = new LinkedHashMap<>();
+
+        for (final String name : params.names()) {
+            if (!isPageOrSortKey(name)) {
+                filters.put(name, Collections.unmodifiableList(params.getAll(name)));
+            }
+        }
+
+        return new QueryParams(
+                page,
+                size,
+                Collections.unmodifiableList(sort),
+                cursor,
+                Collections.unmodifiableMap(filters),
+                null
+        );
+    }
+
+    /**
+     * Read query parameters from JSON, without validating them.
+     * Accepts both the compact form written by {@link #toJson()} and the form with every value wrapped
+     * in an array; non numeric page and size values fall back to the defaults, and an invalid cursor to the first
+     * page.
+     * @param json query parameters JSON
+     * @return query parameters
+     */
+    public static QueryParams fromJson(final JsonObject json) {
+        if (json == null || json.isEmpty()) {
+            return EMPTY;
+        }
+
+        final List<Sort> sort = new ArrayList<>();
+        final Map<String, List<String>> filters = new LinkedHashMap<>();
+
+        values(json.getValue(sortKey)).forEach(each -> sort.add(new Sort(each)));
+
+        json.forEach(entry -> {
+            if (!isPageOrSortKey(entry.getKey())) {
+                filters.put(entry.getKey(), Collections.unmodifiableList(values(entry.getValue())));
+            }
+        });
+
+        Cursor cursor = null;
+
+        if (json.containsKey(cursorKey)) {
+            final List<String> cursorValues = values(json.getValue(cursorKey));
+            final Cursor decoded = Cursor.decode(cursorValues.isEmpty() ? null : cursorValues.get(0));
+            cursor = decoded == null ? Cursor.FIRST : decoded;
+        }
+
+        return new QueryParams(
+                intValue(json.getValue(pageKey), DEFAULT_PAGE),
+                intValue(json.getValue(sizeKey), DEFAULT_SIZE),
+                Collections.unmodifiableList(sort),
+                cursor,
+                Collections.unmodifiableMap(filters),
+                null
+        );
+    }
+
+    private static boolean isPageOrSortKey(final String name) {
+        return pageKey.equals(name) || sizeKey.equals(name) || sortKey.equals(name) || cursorKey.equals(name);
+    }
+
+    private static List<String> values(final Object value) {
+        final List<String> values = new ArrayList<>();
+
+        if (value instanceof JsonArray) {
+            ((JsonArray) value).forEach(each -> {
+                if (each != null) {
+                    values.add(each.toString());
+                }
+            });
+        } else if (value != null) {
+            values.add(value.toString());
+        }
+
+        return values;
+    }
+
+    private static int intValue(final Object value, final int defaultValue) {
+        final List<String> values = values(value);
+        final int number = values.isEmpty() ? -1 : parseNumber(values.get(0));
+
+        return number < 0 ? defaultValue : number;
+    }
+
+    /**
+     * Parse an unsigned number.
+     * @return the number, -1 if the value is not a number or does not fit in an int
+     */
+    private static int parseNumber(final String value) {
+        if (!isNumeric(value)) {
+            return -1;
+        }
+
+        try {
+            return Integer.parseInt(value);
+        } catch (final NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    /**
+     * Returns these query parameters without the filters, for the pagination and sort data objects.
+     */
+    public QueryParams withoutFilters() {
+        return filters.isEmpty() ? this : new QueryParams(page, size, sort, cursor, Collections.emptyMap(), error);
+    }
+
+    /**
+     * Compact JSON form: page and size as numbers and only when they are not the defaults, sort values as
+     * <code>field,direction</code> strings, the cursor token and filters as arrays.
+     * @return {@link JsonObject}
+     */
+    @Override
+    public JsonObject toJson() {
+        final JsonObject json = new JsonObject();
+
+        if (page != DEFAULT_PAGE) {
+            json.put(pageKey, page);
+        }
+
+        if (size != DEFAULT_SIZE) {
+            json.put(sizeKey, size);
+        }
+
+        if (!sort.isEmpty()) {
+            final JsonArray sortJson = new JsonArray();
+            sort.forEach(each -> sortJson.add(each.toParam()));
+            json.put(sortKey, sortJson);
+        }
+
+        if (cursor != null) {
+            json.put(cursorKey, cursor.getToken());
+        }
+
+        filters.forEach((name, values) -> json.put(name, new JsonArray(new ArrayList<>(values))));
+
+        return json;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public List<Sort> getSort() {
+        return sort;
+    }
+
+    /**
+     * Returns the keyset pagination cursor, null for offset pagination.
+     */
+    public Cursor getCursor() {
+        return cursor;
+    }
+
+    public Map<String, List<String>> getFilters() {
+        return filters;
+    }
+
+    /**
+     * Returns the values of a filter.
+     * @param name filter name
+     * @return filter values, empty if the filter is not set
+     */
+    public List<String> getFilter(final String name) {
+        return filters.getOrDefault(name, Collections.emptyList());
+    }
+
+    /**
+     * Returns the error response for invalid parameters, null if they are valid.
+     */
+    public ErrorResponse getError() {
+        return error;
+    }
+}
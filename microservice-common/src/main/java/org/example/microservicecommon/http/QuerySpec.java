@@ -0,0 +1,112 @@
+package org.example.microservicecommon.http;
+
+import org.example.microservicecommon.exception.InvalidSortFieldException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Compiled pagination and sort spec: the sort validated against the sortable fields, a template
+ * {@link Pageable} of the first page and the keyset for cursor pagination, shared by every request with the same
+ * sort and page size.
+ * Immutable, cached in {@link QuerySpecCache}.
+ */
+public final class QuerySpec {
+
+    private final List<Sort> sort;
+
+    /**
+     * sort followed by the ascending tiebreaker, unless the sort holds it already.
+     */
+    private final List<Sort> keyset;
+
+    /**
+     * pageable of the first page, other pages reuse its sort.
+     */
+    private final Pageable firstPage;
+
+    /**
+     * comma separated fields not sortable, null if the sort is valid.
+     */
+    private final String invalidFields;
+
+    /**
+     * Compile a spec.
+     * @param sort sort params
+     * @param size page size
+     * @param fields sortable fields
+     * @param tiebreaker unique field ending the keyset
+     */
+    public QuerySpec(final List<Sort> sort, final int size, final List<String> fields, final String tiebreaker) {
+        final List<String> invalid = new ArrayList<>();
+        final List<org.springframework.data.domain.Sort.Order> jpaSorts = new ArrayList<>(sort.size());
+        final List<Sort> keys = new ArrayList<>(sort.size() + 1);
+        boolean unique = false;
+
+        // sort fields are unique once parsed, no need for a set
+        for (final Sort eachSort : sort) {
+            if (!fields.contains(eachSort.getField())) {
+                invalid.add(eachSort.getField());
+            }
+
+            keys.add(eachSort);
+            unique = unique || eachSort.getField().equals(tiebreaker);
+
+            final org.springframework.data.domain.Sort.Direction dir;
+
+            if (eachSort.isAscending()) {
+                dir = org.springframework.data.domain.Sort.Direction.ASC;
+            } else {
+                dir = org.springframework.data.domain.Sort.Direction.DESC;
+            }
+
+            jpaSorts.add(new org.springframework.data.domain.Sort.Order(dir, eachSort.getField()));
+        }
+
+        if (!unique) {
+            keys.add(new Sort(tiebreaker, Sort.Direction.ASC));
+        }
+
+        this.sort = Collections.unmodifiableList(new ArrayList<>(sort));
+        this.keyset = Collections.unmodifiableList(keys);
+        this.firstPage = PageRequest.of(0, size, org.springframework.data.domain.Sort.by(jpaSorts));
+        this.invalidFields = invalid.isEmpty() ? null : String.join(",", invalid);
+    }
+
+    /**
+     * Returns the sort params.
+     */
+    public List<Sort> getSort() {
+        return sort;
+    }
+
+    /**
+     * Returns the sort keys of cursor pagination: the sort followed by the tiebreaker, so that rows are in a total
+     * order.
+     */
+    public List<Sort> getKeyset() {
+        return keyset;
+    }
+
+    /**
+     * Throw <code>InvalidSortFieldException</code> if the sort is not valid.
+     * @throws InvalidSortFieldException
+     */
+    public void validate() {
+        if (invalidFields != null) {
+            throw new InvalidSortFieldException("invalid sort fields: ".concat(invalidFields));
+        }
+    }
+
+    /**
+     * Returns spring {@link Pageable} of a page.
+     * @param page page number
+     * @return {@link Pageable} object
+     */
+    public Pageable pageable(final int page) {
+        return page == 0 ? firstPage : PageRequest.of(page, firstPage.getPageSize(), firstPage.getSort());
+    }
+}
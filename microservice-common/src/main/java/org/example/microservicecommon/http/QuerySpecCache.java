@@ -0,0 +1,86 @@
+package org.example.microservicecommon.http;
+
+import io.vertx.core.json.JsonObject;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of compiled query specs, keyed by the normalized query string.
+ * <p>
+ * Clients send few distinct sort, size and filter combinations, so the working set is small and hits are
+ * lock-free. Once the cache is full, an arbitrary spec is evicted for every new one: unbounded keys, such as
+ * filters on free text, churn through the cache without growing it.
+ * @param <T> compiled spec type, immutable as it is shared between threads
+ */
+public final class QuerySpecCache<T> {
+
+    private final int maxSize;
+
+    private final Map<String, T> specs = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    public QuerySpecCache(final int maxSize) {
+        this.maxSize = Math.max(1, maxSize);
+    }
+
+    /**
+     * Returns the spec cached for a key, compiling it on a miss.
+     * Concurrent misses on the same key may compile it more than once, the last one is kept.
+     * @param key normalized query string
+     * @param compiler spec compiler
+     * @return compiled spec
+     */
+    public T get(final String key, final Supplier<T> compiler) {
+        final T cached = specs.get(key);
+
+        if (cached != null) {
+            hits.increment();
+
+            return cached;
+        }
+
+        misses.increment();
+
+        final T spec = compiler.get();
+
+        if (specs.size() >= maxSize) {
+            final Iterator<String> keys = specs.keySet().iterator();
+
+            if (keys.hasNext()) {
+                keys.next();
+                keys.remove();
+                evictions.increment();
+            }
+        }
+
+        specs.put(key, spec);
+
+        return spec;
+    }
+
+    /**
+     * Returns the cache size and hit rate.
+     */
+    public JsonObject metrics() {
+        final long hitCount = hits.sum();
+        final long missCount = misses.sum();
+        final long lookups = hitCount + missCount;
+
+        return new JsonObject()
+                .put("size", specs.size())
+                .put("maxSize", maxSize)
+                .put("hits", hitCount)
+                .put("misses", missCount)
+                .put("evictions", evictions.sum())
+                .put("hitRate", lookups == 0 ? 0.0 : (double) hitCount / lookups);
+    }
+}
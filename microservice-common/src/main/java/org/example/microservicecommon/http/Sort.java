@@ -23,6 +23,11 @@ public class Sort {
         }
     }
 
+    public Sort(final String field, final Direction direction) {
+        this.field = field;
+        this.direction = direction;
+    }
+
     public String getField() {
         return field;
     }
@@ -32,7 +37,15 @@ public class Sort {
     }
 
     public Boolean isAscending() {
-        return direction.equals(Direction.ASC);
+        return Direction.ASC.equals(direction);
+    }
+
+    /**
+     * Returns the sort as a query parameter value, <code>field,direction</code>.
+     * Fields hold no comma, so a list of these values is unambiguous.
+     */
+    public String toParam() {
+        return field + (isAscending() ? ",asc" : ",desc");
     }
 
     public enum Direction {
@@ -0,0 +1,109 @@
+package org.example.microservicecommon.util;
+
+import io.vertx.core.MultiMap;
+import io.vertx.core.http.HttpServerRequest;
+import org.example.microservicecommon.exception.DeadlineExceededException;
+
+import static org.apache.commons.lang3.StringUtils.isNumeric;
+
+/**
+ * Helpers for request deadlines.
+ * <p>
+ * Between services a deadline travels as the time left in milliseconds in the {@link #TIMEOUT_HEADER} header,
+ * so that it does not depend on the clocks of both hosts agreeing. Within a service it is an absolute time in
+ * epoch milliseconds, {@link #NONE} when the request has no deadline.
+ */
+public final class DeadlineUtils {
+
+    /**
+     * Header holding the time left for a request, in milliseconds.
+     */
+    public static final String TIMEOUT_HEADER = "X-Request-Timeout";
+
+    /**
+     * No deadline.
+     */
+    public static final long NONE = 0L;
+
+    private DeadlineUtils() {
+    }
+
+    /**
+     * Returns the deadline of a request from its {@link #TIMEOUT_HEADER} header.
+     * @param request HTTP request
+     * @return deadline in epoch milliseconds, {@link #NONE} if the header is missing or invalid
+     */
+    public static long fromRequest(final HttpServerRequest request) {
+        return fromHeaders(request.headers());
+    }
+
+    /**
+     * Returns the deadline set by the {@link #TIMEOUT_HEADER} of request headers.
+     * @param headers request headers
+     * @return deadline in epoch milliseconds, {@link #NONE} if the header is missing or invalid
+     */
+    public static long fromHeaders(final MultiMap headers) {
+        final String timeout = headers.get(TIMEOUT_HEADER);
+
+        if (!isNumeric(timeout) || timeout.length() > 18) {
+            return NONE;
+        }
+
+        return System.currentTimeMillis() + Long.parseLong(timeout);
+    }
+
+    /**
+     * Returns the earliest of two deadlines.
+     * @param a deadline or {@link #NONE}
+     * @param b deadline or {@link #NONE}
+     * @return earliest deadline, {@link #NONE} if neither is set
+     */
+    public static long earliest(final long a, final long b) {
+        if (a == NONE) {
+            return b;
+        }
+
+        if (b == NONE) {
+            return a;
+        }
+
+        return Math.min(a, b);
+    }
+
+    /**
+     * Put the time left before a deadline in the {@link #TIMEOUT_HEADER} header, or remove the header when
+     * there is no deadline.
+     * @param headers request headers
+     * @param deadline deadline or {@link #NONE}
+     */
+    public static void putTimeout(final MultiMap headers, final long deadline) {
+        if (deadline == NONE) {
+            headers.remove(TIMEOUT_HEADER);
+
+            return;
+        }
+
+        // an expired deadline is still sent so that the service fails fast instead of doing the work
+        headers.set(TIMEOUT_HEADER, String.valueOf(Math.max(1L, deadline - System.currentTimeMillis())));
+    }
+
+    /**
+     * Returns the time left before a deadline.
+     * @param deadline deadline or {@link #NONE}
+     * @return time left in milliseconds, 0 if there is no deadline
+     * @throws DeadlineExceededException if the deadline has passed
+     */
+    public static long remaining(final long deadline) {
+        if (deadline == NONE) {
+            return 0L;
+        }
+
+        final long remaining = deadline - System.currentTimeMillis();
+
+        if (remaining <= 0) {
+            throw new DeadlineExceededException("deadline exceeded");
+        }
+
+        return remaining;
+    }
+}
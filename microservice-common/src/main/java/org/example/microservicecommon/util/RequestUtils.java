@@ -1,24 +1,28 @@
 package org.example.microservicecommon.util;
 
-import io.vertx.core.json.JsonArray;
-import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.RoutingContext;
-
-import java.util.Set;
+import org.example.microservicecommon.http.QueryParams;
 
 public final class RequestUtils {
 
     private RequestUtils() {
     }
 
-    public static JsonObject getQueryParams(final RoutingContext ctx) {
-        final JsonObject paramJson = new JsonObject();
-        final Set<String> paramKeys = ctx.queryParams().names();
+    /**
+     * Returns the query params parsed for the request, parsing them if no handler did yet.
+     * @param ctx request context
+     * @return parsed query params
+     */
+    public static QueryParams getQueryParams(final RoutingContext ctx) {
+        final QueryParams queryParams = ctx.get(QueryParams.CONTEXT_KEY);
+
+        if (queryParams != null) {
+            return queryParams;
+        }
 
-        paramKeys.forEach(each -> {
-            paramJson.put(each, new JsonArray(ctx.queryParam(each)));
-        });
+        final QueryParams parsed = QueryParams.parse(ctx.queryParams());
+        ctx.put(QueryParams.CONTEXT_KEY, parsed);
 
-        return paramJson;
+        return parsed;
     }
 }